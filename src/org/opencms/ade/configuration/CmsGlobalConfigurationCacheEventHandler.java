@@ -39,6 +39,7 @@ import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.I_CmsSynchronousEventListener;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsUUID;
 
@@ -60,7 +61,7 @@ import org.apache.commons.logging.Log;
  * If you need to cache e.g. a single configuration file with a known, fixed path, using {@link org.opencms.cache.CmsVfsMemoryObjectCache} is
  * easier.<p>
  */
-public class CmsGlobalConfigurationCacheEventHandler implements I_CmsEventListener {
+public class CmsGlobalConfigurationCacheEventHandler implements I_CmsSynchronousEventListener {
 
     /**
      * A pair of cache instances, one for the offline mode and one for the online mode.<p>
@@ -0,0 +1,330 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsLog;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Implements a concurrent LRU (last recently used) cache.<p>
+ *
+ * This cache has the same contract as the {@link CmsLruCache}, but does not serialize all
+ * operations on a single monitor. The cached objects are kept in a concurrent map that stores the
+ * time of the last access for each object, so touching an object is a lock free operation.<p>
+ *
+ * The cache costs (usually the byte size of the cached objects) are accounted atomically.
+ * If the costs of all cached objects exceed the max. cache costs, a single thread evicts
+ * objects until the costs are below the average cache costs again. The evicted objects are the least
+ * recently used objects of small samples of the cached objects, so the cache is never sorted as a whole.
+ * Other threads are not blocked while the eviction is running.<p>
+ *
+ * Unlike the {@link CmsLruCache}, this implementation does not use the double linked list pointers of the
+ * {@link I_CmsLruCacheObject}, the pointers of cached objects are always <code>null</code>.<p>
+ *
+ * @see org.opencms.cache.I_CmsLruCacheObject
+ *
+ * @since 11.0.0
+ */
+public class CmsConcurrentLruCache extends CmsLruCache {
+
+    /**
+     * The cache data stored for each cached object.<p>
+     */
+    private static class CmsLruCacheEntry {
+
+        /** The cache costs of the object at the time it was added. */
+        final int m_costs;
+
+        /** The time of the last access. */
+        volatile long m_lastAccess;
+
+        /**
+         * Creates a new cache entry.<p>
+         *
+         * @param costs the cache costs of the object
+         */
+        CmsLruCacheEntry(int costs) {
+
+            m_costs = costs;
+            m_lastAccess = System.nanoTime();
+        }
+    }
+
+    /** The number of cached objects compared with each other to find an object to evict. */
+    private static final int SAMPLE_SIZE = 16;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsConcurrentLruCache.class);
+
+    /** The cached objects, with the cache data for each object. */
+    private Map<I_CmsLruCacheObject, CmsLruCacheEntry> m_entries;
+
+    /** The lock that makes sure only one thread evicts objects at a time. */
+    private ReentrantLock m_evictionLock;
+
+    /** The costs of all cached objects. */
+    private AtomicLong m_objectCosts;
+
+    /**
+     * The constructor with all options.<p>
+     *
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object. Set theMaxObjectCosts to -1 if you don't want to limit the max. allowed cache costs per object
+     */
+    public CmsConcurrentLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts) {
+
+        super(theMaxCacheCosts, theAvgCacheCosts, theMaxObjectCosts);
+        m_entries = new ConcurrentHashMap<I_CmsLruCacheObject, CmsLruCacheEntry>();
+        m_evictionLock = new ReentrantLock();
+        m_objectCosts = new AtomicLong();
+    }
+
+    /**
+     * Adds a new object to this cache.<p>
+     *
+     * If add the same object more than once,
+     * the object is touched instead.<p>
+     *
+     * @param theCacheObject the object being added to the cache
+     * @return true if the object was added to the cache, false if the object was denied because its cache costs were higher than the allowed max. cache costs per object
+     */
+    @Override
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            // null can't be added or touched in the cache
+            return false;
+        }
+
+        // only objects with cache costs < the max. allowed object cache costs can be cached!
+        if (isTooExpensive(theCacheObject)) {
+            return false;
+        }
+
+        final CmsLruCacheEntry entry = new CmsLruCacheEntry(theCacheObject.getLruCacheCosts());
+        // the object is notified and its costs are accounted before the entry becomes visible,
+        // so a concurrent remove of the same object can not run before the add is complete
+        CmsLruCacheEntry existing = m_entries.computeIfAbsent(theCacheObject, cacheObject -> {
+            // notify the object that it was now added to the cache
+            cacheObject.addToLruCache();
+            m_objectCosts.addAndGet(entry.m_costs);
+            return entry;
+        });
+        if (existing != entry) {
+            existing.m_lastAccess = System.nanoTime();
+        }
+
+        // check if the cache has to trash the last-recently-used objects
+        if (m_objectCosts.get() > getMaxCacheCosts()) {
+            gc();
+        }
+        return true;
+    }
+
+    /**
+     * Removes all cached objects in this cache.<p>
+     */
+    @Override
+    public void clear() {
+
+        for (I_CmsLruCacheObject cacheObject : new ArrayList<I_CmsLruCacheObject>(m_entries.keySet())) {
+            remove(cacheObject);
+        }
+    }
+
+    /**
+     * Returns the current costs of all cached objects.<p>
+     *
+     * @return the current costs of all cached objects
+     */
+    @Override
+    public int getObjectCosts() {
+
+        return (int)Math.min(Integer.MAX_VALUE, m_objectCosts.get());
+    }
+
+    /**
+     * Removes an object from this cache.<p>
+     *
+     * @param theCacheObject the object being removed from the cache
+     * @return a reference to the object that was removed
+     */
+    @Override
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return null;
+        }
+        CmsLruCacheEntry entry = m_entries.remove(theCacheObject);
+        if (entry == null) {
+            // theCacheObject is not inside the cache, or another thread has removed it in the meantime
+            return null;
+        }
+        m_objectCosts.addAndGet(-entry.m_costs);
+        // notify the object that it was now removed from the cache
+        theCacheObject.removeFromLruCache();
+        return theCacheObject;
+    }
+
+    /**
+     * Returns the count of all cached objects.<p>
+     *
+     * @return the count of all cached objects
+     */
+    @Override
+    public int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Returns a string representing the current state of the cache.<p>
+     *
+     * @return a string representing the current state of the cache
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer buf = new StringBuffer();
+        buf.append("max. costs: " + getMaxCacheCosts()).append(", ");
+        buf.append("avg. costs: " + getAvgCacheCosts()).append(", ");
+        buf.append("max. costs/object: " + getMaxObjectCosts()).append(", ");
+        buf.append("costs: " + m_objectCosts.get()).append(", ");
+        buf.append("count: " + m_entries.size());
+        return buf.toString();
+    }
+
+    /**
+     * Touch an existing object in this cache, in the sense that it's "last-recently-used" state
+     * is updated.<p>
+     *
+     * @param theCacheObject the object being touched
+     * @return true if an object was found and touched
+     */
+    @Override
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return false;
+        }
+        CmsLruCacheEntry entry = m_entries.get(theCacheObject);
+        if (entry == null) {
+            return false;
+        }
+
+        // only objects with cache costs < the max. allowed object cache costs can be cached!
+        if (isTooExpensive(theCacheObject)) {
+            remove(theCacheObject);
+            return false;
+        }
+
+        entry.m_lastAccess = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Removes the last recently used objects from the cache as long
+     * as the costs of all cached objects are higher than the allowed avg. costs of the cache.<p>
+     *
+     * The cached objects are compared in samples of {@link #SAMPLE_SIZE} objects, and the least recently
+     * used object of each sample is evicted. A sample that is not complete at the end of the map is
+     * continued with the first objects of the map.<p>
+     *
+     * If another thread is already removing objects, this method returns immediately.<p>
+     */
+    private void gc() {
+
+        if (!m_evictionLock.tryLock()) {
+            // another thread is already evicting objects
+            return;
+        }
+        try {
+            if (m_objectCosts.get() <= getMaxCacheCosts()) {
+                // the cache has been cleaned up in the meantime
+                return;
+            }
+            // the iteration order of the concurrent map does not depend on the access times,
+            // so each sample of consecutive objects is a random selection of the cached objects
+            I_CmsLruCacheObject oldest = null;
+            long oldestAccess = Long.MAX_VALUE;
+            int sampled = 0;
+            while ((m_objectCosts.get() >= getAvgCacheCosts()) && !m_entries.isEmpty()) {
+                Iterator<Map.Entry<I_CmsLruCacheObject, CmsLruCacheEntry>> it = m_entries.entrySet().iterator();
+                while (it.hasNext() && (m_objectCosts.get() >= getAvgCacheCosts())) {
+                    Map.Entry<I_CmsLruCacheObject, CmsLruCacheEntry> e = it.next();
+                    long lastAccess = e.getValue().m_lastAccess;
+                    if ((oldest == null) || (lastAccess < oldestAccess)) {
+                        oldest = e.getKey();
+                        oldestAccess = lastAccess;
+                    }
+                    sampled++;
+                    if ((sampled >= SAMPLE_SIZE) || (sampled >= m_entries.size())) {
+                        // evict the least recently used object of the sample
+                        remove(oldest);
+                        oldest = null;
+                        oldestAccess = Long.MAX_VALUE;
+                        sampled = 0;
+                    }
+                }
+            }
+        } finally {
+            m_evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the costs of the given object are higher than the max. allowed costs per object.<p>
+     *
+     * @param theCacheObject the object to check
+     *
+     * @return true if the costs of the given object are too high
+     */
+    private boolean isTooExpensive(I_CmsLruCacheObject theCacheObject) {
+
+        if ((getMaxObjectCosts() != -1) && (theCacheObject.getLruCacheCosts() > getMaxObjectCosts())) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
+                        new Integer(theCacheObject.getLruCacheCosts()),
+                        new Integer(getMaxObjectCosts())));
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -30,6 +30,7 @@ package org.opencms.cache;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.I_CmsSynchronousEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
 
@@ -42,7 +43,7 @@ import org.apache.commons.logging.Log;
  *
  * @since 6.2.3
  */
-public final class CmsMemoryObjectCache implements I_CmsEventListener {
+public final class CmsMemoryObjectCache implements I_CmsSynchronousEventListener {
 
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsMemoryObjectCache.class);
@@ -31,6 +31,7 @@ import org.opencms.db.CmsDriverManager;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.I_CmsSynchronousEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 
@@ -41,7 +42,7 @@ import java.util.List;
  *
  * @since 7.6
  */
-public abstract class CmsVfsCache implements I_CmsEventListener {
+public abstract class CmsVfsCache implements I_CmsSynchronousEventListener {
 
     /**
      * Initializes the cache. Only intended to be called during startup.<p>
@@ -33,6 +33,9 @@ import org.opencms.util.CmsStringUtil;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Implements a RFS file based disk cache, that handles parameter based versions of VFS files,
@@ -71,16 +74,58 @@ public class CmsVfsDiskCache {
      */
     public static File saveFile(String rfsName, byte[] content) throws IOException {
 
+        return saveFile(rfsName, content, -1);
+    }
+
+    /**
+     * Saves the given file content to a RFS file of the given name (full path), setting the date of last modification.<p>
+     *
+     * The content is written to a temporary file which then replaces the target file, so that
+     * concurrent readers never see a partially written file or a wrong date of last modification.<p>
+     *
+     * @param rfsName the RFS name of the file to save the content in
+     * @param content the content of the file to save
+     * @param dateLastModified the date of last modification to set, or a negative value to keep the current time
+     *
+     * @return a reference to the File that was saved
+     *
+     * @throws IOException in case of disk access errors
+     */
+    private static File saveFile(String rfsName, byte[] content, long dateLastModified) throws IOException {
+
         File f = new File(rfsName);
         File p = f.getParentFile();
         if (!p.exists()) {
             // create parent folders
             p.mkdirs();
         }
-        // write file contents
-        FileOutputStream fs = new FileOutputStream(f);
-        fs.write(content);
-        fs.close();
+        File temp = File.createTempFile("." + f.getName() + ".", ".tmp", p);
+        try {
+            // write file contents
+            FileOutputStream fs = new FileOutputStream(temp);
+            try {
+                fs.write(content);
+            } finally {
+                fs.close();
+            }
+            if (dateLastModified >= 0) {
+                temp.setLastModified(dateLastModified);
+            }
+            try {
+                Files.move(
+                    temp.toPath(),
+                    f.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (@SuppressWarnings("unused") AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (temp.exists()) {
+                // the file could not be moved
+                temp.delete();
+            }
+        }
         return f;
     }
 
@@ -154,10 +199,7 @@ public class CmsVfsDiskCache {
      */
     public void saveCacheFile(String rfsName, byte[] content, long dateLastModified) throws IOException {
 
-        dateLastModified = simplifyDateLastModified(dateLastModified);
-        File f = saveFile(rfsName, content);
-        // set last modification date
-        f.setLastModified(dateLastModified);
+        saveFile(rfsName, content, simplifyDateLastModified(dateLastModified));
     }
 
     /**
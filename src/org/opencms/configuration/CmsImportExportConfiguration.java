@@ -154,6 +154,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /** The node name of the resourcetype sub-configuration. */
     public static final String N_EXPORT_RESOURCETYPENAME = "resourcetypename";
 
+    /** The node name of the export workers sub-configuration. */
+    public static final String N_EXPORT_WORKERS = "workers";
+
     /** The main configuration node name. */
     public static final String N_IMPORTEXPORT = "importexport";
 
@@ -220,6 +223,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export export-rule export node. */
     public static final String N_STATICEXPORT_EXPORT = "export-resources";
 
+    /**  The node name of the static export exportasync node. */
+    public static final String N_STATICEXPORT_EXPORTASYNC = "exportasync";
+
     /**  The node name of the static export exportbackups node. */
     public static final String N_STATICEXPORT_EXPORTBACKUPS = "exportbackups";
 
@@ -238,6 +244,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export exporturl node. */
     public static final String N_STATICEXPORT_EXPORTURL = "exporturl";
 
+    /**  The node name of the static export exportworkers node. */
+    public static final String N_STATICEXPORT_EXPORTWORKERS = "exportworkers";
+
     /**  The node name of the static export exportworkpath node. */
     public static final String N_STATICEXPORT_EXPORTWORKPATH = "exportworkpath";
 
@@ -457,6 +466,8 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
                 + N_EXPORT_RESOURCETYPENAME,
             0);
 
+        digester.addCallMethod("*/" + N_IMPORTEXPORT + "/" + N_EXPORT + "/" + N_EXPORT_WORKERS, "setExportWorkers", 0);
+
         digester.addCallMethod("*/" + N_IMPORTEXPORT + "/" + N_TEMP_EXPORTPONT_PATH, "addTempExportpointPath", 1);
         digester.addCallParam("*/" + N_IMPORTEXPORT + "/" + N_TEMP_EXPORTPONT_PATH, 0);
 
@@ -480,6 +491,10 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTWORKPATH, "setExportWorkPath", 0);
         // exportbackups rule
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTBACKUPS, "setExportBackups", 0);
+
+        digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTWORKERS, "setExportWorkers", 0);
+
+        digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTASYNC, "setExportAsync", 0);
         // default property rule
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_DEFAULT, "setDefault", 0);
         // export suffix rule
@@ -861,6 +876,11 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
                 }
             }
         }
+        if (m_importExportManager.getExportWorkersConfigured() != null) {
+            // <workers>
+            exportElement.addElement(N_EXPORT_WORKERS).addText(
+                m_importExportManager.getExportWorkersConfigured().toString());
+        }
 
         List<String> tempExportpointPaths = m_importExportManager.getTempExportPointPaths();
         for (String path : tempExportpointPaths) {
@@ -903,6 +923,17 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             staticexportElement.addElement(N_STATICEXPORT_EXPORTBACKUPS).addText(exportBackupsUnmodified);
         }
 
+        // <exportworkers> node
+        if (m_staticExportManager.getExportWorkersConfigured() != null) {
+            staticexportElement.addElement(N_STATICEXPORT_EXPORTWORKERS).addText(
+                String.valueOf(m_staticExportManager.getExportWorkersConfigured()));
+        }
+
+        // <exportasync> node
+        if (m_staticExportManager.isExportAsync()) {
+            staticexportElement.addElement(N_STATICEXPORT_EXPORTASYNC).addText(String.valueOf(true));
+        }
+
         // <defaultpropertyvalue> node
         staticexportElement.addElement(N_STATICEXPORT_DEFAULT).addText(m_staticExportManager.getDefault());
 
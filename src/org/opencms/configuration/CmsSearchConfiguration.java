@@ -159,6 +159,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
     /** Node name constant. */
     public static final String N_INDEXES = "indexes";
 
+    /** Node name constant. */
+    public static final String N_INDEXING_THREADS = "indexingThreads";
+
     /** Node name constant. */
     public static final String N_INDEXSOURCE = "indexsource";
 
@@ -173,6 +176,9 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
     /** Node name constant. */
     public static final String N_MAPPING = "mapping";
 
+    /** Node name constant. */
+    public static final String N_MAX_BYTES_BEFORE_COMMIT = "maxBytesBeforeCommit";
+
     /** Node name constant. */
     public static final String N_MAX_MODIFICATIONS_BEFORE_COMMIT = "maxModificationsBeforeCommit";
 
@@ -273,6 +279,12 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
             "setMaxModificationsBeforeCommit",
             0);
 
+        // rule for max. byte volume before commit
+        digester.addCallMethod(XPATH_SEARCH + "/" + N_MAX_BYTES_BEFORE_COMMIT, "setMaxBytesBeforeCommit", 0);
+
+        // rule for the number of indexing threads
+        digester.addCallMethod(XPATH_SEARCH + "/" + N_INDEXING_THREADS, "setIndexingThreads", 0);
+
         // rule for the highlighter to highlight the search terms in the excerpt of the search result
         digester.addCallMethod(XPATH_SEARCH + "/" + N_HIGHLIGHTER, "setHighlighter", 0);
 
@@ -432,6 +444,11 @@ public class CmsSearchConfiguration extends A_CmsXmlConfiguration {
         // add <maxModificationsBeforeCommit> element
         searchElement.addElement(N_MAX_MODIFICATIONS_BEFORE_COMMIT).addText(
             String.valueOf(m_searchManager.getMaxModificationsBeforeCommit()));
+        // add <maxBytesBeforeCommit> element
+        searchElement.addElement(N_MAX_BYTES_BEFORE_COMMIT).addText(
+            String.valueOf(m_searchManager.getMaxBytesBeforeCommit()));
+        // add <indexingThreads> element
+        searchElement.addElement(N_INDEXING_THREADS).addText(String.valueOf(m_searchManager.getIndexingThreads()));
         // add <highlighter> element
         searchElement.addElement(N_HIGHLIGHTER).addText(m_searchManager.getHighlighter().getClass().getName());
 
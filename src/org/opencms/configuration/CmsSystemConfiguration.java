@@ -146,6 +146,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the cache-enabled node. */
     public static final String N_CACHE_ENABLED = "cache-enabled";
 
+    /** The node name for the cache-offheap node. */
+    public static final String N_CACHE_OFFHEAP = "cache-offheap";
+
     /** The node name for the cache-offline node. */
     public static final String N_CACHE_OFFLINE = "cache-offline";
 
@@ -308,6 +311,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the "publishhistory" section. */
     public static final String N_PUBLISHMANAGER = "publishmanager";
 
+    /** The node name for the number of parallel publish jobs. */
+    public static final String N_PUBLISHWORKERS = "publish-workers";
+
     /** The node name for the "publishhistory" section. */
     public static final String N_QUEUEPERSISTANCE = "queue-persistance";
 
@@ -410,6 +416,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for users. */
     public static final String N_SIZE_USERS = "size-users";
 
+    /** The size of the cache for parsed XML content documents. */
+    public static final String N_SIZE_XMLCONTENTDOCUMENTS = "size-xmlcontentdocuments";
+
     /** The subscriptionmanager node name. */
     public static final String N_SUBSCRIPTIONMANAGER = "subscriptionmanager";
 
@@ -866,6 +875,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_AVGCACHEBYTES, 3);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXENTRYBYTES, 4);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXKEYS, 5);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_CACHE_OFFHEAP,
+            "setCacheOffHeap",
+            0,
+            new Class[] {Boolean.TYPE});
         // add flexcache device selector
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR,
@@ -925,6 +939,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_PERMISSIONS,
             "setPermissionCacheSize",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_XMLCONTENTDOCUMENTS,
+            "setXmlContentDocumentsCacheSize",
+            0);
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTAINERPAGE_OFFLINE,
             "setContainerPageOfflineSize",
@@ -967,6 +985,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISHWORKERS,
+            "setPublishWorkers",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1287,6 +1309,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         flexcacheElement.addElement(N_MAXENTRYBYTES).addText(
             String.valueOf(m_cmsFlexCacheConfiguration.getMaxEntryBytes()));
         flexcacheElement.addElement(N_MAXKEYS).addText(String.valueOf(m_cmsFlexCacheConfiguration.getMaxKeys()));
+        if (m_cmsFlexCacheConfiguration.isCacheOffHeap()) {
+            flexcacheElement.addElement(N_CACHE_OFFHEAP).addText(Boolean.TRUE.toString());
+        }
         if (m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration() != null) {
             Element flexcacheDeviceSelectorElement = flexcacheElement.addElement(N_DEVICESELECTOR);
             flexcacheDeviceSelectorElement.addAttribute(
@@ -1332,6 +1357,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
         cacheElement.addElement(N_SIZE_ACLS).setText(Integer.toString(m_cacheSettings.getAclCacheSize()));
         cacheElement.addElement(N_SIZE_PERMISSIONS).setText(Integer.toString(m_cacheSettings.getPermissionCacheSize()));
+        if (m_cacheSettings.getConfiguredXmlContentDocumentsCacheSize() > -1) {
+            cacheElement.addElement(N_SIZE_XMLCONTENTDOCUMENTS).setText(
+                Integer.toString(m_cacheSettings.getConfiguredXmlContentDocumentsCacheSize()));
+        }
 
         // content notification settings
         if ((m_notificationTime != null) || (m_notificationProject != null)) {
@@ -1359,6 +1388,8 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            pubHistElement.addElement(N_PUBLISHWORKERS).setText(
+                String.valueOf(m_publishManager.getPublishWorkers()));
         }
 
         // session storage provider
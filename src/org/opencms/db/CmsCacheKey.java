@@ -108,4 +108,27 @@ public class CmsCacheKey implements I_CmsCacheKey {
         cacheBuffer.append(resource.getStructureId().toString());
         return cacheBuffer.toString();
     }
+
+    /**
+     * @see org.opencms.db.I_CmsCacheKey#getPermissionCacheKey(int, org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, org.opencms.security.CmsPermissionSet)
+     */
+    public Object getPermissionCacheKey(
+        int flags,
+        CmsDbContext context,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions) {
+
+        if (!context.getProjectId().isNullUUID()) {
+            return null;
+        }
+        if (context.currentProject().isOnlineProject()) {
+            flags |= CmsPermissionCacheKey.FLAG_ONLINE;
+        }
+        return new CmsPermissionCacheKey(
+            context.currentUser().getId(),
+            resource.getStructureId(),
+            requiredPermissions.getAllowedPermissions(),
+            requiredPermissions.getDeniedPermissions(),
+            flags);
+    }
 }
@@ -34,6 +34,9 @@ package org.opencms.db;
  */
 public class CmsCacheSettings {
 
+    /** The default size of the cache for parsed XML content documents. */
+    public static final int DEFAULT_XML_CONTENT_DOCUMENTS_CACHE_SIZE = 256;
+
     /** The size of the memory monitor's cache for ACLs. */
     private int m_aclCacheSize;
 
@@ -76,6 +79,9 @@ public class CmsCacheSettings {
     /** The size of the memory monitor's cache for user/group relations. */
     private int m_userGroupsCacheSize;
 
+    /** The size of the cache for parsed XML content documents, per project. */
+    private int m_xmlContentDocumentsCacheSize = -1; // this configuration entry is optional
+
     /**
      * Default constructor.<p>
      */
@@ -152,6 +158,18 @@ public class CmsCacheSettings {
         return m_rolesCacheSize;
     }
 
+    /**
+     * Returns the size of the cache for parsed XML content documents.<p>
+     *
+     * Might be <code>-1</code> if configuration entry is missing.<p>
+     *
+     * @return the size of the cache for parsed XML content documents
+     */
+    public int getConfiguredXmlContentDocumentsCacheSize() {
+
+        return m_xmlContentDocumentsCacheSize;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for groups.<p>
      *
@@ -284,6 +302,19 @@ public class CmsCacheSettings {
         return m_userGroupsCacheSize;
     }
 
+    /**
+     * Returns the size of the cache for parsed XML content documents, per project.<p>
+     *
+     * @return the size of the cache for parsed XML content documents
+     */
+    public int getXmlContentDocumentsCacheSize() {
+
+        if (m_xmlContentDocumentsCacheSize < 0) {
+            return DEFAULT_XML_CONTENT_DOCUMENTS_CACHE_SIZE;
+        }
+        return m_xmlContentDocumentsCacheSize;
+    }
+
     /**
      * Sets the size of the memory monitor's cache for ACLs.<p>
      *
@@ -424,6 +455,16 @@ public class CmsCacheSettings {
         m_userGroupsCacheSize = getIntValue(size, 256);
     }
 
+    /**
+     * Sets the size of the cache for parsed XML content documents, per project.<p>
+     *
+     * @param size the size of the cache for parsed XML content documents
+     */
+    public void setXmlContentDocumentsCacheSize(String size) {
+
+        m_xmlContentDocumentsCacheSize = getIntValue(size, -1);
+    }
+
     /**
      * Turns a string into an int.<p>
      *
@@ -241,6 +241,7 @@ public final class CmsDbPoolV11 {
         HikariConfig result = new HikariConfig(hikariProps);
 
         result.setPoolName(poolName.replace(":", "_"));
+        result.setMetricsTrackerFactory(CmsSqlMetrics.getInstance());
         return result;
     }
 
@@ -33,6 +33,7 @@ import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.generic.CmsUserDriver;
 import org.opencms.db.log.CmsLogEntry;
+import org.opencms.db.log.CmsLogEntryQueue;
 import org.opencms.db.log.CmsLogEntryType;
 import org.opencms.db.log.CmsLogFilter;
 import org.opencms.db.timing.CmsDefaultProfilingHandler;
@@ -84,6 +85,7 @@ import org.opencms.main.CmsInitException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsMultiException;
 import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.I_CmsSynchronousEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.module.CmsModule;
 import org.opencms.monitor.CmsMemoryMonitor;
@@ -129,6 +131,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -150,7 +153,7 @@ import com.google.common.collect.Maps;
  *
  * @since 6.0.0
  */
-public final class CmsDriverManager implements I_CmsEventListener {
+public final class CmsDriverManager implements I_CmsSynchronousEventListener {
 
     /**
      * The comparator used for comparing url name mapping entries by date.<p>
@@ -245,6 +248,21 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** DBC attribute key needed to fix publishing behavior involving siblings. */
     public static final String KEY_CHANGED_AND_DELETED = "changedAndDeleted";
 
+    /** DBC attribute key for the structure ids a resumed publish job has already written to the publish history. */
+    public static final String KEY_RESUMED_PUBLISH_HISTORY = "resumedPublishHistory";
+
+    /** The default number of buffered log entries that triggers writing them to the database. */
+    public static final int DEFAULT_LOG_BATCH_SIZE = 100;
+
+    /** The default time in milliseconds between two writes of the buffered log entries. */
+    public static final int DEFAULT_LOG_FLUSH_INTERVAL = 5000;
+
+    /** The default maximum number of buffered log entries. */
+    public static final int DEFAULT_LOG_QUEUE_SIZE = 10000;
+
+    /** Value of the log durability parameter to write every log entry to the database immediately. */
+    public static final String LOG_DURABILITY_SYNC = "sync";
+
     /** The vfs path of the loast and found folder. */
     public static final String LOST_AND_FOUND_FOLDER = "/system/lost-found";
 
@@ -254,6 +272,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Key for indicating no changes. */
     public static final int NOTHING_CHANGED = 0;
 
+    /** Name of the configuration parameter for the number of buffered log entries that triggers writing them. */
+    public static final String PARAM_LOG_BATCH_SIZE = "db.log.batchsize";
+
+    /** Name of the configuration parameter for the log durability, either <code>async</code> or <code>sync</code>. */
+    public static final String PARAM_LOG_DURABILITY = "db.log.durability";
+
+    /** Name of the configuration parameter for the time in milliseconds between two writes of the buffered log entries. */
+    public static final String PARAM_LOG_FLUSH_INTERVAL = "db.log.flushinterval";
+
+    /** Name of the configuration parameter for the maximum number of buffered log entries. */
+    public static final String PARAM_LOG_QUEUE_SIZE = "db.log.queuesize";
+
     /** Name of the configuration parameter to enable/disable logging to the CMS_LOG table. */
     public static final String PARAM_LOG_TABLE_ENABLED = "log.table.enabled";
 
@@ -347,8 +377,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The lock manager. */
     private CmsLockManager m_lockManager;
 
-    /** The log entry cache. */
-    private List<CmsLogEntry> m_log = new ArrayList<CmsLogEntry>();
+    /** The buffered log entries, not yet written to the database. */
+    private CmsLogEntryQueue m_log = new CmsLogEntryQueue(DEFAULT_LOG_QUEUE_SIZE);
+
+    /** Indicates if log entries are written to the database immediately. */
+    private boolean m_logSync;
+
+    /** The db context factory used by the log writer thread. */
+    private I_CmsDbContextFactory m_dbContextFactory;
 
     /** Local reference to the memory monitor to avoid multiple lookups through the OpenCms singleton. */
     private CmsMemoryMonitor m_monitor;
@@ -365,6 +401,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Object used for synchronizing updates to the user publish list. */
     private Object m_publishListUpdateLock = new Object();
 
+    /** The last publish tag handed out to a publish job, guarded by m_publishTagLock. */
+    private int m_publishTag;
+
+    /** Object used for synchronizing the reservation of publish tags by concurrent publish jobs. */
+    private Object m_publishTagLock = new Object();
+
     /** The security manager (for access checks). */
     private CmsSecurityManager m_securityManager;
 
@@ -468,6 +510,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_DRIVER_MANAGER_START_POOLS_1, names));
         }
 
+        // initialize the SQL metrics before the pools report to them
+        CmsSqlMetrics.getInstance().initialize(config);
+
         // initialize each pool
         for (String name : driverPoolNames) {
             driverManager.newPoolInstance(config, name);
@@ -2287,7 +2332,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // clear the driver manager cache
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY);
+            if (resource != null) {
+                uncachePropertyLists(dbc, resource);
+            } else {
+                m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            }
 
             // fire an event that all properties of a resource have been deleted
             OpenCms.fireCmsEvent(
@@ -3174,6 +3224,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void destroy() {
 
         try {
+            // write the log entries that are still buffered
+            m_log.shutDown();
+            flushLog();
+
             if (m_projectDriver != null) {
                 try {
                     m_projectDriver.destroy();
@@ -4167,6 +4221,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return m_projectDriver.readLog(dbc, filter);
     }
 
+    /**
+     * Returns the queue of the log entries not yet written to the database.<p>
+     *
+     * The queue provides the counters for the queue depth and the flush latency.<p>
+     *
+     * @return the queue of the log entries not yet written to the database
+     */
+    public CmsLogEntryQueue getLogEntryQueue() {
+
+        return m_log;
+    }
+
     /**
      * Returns the next publish tag for the published historical resources.<p>
      *
@@ -5011,6 +5077,68 @@ public final class CmsDriverManager implements I_CmsEventListener {
         m_monitor.clearAccessControlListCache();
     }
 
+    /**
+     * Replaces the access control entries of several resources at once.<p>
+     *
+     * This has the same effect as calling {@link #importAccessControlEntries(CmsDbContext, CmsResource, List)}
+     * for each of the resources, but writes the entries in batches and clears the access control list cache
+     * only once.<p>
+     *
+     * @param dbc the current database context
+     * @param acEntries the access control entries to write, by resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importAccessControlEntries(CmsDbContext dbc, Map<CmsResource, List<CmsAccessControlEntry>> acEntries)
+    throws CmsException {
+
+        Map<CmsUUID, List<CmsAccessControlEntry>> fixedAces = new LinkedHashMap<CmsUUID, List<CmsAccessControlEntry>>(
+            acEntries.size());
+        for (Entry<CmsResource, List<CmsAccessControlEntry>> entry : acEntries.entrySet()) {
+            CmsUUID resourceId = entry.getKey().getResourceId();
+            List<CmsAccessControlEntry> resourceAces = new ArrayList<CmsAccessControlEntry>(entry.getValue().size());
+            for (CmsAccessControlEntry ace : entry.getValue()) {
+                if (ace.getResource() == null) {
+                    ace = new CmsAccessControlEntry(
+                        resourceId,
+                        ace.getPrincipal(),
+                        ace.getPermissions(),
+                        ace.getFlags());
+                }
+                resourceAces.add(ace);
+            }
+            fixedAces.put(resourceId, resourceAces);
+        }
+        getUserDriver(dbc).replaceAccessControlEntries(dbc, dbc.currentProject(), fixedAces);
+        m_monitor.clearAccessControlListCache();
+    }
+
+    /**
+     * Imports a list of relations.<p>
+     *
+     * Unlike {@link #addRelationToResource(CmsDbContext, CmsResource, CmsResource, CmsRelationType, boolean)},
+     * this neither writes log entries nor touches the source resources, just like the import case there.<p>
+     *
+     * @param dbc the current database context
+     * @param relations the relations to import
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importRelations(CmsDbContext dbc, List<CmsRelation> relations) throws CmsException {
+
+        for (CmsRelation relation : relations) {
+            if (relation.getType().isDefinedInContent()) {
+                throw new CmsIllegalArgumentException(
+                    Messages.get().container(
+                        Messages.ERR_ADD_RELATION_IN_CONTENT_3,
+                        dbc.removeSiteRoot(relation.getSourcePath()),
+                        dbc.removeSiteRoot(relation.getTargetPath()),
+                        relation.getType().getLocalizedName(dbc.getRequestContext().getLocale())));
+            }
+        }
+        getVfsDriver(dbc).createRelations(dbc, dbc.currentProject().getUuid(), relations);
+    }
+
     /**
      * Imports a rewrite alias.<p>
      *
@@ -5190,6 +5318,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
         dbc1.clear();
         getUserDriver().createRootOrganizationalUnit(dbc2);
         dbc2.clear();
+
+        // start writing the buffered log entries in the background
+        m_dbContextFactory = dbContextFactory;
+        initLogWriter();
     }
 
     /**
@@ -5436,8 +5568,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /**
      * Adds the given log entry to the current user's log.<p>
      *
-     * This operation works only on memory, to get the log entries actually
-     * written to DB you have to call the {@link #updateLog(CmsDbContext)} method.<p>
+     * The log entry is buffered in memory and written to the DB by the log writer thread,
+     * to get the log entries written immediately you have to call the {@link #updateLog(CmsDbContext)} method.<p>
      *
      * @param dbc the current database context
      * @param logEntry the log entry to create
@@ -5467,7 +5599,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // prevent several entries for the same operation
         dbc.setAttribute(CmsLogEntry.ATTR_LOG_ENTRY, Boolean.TRUE);
         // keep it for later
-        m_log.add(logEntry);
+        if (!m_log.offer(logEntry)) {
+            // the log writer can not keep up, write the buffered entries with the current thread
+            flushLog(dbc);
+            m_log.add(logEntry);
+        }
+        if (m_logSync) {
+            flushLog(dbc);
+        }
     }
 
     /**
@@ -6091,7 +6230,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
             // clear the cache
             m_monitor.clearCache();
 
-            int publishTag = getNextPublishTag(dbc);
+            // a resumed job keeps the publish tag of its interrupted attempt, so the resources
+            // already written to the history can be recognized and are not written twice
+            int publishTag = -1;
+            for (CmsPublishedResource published : getProjectDriver(dbc).readPublishedResources(
+                dbc,
+                publishList.getPublishHistoryId())) {
+                publishTag = published.getPublishTag();
+                break;
+            }
+            if (publishTag < 0) {
+                publishTag = reservePublishTag(dbc);
+            }
             getProjectDriver(dbc).publishProject(dbc, report, onlineProject, publishList, publishTag);
 
             // iterate the initialized module action instances
@@ -7461,50 +7611,34 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsResource resource, boolean search)
     throws CmsException {
 
+        if (search) {
+            if (resource.isFolder()) {
+                return readInheritedPropertyObjects(dbc, resource);
+            }
+            // no permission check on parent folder is required since we must have "read"
+            // permissions to read the child resource anyway
+            CmsResource parent = readResource(
+                dbc,
+                CmsResource.getParentFolder(resource.getRootPath()),
+                CmsResourceFilter.ALL);
+            List<CmsProperty> properties = readInheritedPropertyObjects(dbc, parent);
+            List<CmsProperty> fileProperties = readPropertyObjects(dbc, resource, false);
+
+            // make sure properties from the file "overwrite" properties from the folders
+            properties.removeAll(fileProperties);
+            properties.addAll(fileProperties);
+            return properties;
+        }
+
         // check if we have the result already cached
         CmsUUID projectId = getProjectIdForContext(dbc);
-        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, search, projectId, resource.getRootPath());
+        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath());
 
         List<CmsProperty> properties = m_monitor.getCachedPropertyList(cacheKey);
 
         if ((properties == null) || !dbc.getProjectId().isNullUUID()) {
             // result not cached, let's look it up in the DB
-            if (search) {
-                boolean cont;
-                properties = new ArrayList<CmsProperty>();
-                List<CmsProperty> parentProperties = null;
-
-                do {
-                    try {
-                        parentProperties = readPropertyObjects(dbc, resource, false);
-
-                        // make sure properties from lower folders "overwrite" properties from upper folders
-                        parentProperties.removeAll(properties);
-                        parentProperties.addAll(properties);
-
-                        properties.clear();
-                        properties.addAll(parentProperties);
-
-                        cont = resource.getRootPath().length() > 1;
-                    } catch (CmsSecurityException se) {
-                        // a security exception (probably no read permission) we return the current result
-                        cont = false;
-                    }
-                    if (cont) {
-                        // no permission check on parent folder is required since we must have "read"
-                        // permissions to read the child resource anyway
-                        resource = readResource(
-                            dbc,
-                            CmsResource.getParentFolder(resource.getRootPath()),
-                            CmsResourceFilter.ALL);
-                    }
-                } while (cont);
-            } else {
-                properties = getVfsDriver(dbc).readPropertyObjects(dbc, dbc.currentProject(), resource);
-                //                for (CmsProperty prop : properties) {
-                //                    prop.setOrigin(resource.getRootPath());
-                //                }
-            }
+            properties = getVfsDriver(dbc).readPropertyObjects(dbc, dbc.currentProject(), resource);
 
             // set all properties in the result list as frozen
             CmsProperty.setFrozen(properties);
@@ -9441,8 +9575,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 return;
             }
 
-            List<CmsLogEntry> log = new ArrayList<CmsLogEntry>(m_log);
-            m_log.clear();
+            long start = System.currentTimeMillis();
+            List<CmsLogEntry> log = m_log.drain();
             String logTableEnabledStr = (String)OpenCms.getRuntimeProperty(PARAM_LOG_TABLE_ENABLED);
             if (Boolean.parseBoolean(logTableEnabledStr)) { // defaults to 'false' if value not set
                 m_projectDriver.log(dbc, log);
@@ -9453,6 +9587,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             m_projectDriver.deleteUserPublishListEntries(dbc, converter.getPublishListDeletions());
             m_projectDriver.writeUserPublishListEntries(dbc, converter.getPublishListAdditions());
+            m_log.recordFlush(log.size(), System.currentTimeMillis() - start);
         }
     }
 
@@ -10009,7 +10144,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY);
+            uncachePropertyLists(dbc, resource);
 
             // fire an event that a property of a resource has been modified
             Map<String, Object> data = new HashMap<String, Object>();
@@ -10093,7 +10229,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY);
+            uncachePropertyLists(dbc, resource);
 
             // fire an event that the properties of a resource have been modified
             OpenCms.fireCmsEvent(
@@ -11056,6 +11193,37 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Writes the buffered log entries to the database with a new db context.<p>
+     */
+    private void flushLog() {
+
+        if (m_dbContextFactory == null) {
+            // not initialized
+            return;
+        }
+        CmsDbContext dbc = m_dbContextFactory.getDbContext();
+        try {
+            flushLog(dbc);
+        } finally {
+            dbc.clear();
+        }
+    }
+
+    /**
+     * Writes the buffered log entries to the database, logging any errors.<p>
+     *
+     * @param dbc the current db context
+     */
+    private void flushLog(CmsDbContext dbc) {
+
+        try {
+            updateLog(dbc);
+        } catch (CmsDataAccessException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_FLUSH_LOG_ENTRIES_FAILED_0), e);
+        }
+    }
+
     /**
      * Returns the access control list of a given resource.<p>
      *
@@ -11344,6 +11512,41 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return groups;
     }
 
+    /**
+     * Reads the log writer configuration and starts the thread writing the buffered log entries.<p>
+     */
+    private void initLogWriter() {
+
+        int queueSize = DEFAULT_LOG_QUEUE_SIZE;
+        int batchSize = DEFAULT_LOG_BATCH_SIZE;
+        int flushInterval = DEFAULT_LOG_FLUSH_INTERVAL;
+        if (m_propertyConfiguration != null) {
+            queueSize = m_propertyConfiguration.getInteger(PARAM_LOG_QUEUE_SIZE, DEFAULT_LOG_QUEUE_SIZE);
+            batchSize = m_propertyConfiguration.getInteger(PARAM_LOG_BATCH_SIZE, DEFAULT_LOG_BATCH_SIZE);
+            flushInterval = m_propertyConfiguration.getInteger(PARAM_LOG_FLUSH_INTERVAL, DEFAULT_LOG_FLUSH_INTERVAL);
+            m_logSync = LOG_DURABILITY_SYNC.equalsIgnoreCase(
+                m_propertyConfiguration.getString(PARAM_LOG_DURABILITY, "").trim());
+        }
+        m_log.setCapacity(queueSize);
+        if (!m_logSync) {
+            m_log.startWriter(new Runnable() {
+
+                public void run() {
+
+                    flushLog();
+                }
+            }, batchSize, flushInterval);
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_LOG_WRITER_3,
+                    Integer.valueOf(m_log.getCapacity()),
+                    Integer.valueOf(batchSize),
+                    Integer.valueOf(flushInterval)));
+        }
+    }
+
     /**
      * Returns a list of users in a group.<p>
      *
@@ -11531,6 +11734,138 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Reads the properties of the given folder merged with the properties of all its parent folders.<p>
+     *
+     * The merged lists are cached per folder, so usually only the folders below the nearest
+     * cached parent folder need to be looked at. The own properties of these folders
+     * are read with a single database query.<p>
+     *
+     * @param dbc the current database context
+     * @param folder the folder to read the properties for
+     *
+     * @return the properties of the folder including the inherited ones
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsProperty> readInheritedPropertyObjects(CmsDbContext dbc, CmsResource folder)
+    throws CmsException {
+
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        boolean online = CmsProject.isOnlineProject(getProjectIdForContext(dbc));
+
+        // collect the folders up to the first one with a cached result
+        List<CmsResource> folders = new ArrayList<CmsResource>();
+        List<CmsProperty> inherited = null;
+        CmsResource current = folder;
+        while (current != null) {
+            if (useCache) {
+                inherited = m_monitor.getCachedInheritedPropertyList(online, current.getRootPath());
+                if (inherited != null) {
+                    break;
+                }
+            }
+            folders.add(current);
+            String parentPath = CmsResource.getParentFolder(current.getRootPath());
+            // no permission check on parent folder is required since we must have "read"
+            // permissions to read the child resource anyway
+            current = (parentPath == null) ? null : readResource(dbc, parentPath, CmsResourceFilter.ALL);
+        }
+        if (inherited == null) {
+            inherited = Collections.emptyList();
+        }
+
+        Map<CmsUUID, List<CmsProperty>> ownProperties = readPropertyObjects(dbc, folders);
+
+        // merge top down, make sure properties from lower folders "overwrite" properties from upper folders
+        for (int i = folders.size() - 1; i >= 0; i--) {
+            String folderPath = folders.get(i).getRootPath();
+            List<CmsProperty> own = ownProperties.get(folders.get(i).getStructureId());
+            List<CmsProperty> merged = new ArrayList<CmsProperty>(inherited.size() + own.size());
+            merged.addAll(inherited);
+            merged.removeAll(own);
+            merged.addAll(own);
+            if (useCache) {
+                m_monitor.cacheInheritedPropertyList(online, folderPath, merged);
+            }
+            inherited = merged;
+        }
+        return new ArrayList<CmsProperty>(inherited);
+    }
+
+    /**
+     * Reads the own properties of the given resources.<p>
+     *
+     * Cached property lists are used where available, the properties of all other resources
+     * are read with a single database query and put into the cache.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to read the properties for
+     *
+     * @return a map from structure id to the frozen property list of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private Map<CmsUUID, List<CmsProperty>> readPropertyObjects(CmsDbContext dbc, List<CmsResource> resources)
+    throws CmsException {
+
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        CmsUUID projectId = getProjectIdForContext(dbc);
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        List<CmsResource> missing = new ArrayList<CmsResource>();
+        for (CmsResource resource : resources) {
+            List<CmsProperty> properties = useCache
+            ? m_monitor.getCachedPropertyList(
+                getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()))
+            : null;
+            if (properties != null) {
+                result.put(resource.getStructureId(), properties);
+            } else {
+                missing.add(resource);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<CmsUUID, List<CmsProperty>> read = getVfsDriver(dbc).readPropertyObjects(
+            dbc,
+            dbc.currentProject(),
+            missing);
+        for (CmsResource resource : missing) {
+            List<CmsProperty> properties = read.get(resource.getStructureId());
+            // set all properties in the result list as frozen
+            CmsProperty.setFrozen(properties);
+            if (useCache) {
+                m_monitor.cachePropertyList(
+                    getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()),
+                    properties);
+            }
+            result.put(resource.getStructureId(), properties);
+        }
+        return result;
+    }
+
+    /**
+     * Reserves the next publish tag for a publish job.<p>
+     *
+     * Several publish jobs may run at the same time and the history entries of a job
+     * are only written while it is published, so the tags already handed out to running
+     * jobs are remembered in addition to the tags found in the history tables.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the reserved publish tag
+     */
+    private int reservePublishTag(CmsDbContext dbc) {
+
+        synchronized (m_publishTagLock) {
+            m_publishTag = Math.max(getNextPublishTag(dbc), m_publishTag + 1);
+            return m_publishTag;
+        }
+    }
+
     /**
      * Sorts the given list of {@link CmsAccessControlEntry} objects.<p>
      *
@@ -11637,6 +11972,29 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Removes the cached property lists affected by a property change of the given resource.<p>
+     *
+     * For folders the inherited property lists of the whole sub tree are removed. Since
+     * resource values are shared between siblings, all property lists are flushed if
+     * the resource has siblings.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource whose properties have changed
+     */
+    private void uncachePropertyLists(CmsDbContext dbc, CmsResource resource) {
+
+        if (resource.getSiblingCount() > 1) {
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            return;
+        }
+        m_monitor.uncachePropertyList(
+            getCacheKey(CACHE_ALL_PROPERTIES, false, getProjectIdForContext(dbc), resource.getRootPath()));
+        if (resource.isFolder()) {
+            m_monitor.uncacheInheritedPropertyLists(resource.getRootPath());
+        }
+    }
+
     /**
      * Undoes all content changes of a resource.<p>
      *
@@ -0,0 +1,179 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.relations.CmsRelation;
+
+import java.util.List;
+
+/**
+ * Describes a file that is published together with other files in one batch.<p>
+ *
+ * All data is read from the offline project before the batch is written,
+ * so the batch only has to send the write statements to the database.<p>
+ *
+ * @since 11.0.0
+ *
+ * @see org.opencms.db.I_CmsVfsDriver#publishResources(CmsDbContext, org.opencms.file.CmsProject, List, int)
+ */
+public class CmsPublishBatchEntry {
+
+    /** The offline file, including its content. */
+    private CmsFile m_file;
+
+    /** The online version of the file, or <code>null</code> if the file does not exist online. */
+    private CmsResource m_onlineResource;
+
+    /** The offline properties of the file. */
+    private List<CmsProperty> m_properties;
+
+    /** The state to write to the publish history. */
+    private CmsResourceState m_publishState;
+
+    /** The offline relations starting at the file. */
+    private List<CmsRelation> m_relations;
+
+    /** Flag indicating if the file may have been written partially by an earlier attempt with the same publish tag. */
+    private boolean m_repeated;
+
+    /** Flag indicating if the online content has to be replaced. */
+    private boolean m_updateContent;
+
+    /**
+     * Creates a new batch entry.<p>
+     *
+     * @param file the offline file, including its content
+     * @param onlineResource the online version of the file, or <code>null</code> if the file does not exist online
+     * @param properties the offline properties of the file
+     * @param relations the offline relations starting at the file
+     * @param publishState the state to write to the publish history
+     * @param updateContent <code>true</code> if the online content has to be replaced
+     */
+    public CmsPublishBatchEntry(
+        CmsFile file,
+        CmsResource onlineResource,
+        List<CmsProperty> properties,
+        List<CmsRelation> relations,
+        CmsResourceState publishState,
+        boolean updateContent) {
+
+        m_file = file;
+        m_onlineResource = onlineResource;
+        m_properties = properties;
+        m_relations = relations;
+        m_publishState = publishState;
+        m_updateContent = updateContent;
+    }
+
+    /**
+     * Returns the offline file, including its content.<p>
+     *
+     * @return the offline file
+     */
+    public CmsFile getFile() {
+
+        return m_file;
+    }
+
+    /**
+     * Returns the online version of the file.<p>
+     *
+     * @return the online version of the file, or <code>null</code> if the file does not exist online
+     */
+    public CmsResource getOnlineResource() {
+
+        return m_onlineResource;
+    }
+
+    /**
+     * Returns the offline properties of the file.<p>
+     *
+     * @return the offline properties
+     */
+    public List<CmsProperty> getProperties() {
+
+        return m_properties;
+    }
+
+    /**
+     * Returns the state to write to the publish history.<p>
+     *
+     * @return the state to write to the publish history
+     */
+    public CmsResourceState getPublishState() {
+
+        return m_publishState;
+    }
+
+    /**
+     * Returns the offline relations starting at the file.<p>
+     *
+     * @return the offline relations
+     */
+    public List<CmsRelation> getRelations() {
+
+        return m_relations;
+    }
+
+    /**
+     * Checks if the file may have been written partially by an earlier attempt with the same publish tag.<p>
+     *
+     * In this case, the content written with the current publish tag is removed before the content
+     * is written again.<p>
+     *
+     * @return <code>true</code> if the file may have been written partially before
+     */
+    public boolean isRepeated() {
+
+        return m_repeated;
+    }
+
+    /**
+     * Checks if the online content has to be replaced.<p>
+     *
+     * @return <code>true</code> if the online content has to be replaced
+     */
+    public boolean isUpdateContent() {
+
+        return m_updateContent;
+    }
+
+    /**
+     * Sets the flag indicating if the file may have been written partially by an earlier attempt
+     * with the same publish tag.<p>
+     *
+     * @param repeated <code>true</code> if the file may have been written partially before
+     */
+    public void setRepeated(boolean repeated) {
+
+        m_repeated = repeated;
+    }
+}
@@ -3224,6 +3224,77 @@ public final class CmsSecurityManager {
         }
     }
 
+    /**
+     * Writes the access control entries of several resources at once, replacing their existing entries.<p>
+     *
+     * Access is granted, if:<p>
+     * <ul>
+     * <li>the current user has control permission on all of the resources</li>
+     * </ul>
+     *
+     * @param context the current request context
+     * @param acEntries the access control entries to write, by resource
+     *
+     * @throws CmsException if something goes wrong
+     * @throws CmsSecurityException if the required permissions are not satisfied for one of the resources
+     */
+    public void importAccessControlEntries(
+        CmsRequestContext context,
+        Map<CmsResource, List<CmsAccessControlEntry>> acEntries)
+    throws CmsException, CmsSecurityException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            checkOfflineProject(dbc);
+            for (CmsResource resource : acEntries.keySet()) {
+                checkPermissions(dbc, resource, CmsPermissionSet.ACCESS_CONTROL, true, CmsResourceFilter.ALL);
+            }
+            m_driverManager.importAccessControlEntries(dbc, acEntries);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_IMPORT_ACL_ENTRIES_BULK_1, Integer.valueOf(acEntries.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+    }
+
+    /**
+     * Imports the relations of several source resources at once.<p>
+     *
+     * Access is granted, if:<p>
+     * <ul>
+     * <li>the current user has write permission on all of the source resources</li>
+     * </ul>
+     *
+     * @param context the current request context
+     * @param relations the relations to import, by source resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importRelations(CmsRequestContext context, Map<CmsResource, List<CmsRelation>> relations)
+    throws CmsException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            checkOfflineProject(dbc);
+            List<CmsRelation> allRelations = new ArrayList<CmsRelation>();
+            for (Map.Entry<CmsResource, List<CmsRelation>> entry : relations.entrySet()) {
+                checkPermissions(dbc, entry.getKey(), CmsPermissionSet.ACCESS_WRITE, true, CmsResourceFilter.ALL);
+                allRelations.addAll(entry.getValue());
+            }
+            m_driverManager.importRelations(dbc, allRelations);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_IMPORT_RELATIONS_1, Integer.valueOf(relations.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+    }
+
     /**
      * Creates a new resource with the provided content and properties.<p>
      *
@@ -0,0 +1,431 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsLog;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Collects execution statistics per SQL query key and connection statistics per database pool.<p>
+ *
+ * The prepared statements created for a query key by the SQL manager are wrapped, so that the
+ * execution times and the rows read from the result sets are recorded for the query key. The pool statistics
+ * are reported by HikariCP. Queries slower than the configured threshold are logged without their bind parameters.<p>
+ *
+ * Recording the queries is disabled by default. When it is enabled, every call on a wrapped statement and
+ * its result sets goes through a reflective proxy, which adds overhead to every query.<p>
+ *
+ * The statistics are available as MBean with the name {@link #OBJECT_NAME} and in the workplace.<p>
+ *
+ * @since 11.0.0
+ */
+public final class CmsSqlMetrics implements I_CmsSqlMetricsMXBean, MetricsTrackerFactory {
+
+    /**
+     * Records the rows read from a result set.<p>
+     */
+    private static final class CmsResultSetHandler implements InvocationHandler {
+
+        /** The wrapped result set. */
+        private final ResultSet m_resultSet;
+
+        /** The statistics to record the rows for. */
+        private final CmsSqlQueryStatistics m_statistics;
+
+        /**
+         * Creates a new handler.<p>
+         *
+         * @param resultSet the wrapped result set
+         * @param statistics the statistics to record the rows for
+         */
+        CmsResultSetHandler(ResultSet resultSet, CmsSqlQueryStatistics statistics) {
+
+            m_resultSet = resultSet;
+            m_statistics = statistics;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            Object result = invokeTarget(m_resultSet, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                m_statistics.addRowsRead(1);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Records the executions of a prepared statement.<p>
+     */
+    private final class CmsStatementHandler implements InvocationHandler {
+
+        /** The SQL of the statement. */
+        private final String m_sql;
+
+        /** The wrapped statement. */
+        private final PreparedStatement m_statement;
+
+        /** The statistics to record the executions for. */
+        private final CmsSqlQueryStatistics m_statistics;
+
+        /**
+         * Creates a new handler.<p>
+         *
+         * @param statement the wrapped statement
+         * @param sql the SQL of the statement
+         * @param statistics the statistics to record the executions for
+         */
+        CmsStatementHandler(PreparedStatement statement, String sql, CmsSqlQueryStatistics statistics) {
+
+            m_statement = statement;
+            m_sql = sql;
+            m_statistics = statistics;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            Object result;
+            if (EXECUTE_METHODS.contains(name)) {
+                long start = System.nanoTime();
+                try {
+                    result = invokeTarget(m_statement, method, args);
+                } finally {
+                    recordExecution(m_statistics, m_sql, System.nanoTime() - start);
+                }
+            } else {
+                result = invokeTarget(m_statement, method, args);
+            }
+            if (result instanceof ResultSet) {
+                result = Proxy.newProxyInstance(
+                    CmsSqlMetrics.class.getClassLoader(),
+                    new Class<?>[] {ResultSet.class},
+                    new CmsResultSetHandler((ResultSet)result, m_statistics));
+            }
+            return result;
+        }
+    }
+
+    /** Prefix for the configuration keys in <code>opencms.properties</code>. */
+    public static final String CONFIGURATION_METRICS = CmsDriverManager.CONFIGURATION_DB + ".metrics";
+
+    /** Default for the slow query threshold in milliseconds. */
+    public static final int DEFAULT_SLOW_QUERY_THRESHOLD = 1000;
+
+    /** Configuration key for enabling the query statistics. */
+    public static final String KEY_ENABLED = CONFIGURATION_METRICS + ".enabled";
+
+    /** Configuration key for the slow query threshold in milliseconds. */
+    public static final String KEY_SLOW_QUERY_THRESHOLD = CONFIGURATION_METRICS + ".slowQueryThreshold";
+
+    /** The name of the MBean. */
+    public static final String OBJECT_NAME = "org.opencms:type=SqlMetrics";
+
+    /** The names of the statement methods that execute the statement. */
+    static final Set<String> EXECUTE_METHODS = new HashSet<String>(
+        Arrays.asList(
+            "execute",
+            "executeBatch",
+            "executeLargeBatch",
+            "executeLargeUpdate",
+            "executeQuery",
+            "executeUpdate"));
+
+    /** The singleton instance. */
+    private static final CmsSqlMetrics INSTANCE = new CmsSqlMetrics();
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSqlMetrics.class);
+
+    /** Flag indicating if the executed queries are recorded. */
+    private volatile boolean m_enabled;
+
+    /** The pool statistics, by pool name. */
+    private Map<String, CmsSqlPoolStatistics> m_poolStatistics = new ConcurrentHashMap<String, CmsSqlPoolStatistics>();
+
+    /** The query statistics, by query key. */
+    private Map<String, CmsSqlQueryStatistics> m_queryStatistics = new ConcurrentHashMap<>();
+
+    /** The execution time in milliseconds above which queries are logged. */
+    private volatile long m_slowQueryThreshold = DEFAULT_SLOW_QUERY_THRESHOLD;
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsSqlMetrics() {
+
+        // noop
+    }
+
+    /**
+     * Returns the singleton instance.<p>
+     *
+     * @return the singleton instance
+     */
+    public static CmsSqlMetrics getInstance() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * Invokes a method on the wrapped JDBC object, unwrapping the exception thrown by the method.<p>
+     *
+     * @param target the wrapped JDBC object
+     * @param method the method
+     * @param args the arguments
+     *
+     * @return the result of the method
+     *
+     * @throws Throwable the exception thrown by the method
+     */
+    static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @see com.zaxxer.hikari.metrics.MetricsTrackerFactory#create(java.lang.String, com.zaxxer.hikari.metrics.PoolStats)
+     */
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+
+        CmsSqlPoolStatistics statistics = new CmsSqlPoolStatistics(poolName, poolStats);
+        m_poolStatistics.put(poolName, statistics);
+        return statistics;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlMetricsMXBean#getPoolStatistics()
+     */
+    public List<CmsSqlPoolStatistics> getPoolStatistics() {
+
+        List<CmsSqlPoolStatistics> result = new ArrayList<CmsSqlPoolStatistics>(m_poolStatistics.values());
+        Collections.sort(result, new Comparator<CmsSqlPoolStatistics>() {
+
+            public int compare(CmsSqlPoolStatistics o1, CmsSqlPoolStatistics o2) {
+
+                return o1.getPoolName().compareTo(o2.getPoolName());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the statistics for the given query key, or <code>null</code> if the query was not executed yet.<p>
+     *
+     * @param queryKey the query key
+     *
+     * @return the statistics for the query key
+     */
+    public CmsSqlQueryStatistics getQueryStatistics(String queryKey) {
+
+        return m_queryStatistics.get(queryKey);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlMetricsMXBean#getQueryStatistics()
+     */
+    public List<CmsSqlQueryStatistics> getQueryStatistics() {
+
+        List<CmsSqlQueryStatistics> result = new ArrayList<CmsSqlQueryStatistics>(m_queryStatistics.values());
+        Collections.sort(result, new Comparator<CmsSqlQueryStatistics>() {
+
+            public int compare(CmsSqlQueryStatistics o1, CmsSqlQueryStatistics o2) {
+
+                return Long.compare(o2.getTotalTime(), o1.getTotalTime());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlMetricsMXBean#getSlowQueryThreshold()
+     */
+    public long getSlowQueryThreshold() {
+
+        return m_slowQueryThreshold;
+    }
+
+    /**
+     * Initializes the metrics from the configuration in <code>opencms.properties</code> and registers the MBean.<p>
+     *
+     * @param config the configuration
+     */
+    public void initialize(CmsParameterConfiguration config) {
+
+        m_enabled = config.getBoolean(KEY_ENABLED, false);
+        m_slowQueryThreshold = config.getInteger(KEY_SLOW_QUERY_THRESHOLD, DEFAULT_SLOW_QUERY_THRESHOLD);
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_SQL_METRICS_2,
+                    Boolean.valueOf(m_enabled),
+                    Long.valueOf(m_slowQueryThreshold)));
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_REGISTER_SQL_METRICS_FAILED_1, OBJECT_NAME), e);
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlMetricsMXBean#isEnabled()
+     */
+    public boolean isEnabled() {
+
+        return m_enabled;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlMetricsMXBean#resetQueryStatistics()
+     */
+    public void resetQueryStatistics() {
+
+        m_queryStatistics.clear();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlMetricsMXBean#setEnabled(boolean)
+     */
+    public void setEnabled(boolean enabled) {
+
+        m_enabled = enabled;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlMetricsMXBean#setSlowQueryThreshold(long)
+     */
+    public void setSlowQueryThreshold(long slowQueryThreshold) {
+
+        m_slowQueryThreshold = Math.max(0, slowQueryThreshold);
+    }
+
+    /**
+     * Wraps the given prepared statement, so that its executions are recorded for the given query key.<p>
+     *
+     * If recording the queries is disabled, the statement is returned unchanged.<p>
+     *
+     * @param statement the prepared statement
+     * @param queryKey the key of the query in the <code>query.properties</code>
+     * @param sql the SQL of the statement
+     *
+     * @return the wrapped statement
+     */
+    public PreparedStatement wrap(PreparedStatement statement, String queryKey, String sql) {
+
+        if (!m_enabled || (statement == null)) {
+            return statement;
+        }
+        CmsSqlQueryStatistics statistics = m_queryStatistics.get(queryKey);
+        if (statistics == null) {
+            statistics = new CmsSqlQueryStatistics(queryKey);
+            CmsSqlQueryStatistics previous = m_queryStatistics.putIfAbsent(queryKey, statistics);
+            if (previous != null) {
+                statistics = previous;
+            }
+        }
+        return (PreparedStatement)Proxy.newProxyInstance(
+            CmsSqlMetrics.class.getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            new CmsStatementHandler(statement, sql, statistics));
+    }
+
+    /**
+     * Records one execution of a query and logs it if it was slow.<p>
+     *
+     * @param statistics the statistics of the query
+     * @param sql the SQL of the query, containing only placeholders for the bind parameters
+     * @param nanos the execution time in nanoseconds
+     */
+    void recordExecution(CmsSqlQueryStatistics statistics, String sql, long nanos) {
+
+        statistics.addExecution(nanos);
+        long threshold = m_slowQueryThreshold;
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if ((threshold > 0) && (millis >= threshold) && LOG.isWarnEnabled()) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_SLOW_QUERY_3,
+                    statistics.getQueryKey(),
+                    Long.valueOf(millis),
+                    sql.replaceAll("\\s+", " ").trim()));
+        }
+    }
+
+    /**
+     * Removes the statistics of a closed pool.<p>
+     *
+     * @param statistics the statistics of the closed pool
+     */
+    void removePoolStatistics(CmsSqlPoolStatistics statistics) {
+
+        m_poolStatistics.remove(statistics.getPoolName(), statistics);
+    }
+}
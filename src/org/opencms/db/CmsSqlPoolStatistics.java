@@ -0,0 +1,235 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Connection statistics for one database pool, collected by HikariCP.<p>
+ *
+ * @since 11.0.0
+ */
+public final class CmsSqlPoolStatistics implements IMetricsTracker {
+
+    /** The number of connections handed out by the pool. */
+    private final LongAdder m_connectionsAcquired = new LongAdder();
+
+    /** The number of requests that timed out waiting for a connection. */
+    private final LongAdder m_connectionTimeouts = new LongAdder();
+
+    /** The longest time waited for a connection in nanoseconds. */
+    private final AtomicLong m_maxWaitTime = new AtomicLong();
+
+    /** The name of the pool. */
+    private final String m_poolName;
+
+    /** The current state of the pool. */
+    private final PoolStats m_poolStats;
+
+    /** The summed up time connections were used in milliseconds. */
+    private final LongAdder m_totalUsageTime = new LongAdder();
+
+    /** The summed up time waited for connections in nanoseconds. */
+    private final LongAdder m_totalWaitTime = new LongAdder();
+
+    /**
+     * Creates new statistics for the given pool.<p>
+     *
+     * @param poolName the name of the pool
+     * @param poolStats the current state of the pool
+     */
+    CmsSqlPoolStatistics(String poolName, PoolStats poolStats) {
+
+        m_poolName = poolName;
+        m_poolStats = poolStats;
+    }
+
+    /**
+     * @see com.zaxxer.hikari.metrics.IMetricsTracker#close()
+     */
+    public void close() {
+
+        CmsSqlMetrics.getInstance().removePoolStatistics(this);
+    }
+
+    /**
+     * Returns the number of connections currently in use.<p>
+     *
+     * @return the number of active connections
+     */
+    public int getActiveConnections() {
+
+        return m_poolStats.getActiveConnections();
+    }
+
+    /**
+     * Returns the average time connections were used in milliseconds.<p>
+     *
+     * @return the average time connections were used in milliseconds
+     */
+    public double getAverageUsageTime() {
+
+        long acquired = m_connectionsAcquired.sum();
+        return acquired == 0 ? 0 : m_totalUsageTime.sum() / (double)acquired;
+    }
+
+    /**
+     * Returns the average time waited for a connection in milliseconds.<p>
+     *
+     * @return the average time waited for a connection in milliseconds
+     */
+    public double getAverageWaitTime() {
+
+        long acquired = m_connectionsAcquired.sum();
+        return acquired == 0 ? 0 : (m_totalWaitTime.sum() / (double)acquired) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the number of connections handed out by the pool.<p>
+     *
+     * @return the number of connections handed out
+     */
+    public long getConnectionsAcquired() {
+
+        return m_connectionsAcquired.sum();
+    }
+
+    /**
+     * Returns the number of requests that timed out waiting for a connection.<p>
+     *
+     * @return the number of connection timeouts
+     */
+    public long getConnectionTimeouts() {
+
+        return m_connectionTimeouts.sum();
+    }
+
+    /**
+     * Returns the number of idle connections.<p>
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleConnections() {
+
+        return m_poolStats.getIdleConnections();
+    }
+
+    /**
+     * Returns the longest time waited for a connection in milliseconds.<p>
+     *
+     * @return the longest time waited for a connection in milliseconds
+     */
+    public long getMaxWaitTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_maxWaitTime.get());
+    }
+
+    /**
+     * Returns the number of threads currently waiting for a connection.<p>
+     *
+     * @return the number of waiting threads
+     */
+    public int getPendingThreads() {
+
+        return m_poolStats.getPendingThreads();
+    }
+
+    /**
+     * Returns the name of the pool.<p>
+     *
+     * @return the name of the pool
+     */
+    public String getPoolName() {
+
+        return m_poolName;
+    }
+
+    /**
+     * Returns the total number of connections in the pool.<p>
+     *
+     * @return the total number of connections
+     */
+    public int getTotalConnections() {
+
+        return m_poolStats.getTotalConnections();
+    }
+
+    /**
+     * @see com.zaxxer.hikari.metrics.IMetricsTracker#recordConnectionAcquiredNanos(long)
+     */
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+
+        m_connectionsAcquired.increment();
+        m_totalWaitTime.add(elapsedAcquiredNanos);
+        long max = m_maxWaitTime.get();
+        while ((elapsedAcquiredNanos > max) && !m_maxWaitTime.compareAndSet(max, elapsedAcquiredNanos)) {
+            max = m_maxWaitTime.get();
+        }
+    }
+
+    /**
+     * @see com.zaxxer.hikari.metrics.IMetricsTracker#recordConnectionTimeout()
+     */
+    public void recordConnectionTimeout() {
+
+        m_connectionTimeouts.increment();
+    }
+
+    /**
+     * @see com.zaxxer.hikari.metrics.IMetricsTracker#recordConnectionUsageMillis(long)
+     */
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+
+        m_totalUsageTime.add(elapsedBorrowedMillis);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_poolName
+            + "[active="
+            + getActiveConnections()
+            + ", idle="
+            + getIdleConnections()
+            + ", pending="
+            + getPendingThreads()
+            + ", acquired="
+            + getConnectionsAcquired()
+            + ", maxWait="
+            + getMaxWaitTime()
+            + "ms]";
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics for one SQL query key from the <code>query.properties</code>.<p>
+ *
+ * The execution times are collected in a histogram with the fixed upper bounds
+ * returned by {@link #getHistogramBounds()}, the last bucket counts all executions
+ * slower than the last bound.<p>
+ *
+ * @since 11.0.0
+ */
+public final class CmsSqlQueryStatistics {
+
+    /** The upper bounds of the histogram buckets in milliseconds. */
+    private static final long[] HISTOGRAM_BOUNDS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    /** The number of executions. */
+    private final LongAdder m_calls = new LongAdder();
+
+    /** The number of executions per histogram bucket. */
+    private final AtomicLongArray m_histogram = new AtomicLongArray(HISTOGRAM_BOUNDS.length + 1);
+
+    /** The longest execution time in nanoseconds. */
+    private final AtomicLong m_maxTime = new AtomicLong();
+
+    /** The query key. */
+    private final String m_queryKey;
+
+    /** The number of rows read from the result sets. */
+    private final LongAdder m_rowsRead = new LongAdder();
+
+    /** The summed up execution time in nanoseconds. */
+    private final LongAdder m_totalTime = new LongAdder();
+
+    /**
+     * Creates new statistics for the given query key.<p>
+     *
+     * @param queryKey the query key
+     */
+    public CmsSqlQueryStatistics(String queryKey) {
+
+        m_queryKey = queryKey;
+    }
+
+    /**
+     * Returns the upper bounds of the histogram buckets in milliseconds.<p>
+     *
+     * @return the upper bounds of the histogram buckets
+     */
+    public static long[] getHistogramBounds() {
+
+        return HISTOGRAM_BOUNDS.clone();
+    }
+
+    /**
+     * Returns the average execution time in milliseconds.<p>
+     *
+     * @return the average execution time in milliseconds
+     */
+    public double getAverageTime() {
+
+        long calls = m_calls.sum();
+        return calls == 0 ? 0 : (m_totalTime.sum() / (double)calls) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the number of executions.<p>
+     *
+     * @return the number of executions
+     */
+    public long getCalls() {
+
+        return m_calls.sum();
+    }
+
+    /**
+     * Returns the number of executions per histogram bucket.<p>
+     *
+     * @return the number of executions per histogram bucket
+     *
+     * @see #getHistogramBounds()
+     */
+    public long[] getLatencyHistogram() {
+
+        long[] result = new long[m_histogram.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = m_histogram.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the longest execution time in milliseconds.<p>
+     *
+     * @return the longest execution time in milliseconds
+     */
+    public long getMaxTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_maxTime.get());
+    }
+
+    /**
+     * Returns the query key.<p>
+     *
+     * @return the query key
+     */
+    public String getQueryKey() {
+
+        return m_queryKey;
+    }
+
+    /**
+     * Returns the number of rows read from the result sets.<p>
+     *
+     * @return the number of rows read
+     */
+    public long getRowsRead() {
+
+        return m_rowsRead.sum();
+    }
+
+    /**
+     * Returns the summed up execution time in milliseconds.<p>
+     *
+     * @return the summed up execution time in milliseconds
+     */
+    public long getTotalTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_totalTime.sum());
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_queryKey
+            + "[calls="
+            + getCalls()
+            + ", total="
+            + getTotalTime()
+            + "ms, max="
+            + getMaxTime()
+            + "ms, rows="
+            + getRowsRead()
+            + "]";
+    }
+
+    /**
+     * Records one execution of the query.<p>
+     *
+     * @param nanos the execution time in nanoseconds
+     */
+    void addExecution(long nanos) {
+
+        m_calls.increment();
+        m_totalTime.add(nanos);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while ((bucket < HISTOGRAM_BOUNDS.length) && (millis >= HISTOGRAM_BOUNDS[bucket])) {
+            bucket++;
+        }
+        m_histogram.incrementAndGet(bucket);
+        long max = m_maxTime.get();
+        while ((nanos > max) && !m_maxTime.compareAndSet(max, nanos)) {
+            max = m_maxTime.get();
+        }
+    }
+
+    /**
+     * Records rows read from a result set of the query.<p>
+     *
+     * @param rows the number of rows read
+     */
+    void addRowsRead(long rows) {
+
+        m_rowsRead.add(rows);
+    }
+}
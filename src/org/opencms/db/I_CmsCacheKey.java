@@ -76,4 +76,29 @@ public interface I_CmsCacheKey {
         CmsDbContext context,
         CmsResource resource,
         CmsPermissionSet requiredPermissions);
+
+    /**
+     * Returns the key object for the permission cache, or <code>null</code> if the permission check must not be cached.<p>
+     *
+     * The default implementation uses the string key generated by
+     * {@link #getCacheKeyForUserPermissions(String, CmsDbContext, CmsResource, CmsPermissionSet)}.<p>
+     *
+     * @param flags the flags of the permission check, a combination of the <code>FLAG_*</code> constants of {@link CmsPermissionCacheKey}
+     * @param context the context
+     * @param resource the resource
+     * @param requiredPermissions the permissions to check
+     *
+     * @return a cache key that is unique for the set of parameters, or <code>null</code>
+     */
+    default Object getPermissionCacheKey(
+        int flags,
+        CmsDbContext context,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions) {
+
+        String prefix = ((flags & CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE) != 0 ? "1" : "0")
+            + ((flags & CmsPermissionCacheKey.FLAG_CHECK_LOCK) != 0 ? "1" : "0");
+        String key = getCacheKeyForUserPermissions(prefix, context, resource, requiredPermissions);
+        return key.length() == 0 ? null : key;
+    }
 }
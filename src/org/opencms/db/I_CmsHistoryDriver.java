@@ -86,6 +86,20 @@ public interface I_CmsHistoryDriver {
     int deleteEntries(CmsDbContext dbc, I_CmsHistoryResource histResource, int versionsToKeep, long time)
     throws CmsDataAccessException;
 
+    /**
+     * Deletes the historical structure and property entries of a resource that were written with the given publish tag.<p>
+     *
+     * This is used before the history of a resource is written again by a resumed publish job.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource to delete the entries for
+     * @param publishTag the publish tag of the entries to delete
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void deleteEntriesForPublishTag(CmsDbContext dbc, CmsResource resource, int publishTag)
+    throws CmsDataAccessException;
+
     /**
      * Deletes a property definition.<p>
      *
@@ -0,0 +1,85 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.List;
+
+/**
+ * Management interface for the SQL query and database pool statistics.<p>
+ *
+ * @since 11.0.0
+ */
+public interface I_CmsSqlMetricsMXBean {
+
+    /**
+     * Returns the statistics for all database pools.<p>
+     *
+     * @return the statistics for all database pools
+     */
+    List<CmsSqlPoolStatistics> getPoolStatistics();
+
+    /**
+     * Returns the statistics for all executed query keys, sorted by the summed up execution time, slowest first.<p>
+     *
+     * @return the statistics for all executed query keys
+     */
+    List<CmsSqlQueryStatistics> getQueryStatistics();
+
+    /**
+     * Returns the execution time in milliseconds above which queries are logged, 0 if slow queries are not logged.<p>
+     *
+     * @return the slow query threshold in milliseconds
+     */
+    long getSlowQueryThreshold();
+
+    /**
+     * Returns true if the executed queries are recorded.<p>
+     *
+     * @return true if the executed queries are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Clears the statistics for all query keys.<p>
+     */
+    void resetQueryStatistics();
+
+    /**
+     * Enables or disables recording the executed queries.<p>
+     *
+     * @param enabled true if the executed queries should be recorded
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Sets the execution time in milliseconds above which queries are logged, 0 to not log slow queries.<p>
+     *
+     * @param slowQueryThreshold the slow query threshold in milliseconds
+     */
+    void setSlowQueryThreshold(long slowQueryThreshold);
+}
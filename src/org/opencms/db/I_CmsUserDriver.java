@@ -719,6 +719,25 @@ public interface I_CmsUserDriver extends I_CmsDriver {
     void removeResourceFromOrganizationalUnit(CmsDbContext dbc, CmsOrganizationalUnit orgUnit, CmsResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Replaces the access control entries of several resources at once.<p>
+     *
+     * For each resource, this has the same effect as removing all its access control entries with
+     * {@link #removeAccessControlEntries(CmsDbContext, CmsProject, CmsUUID)} and writing the given ones with
+     * {@link #writeAccessControlEntry(CmsDbContext, CmsProject, CmsAccessControlEntry)}, but the statements are
+     * sent to the database in batches.<p>
+     *
+     * @param dbc the current database context
+     * @param project the project to write the entries
+     * @param acEntries the new access control entries, by the resource id they belong to
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void replaceAccessControlEntries(
+        CmsDbContext dbc,
+        CmsProject project,
+        Map<CmsUUID, List<CmsAccessControlEntry>> acEntries) throws CmsDataAccessException;
+
     /**
      * Searches for users which match the given search criteria.<p>
      *
@@ -184,6 +184,21 @@ public interface I_CmsVfsDriver {
      */
     void createRelation(CmsDbContext dbc, CmsUUID projectId, CmsRelation relation) throws CmsDataAccessException;
 
+    /**
+     * Creates several new {@link CmsRelation} objects in the database, sending the inserts in a batch.<p>
+     *
+     * Locale variant relations are created one by one with
+     * {@link #createRelation(CmsDbContext, CmsUUID, CmsRelation)}, since they need to be normalized.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to execute the query in
+     * @param relations the relations to create
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void createRelations(CmsDbContext dbc, CmsUUID projectId, List<CmsRelation> relations)
+    throws CmsDataAccessException;
+
     /**
      * Creates a new resource from a given {@link CmsResource} object.<p>
      *
@@ -407,6 +422,32 @@ public interface I_CmsVfsDriver {
         CmsResource onlineResource,
         CmsResource offlineResource) throws CmsDataAccessException;
 
+    /**
+     * Publishes several files into the online project at once.<p>
+     *
+     * For each entry this writes the structure and resource records, the content, the properties and
+     * the relations of the file, like {@link #publishResource(CmsDbContext, CmsProject, CmsResource, CmsResource)},
+     * {@link #createOnlineContent(CmsDbContext, CmsUUID, byte[], int, boolean, boolean)},
+     * {@link #writePropertyObjects(CmsDbContext, CmsProject, CmsResource, List)} and
+     * {@link #updateRelations(CmsDbContext, CmsProject, CmsResource)} would do, but the statements are
+     * sent to the database in batches.<p>
+     *
+     * Only files with a single sibling whose resource id is not used by a different structure entry online
+     * can be published with this method.<p>
+     *
+     * @param dbc the current database context
+     * @param onlineProject the online project
+     * @param entries the files to publish
+     * @param publishTag the current publish tag
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void publishResources(
+        CmsDbContext dbc,
+        CmsProject onlineProject,
+        List<CmsPublishBatchEntry> entries,
+        int publishTag) throws CmsDataAccessException;
+
     /**
      * Copies the version number from the offline resource to the online resource,
      * this has to be done during publishing, direct after copying the resource itself.<p>
@@ -570,6 +611,26 @@ public interface I_CmsVfsDriver {
     List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all property objects mapped to the given resources with a single database query.<p>
+     *
+     * The returned map contains an entry for each of the given resources, keyed by the structure id
+     * of the resource. Resources without properties are mapped to an empty list.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param resources the resources to read the properties for
+     *
+     * @return a map from structure id to the list of CmsProperty objects of the resource
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources)
+    throws CmsDataAccessException;
+
     /**
      * Reads all relations with the given filter for the given resource.<p>
      *
@@ -1021,4 +1082,20 @@ public interface I_CmsVfsDriver {
         int changed,
         boolean isPublishing) throws CmsDataAccessException;
 
+    /**
+     * Writes the state of several published resources at once.<p>
+     *
+     * This has the same effect as calling {@link #writeResourceState(CmsDbContext, CmsProject, CmsResource, int, boolean)}
+     * with {@link org.opencms.db.CmsDriverManager#UPDATE_ALL} and <code>isPublishing</code> set to <code>true</code>
+     * for each of the given resources, but the updates are sent to the database in batches.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param resources the published resources, with the state to write already set
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void writeResourceStates(CmsDbContext dbc, CmsProject project, List<CmsResource> resources)
+    throws CmsDataAccessException;
+
 }
\ No newline at end of file
@@ -321,12 +321,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORT_ACL_ENTRIES_1 = "ERR_IMPORT_ACL_ENTRIES_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMPORT_ACL_ENTRIES_BULK_1 = "ERR_IMPORT_ACL_ENTRIES_BULK_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORT_FOLDER_1 = "ERR_IMPORT_FOLDER_1";
 
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORT_FOLDER_2 = "ERR_IMPORT_FOLDER_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMPORT_RELATIONS_1 = "ERR_IMPORT_RELATIONS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORT_RESOURCE_2 = "ERR_IMPORT_RESOURCE_2";
 
@@ -840,12 +846,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JDBC_POOL_2 = "INIT_JDBC_POOL_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_LOG_WRITER_3 = "INIT_LOG_WRITER_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SECURITY_MANAGER_INIT_0 = "INIT_SECURITY_MANAGER_INIT_0";
 
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SECURITY_MANAGER_SHUTDOWN_1 = "INIT_SECURITY_MANAGER_SHUTDOWN_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_SQL_METRICS_2 = "INIT_SQL_METRICS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WAIT_FOR_DB_4 = "INIT_WAIT_FOR_DB_4";
 
@@ -873,12 +885,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERR_DRIVER_MANAGER_START_0 = "LOG_ERR_DRIVER_MANAGER_START_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLUSH_LOG_ENTRIES_FAILED_0 = "LOG_FLUSH_LOG_ENTRIES_FAILED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_GET_TIMESTAMP_2 = "LOG_GET_TIMESTAMP_2";
 
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NO_EXPORT_POINTS_CONFIGURED_0 = "LOG_NO_EXPORT_POINTS_CONFIGURED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_REGISTER_SQL_METRICS_FAILED_1 = "LOG_REGISTER_SQL_METRICS_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SLOW_QUERY_3 = "LOG_SLOW_QUERY_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_UPDATE_EXORT_POINTS_ERROR_0 = "LOG_UPDATE_EXORT_POINTS_ERROR_0";
 
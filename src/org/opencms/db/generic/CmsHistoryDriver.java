@@ -274,6 +274,39 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsHistoryDriver#deleteEntriesForPublishTag(org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, int)
+     */
+    public void deleteEntriesForPublishTag(CmsDbContext dbc, CmsResource resource, int publishTag)
+    throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+
+            // delete the properties
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_DELETE_PUBLISH_TAG");
+            stmt.setString(1, resource.getStructureId().toString());
+            stmt.setInt(2, publishTag);
+            stmt.executeUpdate();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            // delete the structure entries
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_DELETE_PUBLISH_TAG");
+            stmt.setString(1, resource.getStructureId().toString());
+            stmt.setInt(2, publishTag);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsHistoryDriver#deletePropertyDefinition(org.opencms.db.CmsDbContext, org.opencms.file.CmsPropertyDefinition)
      */
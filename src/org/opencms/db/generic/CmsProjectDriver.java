@@ -38,6 +38,7 @@ import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPreparedStatementIntParameter;
 import org.opencms.db.CmsPreparedStatementLongParameter;
 import org.opencms.db.CmsPreparedStatementStringParameter;
+import org.opencms.db.CmsPublishBatchEntry;
 import org.opencms.db.CmsPublishList;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
@@ -73,6 +74,7 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.publish.CmsPublishJobInfoBean;
+import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationFilter;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsOrganizationalUnit;
@@ -87,6 +89,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -190,12 +193,24 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     /** Attribute name for reading the project of a resource. */
     public static final String DBC_ATTR_READ_PROJECT_FOR_RESOURCE = "DBC_ATTR_READ_PROJECT_FOR_RESOURCE";
 
+    /** The default number of published files whose state is reset in one batch. */
+    public static final int DEFAULT_PUBLISH_CHUNK_SIZE = 500;
+
+    /** The configuration parameter for the number of published files whose state is reset in one batch. */
+    public static final String PARAM_PUBLISH_CHUNK_SIZE = "db.project.publish.chunksize";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsProjectDriver.class);
 
+    /** The maximum size of the contents of the files published in one batch. */
+    private static final long MAX_BATCH_CONTENT_SIZE = 32L * 1024 * 1024;
+
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
+    /** The number of published files whose state is reset in one batch. */
+    protected int m_publishChunkSize = DEFAULT_PUBLISH_CHUNK_SIZE;
+
     /** The SQL manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -876,6 +891,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         m_sqlManager.init(I_CmsProjectDriver.DRIVER_TYPE_ID, poolUrl);
 
         m_driverManager = driverManager;
+        m_publishChunkSize = Math.max(
+            1,
+            configuration.getInteger(PARAM_PUBLISH_CHUNK_SIZE, DEFAULT_PUBLISH_CHUNK_SIZE));
 
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_ASSIGNED_POOL_1, poolUrl));
@@ -911,21 +929,35 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             conn = m_sqlManager.getConnection(dbc);
             stmt = m_sqlManager.getPreparedStatement(conn, "C_LOG_CREATE_5");
 
-            for (CmsLogEntry logEntry : logEntries) {
-                stmt.setString(1, logEntry.getUserId().toString());
-                stmt.setLong(2, logEntry.getDate());
-                stmt.setString(3, logEntry.getStructureId() == null ? null : logEntry.getStructureId().toString());
-                stmt.setInt(4, logEntry.getType().getId());
-                stmt.setString(5, CmsStringUtil.arrayAsString(logEntry.getData(), "|"));
-                try {
-                    stmt.executeUpdate();
-                } catch (SQLException e) {
-                    // ignore, most likely a duplicate entry
-                    LOG.debug(
-                        Messages.get().container(
-                            Messages.ERR_GENERIC_SQL_1,
-                            CmsDbSqlException.getErrorQuery(stmt)).key(),
-                        e);
+            boolean batchFailed = false;
+            try {
+                for (CmsLogEntry logEntry : logEntries) {
+                    internalSetLogEntryParameters(stmt, logEntry);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            } catch (BatchUpdateException e) {
+                // most likely a duplicate entry, the driver may have stopped at the failed entry
+                batchFailed = true;
+                LOG.debug(
+                    Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)).key(),
+                    e);
+            }
+            if (batchFailed) {
+                // write the entries one by one, ignoring the duplicates
+                stmt.clearBatch();
+                for (CmsLogEntry logEntry : logEntries) {
+                    internalSetLogEntryParameters(stmt, logEntry);
+                    try {
+                        stmt.executeUpdate();
+                    } catch (SQLException e) {
+                        // ignore, most likely a duplicate entry
+                        LOG.debug(
+                            Messages.get().container(
+                                Messages.ERR_GENERIC_SQL_1,
+                                CmsDbSqlException.getErrorQuery(stmt)).key(),
+                            e);
+                    }
                 }
             }
         } catch (SQLException e) {
@@ -1659,10 +1691,25 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         try {
 
+            // a resumed job reuses the publish tag of its interrupted attempt, remember what has been written already
+            List<CmsPublishedResource> resumedResources = m_driverManager.getProjectDriver(dbc).readPublishedResources(
+                dbc,
+                publishList.getPublishHistoryId());
+            boolean resumed = !resumedResources.isEmpty();
+            if (resumed) {
+                Set<CmsUUID> resumedIds = new HashSet<CmsUUID>();
+                for (CmsPublishedResource resumedResource : resumedResources) {
+                    if (resumedResource.getMovedState() != CmsPublishedResource.STATE_MOVED_SOURCE) {
+                        resumedIds.add(resumedResource.getStructureId());
+                    }
+                }
+                dbc.setAttribute(CmsDriverManager.KEY_RESUMED_PUBLISH_HISTORY, resumedIds);
+            }
+
             ////////////////////////////////////////////////////////////////////////////////////////
             // write the historical project entry
 
-            if (OpenCms.getSystemInfo().isHistoryEnabled()) {
+            if (OpenCms.getSystemInfo().isHistoryEnabled() && !resumed) {
                 try {
                     // write an entry in the publish project log
                     m_driverManager.getHistoryDriver(dbc).writeProject(dbc, publishTag, System.currentTimeMillis());
@@ -1804,9 +1851,50 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             Set<CmsUUID> changedAndDeletedResourceIds = Sets.intersection(deletedResourceIds, changedResourceIds);
             dbc.setAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED, changedAndDeletedResourceIds);
 
+            // published files without siblings whose state has not been reset yet, they stay locked until then
+            List<CmsResource> pendingFiles = new ArrayList<CmsResource>(Math.min(filesSize, m_publishChunkSize));
+            // new and changed files without siblings are copied in batches if no other driver is involved
+            boolean batchFiles = (projectDriver == this)
+                && ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID());
+            List<CmsResource> batch = new ArrayList<CmsResource>(Math.min(filesSize, m_publishChunkSize));
+            long batchContentSize = 0;
             Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
             while (itFiles.hasNext()) {
                 CmsResource currentResource = itFiles.next();
+                if (batchFiles && !currentResource.getState().isDeleted() && (currentResource.getSiblingCount() <= 1)) {
+                    batch.add(currentResource);
+                    batchContentSize += currentResource.getLength();
+                    if ((batch.size() >= m_publishChunkSize) || (batchContentSize >= MAX_BATCH_CONTENT_SIZE)) {
+                        publishedFileCount = publishFileBatch(
+                            dbc,
+                            report,
+                            publishedFileCount,
+                            filesSize,
+                            onlineProject,
+                            batch,
+                            publishedContentIds,
+                            publishList.getPublishHistoryId(),
+                            publishTag,
+                            publishedIds);
+                        batchContentSize = 0;
+                    }
+                    continue;
+                }
+                if (!batch.isEmpty()) {
+                    // keep the order of the publish list
+                    publishedFileCount = publishFileBatch(
+                        dbc,
+                        report,
+                        publishedFileCount,
+                        filesSize,
+                        onlineProject,
+                        batch,
+                        publishedContentIds,
+                        publishList.getPublishHistoryId(),
+                        publishTag,
+                        publishedIds);
+                    batchContentSize = 0;
+                }
                 try {
                     // bounce the current publish task through all project drivers
                     projectDriver.publishFile(
@@ -1821,6 +1909,15 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         publishTag);
 
                     CmsResourceState state = currentResource.getState();
+                    if (!state.isDeleted() && (currentResource.getSiblingCount() <= 1)) {
+                        // the state is reset together with the other files of the current chunk
+                        pendingFiles.add(currentResource);
+                        if (pendingFiles.size() >= m_publishChunkSize) {
+                            internalFinishPublishedFiles(dbc, report, pendingFiles, publishedIds);
+                        }
+                        dbc.pop();
+                        continue;
+                    }
                     if (!state.isDeleted()) {
                         // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
                         internalResetResourceState(dbc, currentResource);
@@ -1852,6 +1949,18 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         t);
                 }
             }
+            publishedFileCount = publishFileBatch(
+                dbc,
+                report,
+                publishedFileCount,
+                filesSize,
+                onlineProject,
+                batch,
+                publishedContentIds,
+                publishList.getPublishHistoryId(),
+                publishTag,
+                publishedIds);
+            internalFinishPublishedFiles(dbc, report, pendingFiles, publishedIds);
 
             if (filesSize > 0) {
                 report.println(Messages.get().container(Messages.RPT_PUBLISH_FILES_END_0), I_CmsReport.FORMAT_HEADLINE);
@@ -3171,6 +3280,71 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return new CmsLogEntry(userId, date, structureId, type, data);
     }
 
+    /**
+     * Finishes publishing a chunk of new or changed files.<p>
+     *
+     * The state of all files is reset to UNCHANGED with batched updates, after that the files
+     * are unlocked and the publish log entries are written. Since a file whose state has been
+     * reset is skipped when the publish job is started again, this also records the progress
+     * of the publish job.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to print errors to
+     * @param files the published files, will be cleared
+     * @param publishedIds the structure ids of the published resources, the files are added to it
+     */
+    protected void internalFinishPublishedFiles(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        List<CmsResource> files,
+        Set<CmsUUID> publishedIds) {
+
+        if (files.isEmpty()) {
+            return;
+        }
+        List<CmsLogEntryType> types = new ArrayList<CmsLogEntryType>(files.size());
+        for (CmsResource file : files) {
+            types.add(
+                file.getState().isNew()
+                ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
+                : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
+        }
+        try {
+            // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
+            internalResetResourceStates(dbc, files);
+        } catch (Throwable t) {
+            for (CmsResource file : files) {
+                dbc.report(
+                    report,
+                    Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, file.getRootPath()),
+                    t);
+            }
+            files.clear();
+            return;
+        }
+        for (int i = 0; i < files.size(); i++) {
+            CmsResource file = files.get(i);
+            try {
+                // unlock it
+                m_driverManager.unlockResource(dbc, file, true, true);
+                // log it
+                m_driverManager.log(
+                    dbc,
+                    new CmsLogEntry(dbc, file.getStructureId(), types.get(i), new String[] {file.getRootPath()}),
+                    true);
+
+                publishedIds.add(file.getStructureId());
+                dbc.pop();
+            } catch (Throwable t) {
+                dbc.report(
+                    report,
+                    Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, file.getRootPath()),
+                    t);
+            }
+        }
+        files.clear();
+    }
+
     /**
      * Resets the state to UNCHANGED for a specified resource.<p>
      *
@@ -3202,6 +3376,36 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Resets the state to UNCHANGED for the specified resources, using batched updates.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalResetResourceStates(CmsDbContext dbc, List<CmsResource> resources)
+    throws CmsDataAccessException {
+
+        for (CmsResource resource : resources) {
+            resource.setState(CmsResource.STATE_UNCHANGED);
+        }
+        try {
+            m_driverManager.getVfsDriver(dbc).writeResourceStates(dbc, dbc.currentProject(), resources);
+        } catch (CmsDataAccessException e) {
+            if (LOG.isErrorEnabled()) {
+                for (CmsResource resource : resources) {
+                    LOG.error(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_ERROR_RESETTING_RESOURCE_STATE_1,
+                            resource.getRootPath()),
+                        e);
+                }
+            }
+            throw e;
+        }
+    }
+
     /**
      * Serialize publish list to write it as byte array to the database.<p>
      *
@@ -3219,6 +3423,23 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return bout.toByteArray();
     }
 
+    /**
+     * Sets the parameters of the log entry insert statement for the given log entry.<p>
+     *
+     * @param stmt the log entry insert statement
+     * @param logEntry the log entry
+     *
+     * @throws SQLException if something goes wrong
+     */
+    protected void internalSetLogEntryParameters(PreparedStatement stmt, CmsLogEntry logEntry) throws SQLException {
+
+        stmt.setString(1, logEntry.getUserId().toString());
+        stmt.setLong(2, logEntry.getDate());
+        stmt.setString(3, logEntry.getStructureId() == null ? null : logEntry.getStructureId().toString());
+        stmt.setInt(4, logEntry.getType().getId());
+        stmt.setString(5, CmsStringUtil.arrayAsString(logEntry.getData(), "|"));
+    }
+
     /**
      * Writes the needed history entries.<p>
      *
@@ -3240,6 +3461,12 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         int publishTag)
     throws CmsDataAccessException {
 
+        @SuppressWarnings("unchecked")
+        Set<CmsUUID> resumedIds = (Set<CmsUUID>)dbc.getAttribute(CmsDriverManager.KEY_RESUMED_PUBLISH_HISTORY);
+        if ((resumedIds != null) && resumedIds.contains(resource.getStructureId())) {
+            // already written by the interrupted attempt of a resumed publish job
+            return;
+        }
         try {
             if (OpenCms.getSystemInfo().isHistoryEnabled()) {
                 // write the resource to the historical archive
@@ -3249,6 +3476,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         dbc.currentProject(),
                         resource);
                 }
+                if (resumedIds != null) {
+                    // the interrupted attempt may have written the history, but not the publish history entry
+                    m_driverManager.getHistoryDriver(dbc).deleteEntriesForPublishTag(dbc, resource, publishTag);
+                }
                 m_driverManager.getHistoryDriver(dbc).writeResource(dbc, resource, properties, publishTag);
             }
             // write the resource to the publish history
@@ -3266,6 +3497,97 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Reads everything needed to publish a new or changed file without siblings in a batch.<p>
+     *
+     * If the file has been moved since it was published the last time, the online file is moved
+     * to the new position right away.<p>
+     *
+     * @param dbc the current database context
+     * @param onlineProject the online project
+     * @param offlineResource the file to publish
+     * @param publishedContentIds contains the UUIDs of already published content records
+     * @param publishHistoryId the publish history id
+     * @param publishTag the publish tag
+     * @param resumed <code>true</code> if the file may have been published partially by an interrupted attempt
+     *
+     * @return the batch entry, or <code>null</code> if the resource id of the file is used differently online
+     *      and the file has to be published on its own
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected CmsPublishBatchEntry prepareBatchEntry(
+        CmsDbContext dbc,
+        CmsProject onlineProject,
+        CmsResource offlineResource,
+        Set<CmsUUID> publishedContentIds,
+        CmsUUID publishHistoryId,
+        int publishTag,
+        boolean resumed)
+    throws CmsDataAccessException {
+
+        I_CmsVfsDriver vfsDriver = m_driverManager.getVfsDriver(dbc);
+        boolean isNew = offlineResource.getState().isNew();
+        CmsResource onlineResource = null;
+        if (vfsDriver.validateStructureIdExists(dbc, onlineProject.getUuid(), offlineResource.getStructureId())) {
+            onlineResource = vfsDriver.readResource(
+                dbc,
+                onlineProject.getUuid(),
+                offlineResource.getStructureId(),
+                false);
+        }
+        boolean sameResource = (onlineResource != null)
+            && onlineResource.getResourceId().equals(offlineResource.getResourceId());
+        // a new file that is already online with the same ids has been copied by an interrupted attempt
+        if (isNew
+            ? (!(resumed && sameResource)
+                && vfsDriver.validateResourceIdExists(dbc, onlineProject.getUuid(), offlineResource.getResourceId()))
+            : ((onlineResource != null) && !sameResource)) {
+            // a new sibling or a replaced file
+            return null;
+        }
+
+        CmsResourceState resourceState = (isNew || (onlineResource != null))
+        ? fixMovedResource(dbc, onlineProject, offlineResource, publishHistoryId, publishTag)
+        : offlineResource.getState();
+
+        // reset the labeled link flag before writing the online file
+        int flags = offlineResource.getFlags();
+        flags &= ~CmsResource.FLAG_LABELED;
+        offlineResource.setFlags(flags);
+
+        // an interrupted attempt may already have moved the old content to the history
+        boolean updateContent = resumed
+            || isNew
+            || (onlineResource == null)
+            || (onlineResource.getDateContent() < offlineResource.getDateContent());
+        updateContent &= !publishedContentIds.contains(offlineResource.getResourceId());
+
+        CmsFile offlineFile = new CmsFile(offlineResource);
+        offlineFile.setContents(
+            vfsDriver.readContent(dbc, dbc.currentProject().getUuid(), offlineResource.getResourceId()));
+        List<CmsProperty> offlineProperties = vfsDriver.readPropertyObjects(
+            dbc,
+            dbc.currentProject(),
+            offlineResource);
+        CmsProperty.setAutoCreatePropertyDefinitions(offlineProperties, true);
+        List<CmsRelation> offlineRelations = vfsDriver.readRelations(
+            dbc,
+            dbc.currentProject().getUuid(),
+            offlineResource,
+            CmsRelationFilter.TARGETS);
+
+        CmsPublishBatchEntry entry = new CmsPublishBatchEntry(
+            offlineFile,
+            onlineResource,
+            offlineProperties,
+            offlineRelations,
+            resourceState,
+            updateContent);
+        entry.setRepeated(resumed);
+        return entry;
+    }
+
     /**
      * Build the whole WHERE SQL statement part for the given log entry filter.<p>
      *
@@ -3730,6 +4052,182 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Publishes new and changed files without siblings in a batch.<p>
+     *
+     * The structure and resource records, the contents, the properties and the relations of the files are
+     * written with {@link I_CmsVfsDriver#publishResources(CmsDbContext, CmsProject, List, int)}, the ACL and
+     * the history are still written for each file. The publish history entry of a file is written last, so
+     * a resumed publish job knows the file has been copied completely if it finds the entry.<p>
+     *
+     * Files that can not be published in a batch are published with
+     * {@link #publishFile(CmsDbContext, I_CmsReport, int, int, CmsProject, CmsResource, Set, CmsUUID, int)}.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param m the number of files published before the batch
+     * @param n the number of all files to publish
+     * @param onlineProject the online project
+     * @param files the files to publish, will be cleared
+     * @param publishedContentIds contains the UUIDs of already published content records
+     * @param publishHistoryId the publish history id
+     * @param publishTag the publish tag
+     * @param publishedIds the structure ids of the published resources, the files are added to it
+     *
+     * @return the number of the last file of the batch
+     */
+    protected int publishFileBatch(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        int m,
+        int n,
+        CmsProject onlineProject,
+        List<CmsResource> files,
+        Set<CmsUUID> publishedContentIds,
+        CmsUUID publishHistoryId,
+        int publishTag,
+        Set<CmsUUID> publishedIds) {
+
+        @SuppressWarnings("unchecked")
+        Set<CmsUUID> resumedIds = (Set<CmsUUID>)dbc.getAttribute(CmsDriverManager.KEY_RESUMED_PUBLISH_HISTORY);
+        I_CmsVfsDriver vfsDriver = m_driverManager.getVfsDriver(dbc);
+
+        // the files whose state has to be reset
+        List<CmsResource> publishedFiles = new ArrayList<CmsResource>(files.size());
+        List<CmsPublishBatchEntry> entries = new ArrayList<CmsPublishBatchEntry>(files.size());
+        List<CmsResource> entryFiles = new ArrayList<CmsResource>(files.size());
+        List<Integer> entryNumbers = new ArrayList<Integer>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            CmsResource file = files.get(i);
+            int number = m + i + 1;
+            try {
+                if ((resumedIds != null) && resumedIds.contains(file.getStructureId())) {
+                    // copied completely by the interrupted attempt, only the state has to be reset
+                    reportPublishedFile(dbc, report, number, n, file);
+                    publishedFiles.add(file);
+                    continue;
+                }
+                CmsPublishBatchEntry entry = prepareBatchEntry(
+                    dbc,
+                    onlineProject,
+                    file,
+                    publishedContentIds,
+                    publishHistoryId,
+                    publishTag,
+                    resumedIds != null);
+                if (entry == null) {
+                    publishFile(
+                        dbc,
+                        report,
+                        number,
+                        n,
+                        onlineProject,
+                        file,
+                        publishedContentIds,
+                        publishHistoryId,
+                        publishTag);
+                    publishedFiles.add(file);
+                } else {
+                    entries.add(entry);
+                    entryFiles.add(file);
+                    entryNumbers.add(Integer.valueOf(number));
+                }
+                dbc.pop();
+            } catch (Throwable t) {
+                dbc.report(
+                    report,
+                    Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, file.getRootPath()),
+                    t);
+            }
+        }
+
+        boolean[] failed = new boolean[entries.size()];
+        try {
+            vfsDriver.publishResources(dbc, onlineProject, entries, publishTag);
+        } catch (CmsDataAccessException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_PUBLISHING_FILE_BATCH_1, String.valueOf(entries.size())),
+                e);
+            for (int i = 0; i < entries.size(); i++) {
+                CmsPublishBatchEntry entry = entries.get(i);
+                // the batch may have been written partially
+                entry.setRepeated(true);
+                try {
+                    vfsDriver.publishResources(
+                        dbc,
+                        onlineProject,
+                        Collections.singletonList(entry),
+                        publishTag);
+                } catch (Throwable t) {
+                    failed[i] = true;
+                    dbc.report(
+                        report,
+                        Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, entryFiles.get(i).getRootPath()),
+                        t);
+                }
+            }
+        }
+
+        for (int i = 0; i < entries.size(); i++) {
+            CmsPublishBatchEntry entry = entries.get(i);
+            CmsResource file = entryFiles.get(i);
+            try {
+                if (failed[i]) {
+                    continue;
+                }
+                // update version numbers
+                vfsDriver.publishVersions(dbc, file, !publishedContentIds.contains(file.getResourceId()));
+                publishedContentIds.add(file.getResourceId());
+
+                // write the ACL online
+                m_driverManager.getUserDriver(dbc).publishAccessControlEntries(
+                    dbc,
+                    dbc.currentProject(),
+                    onlineProject,
+                    file.getResourceId(),
+                    file.getResourceId());
+
+                internalWriteHistory(
+                    dbc,
+                    entry.getFile(),
+                    entry.getPublishState(),
+                    entry.getProperties(),
+                    publishHistoryId,
+                    publishTag);
+                dbc.pop();
+
+                // delete old historical entries
+                m_driverManager.getHistoryDriver(dbc).deleteEntries(
+                    dbc,
+                    new CmsHistoryFile(file),
+                    OpenCms.getSystemInfo().getHistoryVersions(),
+                    -1);
+                m_driverManager.publishUrlNameMapping(dbc, file);
+
+                reportPublishedFile(dbc, report, entryNumbers.get(i).intValue(), n, file);
+                publishedFiles.add(file);
+                dbc.pop();
+            } catch (Throwable t) {
+                dbc.report(
+                    report,
+                    Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, file.getRootPath()),
+                    t);
+            } finally {
+                // notify the app. that the published file and it's properties have been modified offline
+                Map<String, Object> data = new HashMap<String, Object>(2);
+                data.put(I_CmsEventListener.KEY_RESOURCE, file);
+                data.put(I_CmsEventListener.KEY_SKIPINDEX, Boolean.TRUE);
+
+                OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED, data));
+            }
+        }
+
+        internalFinishPublishedFiles(dbc, report, publishedFiles, publishedIds);
+        int last = m + files.size();
+        files.clear();
+        return last;
+    }
+
     /**
      * Publishes a new file.<p>
      *
@@ -3850,4 +4348,40 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         m_driverManager.getVfsDriver(dbc).updateRelations(dbc, onlineProject, offlineResource);
     }
 
+    /**
+     * Prints the report line of a file published in a batch.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param m the number of the file
+     * @param n the number of all files to publish
+     * @param file the published file
+     */
+    private void reportPublishedFile(CmsDbContext dbc, I_CmsReport report, int m, int n, CmsResource file) {
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                String.valueOf(m),
+                String.valueOf(n)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_PUBLISH_FILE_0), I_CmsReport.FORMAT_NOTE);
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                dbc.removeSiteRoot(file.getRootPath())));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        report.println(
+            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+            I_CmsReport.FORMAT_OK);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PUBLISHING_FILE_3,
+                    file.getRootPath(),
+                    String.valueOf(m),
+                    String.valueOf(n)));
+        }
+    }
 }
\ No newline at end of file
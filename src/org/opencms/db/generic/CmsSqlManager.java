@@ -28,6 +28,7 @@
 package org.opencms.db.generic;
 
 import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsSqlMetrics;
 import org.opencms.file.CmsProject;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
@@ -246,6 +247,8 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      * Returns a PreparedStatement for a JDBC connection specified by the key of a SQL query
      * and the project-ID.<p>
      *
+     * The executions of the statement are recorded for the query key in the {@link CmsSqlMetrics}.<p>
+     *
      * @param con the JDBC connection
      * @param projectId the ID of the specified CmsProject
      * @param queryKey the key of the SQL query
@@ -258,12 +261,14 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     throws SQLException {
 
         String rawSql = readQuery(projectId, queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return CmsSqlMetrics.getInstance().wrap(getPreparedStatementForSql(con, rawSql), queryKey, rawSql);
     }
 
     /**
      * Returns a PreparedStatement for a JDBC connection specified by the key of a SQL query.<p>
      *
+     * The executions of the statement are recorded for the query key in the {@link CmsSqlMetrics}.<p>
+     *
      * @param con the JDBC connection
      * @param queryKey the key of the SQL query
      * @return PreparedStatement a new PreparedStatement containing the pre-compiled SQL statement
@@ -272,7 +277,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     public PreparedStatement getPreparedStatement(Connection con, String queryKey) throws SQLException {
 
         String rawSql = readQuery(CmsUUID.getNullUUID(), queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return CmsSqlMetrics.getInstance().wrap(getPreparedStatementForSql(con, rawSql), queryKey, rawSql);
     }
 
     /**
@@ -87,6 +87,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -1772,6 +1773,62 @@ public class CmsUserDriver implements I_CmsUserDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsUserDriver#replaceAccessControlEntries(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.Map)
+     */
+    public void replaceAccessControlEntries(
+        CmsDbContext dbc,
+        CmsProject project,
+        Map<CmsUUID, List<CmsAccessControlEntry>> acEntries)
+    throws CmsDataAccessException {
+
+        if (acEntries.isEmpty()) {
+            return;
+        }
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_REMOVE_ALL_1");
+            for (CmsUUID resourceId : acEntries.keySet()) {
+                stmt.setString(1, resourceId.toString());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_CREATE_5");
+            boolean hasEntries = false;
+            for (Entry<CmsUUID, List<CmsAccessControlEntry>> entry : acEntries.entrySet()) {
+                // a later entry for the same principal overwrites an earlier one
+                Map<CmsUUID, CmsAccessControlEntry> entriesByPrincipal = new LinkedHashMap<CmsUUID, CmsAccessControlEntry>(
+                    entry.getValue().size());
+                for (CmsAccessControlEntry acEntry : entry.getValue()) {
+                    entriesByPrincipal.put(acEntry.getPrincipal(), acEntry);
+                }
+                for (CmsAccessControlEntry acEntry : entriesByPrincipal.values()) {
+                    stmt.setString(1, entry.getKey().toString());
+                    stmt.setString(2, acEntry.getPrincipal().toString());
+                    stmt.setInt(3, acEntry.getAllowedPermissions());
+                    stmt.setInt(4, acEntry.getDeniedPermissions());
+                    stmt.setInt(5, acEntry.getFlags());
+                    stmt.addBatch();
+                    hasEntries = true;
+                }
+            }
+            if (hasEntries) {
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsUserDriver#searchUsers(org.opencms.db.CmsDbContext, org.opencms.file.CmsUserSearchParameters)
      */
@@ -39,6 +39,7 @@ import org.opencms.db.CmsDbUtil;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPreparedStatementIntParameter;
 import org.opencms.db.CmsPreparedStatementStringParameter;
+import org.opencms.db.CmsPublishBatchEntry;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsRewriteAlias;
 import org.opencms.db.CmsRewriteAliasFilter;
@@ -90,6 +91,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -625,6 +627,43 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#createRelations(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.List)
+     */
+    public void createRelations(CmsDbContext dbc, CmsUUID projectId, List<CmsRelation> relations)
+    throws CmsDataAccessException {
+
+        List<Object[]> rows = new ArrayList<Object[]>(relations.size());
+        List<CmsRelation> localeRelations = new ArrayList<CmsRelation>();
+        for (CmsRelation relation : relations) {
+            if (relation.getType().getId() == CmsRelationType.LOCALE_VARIANT.getId()) {
+                localeRelations.add(relation);
+                continue;
+            }
+            rows.add(
+                new Object[] {
+                    relation.getSourceId().toString(),
+                    relation.getSourcePath(),
+                    relation.getTargetId().toString(),
+                    relation.getTargetPath(),
+                    Integer.valueOf(relation.getType().getId())});
+        }
+        if (!rows.isEmpty()) {
+            Connection conn = null;
+            try {
+                conn = m_sqlManager.getConnection(dbc);
+                executeBatch(dbc, conn, projectId, "C_CREATE_RELATION", rows);
+            } catch (SQLException e) {
+                throw wrapException(null, e);
+            } finally {
+                m_sqlManager.closeAll(dbc, conn, null, null);
+            }
+        }
+        for (CmsRelation relation : localeRelations) {
+            createRelation(dbc, projectId, relation);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#createResource(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.file.CmsResource, byte[])
      */
@@ -1649,6 +1688,211 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#publishResources(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List, int)
+     */
+    public void publishResources(
+        CmsDbContext dbc,
+        CmsProject onlineProject,
+        List<CmsPublishBatchEntry> entries,
+        int publishTag)
+    throws CmsDataAccessException {
+
+        if (entries.isEmpty()) {
+            return;
+        }
+        CmsUUID onlineId = onlineProject.getUuid();
+
+        // read everything that decides which statements are needed before anything is written
+        List<Object[]> deleteProperties = new ArrayList<Object[]>(entries.size());
+        List<Object[]> updateResources = new ArrayList<Object[]>();
+        List<Object[]> writeResources = new ArrayList<Object[]>();
+        List<Object[]> updateStructures = new ArrayList<Object[]>();
+        List<Object[]> writeStructures = new ArrayList<Object[]>();
+        List<Object[]> deleteContents = new ArrayList<Object[]>();
+        List<Object[]> createProperties = new ArrayList<Object[]>();
+        Map<String, List<Object[]>> deleteRelations = new LinkedHashMap<String, List<Object[]>>();
+        List<Object[]> brokenRelations = new ArrayList<Object[]>(entries.size());
+        List<Object[]> createRelations = new ArrayList<Object[]>();
+
+        // properties without an online definition and locale variant relations are written afterwards
+        List<CmsPair<CmsResource, CmsProperty>> lateProperties = new ArrayList<CmsPair<CmsResource, CmsProperty>>();
+        List<CmsRelation> lateRelations = new ArrayList<CmsRelation>();
+
+        Map<String, String> parentIds = new HashMap<String, String>();
+        Map<String, CmsPropertyDefinition> propertyDefinitions = new HashMap<String, CmsPropertyDefinition>();
+        int state = CmsResource.STATE_UNCHANGED.getState();
+        for (CmsPublishBatchEntry entry : entries) {
+            CmsFile file = entry.getFile();
+            internalValidateResourceLength(file);
+            String rid = file.getResourceId().toString();
+            String sid = file.getStructureId().toString();
+            String resourcePath = CmsFileUtil.removeTrailingSeparator(file.getRootPath());
+
+            deleteProperties.add(
+                new Object[] {
+                    rid,
+                    Integer.valueOf(CmsProperty.RESOURCE_RECORD_MAPPING),
+                    sid,
+                    Integer.valueOf(CmsProperty.STRUCTURE_RECORD_MAPPING)});
+
+            boolean resourceExists = validateResourceIdExists(dbc, onlineId, file.getResourceId());
+            if (resourceExists) {
+                updateResources.add(
+                    new Object[] {
+                        Integer.valueOf(file.getTypeId()),
+                        Integer.valueOf(file.getFlags()),
+                        Long.valueOf(file.getDateLastModified()),
+                        file.getUserLastModified().toString(),
+                        Integer.valueOf(state),
+                        Integer.valueOf(file.getLength()),
+                        Long.valueOf(file.getDateContent()),
+                        file.getProjectLastModified().toString(),
+                        Integer.valueOf(countSiblings(dbc, onlineId, file.getResourceId())),
+                        rid});
+            } else {
+                writeResources.add(
+                    new Object[] {
+                        rid,
+                        Integer.valueOf(file.getTypeId()),
+                        Integer.valueOf(file.getFlags()),
+                        Long.valueOf(file.getDateCreated()),
+                        file.getUserCreated().toString(),
+                        Long.valueOf(file.getDateLastModified()),
+                        file.getUserLastModified().toString(),
+                        Integer.valueOf(state),
+                        Integer.valueOf(file.getLength()),
+                        Long.valueOf(file.getDateContent()),
+                        file.getProjectLastModified().toString(),
+                        Integer.valueOf(1),
+                        Integer.valueOf(1)});
+            }
+
+            String parentPath = CmsResource.getParentFolder(resourcePath);
+            String parentId = parentIds.get(parentPath);
+            if (parentId == null) {
+                parentId = internalReadParentId(dbc, onlineId, resourcePath);
+                parentIds.put(parentPath, parentId);
+            }
+            if (validateStructureIdExists(dbc, onlineId, file.getStructureId())) {
+                updateStructures.add(
+                    new Object[] {
+                        rid,
+                        resourcePath,
+                        Integer.valueOf(state),
+                        Long.valueOf(file.getDateReleased()),
+                        Long.valueOf(file.getDateExpired()),
+                        parentId,
+                        sid});
+            } else {
+                writeStructures.add(
+                    new Object[] {
+                        sid,
+                        rid,
+                        resourcePath,
+                        Integer.valueOf(state),
+                        Long.valueOf(file.getDateReleased()),
+                        Long.valueOf(file.getDateExpired()),
+                        parentId,
+                        Integer.valueOf(resourceExists ? 1 : 0)});
+            }
+
+            if (entry.isRepeated()) {
+                // remove the content written by an earlier attempt with the same publish tag
+                deleteContents.add(new Object[] {rid, Integer.valueOf(publishTag)});
+            }
+
+            for (CmsProperty property : entry.getProperties()) {
+                CmsPropertyDefinition definition = propertyDefinitions.get(property.getName());
+                if (definition == null) {
+                    try {
+                        definition = readPropertyDefinition(dbc, property.getName(), onlineId);
+                        propertyDefinitions.put(property.getName(), definition);
+                    } catch (CmsDbEntryNotFoundException e) {
+                        lateProperties.add(CmsPair.<CmsResource, CmsProperty> create(file, property));
+                        continue;
+                    }
+                }
+                if (!CmsStringUtil.isEmptyOrWhitespaceOnly(property.getStructureValue())) {
+                    createProperties.add(
+                        new Object[] {
+                            new CmsUUID().toString(),
+                            definition.getId().toString(),
+                            sid,
+                            Integer.valueOf(CmsProperty.STRUCTURE_RECORD_MAPPING),
+                            m_sqlManager.validateEmpty(property.getStructureValue())});
+                }
+                if (!CmsStringUtil.isEmptyOrWhitespaceOnly(property.getResourceValue())) {
+                    createProperties.add(
+                        new Object[] {
+                            new CmsUUID().toString(),
+                            definition.getId().toString(),
+                            rid,
+                            Integer.valueOf(CmsProperty.RESOURCE_RECORD_MAPPING),
+                            m_sqlManager.validateEmpty(property.getResourceValue())});
+                }
+            }
+
+            List<Object> params = new ArrayList<Object>(7);
+            String sql = m_sqlManager.readQuery(onlineId, "C_DELETE_RELATIONS")
+                + prepareRelationConditions(onlineId, CmsRelationFilter.TARGETS, file, params, false);
+            List<Object[]> rows = deleteRelations.get(sql);
+            if (rows == null) {
+                rows = new ArrayList<Object[]>(entries.size());
+                deleteRelations.put(sql, rows);
+            }
+            rows.add(params.toArray());
+            brokenRelations.add(new Object[] {file.getRootPath()});
+
+            for (CmsRelation relation : entry.getRelations()) {
+                if (relation.getType().getId() == CmsRelationType.LOCALE_VARIANT.getId()) {
+                    lateRelations.add(relation);
+                    continue;
+                }
+                createRelations.add(
+                    new Object[] {
+                        relation.getSourceId().toString(),
+                        relation.getSourcePath(),
+                        relation.getTargetId().toString(),
+                        relation.getTargetPath(),
+                        Integer.valueOf(relation.getType().getId())});
+            }
+        }
+
+        Connection conn = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            executeBatch(
+                dbc,
+                conn,
+                onlineId,
+                "C_PROPERTIES_DELETE_ALL_STRUCTURE_AND_RESOURCE_VALUES",
+                deleteProperties);
+            executeBatch(dbc, conn, onlineId, "C_RESOURCES_UPDATE_RESOURCES", updateResources);
+            executeBatch(dbc, conn, onlineId, "C_RESOURCES_WRITE", writeResources);
+            executeBatch(dbc, conn, onlineId, "C_RESOURCES_UPDATE_STRUCTURE", updateStructures);
+            executeBatch(dbc, conn, onlineId, "C_STRUCTURE_WRITE", writeStructures);
+            executeBatch(dbc, conn, CmsUUID.getNullUUID(), "C_ONLINE_CONTENTS_DELETE_PUBLISH_TAG", deleteContents);
+            publishContents(dbc, conn, entries, publishTag);
+            executeBatch(dbc, conn, onlineId, "C_PROPERTIES_CREATE", createProperties);
+            for (Map.Entry<String, List<Object[]>> deleteRelation : deleteRelations.entrySet()) {
+                executeBatchForSql(dbc, conn, deleteRelation.getKey(), deleteRelation.getValue());
+            }
+            executeBatch(dbc, conn, onlineId, "C_RELATIONS_UPDATE_BROKEN", brokenRelations);
+            executeBatch(dbc, conn, onlineId, "C_RELATIONS_DELETE_BROKEN_LOCALE_RELATIONS", brokenRelations);
+            executeBatch(dbc, conn, onlineId, "C_CREATE_RELATION", createRelations);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, null, null);
+        }
+
+        for (CmsPair<CmsResource, CmsProperty> property : lateProperties) {
+            writePropertyObject(dbc, onlineProject, property.getFirst(), property.getSecond());
+        }
+        for (CmsRelation relation : lateRelations) {
+            createRelation(dbc, onlineId, relation);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#publishVersions(org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, boolean)
      */
@@ -2217,6 +2461,118 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources)
+    throws CmsDataAccessException {
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        if (resources.isEmpty()) {
+            return result;
+        }
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        // both the structure id and the resource id of a resource may be used as mapping id
+        Map<String, List<CmsResource>> resourcesByMappingId = new HashMap<String, List<CmsResource>>();
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new HashMap<CmsUUID, Map<String, CmsProperty>>();
+        for (CmsResource resource : resources) {
+            propertyMaps.put(resource.getStructureId(), new HashMap<String, CmsProperty>());
+            for (CmsUUID mappingId : new CmsUUID[] {resource.getStructureId(), resource.getResourceId()}) {
+                List<CmsResource> mapped = resourcesByMappingId.get(mappingId.toString());
+                if (mapped == null) {
+                    mapped = new ArrayList<CmsResource>(1);
+                    resourcesByMappingId.put(mappingId.toString(), mapped);
+                }
+                if (!mapped.contains(resource)) {
+                    mapped.add(resource);
+                }
+            }
+        }
+
+        StringBuffer queryBuf = new StringBuffer(256);
+        queryBuf.append(m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_FOR_MAPPING_IDS"));
+        queryBuf.append(BEGIN_CONDITION);
+        Iterator<String> itIds = resourcesByMappingId.keySet().iterator();
+        while (itIds.hasNext()) {
+            itIds.next();
+            queryBuf.append("?");
+            if (itIds.hasNext()) {
+                queryBuf.append(", ");
+            }
+        }
+        queryBuf.append(END_CONDITION);
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+            int i = 1;
+            for (String mappingId : resourcesByMappingId.keySet()) {
+                stmt.setString(i++, mappingId);
+            }
+            res = stmt.executeQuery();
+
+            while (res.next()) {
+                String mappingId = res.getString(1);
+                String propertyKey = res.getString(2);
+                String propertyValue = res.getString(3);
+                int mappingType = res.getInt(4);
+
+                List<CmsResource> mapped = resourcesByMappingId.get(mappingId);
+                if (mapped == null) {
+                    continue;
+                }
+                for (CmsResource resource : mapped) {
+                    Map<String, CmsProperty> propertyMap = propertyMaps.get(resource.getStructureId());
+                    CmsProperty property = propertyMap.get(propertyKey);
+                    if (property == null) {
+                        // there doesn't exist a property object for this key yet
+                        property = new CmsProperty();
+                        property.setName(propertyKey);
+                        propertyMap.put(propertyKey, property);
+                    }
+                    if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                        // this property value is mapped to a structure record
+                        property.setStructureValue(propertyValue);
+                    } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                        // this property value is mapped to a resource record
+                        property.setResourceValue(propertyValue);
+                    } else {
+                        throw new CmsDbConsistencyException(
+                            Messages.get().container(
+                                Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                                resource.getRootPath(),
+                                new Integer(mappingType),
+                                propertyKey));
+                    }
+                    property.setOrigin(resource.getRootPath());
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        for (CmsResource resource : resources) {
+            Map<String, CmsProperty> propertyMap = propertyMaps.get(resource.getStructureId());
+            result.put(resource.getStructureId(), new ArrayList<CmsProperty>(propertyMap.values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -3576,6 +3932,100 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#writeResourceStates(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public void writeResourceStates(CmsDbContext dbc, CmsProject project, List<CmsResource> resources)
+    throws CmsDataAccessException {
+
+        if (project.getUuid().equals(CmsProject.ONLINE_PROJECT_ID) || resources.isEmpty()) {
+            return;
+        }
+
+        // the online version numbers must be read before anything is written
+        List<Map<String, Integer>> onlineVersions = null;
+        if ((dbc.getRequestContext() != null) && !dbc.currentProject().isOnlineProject()) {
+            onlineVersions = new ArrayList<Map<String, Integer>>(resources.size());
+            for (CmsResource resource : resources) {
+                onlineVersions.add(
+                    readVersions(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        resource.getResourceId(),
+                        resource.getStructureId()));
+            }
+        }
+
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RESOURCE_STATE");
+            for (CmsResource resource : resources) {
+                stmt.setInt(1, resource.getState().getState());
+                stmt.setString(2, project.getUuid().toString());
+                stmt.setString(3, resource.getResourceId().toString());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_STRUCTURE_STATE");
+            for (CmsResource resource : resources) {
+                stmt.setInt(1, resource.getState().getState());
+                stmt.setString(2, resource.getStructureId().toString());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RELEASE_EXPIRED");
+            for (CmsResource resource : resources) {
+                stmt.setLong(1, resource.getDateReleased());
+                stmt.setLong(2, resource.getDateExpired());
+                stmt.setString(3, resource.getStructureId().toString());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            if (onlineVersions != null) {
+                // update the resource versions
+                stmt = m_sqlManager.getPreparedStatement(
+                    conn,
+                    dbc.currentProject(),
+                    "C_RESOURCES_UPDATE_RESOURCE_VERSION");
+                for (int i = 0; i < resources.size(); i++) {
+                    stmt.setInt(1, onlineVersions.get(i).get("resource").intValue());
+                    stmt.setString(2, resources.get(i).getResourceId().toString());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                m_sqlManager.closeAll(dbc, null, stmt, null);
+
+                // update the structure versions
+                stmt = m_sqlManager.getPreparedStatement(
+                    conn,
+                    dbc.currentProject(),
+                    "C_RESOURCES_UPDATE_STRUCTURE_VERSION");
+                for (int i = 0; i < resources.size(); i++) {
+                    stmt.setInt(1, onlineVersions.get(i).get("structure").intValue());
+                    stmt.setString(2, resources.get(i).getStructureId().toString());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * Checks that the current user has write permissions for all subresources of the given folder.<p>
      *
@@ -4534,6 +4984,58 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Writes the online contents of files published together in a batch.<p>
+     *
+     * The contents written by an earlier attempt with the same publish tag have already been removed
+     * when this method is called.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param entries the published files
+     * @param publishTag the current publish tag
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     *
+     * @see #createOnlineContent(CmsDbContext, CmsUUID, byte[], int, boolean, boolean)
+     */
+    protected void publishContents(
+        CmsDbContext dbc,
+        Connection conn,
+        List<CmsPublishBatchEntry> entries,
+        int publishTag)
+    throws CmsDataAccessException {
+
+        List<Object[]> removeContents = new ArrayList<Object[]>();
+        List<Object[]> writeContents = new ArrayList<Object[]>();
+        List<Object[]> updateContents = new ArrayList<Object[]>();
+        for (CmsPublishBatchEntry entry : entries) {
+            String rid = entry.getFile().getResourceId().toString();
+            if (entry.isUpdateContent()) {
+                removeContents.add(new Object[] {rid});
+                writeContents.add(
+                    new Object[] {
+                        rid,
+                        entry.getFile().getContents(),
+                        Integer.valueOf(publishTag),
+                        Integer.valueOf(publishTag),
+                        Integer.valueOf(1)});
+            } else {
+                updateContents.add(new Object[] {Integer.valueOf(publishTag), rid});
+            }
+        }
+        CmsUUID projectId = CmsUUID.getNullUUID();
+        if (OpenCms.getSystemInfo().isHistoryEnabled()) {
+            // put the online content in the history
+            executeBatch(dbc, conn, projectId, "C_ONLINE_CONTENTS_HISTORY", removeContents);
+        } else {
+            // remove the online content
+            executeBatch(dbc, conn, projectId, "C_ONLINE_CONTENTS_DELETE", removeContents);
+        }
+        executeBatch(dbc, conn, projectId, "C_ONLINE_CONTENTS_WRITE", writeContents);
+        executeBatch(dbc, conn, projectId, "C_HISTORY_CONTENTS_UPDATE", updateContents);
+    }
+
     /**
      * Reads all resources inside a given project matching the criteria specified by parameter values.<p>
      *
@@ -4784,6 +5286,94 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return CmsPair.create(conditionString, conditionParams);
     }
 
+    /**
+     * Executes the statement for the given query key once for each of the given parameter rows in a batch.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param projectId the project id used to resolve the query
+     * @param queryKey the key of the query
+     * @param rows the parameters of the single executions
+     *
+     * @throws CmsDbSqlException if something goes wrong
+     */
+    private void executeBatch(
+        CmsDbContext dbc,
+        Connection conn,
+        CmsUUID projectId,
+        String queryKey,
+        List<Object[]> rows)
+    throws CmsDbSqlException {
+
+        if (rows.isEmpty()) {
+            return;
+        }
+        PreparedStatement stmt = null;
+        try {
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, queryKey);
+            executeBatch(stmt, rows);
+        } catch (SQLException e) {
+            throw wrapException(stmt, e);
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+        }
+    }
+
+    /**
+     * Sets the given parameter rows on the statement and executes it as a batch.<p>
+     *
+     * @param stmt the statement
+     * @param rows the parameters of the single executions
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private void executeBatch(PreparedStatement stmt, List<Object[]> rows) throws SQLException {
+
+        for (Object[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                Object param = row[i];
+                if (param instanceof Integer) {
+                    stmt.setInt(i + 1, ((Integer)param).intValue());
+                } else if (param instanceof Long) {
+                    stmt.setLong(i + 1, ((Long)param).longValue());
+                } else if (param instanceof byte[]) {
+                    m_sqlManager.setBytes(stmt, i + 1, (byte[])param);
+                } else {
+                    stmt.setString(i + 1, (String)param);
+                }
+            }
+            stmt.addBatch();
+        }
+        stmt.executeBatch();
+    }
+
+    /**
+     * Executes the given SQL statement once for each of the given parameter rows in a batch.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param sql the SQL statement
+     * @param rows the parameters of the single executions
+     *
+     * @throws CmsDbSqlException if something goes wrong
+     */
+    private void executeBatchForSql(CmsDbContext dbc, Connection conn, String sql, List<Object[]> rows)
+    throws CmsDbSqlException {
+
+        if (rows.isEmpty()) {
+            return;
+        }
+        PreparedStatement stmt = null;
+        try {
+            stmt = m_sqlManager.getPreparedStatementForSql(conn, sql);
+            executeBatch(stmt, rows);
+        } catch (SQLException e) {
+            throw wrapException(stmt, e);
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+        }
+    }
+
     /**
      * Helper method to prepare the SQL conditions for accessing rewrite aliases using a given filter.<p>
      *
@@ -373,6 +373,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISHING_FILE_3 = "LOG_PUBLISHING_FILE_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PUBLISHING_FILE_BATCH_1 = "LOG_PUBLISHING_FILE_BATCH_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISHING_FILE_CONTENT_1 = "LOG_PUBLISHING_FILE_CONTENT_1";
 
@@ -0,0 +1,386 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.log;
+
+import org.opencms.main.CmsLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Bounded buffer for log entries that are written to the database later.<p>
+ *
+ * The entries are written by a background thread whenever the batch size is reached or
+ * the flush interval has elapsed. The actual writing is done by the flush action given
+ * to {@link #startWriter(Runnable, int, long)}, which is expected to {@link #drain()} the queue
+ * and to report the result with {@link #recordFlush(int, long)}.<p>
+ *
+ * The counters of this queue can be used to monitor the queue depth and the flush latency.<p>
+ *
+ * @since 11.0.0
+ */
+public class CmsLogEntryQueue {
+
+    /** The log object for this class. */
+    static final Log LOG = CmsLog.getLog(CmsLogEntryQueue.class);
+
+    /** The batch size that triggers a flush of the writer thread. */
+    volatile int m_batchSize;
+
+    /** The flush action run by the writer thread. */
+    Runnable m_flushAction;
+
+    /** The time in milliseconds the writer thread waits between two flushes. */
+    volatile long m_flushInterval;
+
+    /** Monitor used to wake up the writer thread. */
+    final Object m_writerLock = new Object();
+
+    /** Flag to indicate that the writer thread should stop. */
+    volatile boolean m_shutDown;
+
+    /** The maximum number of buffered entries. */
+    private volatile int m_capacity;
+
+    /** The buffered entries. */
+    private ConcurrentLinkedQueue<CmsLogEntry> m_entries = new ConcurrentLinkedQueue<CmsLogEntry>();
+
+    /** The number of flushes. */
+    private AtomicLong m_flushCount = new AtomicLong();
+
+    /** The number of entries written by all flushes. */
+    private AtomicLong m_flushedEntries = new AtomicLong();
+
+    /** The duration of the last flush in milliseconds. */
+    private volatile long m_lastFlushTime;
+
+    /** The duration of the slowest flush in milliseconds. */
+    private AtomicLong m_maxFlushTime = new AtomicLong();
+
+    /** The number of entries that did not fit into the queue. */
+    private AtomicLong m_overflowCount = new AtomicLong();
+
+    /** The current number of buffered entries. */
+    private AtomicInteger m_size = new AtomicInteger();
+
+    /** The duration of all flushes in milliseconds. */
+    private AtomicLong m_totalFlushTime = new AtomicLong();
+
+    /** The writer thread. */
+    private volatile Thread m_writer;
+
+    /**
+     * Creates a new log entry queue.<p>
+     *
+     * @param capacity the maximum number of buffered entries
+     */
+    public CmsLogEntryQueue(int capacity) {
+
+        m_capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Adds the given entry to the queue, even if the queue is full.<p>
+     *
+     * @param entry the log entry to add
+     */
+    public void add(CmsLogEntry entry) {
+
+        m_entries.add(entry);
+        signalIfBatchReached(m_size.incrementAndGet());
+    }
+
+    /**
+     * Removes all buffered entries from the queue and returns them in the order they were added.<p>
+     *
+     * @return the removed entries
+     */
+    public List<CmsLogEntry> drain() {
+
+        List<CmsLogEntry> result = new ArrayList<CmsLogEntry>(Math.max(16, m_size.get()));
+        CmsLogEntry entry;
+        while ((entry = m_entries.poll()) != null) {
+            m_size.decrementAndGet();
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the average duration of a flush in milliseconds.<p>
+     *
+     * @return the average duration of a flush in milliseconds
+     */
+    public long getAverageFlushTime() {
+
+        long count = m_flushCount.get();
+        return count == 0 ? 0 : m_totalFlushTime.get() / count;
+    }
+
+    /**
+     * Returns the maximum number of buffered entries.<p>
+     *
+     * @return the maximum number of buffered entries
+     */
+    public int getCapacity() {
+
+        return m_capacity;
+    }
+
+    /**
+     * Returns the number of flushes.<p>
+     *
+     * @return the number of flushes
+     */
+    public long getFlushCount() {
+
+        return m_flushCount.get();
+    }
+
+    /**
+     * Returns the number of entries written by all flushes.<p>
+     *
+     * @return the number of entries written by all flushes
+     */
+    public long getFlushedEntries() {
+
+        return m_flushedEntries.get();
+    }
+
+    /**
+     * Returns the duration of the last flush in milliseconds.<p>
+     *
+     * @return the duration of the last flush in milliseconds
+     */
+    public long getLastFlushTime() {
+
+        return m_lastFlushTime;
+    }
+
+    /**
+     * Returns the duration of the slowest flush in milliseconds.<p>
+     *
+     * @return the duration of the slowest flush in milliseconds
+     */
+    public long getMaxFlushTime() {
+
+        return m_maxFlushTime.get();
+    }
+
+    /**
+     * Returns the number of entries that did not fit into the queue.<p>
+     *
+     * @return the number of entries that did not fit into the queue
+     */
+    public long getOverflowCount() {
+
+        return m_overflowCount.get();
+    }
+
+    /**
+     * Returns the current number of buffered entries.<p>
+     *
+     * @return the current number of buffered entries
+     */
+    public int getSize() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Returns the duration of all flushes in milliseconds.<p>
+     *
+     * @return the duration of all flushes in milliseconds
+     */
+    public long getTotalFlushTime() {
+
+        return m_totalFlushTime.get();
+    }
+
+    /**
+     * Checks if the queue is empty.<p>
+     *
+     * @return <code>true</code> if the queue is empty
+     */
+    public boolean isEmpty() {
+
+        return m_size.get() == 0;
+    }
+
+    /**
+     * Adds the given entry to the queue if the queue is not full.<p>
+     *
+     * @param entry the log entry to add
+     *
+     * @return <code>false</code> if the queue is full and the entry was not added
+     */
+    public boolean offer(CmsLogEntry entry) {
+
+        int size = m_size.incrementAndGet();
+        if (size > m_capacity) {
+            m_size.decrementAndGet();
+            m_overflowCount.incrementAndGet();
+            return false;
+        }
+        m_entries.add(entry);
+        signalIfBatchReached(size);
+        return true;
+    }
+
+    /**
+     * Records a flush for the counters of this queue.<p>
+     *
+     * @param entries the number of entries written
+     * @param millis the duration of the flush in milliseconds
+     */
+    public void recordFlush(int entries, long millis) {
+
+        m_flushCount.incrementAndGet();
+        m_flushedEntries.addAndGet(entries);
+        m_totalFlushTime.addAndGet(millis);
+        m_lastFlushTime = millis;
+        long max = m_maxFlushTime.get();
+        while ((millis > max) && !m_maxFlushTime.compareAndSet(max, millis)) {
+            max = m_maxFlushTime.get();
+        }
+    }
+
+    /**
+     * Sets the maximum number of buffered entries.<p>
+     *
+     * @param capacity the maximum number of buffered entries
+     */
+    public void setCapacity(int capacity) {
+
+        m_capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Stops the writer thread, waiting for a running flush to finish.<p>
+     *
+     * Entries that are still buffered are not written, the caller is expected
+     * to flush them with the current thread.<p>
+     */
+    public void shutDown() {
+
+        Thread writer;
+        synchronized (m_writerLock) {
+            m_shutDown = true;
+            writer = m_writer;
+            m_writer = null;
+            m_writerLock.notifyAll();
+        }
+        if (writer != null) {
+            try {
+                writer.join(m_flushInterval + 10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Starts the background thread that writes the buffered entries.<p>
+     *
+     * @param flushAction the action writing the buffered entries
+     * @param batchSize the number of buffered entries that triggers a flush before the flush interval has elapsed
+     * @param flushInterval the time in milliseconds between two flushes
+     */
+    public void startWriter(Runnable flushAction, int batchSize, long flushInterval) {
+
+        synchronized (m_writerLock) {
+            if (m_writer != null) {
+                return;
+            }
+            m_flushAction = flushAction;
+            m_batchSize = Math.max(1, batchSize);
+            m_flushInterval = Math.max(1, flushInterval);
+            m_shutDown = false;
+            m_writer = new Thread("OpenCms: Log writer") {
+
+                @Override
+                public void run() {
+
+                    runWriter();
+                }
+            };
+            m_writer.setDaemon(true);
+            m_writer.start();
+        }
+    }
+
+    /**
+     * The loop of the writer thread.<p>
+     */
+    void runWriter() {
+
+        while (!m_shutDown) {
+            synchronized (m_writerLock) {
+                long end = System.currentTimeMillis() + m_flushInterval;
+                long wait = m_flushInterval;
+                while (!m_shutDown && (m_size.get() < m_batchSize) && (wait > 0)) {
+                    try {
+                        m_writerLock.wait(wait);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    wait = end - System.currentTimeMillis();
+                }
+            }
+            if (m_shutDown) {
+                return;
+            }
+            if (!isEmpty()) {
+                try {
+                    m_flushAction.run();
+                } catch (Throwable t) {
+                    LOG.error(t.getLocalizedMessage(), t);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wakes up the writer thread if the given queue size reaches the batch size.<p>
+     *
+     * @param size the current queue size
+     */
+    private void signalIfBatchReached(int size) {
+
+        if ((m_writer != null) && (size == m_batchSize)) {
+            synchronized (m_writerLock) {
+                m_writerLock.notifyAll();
+            }
+        }
+    }
+}
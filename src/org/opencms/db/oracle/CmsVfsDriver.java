@@ -31,6 +31,7 @@ import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsDbIoException;
 import org.opencms.db.CmsDbSqlException;
+import org.opencms.db.CmsPublishBatchEntry;
 import org.opencms.db.generic.CmsSqlManager;
 import org.opencms.db.generic.Messages;
 import org.opencms.file.CmsDataAccessException;
@@ -44,6 +45,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Oracle implementation of the VFS driver methods.<p>
@@ -262,4 +264,27 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
                 wasInTransaction);
         }
     }
+
+    /**
+     * @see org.opencms.db.generic.CmsVfsDriver#publishContents(org.opencms.db.CmsDbContext, java.sql.Connection, java.util.List, int)
+     */
+    @Override
+    protected void publishContents(
+        CmsDbContext dbc,
+        Connection conn,
+        List<CmsPublishBatchEntry> entries,
+        int publishTag)
+    throws CmsDataAccessException {
+
+        // the content blobs have to be written one by one
+        for (CmsPublishBatchEntry entry : entries) {
+            createOnlineContent(
+                dbc,
+                entry.getFile().getResourceId(),
+                entry.getFile().getContents(),
+                publishTag,
+                true,
+                entry.isUpdateContent());
+        }
+    }
 }
@@ -1967,6 +1967,21 @@ public final class CmsObject {
         m_securityManager.importAccessControlEntries(m_context, resource, acEntries);
     }
 
+    /**
+     * Writes the access control entries of several resources at once.<p>
+     *
+     * Already existing access control entries of these resources are removed before.<p>
+     *
+     * @param acEntries the access control entries to write, by resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importAccessControlEntries(Map<CmsResource, List<CmsAccessControlEntry>> acEntries)
+    throws CmsException {
+
+        m_securityManager.importAccessControlEntries(m_context, acEntries);
+    }
+
     /**
      * Imports a new relation to the given resource.<p>
      *
@@ -1981,6 +1996,18 @@ public final class CmsObject {
         createRelation(resourceName, targetPath, relationType, true);
     }
 
+    /**
+     * Imports the relations of several source resources at once.<p>
+     *
+     * @param relations the relations to import, by source resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importRelations(Map<CmsResource, List<CmsRelation>> relations) throws CmsException {
+
+        m_securityManager.importRelations(m_context, relations);
+    }
+
     /**
      * Imports a resource to the OpenCms VFS.<p>
      *
@@ -27,6 +27,7 @@
 
 package org.opencms.flex;
 
+import org.opencms.cache.CmsConcurrentLruCache;
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
 import org.opencms.db.CmsPublishedResource;
@@ -39,7 +40,6 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsCollectionsGenericWrapper;
-import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.util.Collection;
@@ -51,6 +51,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
@@ -111,12 +112,18 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     public static class CmsFlexCacheVariation extends Object {
 
+        /** Marks a hash shared by different variations. */
+        private static final String HASH_COLLISION = "/ collision /";
+
         /** The key belonging to the resource. */
         public CmsFlexCacheKey m_key;
 
         /** Maps variations to CmsFlexCacheEntries. */
         public Map<String, I_CmsLruCacheObject> m_map;
 
+        /** Maps the hashes of the variations to the variations, may contain variations already removed from the cache. */
+        private ConcurrentHashMap<CmsFlexVariationHash, String> m_hashes;
+
         /**
          * Generates a new instance of CmsFlexCacheVariation.<p>
          *
@@ -126,6 +133,72 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
             m_key = theKey;
             m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            m_hashes = new ConcurrentHashMap<CmsFlexVariationHash, String>(INITIAL_CAPACITY_VARIATIONS);
+        }
+
+        /**
+         * Returns the cache entry for the variation matching the given request key.<p>
+         *
+         * The variation is looked up by its hash, so the variation String is only created
+         * if different variations of this resource share the same hash. Otherwise the variation
+         * found is compared with the request character by character, so a different variation
+         * with the same hash is never returned.<p>
+         *
+         * @param requestKey the request key
+         *
+         * @return the cache entry, or <code>null</code> if the request is not cachable or no entry is cached
+         */
+        I_CmsLruCacheObject get(CmsFlexRequestKey requestKey) {
+
+            CmsFlexVariationHash hash = m_key.matchRequestHash(requestKey);
+            if (hash == null) {
+                // requested resource is not cacheable
+                return null;
+            }
+            String variation = m_hashes.get(hash);
+            if (variation == null) {
+                return null;
+            }
+            if (variation == HASH_COLLISION) {
+                variation = m_key.matchRequestKey(requestKey);
+                if (variation == null) {
+                    return null;
+                }
+            } else if (!m_key.matchesVariation(requestKey, variation)) {
+                // the request has a different variation which has the same hash, so it is not cached
+                return null;
+            }
+            I_CmsLruCacheObject entry = m_map.get(variation);
+            if (entry == null) {
+                // the entry has been removed from the cache
+                m_hashes.remove(hash, variation);
+            }
+            return entry;
+        }
+
+        /**
+         * Stores the hash of a variation added to the cache.<p>
+         *
+         * @param variation the variation
+         */
+        void putHash(String variation) {
+
+            CmsFlexVariationHash hash = CmsFlexVariationHash.valueOf(variation);
+            String existing = m_hashes.putIfAbsent(hash, variation);
+            if ((existing != null) && !existing.equals(variation)) {
+                // different variations with the same hash must be told apart by their Strings
+                m_hashes.put(hash, HASH_COLLISION);
+            }
+            if (m_hashes.size() > ((2 * m_map.size()) + INITIAL_CAPACITY_VARIATIONS)) {
+                // forget the hashes of the variations removed from the cache
+                Iterator<String> i = m_hashes.values().iterator();
+                while (i.hasNext()) {
+                    String value = i.next();
+                    if ((value != HASH_COLLISION) && !m_map.containsKey(value)) {
+                        i.remove();
+                    }
+                }
+            }
         }
     }
 
@@ -244,6 +317,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Map to store the entries for fast lookup. */
     private Map<String, CmsFlexCacheVariation> m_keyCache;
 
+    /** The store for the output of the cached entries, <code>null</code> if the output is kept on the heap. */
+    private CmsFlexCacheOffHeapStore m_offHeapStore;
+
     /** Counter for the size. */
     private int m_size;
 
@@ -268,7 +344,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         int maxEntryBytes = configuration.getMaxEntryBytes();
         int maxKeys = configuration.getMaxKeys();
 
-        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+        m_variationCache = new CmsConcurrentLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
@@ -277,6 +353,14 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
             OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
 
+            if (configuration.isCacheOffHeap()) {
+                m_offHeapStore = new CmsFlexCacheOffHeapStore();
+                OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_offHeapStore", m_offHeapStore);
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(Messages.get().getBundle().key(Messages.INIT_FLEXCACHE_OFFHEAP_0));
+                }
+            }
+
             OpenCms.addCmsEventListener(
                 this,
                 new int[] {
@@ -646,15 +730,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (o != null) {
             // found a matching key in the cache
             CmsFlexCacheVariation v = (CmsFlexCacheVariation)o;
-            String variation = v.m_key.matchRequestKey(key);
-
-            if (CmsStringUtil.isEmpty(variation)) {
-                // requested resource is not cacheable
-                return null;
-            }
-            CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
+            CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.get(key);
             if (entry == null) {
-                // no cache entry available for variation
+                // requested resource is not cacheable or no cache entry available for variation
                 return null;
             }
             if (entry.getDateExpires() < System.currentTimeMillis()) {
@@ -662,6 +740,8 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 m_variationCache.remove(entry);
                 return null;
             }
+            // mark the entry as recently used, this does not block other requests
+            m_variationCache.touch(entry);
             // return the found cache entry
             return entry;
         } else {
@@ -740,6 +820,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         key.getResource(),
                         key.getVariation()));
             }
+            if (m_offHeapStore != null) {
+                entry.moveOffHeap(m_offHeapStore);
+            }
             put(key, entry);
             if (m_bucketConfiguration != null) {
                 try {
@@ -1122,6 +1205,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             if (wasAdded) {
                 theCacheEntry.setVariationData(key.getVariation(), m);
                 m.put(key.getVariation(), theCacheEntry);
+                o.putHash(key.getVariation());
+            } else {
+                theCacheEntry.releaseOffHeap();
             }
         } else {
             // No variation map for this resource yet, so create one
@@ -1132,7 +1218,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             if (wasAdded) {
                 theCacheEntry.setVariationData(key.getVariation(), list.m_map);
                 list.m_map.put(key.getVariation(), theCacheEntry);
+                list.putHash(key.getVariation());
                 m_keyCache.put(key.getResource(), list);
+            } else {
+                theCacheEntry.releaseOffHeap();
             }
         }
 
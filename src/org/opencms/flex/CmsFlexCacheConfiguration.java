@@ -49,6 +49,9 @@ public class CmsFlexCacheConfiguration {
     /** Indicates if the cache is enabled or not. */
     private boolean m_cacheEnabled;
 
+    /** Indicates if the output of cached entries should be stored off heap. */
+    private boolean m_cacheOffHeap;
+
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
@@ -181,6 +184,16 @@ public class CmsFlexCacheConfiguration {
         return m_cacheEnabled;
     }
 
+    /**
+     * Checks if the output of cached entries should be stored in direct memory outside of the Java heap.<p>
+     *
+     * @return true if the output of cached entries should be stored off heap
+     */
+    public boolean isCacheOffHeap() {
+
+        return m_cacheOffHeap;
+    }
+
     /**
      * Checks the cacheOffline.<p>
      *
@@ -211,6 +224,16 @@ public class CmsFlexCacheConfiguration {
         m_cacheEnabled = enabled;
     }
 
+    /**
+     * Sets if the output of cached entries should be stored in direct memory outside of the Java heap.<p>
+     *
+     * @param cacheOffHeap true if the output of cached entries should be stored off heap
+     */
+    public void setCacheOffHeap(boolean cacheOffHeap) {
+
+        m_cacheOffHeap = cacheOffHeap;
+    }
+
     /**
      * Sets the cacheOffline.<p>
      *
@@ -38,6 +38,7 @@ import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -61,7 +62,8 @@ import org.apache.commons.logging.Log;
  * A CmsFlexCacheEntry might also describe a redirect-call, but in this case
  * nothing else will be cached.<p>
  *
- * The pre-generated output is saved in <code>byte[]</code> arrays.
+ * The pre-generated output is saved in <code>byte[]</code> arrays, or in read only
+ * direct {@link ByteBuffer} instances once the entry was moved off heap.
  * The include() calls are saved as Strings of the included resource name,
  * the parameters for the calls are saved in a HashMap.
  * The headers are saved in a HashMap.
@@ -106,6 +108,12 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** Pointer to the next cache entry in the LRU cache. */
     private I_CmsLruCacheObject m_next;
 
+    /** The number of output bytes stored off heap. */
+    private int m_offHeapSize;
+
+    /** The store for the output stored off heap, <code>null</code> if the output is kept on the heap. */
+    private CmsFlexCacheOffHeapStore m_offHeapStore;
+
     /** Pointer to the previous cache entry in the LRU cache. */
     private I_CmsLruCacheObject m_previous;
 
@@ -243,7 +251,7 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /**
      * Returns the list of data entries of this cache entry.<p>
      *
-     * Data entries are byte arrays representing some kind of output
+     * Data entries are byte arrays or byte buffers representing some kind of output
      * or Strings representing include calls to other resources.<p>
      *
      * @return the list of data elements of this cache entry
@@ -332,6 +340,7 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         if ((m_variationMap != null) && (m_variationKey != null)) {
             m_variationMap.remove(m_variationKey);
         }
+        releaseOffHeap();
         if (LOG.isDebugEnabled()) {
             LOG.debug(
                 Messages.get().getBundle().key(
@@ -405,7 +414,11 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
                     }
                 } else {
                     try {
-                        res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        if (o instanceof ByteBuffer) {
+                            res.writeToOutputStream((ByteBuffer)o, hasNoSubElements);
+                        } else {
+                            res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        }
                     } catch (IOException e) {
                         CmsMessageContainer message = Messages.get().container(
                             Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1,
@@ -576,6 +589,8 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
                     str += "" + count + " - <cms:include target=" + o + ">\n";
                 } else if (o instanceof byte[]) {
                     str += "" + count + " - <![CDATA[" + new String((byte[])o) + "]]>\n";
+                } else if (o instanceof ByteBuffer) {
+                    str += "" + count + " - <!--[" + ((ByteBuffer)o).remaining() + " bytes off heap]-->\n";
                 } else {
                     str += "<!--[" + o.toString() + "]-->";
                 }
@@ -586,6 +601,40 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return str;
     }
 
+    /**
+     * Moves the output of this completed entry to direct memory outside of the Java heap.<p>
+     *
+     * Must be called before the entry is made available to other threads.<p>
+     *
+     * @param store the store for the output
+     */
+    void moveOffHeap(CmsFlexCacheOffHeapStore store) {
+
+        if (!m_completed || (m_redirectTarget != null) || (m_offHeapStore != null)) {
+            return;
+        }
+        List<Object> elements = new ArrayList<Object>(m_elements);
+        int size = store.store(elements);
+        if (size > 0) {
+            m_elements = Collections.unmodifiableList(elements);
+            m_offHeapStore = store;
+            m_offHeapSize = size;
+        }
+    }
+
+    /**
+     * Releases the output stored off heap in the accounting of the store.<p>
+     *
+     * Called when this entry is removed from the cache or could not be added to it.<p>
+     */
+    synchronized void releaseOffHeap() {
+
+        if (m_offHeapStore != null) {
+            m_offHeapStore.release(m_offHeapSize);
+            m_offHeapStore = null;
+        }
+    }
+
     /**
      * Clones the attribute instances if possible.<p>
      *
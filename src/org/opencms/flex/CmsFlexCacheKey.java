@@ -32,6 +32,7 @@ import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsLog;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -302,6 +303,27 @@ public class CmsFlexCacheKey {
         }
     }
 
+    /**
+     * Appends a flex cache key value to the given variation.<p>
+     *
+     * @param str the variation String or the hash of it to append to
+     * @param key the key to append
+     * @param value the value to append
+     *
+     * @throws IOException never, since the variation is only appended to a String buffer or a hash
+     */
+    private static void appendKeyValue(Appendable str, String key, String value) throws IOException {
+
+        str.append(key);
+        if (value == IS_USED) {
+            str.append(";");
+        } else {
+            str.append("=(");
+            str.append(value);
+            str.append(");");
+        }
+    }
+
     /**
      * Returns the actual resource path under which this is cached, without online / offline suffix.<p>
      *
@@ -369,227 +391,7 @@ public class CmsFlexCacheKey {
     public String matchRequestKey(CmsFlexRequestKey key) {
 
         StringBuffer str = new StringBuffer(100);
-        if (m_always < 0) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_NEVER_0));
-            }
-            return null;
-        }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_PARAMS_0));
-        }
-        if ((m_noparams != null) && (key.getParams() != null)) {
-            if ((m_noparams.size() == 0) && (key.getParams().size() > 0)) {
-                return null;
-            }
-            Iterator<String> i = key.getParams().keySet().iterator();
-            while (i.hasNext()) {
-                if (m_noparams.contains(i.next())) {
-                    return null;
-                }
-            }
-        }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_ATTRS_0));
-        }
-        if ((m_noattrs != null) && (key.getAttributes() != null)) {
-            if ((m_noattrs.size() == 0) && (key.getAttributes().size() > 0)) {
-                return null;
-            }
-            Iterator<String> i = key.getAttributes().keySet().iterator();
-            while (i.hasNext()) {
-                if (m_noattrs.contains(i.next())) {
-                    return null;
-                }
-            }
-        }
-
-        if (m_always > 0) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_ALWAYS_0));
-            }
-            str.append(CACHE_00_ALWAYS);
-            return str.toString();
-        }
-
-        if (m_uri != null) {
-            appendKeyValue(str, CACHE_02_URI, key.getUri());
-        }
-
-        if (m_site != null) {
-            appendKeyValue(str, CACHE_17_SITE, key.getSite());
-        }
-
-        if (m_element != null) {
-            appendKeyValue(str, CACHE_14_ELEMENT, key.getElement());
-        }
-
-        if (m_device != null) {
-            appendKeyValue(str, CACHE_20_DEVICE, key.getDevice());
-        }
-
-        if (m_containerElement != null) {
-            appendKeyValue(str, CACHE_21_CONTAINER_ELEMENT, key.getContainerElement());
-        }
-
-        if (m_locale != null) {
-            appendKeyValue(str, CACHE_15_LOCALE, key.getLocale());
-        }
-
-        if (m_encoding != null) {
-            appendKeyValue(str, CACHE_16_ENCODING, key.getEncoding());
-        }
-
-        if (m_ip != null) {
-            appendKeyValue(str, CACHE_13_IP, key.getIp());
-        }
-
-        if (m_user != null) {
-            appendKeyValue(str, CACHE_03_USER, key.getUser());
-        }
-
-        if (m_params != null) {
-            str.append(CACHE_04_PARAMS);
-            str.append("=(");
-            Map<String, String[]> keyParams = key.getParams();
-            if (keyParams != null) {
-                if (m_params.size() > 0) {
-                    // match only params listed in cache directives
-                    Iterator<String> i = m_params.iterator();
-                    while (i.hasNext()) {
-                        Object o = i.next();
-                        if (keyParams.containsKey(o)) {
-                            str.append(o);
-                            str.append("=");
-                            // TODO: handle multiple occurrences of the same parameter value
-                            String[] values = keyParams.get(o);
-                            str.append(values[0]);
-                            if (i.hasNext()) {
-                                str.append(",");
-                            }
-                        }
-                    }
-                } else {
-                    // match all request params
-                    Iterator<Map.Entry<String, String[]>> i = keyParams.entrySet().iterator();
-                    while (i.hasNext()) {
-                        Map.Entry<String, String[]> entry = i.next();
-                        str.append(entry.getKey());
-                        str.append("=");
-                        // TODO: handle multiple occurrences of the same parameter value
-                        String[] values = entry.getValue();
-                        str.append(values[0]);
-                        if (i.hasNext()) {
-                            str.append(",");
-                        }
-                    }
-                }
-            }
-            str.append(");");
-        }
-
-        if (m_attrs != null) {
-            str.append(CACHE_18_ATTRS);
-            str.append("=(");
-            Map<String, Object> keyAttrs = key.getAttributes();
-            if (keyAttrs != null) {
-                if (m_attrs.size() > 0) {
-                    // match only attributes listed in cache directives
-                    Iterator<String> i = m_attrs.iterator();
-                    while (i.hasNext()) {
-                        String s = i.next();
-                        if (keyAttrs.containsKey(s)) {
-                            str.append(s);
-                            str.append("=");
-                            Object value = keyAttrs.get(s);
-                            str.append(value);
-                            if (i.hasNext()) {
-                                str.append(",");
-                            }
-                        }
-                    }
-                } else {
-                    // match all request attributes
-                    Iterator<Map.Entry<String, Object>> i = keyAttrs.entrySet().iterator();
-                    while (i.hasNext()) {
-                        Map.Entry<String, Object> entry = i.next();
-                        str.append(entry.getKey());
-                        str.append("=");
-                        Object value = entry.getValue();
-                        str.append(value);
-                        if (i.hasNext()) {
-                            str.append(",");
-                        }
-                    }
-                }
-            }
-            str.append(");");
-        }
-
-        if (m_session != null) {
-            StringBuffer buf = new StringBuffer(32);
-            boolean found = false;
-            buf.append(CACHE_07_SESSION);
-            buf.append("=(");
-            HttpSession keySession = key.getSession();
-            if (keySession != null) {
-                // match only session attributes listed in cache directives
-                Iterator<String> i = m_session.iterator();
-                while (i.hasNext()) {
-                    String name = i.next();
-                    Object val = keySession.getAttribute(name);
-                    if (val != null) {
-                        found = true;
-                        buf.append(name);
-                        buf.append("=");
-                        buf.append(val);
-                        if (i.hasNext()) {
-                            buf.append(",");
-                        }
-                    }
-                }
-            }
-            if (found) {
-                buf.append(");");
-                str.append(buf);
-            }
-        }
-
-        if (m_schemes != null) {
-            String s = key.getScheme();
-            if ((m_schemes.size() > 0) && (!m_schemes.contains(s))) {
-                return null;
-            }
-            appendKeyValue(str, CACHE_08_SCHEMES, s);
-        }
-
-        if (m_ports != null) {
-            Integer i = key.getPort();
-            if ((m_ports.size() > 0) && (!m_ports.contains(i))) {
-                return null;
-            }
-            str.append(CACHE_09_PORTS);
-            str.append("=(");
-            str.append(i);
-            str.append(");");
-        }
-
-        if (m_timeout > 0) {
-            str.append(CACHE_06_TIMEOUT);
-            str.append("=(");
-            str.append(m_timeout);
-            str.append(");");
-        }
-
-        if (str.length() > 0) {
-            // we don't want an element to just be cached with the __forceAbsoluteLinks parameter as key if it wouldn't be cached otherwise
-            appendKeyValue(str, CACHE_FORCE_ABSOLUTE_LINKS, "" + key.isForceAbsoluteLinks());
-            return str.toString();
-        } else {
-            return null;
-        }
+        return appendVariation(key, str) ? str.toString() : null;
     }
 
     /**
@@ -829,6 +631,301 @@ public class CmsFlexCacheKey {
         m_variation = variation;
     }
 
+    /**
+     * Compares this key to the other key passed as parameter, calculating the hash of the variation String
+     * that {@link #matchRequestKey(CmsFlexRequestKey)} would return without creating the String.<p>
+     *
+     * @param key the key to match this key with
+     *
+     * @return null if not cachable, or the hash of the variation String if cachable
+     */
+    CmsFlexVariationHash matchRequestHash(CmsFlexRequestKey key) {
+
+        CmsFlexVariationHash hash = new CmsFlexVariationHash();
+        return appendVariation(key, hash) ? hash : null;
+    }
+
+    /**
+     * Checks if comparing this key to the other key passed as parameter results in the given variation String,
+     * that is if {@link #matchRequestKey(CmsFlexRequestKey)} would return that String, without creating it.<p>
+     *
+     * @param key the key to match this key with
+     * @param variation the variation String to check
+     *
+     * @return <code>true</code> if the request is cachable and results in the given variation String
+     */
+    boolean matchesVariation(CmsFlexRequestKey key, String variation) {
+
+        CmsFlexVariationMatcher matcher = new CmsFlexVariationMatcher(variation);
+        return appendVariation(key, matcher) && matcher.matches();
+    }
+
+    /**
+     * Compares this key to the other key passed as parameter and appends the resulting variation.<p>
+     *
+     * @param key the key to match this key with
+     * @param str the variation String or the hash of it to append to
+     *
+     * @return <code>false</code> if not cachable
+     */
+    private boolean appendVariation(CmsFlexRequestKey key, Appendable str) {
+
+        try {
+            if (m_always < 0) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_NEVER_0));
+                }
+                return false;
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_PARAMS_0));
+            }
+            if ((m_noparams != null) && (key.getParams() != null)) {
+                if ((m_noparams.size() == 0) && (key.getParams().size() > 0)) {
+                    return false;
+                }
+                Iterator<String> i = key.getParams().keySet().iterator();
+                while (i.hasNext()) {
+                    if (m_noparams.contains(i.next())) {
+                        return false;
+                    }
+                }
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_ATTRS_0));
+            }
+            if ((m_noattrs != null) && (key.getAttributes() != null)) {
+                if ((m_noattrs.size() == 0) && (key.getAttributes().size() > 0)) {
+                    return false;
+                }
+                Iterator<String> i = key.getAttributes().keySet().iterator();
+                while (i.hasNext()) {
+                    if (m_noattrs.contains(i.next())) {
+                        return false;
+                    }
+                }
+            }
+
+            if (m_always > 0) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_ALWAYS_0));
+                }
+                str.append(CACHE_00_ALWAYS);
+                return true;
+            }
+
+            // the variation must not be empty
+            boolean cachable = false;
+
+            if (m_uri != null) {
+                appendKeyValue(str, CACHE_02_URI, key.getUri());
+                cachable = true;
+            }
+
+            if (m_site != null) {
+                appendKeyValue(str, CACHE_17_SITE, key.getSite());
+                cachable = true;
+            }
+
+            if (m_element != null) {
+                appendKeyValue(str, CACHE_14_ELEMENT, key.getElement());
+                cachable = true;
+            }
+
+            if (m_device != null) {
+                appendKeyValue(str, CACHE_20_DEVICE, key.getDevice());
+                cachable = true;
+            }
+
+            if (m_containerElement != null) {
+                appendKeyValue(str, CACHE_21_CONTAINER_ELEMENT, key.getContainerElement());
+                cachable = true;
+            }
+
+            if (m_locale != null) {
+                appendKeyValue(str, CACHE_15_LOCALE, key.getLocale());
+                cachable = true;
+            }
+
+            if (m_encoding != null) {
+                appendKeyValue(str, CACHE_16_ENCODING, key.getEncoding());
+                cachable = true;
+            }
+
+            if (m_ip != null) {
+                appendKeyValue(str, CACHE_13_IP, key.getIp());
+                cachable = true;
+            }
+
+            if (m_user != null) {
+                appendKeyValue(str, CACHE_03_USER, key.getUser());
+                cachable = true;
+            }
+
+            if (m_params != null) {
+                str.append(CACHE_04_PARAMS);
+                str.append("=(");
+                Map<String, String[]> keyParams = key.getParams();
+                if (keyParams != null) {
+                    if (m_params.size() > 0) {
+                        // match only params listed in cache directives
+                        Iterator<String> i = m_params.iterator();
+                        while (i.hasNext()) {
+                            String o = i.next();
+                            if (keyParams.containsKey(o)) {
+                                str.append(o);
+                                str.append("=");
+                                // TODO: handle multiple occurrences of the same parameter value
+                                String[] values = keyParams.get(o);
+                                str.append(values[0]);
+                                if (i.hasNext()) {
+                                    str.append(",");
+                                }
+                            }
+                        }
+                    } else {
+                        // match all request params
+                        Iterator<Map.Entry<String, String[]>> i = keyParams.entrySet().iterator();
+                        while (i.hasNext()) {
+                            Map.Entry<String, String[]> entry = i.next();
+                            str.append(entry.getKey());
+                            str.append("=");
+                            // TODO: handle multiple occurrences of the same parameter value
+                            String[] values = entry.getValue();
+                            str.append(values[0]);
+                            if (i.hasNext()) {
+                                str.append(",");
+                            }
+                        }
+                    }
+                }
+                str.append(");");
+                cachable = true;
+            }
+
+            if (m_attrs != null) {
+                str.append(CACHE_18_ATTRS);
+                str.append("=(");
+                Map<String, Object> keyAttrs = key.getAttributes();
+                if (keyAttrs != null) {
+                    if (m_attrs.size() > 0) {
+                        // match only attributes listed in cache directives
+                        Iterator<String> i = m_attrs.iterator();
+                        while (i.hasNext()) {
+                            String s = i.next();
+                            if (keyAttrs.containsKey(s)) {
+                                str.append(s);
+                                str.append("=");
+                                Object value = keyAttrs.get(s);
+                                str.append(String.valueOf(value));
+                                if (i.hasNext()) {
+                                    str.append(",");
+                                }
+                            }
+                        }
+                    } else {
+                        // match all request attributes
+                        Iterator<Map.Entry<String, Object>> i = keyAttrs.entrySet().iterator();
+                        while (i.hasNext()) {
+                            Map.Entry<String, Object> entry = i.next();
+                            str.append(entry.getKey());
+                            str.append("=");
+                            Object value = entry.getValue();
+                            str.append(String.valueOf(value));
+                            if (i.hasNext()) {
+                                str.append(",");
+                            }
+                        }
+                    }
+                }
+                str.append(");");
+                cachable = true;
+            }
+
+            if (m_session != null) {
+                HttpSession keySession = key.getSession();
+                if ((keySession != null) && hasSessionAttribute(keySession)) {
+                    str.append(CACHE_07_SESSION);
+                    str.append("=(");
+                    // match only session attributes listed in cache directives
+                    Iterator<String> i = m_session.iterator();
+                    while (i.hasNext()) {
+                        String name = i.next();
+                        Object val = keySession.getAttribute(name);
+                        if (val != null) {
+                            str.append(name);
+                            str.append("=");
+                            str.append(String.valueOf(val));
+                            if (i.hasNext()) {
+                                str.append(",");
+                            }
+                        }
+                    }
+                    str.append(");");
+                    cachable = true;
+                }
+            }
+
+            if (m_schemes != null) {
+                String s = key.getScheme();
+                if ((m_schemes.size() > 0) && (!m_schemes.contains(s))) {
+                    return false;
+                }
+                appendKeyValue(str, CACHE_08_SCHEMES, s);
+                cachable = true;
+            }
+
+            if (m_ports != null) {
+                Integer i = key.getPort();
+                if ((m_ports.size() > 0) && (!m_ports.contains(i))) {
+                    return false;
+                }
+                str.append(CACHE_09_PORTS);
+                str.append("=(");
+                str.append(String.valueOf(i));
+                str.append(");");
+                cachable = true;
+            }
+
+            if (m_timeout > 0) {
+                str.append(CACHE_06_TIMEOUT);
+                str.append("=(");
+                str.append(String.valueOf(m_timeout));
+                str.append(");");
+                cachable = true;
+            }
+
+            if (cachable) {
+                // we don't want an element to just be cached with the __forceAbsoluteLinks parameter as key if it wouldn't be cached otherwise
+                appendKeyValue(str, CACHE_FORCE_ABSOLUTE_LINKS, String.valueOf(key.isForceAbsoluteLinks()));
+            }
+            return cachable;
+        } catch (IOException e) {
+            // can not happen, the variation is only appended to a String buffer or a hash
+            LOG.error(e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Checks if any of the session attributes listed in the cache directives is set in the given session.<p>
+     *
+     * @param session the session
+     *
+     * @return <code>true</code> if a listed session attribute is set
+     */
+    private boolean hasSessionAttribute(HttpSession session) {
+
+        for (String name : m_session) {
+            if (session.getAttribute(name) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Parse a String in the Flex cache language and construct
      * the key data structure from this.<p>
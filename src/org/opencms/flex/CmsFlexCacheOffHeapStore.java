@@ -0,0 +1,168 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.flex;
+
+import org.opencms.main.CmsLog;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Stores the output of FlexCache entries in direct memory outside of the Java heap.<p>
+ *
+ * All output of an entry is copied to a single direct buffer, so large caches do not
+ * keep lots of long lived <code>byte[]</code> arrays on the heap that must be traversed by the garbage collector.
+ * The store only counts the allocated bytes for the memory monitor, the bytes are also part of the
+ * costs of the entries in the FlexCache LRU cache, so the configured cache size limits both.<p>
+ *
+ * @since 11.0.0
+ */
+final class CmsFlexCacheOffHeapStore implements I_CmsMemoryMonitorable {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFlexCacheOffHeapStore.class);
+
+    /** The number of bytes currently allocated. */
+    private final AtomicLong m_bytes = new AtomicLong();
+
+    /**
+     * Writes the remaining bytes of the given buffer to the given stream.<p>
+     *
+     * The position of the buffer is not changed, so the same buffer can be written concurrently.
+     * The servlet API offers no access to the channel of the connection, so the bytes are transferred in chunks
+     * without materializing the complete buffer on the heap.<p>
+     *
+     * @param buffer the buffer to write
+     * @param out the stream to write to
+     *
+     * @throws IOException if writing to the stream fails
+     */
+    static void write(ByteBuffer buffer, OutputStream out) throws IOException {
+
+        ByteBuffer source = buffer.duplicate();
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    /**
+     * Returns the number of bytes currently allocated.<p>
+     *
+     * @return the number of bytes currently allocated
+     */
+    public long getBytes() {
+
+        return m_bytes.get();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        return (int)Math.min(Integer.MAX_VALUE, m_bytes.get());
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "off heap bytes: " + m_bytes.get();
+    }
+
+    /**
+     * Frees the given number of bytes, must be called when the entry that stored them is removed from the cache.<p>
+     *
+     * The memory itself is released when the buffers are garbage collected.<p>
+     *
+     * @param size the number of bytes as returned by {@link #store(List)}
+     */
+    void release(int size) {
+
+        m_bytes.addAndGet(-size);
+    }
+
+    /**
+     * Copies all <code>byte[]</code> elements of the given list to direct memory.<p>
+     *
+     * The byte arrays in the list are replaced by read only buffers, other elements are kept.
+     * If the direct memory is exhausted, the list is not changed.<p>
+     *
+     * @param elements the elements of a FlexCache entry
+     *
+     * @return the number of bytes stored off heap, 0 if nothing was stored
+     */
+    int store(List<Object> elements) {
+
+        int size = 0;
+        for (Object element : elements) {
+            if (element instanceof byte[]) {
+                size += ((byte[])element).length;
+            }
+        }
+        if (size == 0) {
+            return 0;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.allocateDirect(size);
+        } catch (OutOfMemoryError e) {
+            // the direct memory limit is reached, keep the output on the heap
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_FLEXCACHE_OFFHEAP_ALLOCATION_FAILED_1,
+                    Integer.valueOf(size)),
+                e);
+            return 0;
+        }
+        for (int i = 0; i < elements.size(); i++) {
+            Object element = elements.get(i);
+            if (element instanceof byte[]) {
+                byte[] bytes = (byte[])element;
+                int start = buffer.position();
+                buffer.put(bytes);
+                ByteBuffer slice = buffer.duplicate();
+                slice.position(start);
+                slice.limit(start + bytes.length);
+                elements.set(i, slice.slice().asReadOnlyBuffer());
+            }
+        }
+        m_bytes.addAndGet(size);
+        return size;
+    }
+}
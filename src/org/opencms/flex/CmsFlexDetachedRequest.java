@@ -0,0 +1,404 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsResource;
+import org.opencms.jsp.util.CmsJspStandardContextBean;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsDateUtil;
+import org.opencms.util.CmsRequestUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Creates requests and responses that are detached from the request processing of the servlet container,
+ * so that OpenCms resources can be processed on other threads or without a client request.<p>
+ *
+ * All data of a detached request is copied from the source request when the detached request is created,
+ * on the thread processing the source request. This includes the attributes, parameters, headers, cookies,
+ * paths, the secure flag and the reference to the existing session. The source request itself is never
+ * accessed afterwards, because the servlet container may recycle it as soon as the request thread has finished.
+ * Request dispatchers are obtained directly from the servlet context, so including a resource with a detached
+ * request never changes the request wrappers of the source request. Methods for data that can not be copied,
+ * like the request body, return default values. Without a source request, default values are returned.<p>
+ *
+ * A detached response discards everything written to it, so the output must be buffered in a Flex response.<p>
+ *
+ * @since 11.0.0
+ */
+public final class CmsFlexDetachedRequest implements InvocationHandler {
+
+    /** The attributes of the detached request. */
+    private Map<String, Object> m_attributes;
+
+    /** The cookies of the detached request. */
+    private Cookie[] m_cookies;
+
+    /** The character encoding of the detached response. */
+    private String m_encoding;
+
+    /** The headers of the detached request, with case insensitive names. */
+    private Map<String, List<String>> m_headers;
+
+    /** The locale of the detached response. */
+    private Locale m_locale;
+
+    /** The preferred locales of the detached request. */
+    private List<Locale> m_locales;
+
+    /** The parameters of the detached request. */
+    private Map<String, String[]> m_parameters;
+
+    /** The request URL of the detached request. */
+    private String m_requestUrl;
+
+    /** Indicates if this handler is used for a response. */
+    private boolean m_response;
+
+    /** The session of the source request, or <code>null</code> if it had none. */
+    private HttpSession m_session;
+
+    /** The results of the methods without arguments of the detached request, by method name. */
+    private Map<String, Object> m_values;
+
+    /**
+     * Creates a new handler for a detached request.<p>
+     *
+     * @param source the source request, or <code>null</code>
+     * @param queryString the query string, or <code>null</code> to read it from the source request
+     */
+    private CmsFlexDetachedRequest(HttpServletRequest source, String queryString) {
+
+        m_attributes = new HashMap<String, Object>();
+        m_parameters = new HashMap<String, String[]>();
+        m_headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        m_locales = new ArrayList<Locale>();
+        m_values = new HashMap<String, Object>();
+        if (source == null) {
+            m_values.put("getMethod", "GET");
+            m_values.put("getQueryString", queryString);
+            m_locales.add(Locale.getDefault());
+            return;
+        }
+        m_attributes.putAll(CmsRequestUtil.getAtrributeMap(source));
+        // the detached request gets its own Flex controller and JSP standard context bean
+        m_attributes.remove(CmsFlexController.ATTRIBUTE_NAME);
+        Object bean = m_attributes.get(CmsJspStandardContextBean.ATTRIBUTE_NAME);
+        if (bean instanceof CmsJspStandardContextBean) {
+            m_attributes.put(CmsJspStandardContextBean.ATTRIBUTE_NAME, ((CmsJspStandardContextBean)bean).createCopy());
+        }
+        m_parameters.putAll(CmsCollectionsGenericWrapper.<String, String[]> map(source.getParameterMap()));
+        // Flex commands like "purge" have already been processed for the source request
+        m_parameters.remove(CmsFlexRequest.PARAMETER_FLEX);
+
+        Enumeration<String> headerNames = source.getHeaderNames();
+        while ((headerNames != null) && headerNames.hasMoreElements()) {
+            String headerName = headerNames.nextElement();
+            if (!m_headers.containsKey(headerName)) {
+                m_headers.put(headerName, Collections.list(source.getHeaders(headerName)));
+            }
+        }
+        Cookie[] cookies = source.getCookies();
+        if (cookies != null) {
+            m_cookies = new Cookie[cookies.length];
+            for (int i = 0; i < cookies.length; i++) {
+                m_cookies[i] = (Cookie)cookies[i].clone();
+            }
+        }
+        m_locales.addAll(Collections.list(source.getLocales()));
+        m_requestUrl = source.getRequestURL().toString();
+        m_session = source.getSession(false);
+
+        m_values.put("getAuthType", source.getAuthType());
+        m_values.put("getCharacterEncoding", source.getCharacterEncoding());
+        m_values.put("getContentLength", Integer.valueOf(source.getContentLength()));
+        m_values.put("getContentLengthLong", Long.valueOf(source.getContentLengthLong()));
+        m_values.put("getContentType", source.getContentType());
+        m_values.put("getContextPath", source.getContextPath());
+        m_values.put("getLocalAddr", source.getLocalAddr());
+        m_values.put("getLocalName", source.getLocalName());
+        m_values.put("getLocalPort", Integer.valueOf(source.getLocalPort()));
+        m_values.put("getLocale", source.getLocale());
+        m_values.put("getMethod", source.getMethod());
+        m_values.put("getPathInfo", source.getPathInfo());
+        m_values.put("getPathTranslated", source.getPathTranslated());
+        m_values.put("getProtocol", source.getProtocol());
+        m_values.put("getQueryString", queryString != null ? queryString : source.getQueryString());
+        m_values.put("getRemoteAddr", source.getRemoteAddr());
+        m_values.put("getRemoteHost", source.getRemoteHost());
+        m_values.put("getRemotePort", Integer.valueOf(source.getRemotePort()));
+        m_values.put("getRemoteUser", source.getRemoteUser());
+        m_values.put("getRequestURI", source.getRequestURI());
+        m_values.put("getRequestedSessionId", source.getRequestedSessionId());
+        m_values.put("getScheme", source.getScheme());
+        m_values.put("getServerName", source.getServerName());
+        m_values.put("getServerPort", Integer.valueOf(source.getServerPort()));
+        m_values.put("getServletPath", source.getServletPath());
+        m_values.put("getUserPrincipal", source.getUserPrincipal());
+        m_values.put("isRequestedSessionIdFromCookie", Boolean.valueOf(source.isRequestedSessionIdFromCookie()));
+        m_values.put("isRequestedSessionIdFromURL", Boolean.valueOf(source.isRequestedSessionIdFromURL()));
+        m_values.put("isRequestedSessionIdValid", Boolean.valueOf(source.isRequestedSessionIdValid()));
+        m_values.put("isSecure", Boolean.valueOf(source.isSecure()));
+    }
+
+    /**
+     * Creates a new handler for a detached response.<p>
+     *
+     * @param encoding the character encoding
+     * @param locale the locale
+     */
+    private CmsFlexDetachedRequest(String encoding, Locale locale) {
+
+        m_response = true;
+        m_encoding = encoding;
+        m_locale = locale;
+    }
+
+    /**
+     * Creates a detached request.<p>
+     *
+     * All data of the source request is copied when this method is called,
+     * so this must be called on the thread processing the source request.<p>
+     *
+     * @param source the source request, or <code>null</code> for a request without any data
+     * @param queryString the query string, or <code>null</code> to read it from the source request
+     *
+     * @return the detached request
+     */
+    public static HttpServletRequest createRequest(HttpServletRequest source, String queryString) {
+
+        return (HttpServletRequest)Proxy.newProxyInstance(
+            CmsFlexDetachedRequest.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class},
+            new CmsFlexDetachedRequest(source, queryString));
+    }
+
+    /**
+     * Creates a detached response.<p>
+     *
+     * @param source the response to read the character encoding and locale from, or <code>null</code>
+     *
+     * @return the detached response
+     */
+    public static HttpServletResponse createResponse(HttpServletResponse source) {
+
+        String encoding;
+        Locale locale;
+        if (source != null) {
+            encoding = source.getCharacterEncoding();
+            locale = source.getLocale();
+        } else {
+            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
+            locale = Locale.getDefault();
+        }
+        return (HttpServletResponse)Proxy.newProxyInstance(
+            CmsFlexDetachedRequest.class.getClassLoader(),
+            new Class<?>[] {HttpServletResponse.class},
+            new CmsFlexDetachedRequest(encoding, locale));
+    }
+
+    /**
+     * Returns the default value for the given return type.<p>
+     *
+     * @param type the return type
+     *
+     * @return the default value
+     */
+    private static Object getDefaultValue(Class<?> type) {
+
+        if (type == Boolean.TYPE) {
+            return Boolean.FALSE;
+        } else if (type == Integer.TYPE) {
+            // -1 means "not set" for headers and lengths
+            return Integer.valueOf(-1);
+        } else if (type == Long.TYPE) {
+            return Long.valueOf(-1);
+        } else if (type == Map.class) {
+            return Collections.emptyMap();
+        } else if (type == Enumeration.class) {
+            return Collections.emptyEnumeration();
+        } else if (type == Locale.class) {
+            return Locale.getDefault();
+        }
+        return null;
+    }
+
+    /**
+     * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        String name = method.getName();
+        if (name.equals("hashCode")) {
+            return Integer.valueOf(System.identityHashCode(proxy));
+        } else if (name.equals("equals")) {
+            return Boolean.valueOf(proxy == args[0]);
+        } else if (name.equals("toString")) {
+            return getClass().getName() + (m_response ? " (response)" : " (request)");
+        }
+        return m_response ? invokeResponse(method, args) : invokeRequest(method, args);
+    }
+
+    /**
+     * Returns the request dispatcher for the given path from the servlet context.<p>
+     *
+     * @param path the path, relative paths are resolved against the servlet path of the source request
+     *
+     * @return the request dispatcher, or <code>null</code> if there is no servlet context
+     */
+    private Object getRequestDispatcher(String path) {
+
+        ServletContext context = OpenCms.getSystemInfo().getServletContainerSettings().getServletContext();
+        if ((context == null) || (path == null)) {
+            return null;
+        }
+        if (!path.startsWith("/")) {
+            String base = (String)m_values.get("getServletPath");
+            path = CmsResource.getFolderPath(base != null ? base : "/") + path;
+        }
+        return context.getRequestDispatcher(path);
+    }
+
+    /**
+     * Handles a method call on a detached request.<p>
+     *
+     * @param method the method
+     * @param args the arguments
+     *
+     * @return the result
+     */
+    private Object invokeRequest(Method method, Object[] args) {
+
+        String name = method.getName();
+        if (name.equals("getAttribute")) {
+            return m_attributes.get(args[0]);
+        } else if (name.equals("setAttribute")) {
+            if (args[1] == null) {
+                m_attributes.remove(args[0]);
+            } else {
+                m_attributes.put((String)args[0], args[1]);
+            }
+            return null;
+        } else if (name.equals("removeAttribute")) {
+            m_attributes.remove(args[0]);
+            return null;
+        } else if (name.equals("getAttributeNames")) {
+            return Collections.enumeration(new ArrayList<String>(m_attributes.keySet()));
+        } else if (name.equals("getParameter")) {
+            String[] values = m_parameters.get(args[0]);
+            return ((values != null) && (values.length > 0)) ? values[0] : null;
+        } else if (name.equals("getParameterValues")) {
+            return m_parameters.get(args[0]);
+        } else if (name.equals("getParameterMap")) {
+            return Collections.unmodifiableMap(m_parameters);
+        } else if (name.equals("getParameterNames")) {
+            return Collections.enumeration(new ArrayList<String>(m_parameters.keySet()));
+        } else if (name.equals("getHeader")) {
+            List<String> values = m_headers.get(args[0]);
+            return ((values != null) && !values.isEmpty()) ? values.get(0) : null;
+        } else if (name.equals("getHeaders")) {
+            List<String> values = m_headers.get(args[0]);
+            return Collections.enumeration(values != null ? values : Collections.<String> emptyList());
+        } else if (name.equals("getHeaderNames")) {
+            return Collections.enumeration(new ArrayList<String>(m_headers.keySet()));
+        } else if (name.equals("getIntHeader")) {
+            List<String> values = m_headers.get(args[0]);
+            return Integer.valueOf(((values != null) && !values.isEmpty()) ? Integer.parseInt(values.get(0)) : -1);
+        } else if (name.equals("getDateHeader")) {
+            List<String> values = m_headers.get(args[0]);
+            if ((values == null) || values.isEmpty()) {
+                return Long.valueOf(-1);
+            }
+            try {
+                return Long.valueOf(CmsDateUtil.parseHeaderDate(values.get(0)));
+            } catch (ParseException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        } else if (name.equals("getCookies")) {
+            return m_cookies != null ? m_cookies.clone() : null;
+        } else if (name.equals("getLocales")) {
+            return Collections.enumeration(m_locales);
+        } else if (name.equals("getRequestURL")) {
+            return m_requestUrl != null ? new StringBuffer(m_requestUrl) : null;
+        } else if (name.equals("getSession")) {
+            // a new session can not be created for a detached request
+            return m_session;
+        } else if (name.equals("getServletContext")) {
+            return OpenCms.getSystemInfo().getServletContainerSettings().getServletContext();
+        } else if (name.equals("getRequestDispatcher")) {
+            return getRequestDispatcher((String)args[0]);
+        } else if (((args == null) || (args.length == 0)) && m_values.containsKey(name)) {
+            return m_values.get(name);
+        }
+        // everything else, like the request body, can not be read from a detached request
+        return getDefaultValue(method.getReturnType());
+    }
+
+    /**
+     * Handles a method call on a detached response.<p>
+     *
+     * @param method the method
+     * @param args the arguments
+     *
+     * @return the result
+     */
+    private Object invokeResponse(Method method, Object[] args) {
+
+        String name = method.getName();
+        if (name.equals("getCharacterEncoding")) {
+            return m_encoding;
+        } else if (name.equals("setCharacterEncoding")) {
+            m_encoding = (String)args[0];
+            return null;
+        } else if (name.equals("getLocale")) {
+            return m_locale;
+        } else if (name.startsWith("encode")) {
+            // URLs are not rewritten for detached responses
+            return args[0];
+        }
+        return getDefaultValue(method.getReturnType());
+    }
+}
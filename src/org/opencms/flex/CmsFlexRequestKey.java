@@ -245,6 +245,19 @@ public class CmsFlexRequestKey {
         }
     }
 
+    /**
+     * Creates a key for the given resource without a request.<p>
+     *
+     * This is only intended for subclasses that provide all request data by overriding the getters,
+     * e.g. for testing the key matching.<p>
+     *
+     * @param resource the OpenCms resource that this key is used for
+     */
+    protected CmsFlexRequestKey(String resource) {
+
+        m_resource = resource;
+    }
+
     /**
      * Returns the request attributes.<p>
      *
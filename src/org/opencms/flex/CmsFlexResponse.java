@@ -41,6 +41,7 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -1057,6 +1058,40 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         }
     }
 
+    /**
+     * Writes the bytes of a buffer stored off heap to the current output stream,
+     * this method should be called from CmsFlexCacheEntry.service() only.<p>
+     *
+     * @param buffer the buffer with the bytes to write, its position is not changed
+     * @param useArray indicates that the bytes may be used directly as result of this response
+     *
+     * @throws IOException in case something goes wrong while writing to the stream
+     */
+    void writeToOutputStream(ByteBuffer buffer, boolean useArray) throws IOException {
+
+        if (isSuspended()) {
+            return;
+        }
+        if (m_writeOnlyToBuffer) {
+            if (useArray) {
+                // the parent response needs the bytes as array
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.duplicate().get(bytes);
+                m_cacheBytes = bytes;
+            } else {
+                if (m_out == null) {
+                    initStream();
+                }
+                // In this case the buffer will not write to the servlet stream, but to it's internal buffer only
+                CmsFlexCacheOffHeapStore.write(buffer, m_out);
+            }
+        } else {
+            // The request is not buffered, so we can write directly to it's parents output stream
+            CmsFlexCacheOffHeapStore.write(buffer, m_res.getOutputStream());
+            m_res.getOutputStream().flush();
+        }
+    }
+
     /**
      * Helper method to add a value in the internal header list.<p>
      *
@@ -1219,6 +1254,8 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
                 Object o = elements.get(i);
                 if (o instanceof byte[]) {
                     res.getOutputStream().write((byte[])o);
+                } else if (o instanceof ByteBuffer) {
+                    CmsFlexCacheOffHeapStore.write((ByteBuffer)o, res.getOutputStream());
                 } else {
                     if ((m_includeResults != null) && (m_includeResults.size() > count)) {
                         // make sure that we don't run behind end of list (should never happen, though)
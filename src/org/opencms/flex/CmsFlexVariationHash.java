@@ -0,0 +1,156 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+/**
+ * A 128 bit hash of a FlexCache variation String.<p>
+ *
+ * The hash is calculated from the characters appended to it, so the hash calculated while matching
+ * the cache directives of a request is equal to the hash of the variation String the same match would
+ * produce, without creating the String. Since different variations may have the same hash, the
+ * FlexCache checks for collisions when adding entries.<p>
+ *
+ * An instance must not be changed after it has been used as a map key.<p>
+ *
+ * @since 11.0.0
+ */
+final class CmsFlexVariationHash implements Appendable {
+
+    /** The offset basis of the 64 bit FNV-1a hash. */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /** The prime of the 64 bit FNV-1a hash. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** The multiplier of the second hash. */
+    private static final long MIX_MULTIPLIER = 0xc6a4a7935bd1e995L;
+
+    /** The seed of the second hash. */
+    private static final long MIX_SEED = 0x9e3779b97f4a7c15L;
+
+    /** The first 64 bits of the hash. */
+    private long m_high = FNV_OFFSET_BASIS;
+
+    /** The number of characters appended. */
+    private int m_length;
+
+    /** The second 64 bits of the hash. */
+    private long m_low = MIX_SEED;
+
+    /**
+     * Creates an empty hash.<p>
+     */
+    CmsFlexVariationHash() {
+
+        // noop
+    }
+
+    /**
+     * Returns the hash of the given variation String.<p>
+     *
+     * @param variation the variation String
+     *
+     * @return the hash of the variation String
+     */
+    static CmsFlexVariationHash valueOf(String variation) {
+
+        return new CmsFlexVariationHash().append(variation);
+    }
+
+    /**
+     * @see java.lang.Appendable#append(char)
+     */
+    public CmsFlexVariationHash append(char c) {
+
+        m_high = (m_high ^ c) * FNV_PRIME;
+        long low = (m_low + c) * MIX_MULTIPLIER;
+        m_low = low ^ (low >>> 47);
+        m_length++;
+        return this;
+    }
+
+    /**
+     * @see java.lang.Appendable#append(java.lang.CharSequence)
+     */
+    public CmsFlexVariationHash append(CharSequence csq) {
+
+        if (csq == null) {
+            // same as StringBuffer
+            return append("null");
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    /**
+     * @see java.lang.Appendable#append(java.lang.CharSequence, int, int)
+     */
+    public CmsFlexVariationHash append(CharSequence csq, int start, int end) {
+
+        if (csq == null) {
+            return append("null", start, end);
+        }
+        for (int i = start; i < end; i++) {
+            append(csq.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof CmsFlexVariationHash) {
+            CmsFlexVariationHash other = (CmsFlexVariationHash)obj;
+            return (m_high == other.m_high) && (m_low == other.m_low) && (m_length == other.m_length);
+        }
+        return false;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return (int)(m_low ^ (m_low >>> 32));
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return Long.toHexString(m_high) + Long.toHexString(m_low);
+    }
+}
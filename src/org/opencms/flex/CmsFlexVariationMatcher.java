@@ -0,0 +1,109 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+/**
+ * Compares the characters appended to it with a given FlexCache variation String.<p>
+ *
+ * This is used to verify that a cache entry found by the hash of its variation really is the
+ * variation of the request, without creating the variation String of the request.<p>
+ *
+ * @since 11.0.0
+ */
+final class CmsFlexVariationMatcher implements Appendable {
+
+    /** Signals that an appended character did not match the variation. */
+    private boolean m_mismatch;
+
+    /** The number of characters appended. */
+    private int m_position;
+
+    /** The variation to compare with. */
+    private final String m_variation;
+
+    /**
+     * Creates a matcher for the given variation String.<p>
+     *
+     * @param variation the variation String to compare with
+     */
+    CmsFlexVariationMatcher(String variation) {
+
+        m_variation = variation;
+    }
+
+    /**
+     * @see java.lang.Appendable#append(char)
+     */
+    public CmsFlexVariationMatcher append(char c) {
+
+        if (!m_mismatch) {
+            if ((m_position < m_variation.length()) && (m_variation.charAt(m_position) == c)) {
+                m_position++;
+            } else {
+                m_mismatch = true;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @see java.lang.Appendable#append(java.lang.CharSequence)
+     */
+    public CmsFlexVariationMatcher append(CharSequence csq) {
+
+        if (csq == null) {
+            // same as StringBuffer
+            return append("null");
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    /**
+     * @see java.lang.Appendable#append(java.lang.CharSequence, int, int)
+     */
+    public CmsFlexVariationMatcher append(CharSequence csq, int start, int end) {
+
+        if (csq == null) {
+            return append("null", start, end);
+        }
+        for (int i = start; (i < end) && !m_mismatch; i++) {
+            append(csq.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Returns if the characters appended so far are exactly the variation String.<p>
+     *
+     * @return <code>true</code> if the characters appended so far are exactly the variation String
+     */
+    boolean matches() {
+
+        return !m_mismatch && (m_position == m_variation.length());
+    }
+}
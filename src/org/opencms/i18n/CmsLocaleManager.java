@@ -36,6 +36,7 @@ import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.I_CmsSynchronousEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.util.CmsStringUtil;
@@ -66,7 +67,7 @@ import com.cybozu.labs.langdetect.DetectorFactory;
  *
  * @since 6.0.0
  */
-public class CmsLocaleManager implements I_CmsEventListener {
+public class CmsLocaleManager implements I_CmsSynchronousEventListener {
 
     /** Runtime property name for locale handler. */
     public static final String LOCALE_HANDLER = "class_locale_handler";
@@ -65,14 +65,23 @@ import org.opencms.util.CmsXmlSaxWriter;
 import org.opencms.workplace.CmsWorkplace;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.commons.codec.binary.Base64;
@@ -95,6 +104,9 @@ import org.xml.sax.SAXException;
  */
 public class CmsExport {
 
+    /** The maximum number of files read ahead per export worker. */
+    private static final int FILES_READ_AHEAD_PER_WORKER = 4;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsExport.class);
 
@@ -110,9 +122,15 @@ public class CmsExport {
     /** The export writer. */
     private CmsExportHelper m_exportWriter;
 
+    /** The worker threads reading the file contents, <code>null</code> if the files are read sequentially. */
+    private ExecutorService m_fileReaders;
+
     /** The export parameters. */
     private CmsExportParameters m_parameters;
 
+    /** The files read by the worker threads, in the order they are written to the export. */
+    private Deque<Future<CmsFile>> m_pendingFiles;
+
     /** The report. */
     private I_CmsReport m_report;
 
@@ -168,6 +186,8 @@ public class CmsExport {
         getReport().println(Messages.get().container(Messages.RPT_CLEARCACHE_0), I_CmsReport.FORMAT_NOTE);
         OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>(0)));
 
+        m_fileReaders = createFileReaders();
+        m_pendingFiles = new ArrayDeque<Future<CmsFile>>();
         try {
             Element exportNode = openExportFile(parameters.getExportMode());
 
@@ -228,6 +248,15 @@ public class CmsExport {
             }
 
             throw new CmsImportExportException(message, ioe);
+        } finally {
+            if (m_fileReaders != null) {
+                m_fileReaders.shutdownNow();
+                m_fileReaders = null;
+            }
+            m_pendingFiles = null;
+            if (m_exportWriter != null) {
+                m_exportWriter.deleteTemporaryFiles();
+            }
         }
     }
 
@@ -266,7 +295,7 @@ public class CmsExport {
                         String export = getCms().getSitePath(file);
                         if (checkExportResource(export)) {
                             if (isInExportableProject(file)) {
-                                exportFile(getCms().readFile(export, CmsResourceFilter.IGNORE_EXPIRATION));
+                                exportFile(export);
                             }
                         }
                     }
@@ -276,6 +305,8 @@ public class CmsExport {
             }
             // all files are exported, release memory
             subFiles = null;
+            // write the files still being read before the sub folders
+            exportPendingFiles();
 
             // walk through all subfolders and export them
             for (int i = 0; i < subFolders.size(); i++) {
@@ -869,6 +900,7 @@ public class CmsExport {
             }
         }
         // export the files
+        exportPendingFiles();
         addFiles(fileNames);
 
         // write the XML
@@ -926,6 +958,50 @@ public class CmsExport {
             I_CmsReport.FORMAT_OK);
     }
 
+    /**
+     * Exports the file with the given site path.<p>
+     *
+     * If several export workers are configured, the file content is read by a worker thread,
+     * and the file is written to the export later, in the same order as the files are passed to this method.
+     * Call {@link #exportPendingFiles()} to write all files that are still read.<p>
+     *
+     * @param sitePath the site path of the file to export
+     *
+     * @throws CmsException if the file could not be read
+     * @throws SAXException if something goes wrong processing the manifest.xml
+     * @throws IOException if the ZIP entry for the file could be appended to the ZIP archive
+     */
+    protected void exportFile(final String sitePath) throws CmsException, SAXException, IOException {
+
+        if (m_fileReaders == null) {
+            exportFile(getCms().readFile(sitePath, CmsResourceFilter.IGNORE_EXPIRATION));
+            return;
+        }
+        // CmsObject is not thread safe, so the worker gets its own copy
+        final CmsObject cms = OpenCms.initCmsObject(getCms());
+        m_pendingFiles.add(m_fileReaders.submit(new Callable<CmsFile>() {
+
+            public CmsFile call() throws CmsImportExportException {
+
+                try {
+                    return cms.readFile(sitePath, CmsResourceFilter.IGNORE_EXPIRATION);
+                } catch (CmsException e) {
+                    CmsMessageContainer message = Messages.get().container(
+                        Messages.ERR_IMPORTEXPORT_ERROR_ADDING_FILE_1,
+                        sitePath);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(message.key(), e);
+                    }
+                    throw new CmsImportExportException(message, e);
+                }
+            }
+        }));
+        if (m_pendingFiles.size() >= (OpenCms.getImportExportManager().getExportWorkers()
+            * FILES_READ_AHEAD_PER_WORKER)) {
+            exportNextPendingFile();
+        }
+    }
+
     /**
      * Exports one single group with all it's data.<p>
      *
@@ -1106,6 +1182,20 @@ public class CmsExport {
         }
     }
 
+    /**
+     * Writes all files that are still read by the export workers to the export.<p>
+     *
+     * @throws CmsImportExportException if a file could not be read
+     * @throws SAXException if something goes wrong processing the manifest.xml
+     * @throws IOException if the ZIP entry for a file could be appended to the ZIP archive
+     */
+    protected void exportPendingFiles() throws CmsImportExportException, SAXException, IOException {
+
+        while ((m_pendingFiles != null) && !m_pendingFiles.isEmpty()) {
+            exportNextPendingFile();
+        }
+    }
+
     /**
      * Exports one single project with all it's data.<p>
      *
@@ -1549,6 +1639,63 @@ public class CmsExport {
         return resourceName;
     }
 
+    /**
+     * Creates the worker threads reading the file contents, if more than one export worker is configured.<p>
+     *
+     * @return the worker threads, or <code>null</code> if the files are read sequentially
+     */
+    private ExecutorService createFileReaders() {
+
+        int workers = OpenCms.getImportExportManager().getExportWorkers();
+        if (workers <= 1) {
+            return null;
+        }
+        final AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(workers, new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, "OpenCms: Export worker " + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Waits for the next file read by the export workers and writes it to the export.<p>
+     *
+     * @throws CmsImportExportException if the file could not be read
+     * @throws SAXException if something goes wrong processing the manifest.xml
+     * @throws IOException if the ZIP entry for the file could be appended to the ZIP archive
+     */
+    private void exportNextPendingFile() throws CmsImportExportException, SAXException, IOException {
+
+        Future<CmsFile> future = m_pendingFiles.poll();
+        CmsFile file;
+        try {
+            file = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmsImportExportException(
+                Messages.get().container(Messages.ERR_IMPORTEXPORT_ERROR_EXPORTING_TO_FILE_1, getExportFileName()),
+                e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmsImportExportException) {
+                throw (CmsImportExportException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new CmsImportExportException(
+                Messages.get().container(Messages.ERR_IMPORTEXPORT_ERROR_EXPORTING_TO_FILE_1, getExportFileName()),
+                cause);
+        }
+        exportFile(file);
+    }
+
     /** Returns the manifest entry for the <code>&lt;datelastmodified&gt;</code> node of the resource.
      * Depending on the export.timestamp property, the time stamp from the VFS (default) or
      * special macros are used.
@@ -33,12 +33,14 @@ import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsXmlSaxWriter;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.file.Files;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -52,9 +54,6 @@ import org.xml.sax.SAXException;
  */
 public class CmsExportHelper {
 
-    /** Length that can be safely written to ZIP output. */
-    private static final int SUB_LENGTH = 4096;
-
     /** The main export path. */
     private String m_exportPath;
 
@@ -64,6 +63,12 @@ public class CmsExportHelper {
     /** Indicates if the resources are exported in one export .ZIP file or as individual files. */
     private boolean m_isExportAsFiles;
 
+    /** The temporary file the manifest is written to in case of a ZIP export. */
+    private File m_manifestFile;
+
+    /** The writer for the temporary manifest file in case of a ZIP export. */
+    private Writer m_manifestWriter;
+
     /** The SAX writer for the Manifest file. */
     private SAXWriter m_saxWriter;
 
@@ -100,8 +105,13 @@ public class CmsExportHelper {
             rfsFile.getParentFile().mkdirs();
             // create the export ZIP stream
             m_exportZipStream = new ZipOutputStream(new FileOutputStream(m_exportPath));
-            // delegate writing to a String writer
-            writer = new StringWriter(SUB_LENGTH);
+            // write the manifest to a temporary file, since it can only be added to the ZIP at the end
+            m_manifestFile = File.createTempFile("manifest", ".xml", rfsFile.getParentFile());
+            m_manifestWriter = new BufferedWriter(
+                new OutputStreamWriter(
+                    new FileOutputStream(m_manifestFile),
+                    OpenCms.getSystemInfo().getDefaultEncoding()));
+            writer = m_manifestWriter;
         }
 
         // generate the SAX XML writer
@@ -123,6 +133,29 @@ public class CmsExportHelper {
         m_saxWriter = new SAXWriter(saxHandler, saxHandler);
     }
 
+    /**
+     * Deletes the temporary manifest file of a ZIP export.<p>
+     *
+     * This must be called when the export is finished, also in case the export has failed.<p>
+     */
+    public void deleteTemporaryFiles() {
+
+        if (m_manifestFile == null) {
+            return;
+        }
+        try {
+            // the writer is still open if the export has failed
+            m_manifestWriter.close();
+        } catch (@SuppressWarnings("unused") IOException e) {
+            // the file is deleted anyway
+        }
+        if (!m_manifestFile.delete()) {
+            // the file may still be locked by the file system
+            m_manifestFile.deleteOnExit();
+        }
+        m_manifestFile = null;
+    }
+
     /**
      * Returns the SAX writer for the Manifest file.<p>
      *
@@ -263,7 +296,7 @@ public class CmsExportHelper {
     /**
      * Writes the OpenCms manifest.xml file to the ZIP export.<p>
      *
-     * In case of the ZIP export the manifest is written to an internal StringBuffer
+     * In case of the ZIP export the manifest is written to a temporary file
      * first, which is then stored in the ZIP file when this method is called.<p>
      *
      * @param xmlSaxWriter the SAX writer to use
@@ -281,20 +314,8 @@ public class CmsExportHelper {
         ZipEntry entry = new ZipEntry(CmsImportExportManager.EXPORT_MANIFEST);
         m_exportZipStream.putNextEntry(entry);
 
-        // complex substring operation is required to ensure handling for very large export manifest files
-        StringBuffer result = ((StringWriter)xmlSaxWriter.getWriter()).getBuffer();
-        int steps = result.length() / SUB_LENGTH;
-        int rest = result.length() % SUB_LENGTH;
-        int pos = 0;
-        for (int i = 0; i < steps; i++) {
-            String sub = result.substring(pos, pos + SUB_LENGTH);
-            m_exportZipStream.write(sub.getBytes(OpenCms.getSystemInfo().getDefaultEncoding()));
-            pos += SUB_LENGTH;
-        }
-        if (rest > 0) {
-            String sub = result.substring(pos, pos + rest);
-            m_exportZipStream.write(sub.getBytes(OpenCms.getSystemInfo().getDefaultEncoding()));
-        }
+        // copy the manifest from the temporary file, it may be too large to be kept in memory
+        Files.copy(m_manifestFile.toPath(), m_exportZipStream);
 
         // close the zip entry for the manifest XML document
         m_exportZipStream.closeEntry();
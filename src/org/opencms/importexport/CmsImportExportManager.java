@@ -398,6 +398,9 @@ public class CmsImportExportManager {
     @Deprecated
     public static final String N_VALUE = A_CmsImport.N_VALUE;
 
+    /** The default number of worker threads reading the file contents of an export. */
+    public static final int DEFAULT_EXPORT_WORKERS = 1;
+
     /** Tag in the {@link #EXPORT_MANIFEST} for the "export_version" node, appears in the manifest info header. */
     public static final String N_VERSION = "export_version";
 
@@ -413,6 +416,9 @@ public class CmsImportExportManager {
     /** Map from resource types to default timestamp modes. */
     private Map<String, TimestampMode> m_defaultTimestampModes;
 
+    /** The number of worker threads reading the file contents of an export, <code>null</code> if not configured. */
+    private Integer m_exportWorkers;
+
     /** The default values of the HTML->OpenCms Template converter. */
     private CmsExtendedHtmlImportDefault m_extendedHtmlImportDefault;
 
@@ -692,6 +698,30 @@ public class CmsImportExportManager {
         return result;
     }
 
+    /**
+     * Returns the number of worker threads reading the file contents of an export.<p>
+     *
+     * @return the number of worker threads reading the file contents of an export
+     */
+    public int getExportWorkers() {
+
+        if (m_exportWorkers != null) {
+            return Math.max(1, m_exportWorkers.intValue());
+        }
+        return DEFAULT_EXPORT_WORKERS;
+    }
+
+    /**
+     * Returns the configured number of worker threads reading the file contents of an export,
+     * or <code>null</code> if not configured.<p>
+     *
+     * @return the configured number of worker threads, or <code>null</code>
+     */
+    public Integer getExportWorkersConfigured() {
+
+        return m_exportWorkers;
+    }
+
     /**
      * Returns the extendedHtmlImportDefault.<p>
      *
@@ -972,6 +1002,16 @@ public class CmsImportExportManager {
         setConvertToXmlPage(Boolean.valueOf(convertToXmlPage).booleanValue());
     }
 
+    /**
+     * Sets the number of worker threads reading the file contents of an export.<p>
+     *
+     * @param workers the number of worker threads
+     */
+    public void setExportWorkers(String workers) {
+
+        m_exportWorkers = new Integer(workers.trim());
+    }
+
     /**
      * Sets the extendedHtmlImportDefault.<p>
      *
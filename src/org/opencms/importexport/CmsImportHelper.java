@@ -302,6 +302,26 @@ public class CmsImportHelper {
         return m_zipFile;
     }
 
+    /**
+     * Checks if the given file exists in the folder or zip file, without reading its content.<p>
+     *
+     * @param filename the name of the file, relative to the folder or zip file
+     *
+     * @return <code>true</code> if the file exists
+     */
+    public boolean hasFile(String filename) {
+
+        if (getZipFile() != null) {
+            ZipEntry entry = getZipFile().getEntry(filename);
+            // path to file might be relative, too
+            if ((entry == null) && filename.startsWith("/")) {
+                entry = getZipFile().getEntry(filename.substring(1));
+            }
+            return entry != null;
+        }
+        return getFile(filename).isFile();
+    }
+
     /**
      * Opens the import file.<p>
      *
@@ -53,6 +53,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalStateException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationType;
 import org.opencms.relations.I_CmsLinkParseable;
 import org.opencms.report.I_CmsReport;
@@ -75,12 +76,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -371,6 +372,9 @@ public class CmsImportVersion10 implements I_CmsImport {
     /** Value for the "shared" property type attribute value. */
     public static final String PROPERTY_ATTRIB_TYPE_SHARED = "shared";
 
+    /** The number of access control lists or relations which are written to the database together. */
+    protected static final int BULK_IMPORT_SIZE = 1000;
+
     /** Constant for the unspecified creation date. */
     protected static final long DATE_CREATED_UNSPECIFIED = -1;
 
@@ -380,6 +384,9 @@ public class CmsImportVersion10 implements I_CmsImport {
     /** Constant for an unspecified last modification date. */
     protected static final long DATE_LAST_MODIFICATION_UNSPECIFIED = -2;
 
+    /** The number of imported resources after which the import progress is written to the report. */
+    protected static final int PROGRESS_REPORT_INTERVAL = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsImportVersion10.class);
 
@@ -443,6 +450,9 @@ public class CmsImportVersion10 implements I_CmsImport {
     /** The flag to import ACEs. */
     protected boolean m_importACEs;
 
+    /** The time the import of the resources was started. */
+    protected long m_importStartTime;
+
     /** The membership structure. */
     protected Map<String, Map<String, Map<String, String>>> m_membership;
 
@@ -467,6 +477,9 @@ public class CmsImportVersion10 implements I_CmsImport {
     /** The list of resource to be parsed, this is a global list, which will be handled at the end of the import. */
     protected List<CmsResource> m_parseables;
 
+    /** The access control entries of the imported resources which have not been written yet. */
+    protected Map<CmsResource, List<CmsAccessControlEntry>> m_pendingAces;
+
     /** The project description. */
     protected String m_projectDescription;
 
@@ -717,10 +730,10 @@ public class CmsImportVersion10 implements I_CmsImport {
     public void addContentFile(String source, String resourceId) {
 
         if ((source != null) && (resourceId != null)) {
-            try {
-                m_helper.getFileBytes(source);
+            // only check the file, reading the content here would decompress the whole import twice
+            if (m_helper.hasFile(source)) {
                 m_contentFiles.add(new CmsUUID(resourceId));
-            } catch (@SuppressWarnings("unused") CmsImportExportException e) {
+            } else {
                 LOG.info("File not found in import: " + source);
             }
         }
@@ -875,6 +888,7 @@ public class CmsImportVersion10 implements I_CmsImport {
 
                 m_indexToStructureId = new HashMap<>();
                 m_relationData = ArrayListMultimap.create();
+                m_pendingAces = new LinkedHashMap<>();
 
             }
         });
@@ -909,6 +923,8 @@ public class CmsImportVersion10 implements I_CmsImport {
 
         // and now the organizational unit resources
         digester.addCallMethod(CmsImportExportManager.N_EXPORT + "/" + N_FILES, "associateOrgUnitResources");
+        // the end methods are called in reverse order, so this writes the remaining ACEs before anything else
+        digester.addCallMethod(CmsImportExportManager.N_EXPORT + "/" + N_FILES, "importPendingAccessControlEntries");
 
         // then projects
         xpath = CmsImportExportManager.N_EXPORT + "/" + N_PROJECTS + "/" + N_PROJECT + "/";
@@ -1523,15 +1539,14 @@ public class CmsImportVersion10 implements I_CmsImport {
             // no ACE in the list
             return;
         }
-        // if the resource was imported add the access control entries if available
-        try {
-            getCms().importAccessControlEntries(m_resource, m_aces);
-        } catch (@SuppressWarnings("unused") CmsException exc) {
-            getReport().println(
-                Messages.get().container(Messages.RPT_IMPORT_ACL_DATA_FAILED_0),
-                I_CmsReport.FORMAT_WARNING);
-        } finally {
-            m_aces = null;
+        // if the resource was imported remember the access control entries, they are written in bulk
+        if (m_pendingAces == null) {
+            m_pendingAces = new LinkedHashMap<>();
+        }
+        m_pendingAces.put(m_resource, m_aces);
+        m_aces = null;
+        if (m_pendingAces.size() >= BULK_IMPORT_SIZE) {
+            importPendingAccessControlEntries();
         }
     }
 
@@ -1564,6 +1579,7 @@ public class CmsImportVersion10 implements I_CmsImport {
             m_helper.cacheDtdSystemId(DTD_LOCATION, DTD_FILENAME, CmsConfigurationManager.DEFAULT_DTD_PREFIX);
             findContentFiles();
             // start the parsing process
+            m_importStartTime = System.currentTimeMillis();
             stream = m_helper.getFileStream(CmsImportExportManager.EXPORT_MANIFEST);
             digester.parse(stream);
         } catch (Exception ioe) {
@@ -1879,6 +1895,44 @@ public class CmsImportVersion10 implements I_CmsImport {
 
     }
 
+    /**
+     * Writes the access control entries collected for the imported resources.<p>
+     *
+     * If writing them all together fails, they are written resource by resource,
+     * so that only the failing resources are reported.<p>
+     *
+     * @see #importAccessControlEntries()
+     */
+    public void importPendingAccessControlEntries() {
+
+        if ((m_pendingAces == null) || m_pendingAces.isEmpty()) {
+            return;
+        }
+        try {
+            getCms().importAccessControlEntries(m_pendingAces);
+        } catch (CmsException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+            for (Entry<CmsResource, List<CmsAccessControlEntry>> entry : m_pendingAces.entrySet()) {
+                try {
+                    getCms().importAccessControlEntries(entry.getKey(), entry.getValue());
+                } catch (CmsException exc) {
+                    getReport().println(
+                        Messages.get().container(Messages.RPT_IMPORT_ACL_DATA_FAILED_1, entry.getKey().getRootPath()),
+                        I_CmsReport.FORMAT_WARNING);
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_IMPORTEXPORT_ERROR_IMPORTING_ACE_1,
+                                entry.getKey().getRootPath()),
+                            exc);
+                    }
+                }
+            }
+        } finally {
+            m_pendingAces.clear();
+        }
+    }
+
     /**
      * Imports all relations from the current xml data.<p>
      *
@@ -1902,82 +1956,49 @@ public class CmsImportVersion10 implements I_CmsImport {
 
         int i = 0;
         CmsResourceFilter filter = CmsResourceFilter.ALL;
+        // many relations point to the same targets, so remember the resolved targets
+        Map<String, CmsResource> targets = new HashMap<String, CmsResource>();
+        // the relations are written in bulk, for a number of source resources at once
+        Map<CmsResource, List<CmsRelation>> pendingRelations = new LinkedHashMap<CmsResource, List<CmsRelation>>();
+        int pendingCount = 0;
         for (Integer importIndex : m_relationData.keySet()) {
             CmsUUID structureId = m_indexToStructureId.get(importIndex);
             if (structureId == null) {
                 continue;
             }
-            Collection<RelationData> relationDataList = m_relationData.get(importIndex);
             try {
                 CmsResource src = m_cms.readResource(structureId, filter);
                 if (checkImmutable(src.getRootPath())) {
                     continue;
                 }
-                getReport().print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        String.valueOf(i + 1),
-                        String.valueOf(m_relationData.keySet().size())),
-                    I_CmsReport.FORMAT_NOTE);
-
-                getReport().print(
-                    Messages.get().container(
-                        Messages.RPT_IMPORTING_RELATIONS_FOR_2,
-                        src.getRootPath(),
-                        new Integer(m_relationData.keySet().size())),
-                    I_CmsReport.FORMAT_NOTE);
-                getReport().print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-                boolean withErrors = false;
-                for (RelationData relationData : relationDataList) {
-                    CmsResource target = null;
-                    try {
-                        target = m_cms.readResource(relationData.getTargetId(), filter);
-                    } catch (CmsVfsResourceNotFoundException e) {
-                        // ignore
-                    }
-                    if (target == null) {
-                        try {
-                            target = m_cms.readResource(relationData.getTarget(), filter);
-                        } catch (CmsVfsResourceNotFoundException e) {
-                            // ignore
-                        }
-                    }
-
+                List<CmsRelation> relations = new ArrayList<CmsRelation>();
+                boolean deleted = src.getState().isDeleted();
+                for (RelationData relationData : m_relationData.get(importIndex)) {
+                    CmsResource target = readRelationTarget(relationData, targets);
                     if (target != null) {
-                        try {
-                            getCms().importRelation(
-                                m_cms.getSitePath(src),
-                                m_cms.getSitePath(target),
-                                relationData.getType().toString());
-                        } catch (CmsException e) {
-                            getReport().addWarning(e);
-                            withErrors = true;
-                            if (LOG.isWarnEnabled()) {
-                                LOG.warn(e.getLocalizedMessage());
-                            }
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug(e.getLocalizedMessage(), e);
-                            }
-                        }
+                        relations.add(new CmsRelation(src, target, relationData.getType()));
+                        deleted |= target.getState().isDeleted();
                     }
                 }
-                if (!withErrors) {
-                    getReport().println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else {
-                    getReport().println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                        I_CmsReport.FORMAT_ERROR);
+                if (deleted) {
+                    // relations from or to deleted resources are rejected, which is reported per relation
+                    i = importRelations(Collections.singletonMap(src, relations), i, false);
+                    continue;
+                }
+                pendingRelations.put(src, relations);
+                pendingCount += relations.size();
+                if (pendingCount >= BULK_IMPORT_SIZE) {
+                    i = importRelations(pendingRelations, i, true);
+                    pendingRelations.clear();
+                    pendingCount = 0;
                 }
-                i += 1;
-
             } catch (CmsException e) {
                 getReport().addError(e);
                 LOG.error(e.getLocalizedMessage(), e);
                 continue;
             }
         }
+        importRelations(pendingRelations, i, true);
     }
 
     /**
@@ -2140,6 +2161,9 @@ public class CmsImportVersion10 implements I_CmsImport {
             importResource();
             importAccessControlEntries();
             increaseCounter();
+            if (((m_fileCounter - 1) % PROGRESS_REPORT_INTERVAL) == 0) {
+                reportProgress();
+            }
         } finally {
             m_destination = null;
             m_source = null;
@@ -3531,6 +3555,22 @@ public class CmsImportVersion10 implements I_CmsImport {
         return m_immutables;
     }
 
+    /**
+     * Writes the number of imported resources and the import rate to the report.<p>
+     */
+    protected void reportProgress() {
+
+        int imported = m_fileCounter - 1;
+        long elapsed = Math.max(1, System.currentTimeMillis() - m_importStartTime);
+        getReport().println(
+            Messages.get().container(
+                Messages.RPT_IMPORT_PROGRESS_3,
+                Integer.valueOf(imported),
+                Integer.valueOf(m_totalFiles),
+                Long.valueOf((imported * 1000L) / elapsed)),
+            I_CmsReport.FORMAT_NOTE);
+    }
+
     /**
      * Fills the unset fields for an imported resource with default values.<p>
      *
@@ -3604,4 +3644,114 @@ public class CmsImportVersion10 implements I_CmsImport {
         return false;
 
     }
+
+    /**
+     * Imports the relations of the given source resources and writes the result to the report.<p>
+     *
+     * @param relations the relations to import, by source resource
+     * @param counter the number of source resources reported so far
+     * @param bulk if <code>true</code>, the relations are first written all together, and only
+     *      if this fails, they are written one by one
+     *
+     * @return the number of source resources reported so far, including the given ones
+     */
+    private int importRelations(Map<CmsResource, List<CmsRelation>> relations, int counter, boolean bulk) {
+
+        if (relations.isEmpty()) {
+            return counter;
+        }
+        boolean imported = false;
+        if (bulk) {
+            try {
+                getCms().importRelations(relations);
+                imported = true;
+            } catch (CmsException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+        for (Entry<CmsResource, List<CmsRelation>> entry : relations.entrySet()) {
+            CmsResource src = entry.getKey();
+            getReport().print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_2,
+                    String.valueOf(counter + 1),
+                    String.valueOf(m_relationData.keySet().size())),
+                I_CmsReport.FORMAT_NOTE);
+
+            getReport().print(
+                Messages.get().container(
+                    Messages.RPT_IMPORTING_RELATIONS_FOR_2,
+                    src.getRootPath(),
+                    new Integer(m_relationData.keySet().size())),
+                I_CmsReport.FORMAT_NOTE);
+            getReport().print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+            boolean withErrors = false;
+            if (!imported) {
+                String srcPath = m_cms.getSitePath(src);
+                for (CmsRelation relation : entry.getValue()) {
+                    try {
+                        getCms().importRelation(
+                            srcPath,
+                            m_cms.getRequestContext().removeSiteRoot(relation.getTargetPath()),
+                            relation.getType().toString());
+                    } catch (CmsException e) {
+                        getReport().addWarning(e);
+                        withErrors = true;
+                        if (LOG.isWarnEnabled()) {
+                            LOG.warn(e.getLocalizedMessage());
+                        }
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug(e.getLocalizedMessage(), e);
+                        }
+                    }
+                }
+            }
+            if (!withErrors) {
+                getReport().println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else {
+                getReport().println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                    I_CmsReport.FORMAT_ERROR);
+            }
+            counter += 1;
+        }
+        return counter;
+    }
+
+    /**
+     * Reads the target resource of a relation, first by id and then by path.<p>
+     *
+     * @param relationData the relation data
+     * @param targets the targets resolved so far, by id and path
+     *
+     * @return the target resource, or <code>null</code> if it does not exist
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsResource readRelationTarget(RelationData relationData, Map<String, CmsResource> targets)
+    throws CmsException {
+
+        String targetKey = relationData.getTargetId() + ":" + relationData.getTarget();
+        if (targets.containsKey(targetKey)) {
+            return targets.get(targetKey);
+        }
+        CmsResourceFilter filter = CmsResourceFilter.ALL;
+        CmsResource target = null;
+        try {
+            target = m_cms.readResource(relationData.getTargetId(), filter);
+        } catch (CmsVfsResourceNotFoundException e) {
+            // ignore
+        }
+        if (target == null) {
+            try {
+                target = m_cms.readResource(relationData.getTarget(), filter);
+            } catch (CmsVfsResourceNotFoundException e) {
+                // ignore
+            }
+        }
+        targets.put(targetKey, target);
+        return target;
+    }
 }
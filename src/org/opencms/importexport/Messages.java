@@ -315,6 +315,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_IMPORT_ACL_DATA_FAILED_0 = "RPT_IMPORT_ACL_DATA_FAILED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_IMPORT_ACL_DATA_FAILED_1 = "RPT_IMPORT_ACL_DATA_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_IMPORT_DB_BEGIN_0 = "RPT_IMPORT_DB_BEGIN_0";
 
@@ -330,6 +333,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_IMPORT_ORGUNIT_0 = "RPT_IMPORT_ORGUNIT_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_IMPORT_PROGRESS_3 = "RPT_IMPORT_PROGRESS_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_IMPORT_PROJECT_0 = "RPT_IMPORT_PROJECT_0";
 
@@ -46,9 +46,11 @@ import org.opencms.i18n.CmsEncoder;
 import org.opencms.jsp.CmsJspTagAddParams.ParamState;
 import org.opencms.jsp.util.CmsJspStandardContextBean;
 import org.opencms.jsp.util.CmsJspStandardContextBean.CmsContainerElementWrapper;
+import org.opencms.loader.CmsJspLoader;
 import org.opencms.loader.CmsLoaderException;
 import org.opencms.loader.CmsTemplateContext;
 import org.opencms.loader.CmsTemplateContextManager;
+import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalStateException;
 import org.opencms.main.CmsLog;
@@ -61,6 +63,7 @@ import org.opencms.xml.containerpage.CmsADESessionCache;
 import org.opencms.xml.containerpage.CmsContainerBean;
 import org.opencms.xml.containerpage.CmsContainerElementBean;
 import org.opencms.xml.containerpage.CmsContainerPageBean;
+import org.opencms.xml.containerpage.CmsFormatterBean;
 import org.opencms.xml.containerpage.CmsFormatterConfiguration;
 import org.opencms.xml.containerpage.CmsGroupContainerBean;
 import org.opencms.xml.containerpage.CmsXmlContainerPage;
@@ -73,12 +76,16 @@ import org.opencms.xml.templatemapper.CmsTemplateMapper;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -92,6 +99,8 @@ import javax.servlet.jsp.tagext.TryCatchFinally;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.logging.Log;
 
+import com.google.common.base.Predicate;
+
 /**
  * Provides access to the page container elements.<p>
  *
@@ -99,6 +108,197 @@ import org.apache.commons.logging.Log;
  */
 public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinally, I_CmsJspTagParamParent {
 
+    /**
+     * Renders the elements of a container, see {@link CmsJspTagContainer#renderElements}.<p>
+     *
+     * @param <T> the element type
+     * @param <R> the type of the result of an element rendered in the background
+     */
+    interface I_CmsElementRenderer<T, R> {
+
+        /**
+         * Checks if an element is rendered at all and counts towards the maximum number of elements.<p>
+         *
+         * @param element the element
+         *
+         * @return true if the element is rendered
+         */
+        boolean isVisible(T element);
+
+        /**
+         * Renders an element in the request thread.<p>
+         *
+         * @param element the element
+         * @param parallelElement the element rendered in the background, or <code>null</code>
+         * @param alreadyFull true if the maximum number of elements has already been rendered
+         *
+         * @return true if an element was rendered that counts towards the maximum number of elements
+         *
+         * @throws Exception if rendering the element fails
+         */
+        boolean render(T element, Future<R> parallelElement, boolean alreadyFull) throws Exception;
+
+        /**
+         * Starts rendering an element in the background.<p>
+         *
+         * @param element the element
+         *
+         * @return the element rendered in the background, or <code>null</code> if it is rendered in the request thread
+         *
+         * @throws Exception if starting the element fails, it is then rendered in the request thread
+         */
+        Future<R> startInBackground(T element) throws Exception;
+    }
+
+    /**
+     * Renders the container elements of the current request.<p>
+     */
+    private class CmsElementRenderer implements I_CmsElementRenderer<CmsContainerElementBean, CmsFlexController> {
+
+        /** The ADE configuration of the current page. */
+        private CmsADEConfigData m_adeConfig;
+
+        /** The cms context. */
+        private CmsObject m_cms;
+
+        /** The key of the current template context, may be <code>null</code>. */
+        private String m_contextKey;
+
+        /** The JSP loader rendering the elements in the background. */
+        private CmsJspLoader m_loader;
+
+        /** The current locale. */
+        private Locale m_locale;
+
+        /** The current request. */
+        private HttpServletRequest m_request;
+
+        /** The current standard context bean. */
+        private CmsJspStandardContextBean m_standardContext;
+
+        /**
+         * Creates a new renderer.<p>
+         *
+         * @param request the current request
+         * @param cms the cms context
+         * @param standardContext the current standard context bean
+         * @param locale the current locale
+         */
+        CmsElementRenderer(
+            HttpServletRequest request,
+            CmsObject cms,
+            CmsJspStandardContextBean standardContext,
+            Locale locale) {
+
+            m_request = request;
+            m_cms = cms;
+            m_standardContext = standardContext;
+            m_locale = locale;
+            I_CmsResourceLoader jspLoader = OpenCms.getResourceManager().getLoader(
+                CmsJspLoader.RESOURCE_LOADER_ID);
+            if ((jspLoader instanceof CmsJspLoader) && ((CmsJspLoader)jspLoader).isBackgroundDumpEnabled()) {
+                m_loader = (CmsJspLoader)jspLoader;
+            }
+            CmsTemplateContext context = (CmsTemplateContext)(request.getAttribute(
+                CmsTemplateContextManager.ATTR_TEMPLATE_CONTEXT));
+            m_contextKey = context != null ? context.getKey() : null;
+        }
+
+        /**
+         * Checks if elements can be rendered in the background.<p>
+         *
+         * @return true if elements can be rendered in the background
+         */
+        boolean isBackgroundEnabled() {
+
+            return m_loader != null;
+        }
+
+        /**
+         * @see org.opencms.jsp.CmsJspTagContainer.I_CmsElementRenderer#isVisible(java.lang.Object)
+         */
+        @SuppressWarnings("synthetic-access")
+        public boolean isVisible(CmsContainerElementBean element) {
+
+            try {
+                element.initResource(m_cms);
+                return element.isReleasedAndNotExpired() && shouldShowInContext(element, m_contextKey);
+            } catch (CmsException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+                return false;
+            }
+        }
+
+        /**
+         * @see org.opencms.jsp.CmsJspTagContainer.I_CmsElementRenderer#render(java.lang.Object, java.util.concurrent.Future, boolean)
+         */
+        @SuppressWarnings("synthetic-access")
+        public boolean render(
+            CmsContainerElementBean element,
+            Future<CmsFlexController> parallelElement,
+            boolean alreadyFull)
+        throws Exception {
+
+            return renderContainerElement(
+                m_request,
+                m_cms,
+                m_standardContext,
+                element,
+                parallelElement,
+                m_locale,
+                alreadyFull);
+        }
+
+        /**
+         * Starts rendering an element in the background, if its formatter allows parallel rendering.<p>
+         *
+         * Only simple elements are rendered in the background, and only if the JSP loader has threads for this.<p>
+         *
+         * @see org.opencms.jsp.CmsJspTagContainer.I_CmsElementRenderer#startInBackground(java.lang.Object)
+         */
+        @SuppressWarnings("synthetic-access")
+        public Future<CmsFlexController> startInBackground(CmsContainerElementBean element) throws Exception {
+
+            if (element.isGroupContainer(m_cms) || element.isInheritedContainer(m_cms)) {
+                return null;
+            }
+            if (m_adeConfig == null) {
+                m_adeConfig = OpenCms.getADEManager().lookupConfiguration(
+                    m_cms,
+                    m_cms.getRequestContext().getRootUri());
+            }
+            I_CmsFormatterBean formatterConfig = ensureValidFormatterSettings(
+                m_cms,
+                element,
+                m_adeConfig,
+                getName(),
+                getType(),
+                getContainerWidth());
+            if ((formatterConfig == null)
+                || (formatterConfig.getAttributes() == null)
+                || !Boolean.parseBoolean(
+                    formatterConfig.getAttributes().get(CmsFormatterBean.ATTRIBUTE_PARALLEL_RENDERING))) {
+                return null;
+            }
+            element.initSettings(m_cms, formatterConfig, m_locale, m_request, m_settingPresets);
+            CmsResource formatterResource = m_cms.readResource(formatterConfig.getJspStructureId());
+            CmsContainerElementWrapper oldElement = m_standardContext.getElement();
+            try {
+                // the background request copies the standard context with the element set here
+                m_standardContext.setElement(element.clone());
+                // returns null if all threads are busy, the element is then rendered in the request thread
+                return m_loader.dumpInBackground(
+                    m_cms,
+                    formatterResource,
+                    m_locale,
+                    m_request,
+                    (HttpServletResponse)pageContext.getResponse());
+            } finally {
+                m_standardContext.setElement(oldElement);
+            }
+        }
+    }
+
     /** Default number of max elements in the container in case no value has been set. */
     public static final String DEFAULT_MAX_ELEMENTS = "100";
 
@@ -414,6 +614,104 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
         return buffer.toString();
     }
 
+    /**
+     * Renders the elements of a container in their order.<p>
+     *
+     * Before, the visible elements up to the maximum number of elements are started in the background if
+     * <code>startParallel</code> is set. The output of an element rendered in the background is printed
+     * when the element is rendered in the request thread. When all elements are rendered, the elements
+     * started in the background which have not been printed are cancelled or waited for, so that no element
+     * is still rendered in the background after the request is finished.<p>
+     *
+     * @param <T> the element type
+     * @param <R> the type of the result of an element rendered in the background
+     * @param elements the elements of the container
+     * @param skipFirst true if the first element is not rendered
+     * @param maxElements the maximum number of elements to render
+     * @param startParallel true if elements should be started in the background
+     * @param renderer the renderer for the elements
+     *
+     * @return the number of rendered elements that count towards the maximum number of elements
+     */
+    static <T, R> int renderElements(
+        List<T> elements,
+        boolean skipFirst,
+        int maxElements,
+        boolean startParallel,
+        final I_CmsElementRenderer<T, R> renderer) {
+
+        Map<T, Future<R>> parallelElements = new IdentityHashMap<T, Future<R>>();
+        try {
+            if (startParallel) {
+                // only start the elements the loop in the request thread renders
+                List<T> renderedElements = selectRenderedElements(elements, skipFirst, maxElements, new Predicate<T>() {
+
+                    public boolean apply(T element) {
+
+                        return renderer.isVisible(element);
+                    }
+                });
+                for (T element : renderedElements) {
+                    try {
+                        Future<R> parallelElement = renderer.startInBackground(element);
+                        if (parallelElement != null) {
+                            parallelElements.put(element, parallelElement);
+                        }
+                    } catch (Exception e) {
+                        // the element is rendered in the request thread
+                        LOG.debug(e.getLocalizedMessage(), e);
+                    }
+                }
+            }
+            int numRenderedElements = 0;
+            for (int i = skipFirst ? 1 : 0; i < elements.size(); i++) {
+                T element = elements.get(i);
+                try {
+                    if (renderer.render(element, parallelElements.get(element), numRenderedElements >= maxElements)) {
+                        numRenderedElements += 1;
+                    }
+                } catch (Exception e) {
+                    if (LOG.isErrorEnabled()) {
+                        LOG.error(e.getLocalizedMessage(), e);
+                    }
+                }
+            }
+            return numRenderedElements;
+        } finally {
+            finishParallelRendering(parallelElements.values());
+        }
+    }
+
+    /**
+     * Selects the elements the request thread renders towards the maximum number of elements, in their order.<p>
+     *
+     * Like in the request thread, the first element is skipped if it is not rendered, and only visible elements
+     * count towards the maximum number of elements, all following elements are not selected.<p>
+     *
+     * @param <T> the element type
+     * @param elements the elements of the container
+     * @param skipFirst true if the first element is not rendered
+     * @param maxElements the maximum number of elements to render
+     * @param visible checks if an element is visible
+     *
+     * @return the selected elements
+     */
+    static <T> List<T> selectRenderedElements(
+        List<T> elements,
+        boolean skipFirst,
+        int maxElements,
+        Predicate<T> visible) {
+
+        List<T> result = new ArrayList<T>();
+        for (int i = skipFirst ? 1 : 0; (i < elements.size()) && (result.size() < maxElements); i++) {
+            T element = elements.get(i);
+            if (visible.apply(element)) {
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.jsp.I_CmsJspTagParamParent#addParameter(java.lang.String, java.lang.String)
      */
@@ -567,45 +865,24 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
                 } else {
                     allElements.addAll(container.getElements());
                 }
+                // in case of rendering a detail container on a detail page,
+                // the first element may be used to provide settings for the detail content
+                // this element will not be rendered, in case the detail page is not actually used to render detail content
+                boolean skipDetailTemplateElement = !m_editableRequest
+                    && !allElements.isEmpty()
+                    && isDetailTemplateElement(cms, standardContext, allElements.get(0), detailElement);
+                CmsElementRenderer renderer = new CmsElementRenderer(
+                    (HttpServletRequest)req,
+                    cms,
+                    standardContext,
+                    locale);
                 // iterate over elements to render
-                int numRenderedElements = 0;
-                boolean first = true;
-                for (CmsContainerElementBean elementBean : allElements) {
-                    // in case of rendering a detail container on a detail page,
-                    // the first element may be used to provide settings for the detail content
-                    // this element will not be rendered, in case the detail page is not actually used to render detail content
-                    boolean skipDetailTemplateElement = false;
-                    try {
-                        skipDetailTemplateElement = first
-                            && !m_editableRequest
-                            && m_detailView
-                            && (detailElement == null)
-                            && OpenCms.getADEManager().isDetailPage(cms, standardContext.getPageResource())
-                            && OpenCms.getADEManager().getDetailPages(cms, elementBean.getTypeName()).contains(
-                                CmsResource.getFolderPath(standardContext.getPageResource().getRootPath()));
-                    } catch (Exception e) {
-                        LOG.error(e.getLocalizedMessage(), e);
-                    }
-                    first = false;
-                    if (!skipDetailTemplateElement) {
-                        try {
-                            boolean rendered = renderContainerElement(
-                                (HttpServletRequest)req,
-                                cms,
-                                standardContext,
-                                elementBean,
-                                locale,
-                                numRenderedElements >= maxElements);
-                            if (rendered) {
-                                numRenderedElements += 1;
-                            }
-                        } catch (Exception e) {
-                            if (LOG.isErrorEnabled()) {
-                                LOG.error(e.getLocalizedMessage(), e);
-                            }
-                        }
-                    }
-                }
+                int numRenderedElements = renderElements(
+                    allElements,
+                    skipDetailTemplateElement,
+                    maxElements,
+                    !m_editableRequest && renderer.isBackgroundEnabled(),
+                    renderer);
                 if ((numRenderedElements == 0) && (m_bodyContent != null) && CmsJspTagEditable.isEditableRequest(req)) {
                     // the container is empty, print the evaluated body content
                     pageContext.getOut().print(m_bodyContent);
@@ -1080,6 +1357,31 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
         }
     }
 
+    /**
+     * Cancels or waits for the elements rendered in the background which have not been printed.<p>
+     *
+     * This makes sure that no element is still rendered in the background after the request is finished.<p>
+     *
+     * @param <R> the type of the result of an element rendered in the background
+     * @param parallelElements the elements started in the background
+     */
+    private static <R> void finishParallelRendering(Collection<Future<R>> parallelElements) {
+
+        for (Future<R> parallelElement : parallelElements) {
+            parallelElement.cancel(false);
+        }
+        for (Future<R> parallelElement : parallelElements) {
+            if (!parallelElement.isCancelled()) {
+                try {
+                    parallelElement.get();
+                } catch (Exception e) {
+                    // the output is not used anyway
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+    }
+
     /**
      * Generates the detail view element.<p>
      *
@@ -1293,6 +1595,35 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
         return result;
     }
 
+    /**
+     * Checks if the given element is the first element of a detail container on a detail page, which only provides
+     * settings for the detail content and is not rendered when the page does not display detail content.<p>
+     *
+     * @param cms the cms context
+     * @param standardContext the current standard context bean
+     * @param element the first element of the container
+     * @param detailElement the detail element rendered in the container, may be <code>null</code>
+     *
+     * @return true if the element is not rendered
+     */
+    private boolean isDetailTemplateElement(
+        CmsObject cms,
+        CmsJspStandardContextBean standardContext,
+        CmsContainerElementBean element,
+        CmsContainerElementBean detailElement) {
+
+        try {
+            return m_detailView
+                && (detailElement == null)
+                && OpenCms.getADEManager().isDetailPage(cms, standardContext.getPageResource())
+                && OpenCms.getADEManager().getDetailPages(cms, element.getTypeName()).contains(
+                    CmsResource.getFolderPath(standardContext.getPageResource().getRootPath()));
+        } catch (Exception e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
     /**
      * Prints an element error tag to the response out.<p>
      *
@@ -1344,6 +1675,31 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
         }
     }
 
+    /**
+     * Prints the output of an element rendered in the background.<p>
+     *
+     * @param cms the cms context
+     * @param parallelElement the Flex controller processing the formatter of the element
+     *
+     * @throws Exception if rendering the element failed
+     */
+    private void printParallelElement(CmsObject cms, Future<CmsFlexController> parallelElement) throws Exception {
+
+        CmsFlexController elementController;
+        try {
+            elementController = parallelElement.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof Exception) ? (Exception)cause : e;
+        }
+        byte[] output = elementController.getCurrentResponse().getWriterBytes();
+        pageContext.getOut().print(new String(output, cms.getRequestContext().getEncoding()));
+        // the dates of the element influence the dates of the page, like for an include
+        CmsFlexController.getController(pageContext.getRequest()).updateDates(
+            elementController.getDateLastModified(),
+            elementController.getDateExpires());
+    }
+
     /**
      * Renders a container element.<p>
      *
@@ -1351,6 +1707,7 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
      * @param cms the CMS context
      * @param standardContext the current standard contxt bean
      * @param element the container element to render
+     * @param parallelElement the Flex controller rendering the element in the background, may be <code>null</code>
      * @param locale the requested locale
      * @param alreadyFull if true, only render invisible elements (they don't count towards the "max elements")
      *
@@ -1363,6 +1720,7 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
         CmsObject cms,
         CmsJspStandardContextBean standardContext,
         CmsContainerElementBean element,
+        Future<CmsFlexController> parallelElement,
         Locale locale,
         boolean alreadyFull)
     throws Exception {
@@ -1578,18 +1936,23 @@ public class CmsJspTagContainer extends BodyTagSupport implements TryCatchFinall
                         pageContext.getOut().print(DUMMY_ELEMENT);
                         result = false;
                     } else {
-                        // execute the formatter jsp for the given element uri
-                        CmsJspTagInclude.includeTagAction(
-                            pageContext,
-                            formatter,
-                            null,
-                            locale,
-                            false,
-                            isOnline,
-                            null,
-                            CmsRequestUtil.getAtrributeMap(req),
-                            req,
-                            res);
+                        if (parallelElement != null) {
+                            // the formatter jsp has already been executed in the background
+                            printParallelElement(cms, parallelElement);
+                        } else {
+                            // execute the formatter jsp for the given element uri
+                            CmsJspTagInclude.includeTagAction(
+                                pageContext,
+                                formatter,
+                                null,
+                                locale,
+                                false,
+                                isOnline,
+                                null,
+                                CmsRequestUtil.getAtrributeMap(req),
+                                req,
+                                res);
+                        }
                     }
                 } catch (Exception e) {
                     if (LOG.isErrorEnabled()) {
@@ -43,6 +43,17 @@ import org.opencms.util.CmsStringUtil;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -78,6 +89,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** The configuration parameter name for the maximum number of images waiting to be scaled. */
+    public static final String CONFIGURATION_SCALING_QUEUE_SIZE = "image.scaling.queuesize";
+
+    /** The configuration parameter name for the number of threads scaling images. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
+    /** The default maximum number of images waiting to be scaled. */
+    public static final int DEFAULT_SCALING_QUEUE_SIZE = 100;
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -108,12 +128,25 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** The maximum number of images waiting to be scaled. */
+    protected int m_scalingQueueSize = DEFAULT_SCALING_QUEUE_SIZE;
+
+    /** The number of threads scaling images. */
+    protected int m_scalingThreads = Runtime.getRuntime().availableProcessors();
+
+    /** The threads scaling the images. */
+    private ThreadPoolExecutor m_scalingExecutor;
+
+    /** The running scale operations, by the cache name of the scaled image. */
+    private ConcurrentHashMap<String, FutureTask<byte[]>> m_scalingTasks;
+
     /**
      * Creates a new image loader.<p>
      */
     public CmsImageLoader() {
 
         super();
+        m_scalingTasks = new ConcurrentHashMap<String, FutureTask<byte[]>>();
     }
 
     /**
@@ -201,6 +234,15 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_SCALING_QUEUE_SIZE.equals(paramName)) {
+                m_scalingQueueSize = CmsStringUtil.getIntValue(paramValue, DEFAULT_SCALING_QUEUE_SIZE, paramName);
+            }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = CmsStringUtil.getIntValue(
+                    paramValue,
+                    Runtime.getRuntime().availableProcessors(),
+                    paramName);
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -245,6 +287,10 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         m_enabled = false;
         m_imageRepositoryFolder = null;
         m_vfsDiskCache = null;
+        if (m_scalingExecutor != null) {
+            m_scalingExecutor.shutdown();
+            m_scalingExecutor = null;
+        }
     }
 
     /**
@@ -287,6 +333,9 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
+        if (m_scalingExecutor == null) {
+            m_scalingExecutor = createScalingExecutor();
+        }
         OpenCms.addCmsEventListener(this);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -296,6 +345,11 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                     m_vfsDiskCache.getRepositoryPath()));
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.INIT_IMAGE_SCALING_ENABLED_1, Boolean.valueOf(m_enabled)));
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_IMAGE_SCALING_THREADS_2,
+                    Integer.valueOf(m_scalingExecutor.getMaximumPoolSize()),
+                    Integer.valueOf(m_scalingQueueSize)));
         }
     }
 
@@ -348,32 +402,164 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
 
         CmsFile file;
         if (content != null) {
-            if (resource instanceof CmsFile) {
-                // the original file content must be modified (required e.g. for static export)
-                file = (CmsFile)resource;
-            } else {
-                // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
-                file = new CmsFile(resource);
-            }
-            // save the content in the file
-            file.setContents(content);
+            file = createFile(resource, content);
+        } else if (scaler.isValid()) {
+            // valid scaling parameters found, scale the content
+            file = scaleImage(cms, resource, scaler, cacheName);
         } else {
             // we must read the content from the VFS (if this has not been done yet)
             file = cms.readFile(resource);
-            // upgrade the file (load the content)
-            if (scaler.isValid()) {
+            // save the file content in the cache
+            m_vfsDiskCache.saveCacheFile(cacheName, file.getContents());
+        }
+        return file;
+    }
+
+    /**
+     * Scales the given image and saves the result in the cache.<p>
+     *
+     * If the same scaled version is requested by several threads at the same time, the image
+     * is only scaled once and all threads share the result. The images are scaled by a
+     * bounded pool of threads. If too many images are waiting to be scaled, the unscaled image
+     * is returned instead, without storing it in the cache.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param cacheName the RFS name of the scaled image in the cache
+     *
+     * @return a scaled version of the given OpenCms VFS image resource
+     *
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    protected CmsFile scaleImage(
+        CmsObject cms,
+        final CmsResource resource,
+        final CmsImageScaler scaler,
+        final String cacheName)
+    throws IOException, CmsException {
+
+        // the scaling may run on another thread, so it needs its own context
+        final CmsObject scaleCms = OpenCms.initCmsObject(cms);
+        FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                CmsFile file = scaleCms.readFile(resource);
                 if (scaler.getType() == 8) {
                     // only need the focal point for mode 8
-                    scaler.setFocalPoint(CmsPreviewService.readFocalPoint(cms, resource));
+                    scaler.setFocalPoint(CmsPreviewService.readFocalPoint(scaleCms, resource));
+                }
+                byte[] content = scaler.scaleImage(file);
+                m_vfsDiskCache.saveCacheFile(cacheName, content);
+                return content;
+            }
+        }) {
+
+            @Override
+            protected void done() {
+
+                // the result is now available from the disk cache
+                m_scalingTasks.remove(cacheName, this);
+            }
+        };
+
+        FutureTask<byte[]> running = m_scalingTasks.putIfAbsent(cacheName, task);
+        if (running == null) {
+            running = task;
+            ThreadPoolExecutor executor = m_scalingExecutor;
+            if (executor == null) {
+                task.run();
+            } else {
+                try {
+                    executor.execute(task);
+                } catch (@SuppressWarnings("unused") RejectedExecutionException e) {
+                    // threads that already wait for this task will also get the unscaled image
+                    task.cancel(false);
                 }
-                // valid scaling parameters found, scale the content
-                content = scaler.scaleImage(file);
-                // exchange the content of the file with the scaled version
-                file.setContents(content);
             }
-            // save the file content in the cache
-            m_vfsDiskCache.saveCacheFile(cacheName, file.getContents());
         }
+        try {
+            return createFile(resource, running.get());
+        } catch (@SuppressWarnings("unused") CancellationException e) {
+            // done() may not have been called yet, the next request must not get the cancelled task
+            m_scalingTasks.remove(cacheName, running);
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_OVERLOAD_1, resource.getRootPath()));
+            }
+            return cms.readFile(resource);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmsLoaderException(
+                Messages.get().container(Messages.ERR_UNABLE_TO_SCALE_IMAGE_2, resource.getRootPath(), scaler),
+                e);
+        } catch (ExecutionException e) {
+            // the next request must scale the image again instead of getting the failed task
+            m_scalingTasks.remove(cacheName, running);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new CmsLoaderException(
+                Messages.get().container(Messages.ERR_UNABLE_TO_SCALE_IMAGE_2, resource.getRootPath(), scaler),
+                cause);
+        }
+    }
+
+    /**
+     * Returns a file for the given resource with the given content.<p>
+     *
+     * @param resource the resource
+     * @param content the content of the file
+     *
+     * @return the file with the given content
+     */
+    private CmsFile createFile(CmsResource resource, byte[] content) {
+
+        CmsFile file;
+        if (resource instanceof CmsFile) {
+            // the original file content must be modified (required e.g. for static export)
+            file = (CmsFile)resource;
+        } else {
+            // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
+            file = new CmsFile(resource);
+        }
+        // save the content in the file
+        file.setContents(content);
         return file;
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the bounded pool of threads scaling the images.<p>
+     *
+     * @return the executor for scaling images
+     */
+    private ThreadPoolExecutor createScalingExecutor() {
+
+        int threads = Math.max(1, m_scalingThreads);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(Math.max(1, m_scalingQueueSize)),
+            new ThreadFactory() {
+
+                private AtomicInteger m_count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: Image scaler " + m_count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
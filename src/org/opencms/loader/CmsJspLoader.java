@@ -38,6 +38,7 @@ import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.history.CmsHistoryResourceHandler;
 import org.opencms.flex.CmsFlexCache;
 import org.opencms.flex.CmsFlexController;
+import org.opencms.flex.CmsFlexDetachedRequest;
 import org.opencms.flex.CmsFlexRequest;
 import org.opencms.flex.CmsFlexResponse;
 import org.opencms.gwt.shared.CmsGwtConstants;
@@ -60,6 +61,7 @@ import org.opencms.staticexport.CmsLinkManager;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 import org.opencms.util.I_CmsRegexSubstitution;
 import org.opencms.workplace.CmsWorkplaceManager;
 
@@ -79,10 +81,20 @@ import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -123,6 +135,15 @@ import com.google.common.base.Splitter;
  * in your servlet environment, you should try to change the value here.
  * The default <code>true</code> has been tested with Tomcat 4.1 and 5.0.
  * Older versions of Tomcat like 4.0 require a setting of <code>false</code>.</dd>
+ *
+ * <dt>jsp.warmup.threads</dt><dd>
+ * (Optional) The number of threads used to write the JSPs of the online project to the repository
+ * and to compile them in the background at startup, after a publish and after a purge of the repository.
+ * The default <code>0</code> disables the warm-up.</dd>
+ *
+ * <dt>jsp.element.threads</dt><dd>
+ * (Optional) The number of threads used to process JSPs in the background, e.g. container elements
+ * whose formatters are marked for parallel rendering. The default <code>0</code> disables this.</dd>
  * </dl>
  *
  * @since 6.0.0
@@ -140,6 +161,12 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** Default jsp folder constant. */
     public static final String DEFAULT_JSP_FOLDER = "/WEB-INF/jsp/";
 
+    /** Default number of jsp element threads. */
+    public static final int DEFAULT_JSP_ELEMENT_THREADS = 0;
+
+    /** Default number of jsp warm-up threads. */
+    public static final int DEFAULT_JSP_WARMUP_THREADS = 0;
+
     /** Special JSP directive tag start (<code>%&gt;</code>). */
     public static final String DIRECTIVE_END = "%>";
 
@@ -155,6 +182,9 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** Jsp cache size parameter name. */
     public static final String PARAM_JSP_CACHE_SIZE = "jsp.cache.size";
 
+    /** Jsp element threads parameter name. */
+    public static final String PARAM_JSP_ELEMENT_THREADS = "jsp.element.threads";
+
     /** Error page committed parameter name. */
     public static final String PARAM_JSP_ERRORPAGE_COMMITTED = "jsp.errorpage.committed";
 
@@ -164,12 +194,21 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** Jsp repository parameter name. */
     public static final String PARAM_JSP_REPOSITORY = "jsp.repository";
 
+    /** Jsp warm-up threads parameter name. */
+    public static final String PARAM_JSP_WARMUP_THREADS = "jsp.warmup.threads";
+
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 6;
 
+    /** The number of JSPs per thread that may wait for processing in the background. */
+    private static final int ELEMENT_QUEUE_SIZE_PER_THREAD = 16;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsJspLoader.class);
 
+    /** The query string that makes the servlet container only compile a JSP, as defined by the JSP specification. */
+    private static final String PRECOMPILE_QUERY = "jsp_precompile=true";
+
     /** The maximum age for delivered contents in the clients cache. */
     private static long m_clientCacheMaxAge;
 
@@ -188,6 +227,9 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** The resource loader configuration. */
     private CmsParameterConfiguration m_configuration;
 
+    /** The bounded pool of threads processing JSPs in the background, <code>null</code> if disabled. */
+    private ThreadPoolExecutor m_elementExecutor;
+
     /** Flag to indicate if error pages are marked as "committed". */
     private boolean m_errorPagesAreNotCommitted;
 
@@ -203,6 +245,9 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** Lock used to prevent JSP repository from being accessed while it is purged. The read lock is needed for accessing the JSP repository, the write lock is needed for purging it. */
     private ReentrantReadWriteLock m_purgeLock = new ReentrantReadWriteLock(true);
 
+    /** The warm-up of the JSP repository. */
+    private CmsJspWarmUp m_warmUp;
+
     /**
      * The constructor of the class is empty, the initial instance will be
      * created by the resource manager upon startup of OpenCms.<p>
@@ -214,8 +259,13 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         m_configuration = new CmsParameterConfiguration();
         OpenCms.addCmsEventListener(
             this,
-            new int[] {EVENT_CLEAR_CACHES, EVENT_CLEAR_OFFLINE_CACHES, EVENT_CLEAR_ONLINE_CACHES});
+            new int[] {
+                EVENT_CLEAR_CACHES,
+                EVENT_CLEAR_OFFLINE_CACHES,
+                EVENT_CLEAR_ONLINE_CACHES,
+                EVENT_PUBLISH_PROJECT});
         m_fileLocks = CmsMemoryMonitor.createLRUCacheMap(10000);
+        m_warmUp = new CmsJspWarmUp(this, DEFAULT_JSP_WARMUP_THREADS);
         initCaches(1000);
     }
 
@@ -246,17 +296,26 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             case EVENT_CLEAR_ONLINE_CACHES:
                 m_onlineJsps.clear();
                 return;
+            case EVENT_PUBLISH_PROJECT:
+                // write and compile the published JSPs before they are requested
+                String publishHistoryId = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+                if (publishHistoryId != null) {
+                    m_warmUp.warmUpPublished(new CmsUUID(publishHistoryId));
+                }
+                return;
             default:
                 // do nothing
         }
     }
 
     /**
-     * Destroy this ResourceLoder, this is a NOOP so far.
+     * Destroy this ResourceLoder, this stops the threads processing JSPs in the background.<p>
      */
     public void destroy() {
 
-        // NOOP
+        if (m_elementExecutor != null) {
+            m_elementExecutor.shutdownNow();
+        }
     }
 
     /**
@@ -309,6 +368,66 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         return result;
     }
 
+    /**
+     * Starts processing the given JSP in the background, so that its output can be included later.<p>
+     *
+     * The JSP is processed like with <code>dump()</code> by a new Flex controller, using a detached copy
+     * of the current request. The attributes and parameters of the request are copied when this method
+     * is called, so the JSP must not depend on changes made to the request after this, and it must not
+     * change the request or the response in a way other JSPs depend on.<p>
+     *
+     * Once the returned future is done, the output of the JSP is available from the current response of the returned
+     * Flex controller, and the dates of the controller should be used to update the dates of the current request.<p>
+     *
+     * @param cms the current user context
+     * @param file the JSP to process
+     * @param locale the locale to use
+     * @param req the current request
+     * @param res the current response
+     *
+     * @return the Flex controller used to process the JSP, or <code>null</code> if processing JSPs
+     *      in the background is disabled or all threads are busy
+     *
+     * @throws CmsException if the user context can not be copied
+     */
+    public Future<CmsFlexController> dumpInBackground(
+        CmsObject cms,
+        final CmsResource file,
+        Locale locale,
+        HttpServletRequest req,
+        HttpServletResponse res)
+    throws CmsException {
+
+        ThreadPoolExecutor executor = m_elementExecutor;
+        if (executor == null) {
+            return null;
+        }
+        final CmsObject taskCms = OpenCms.initCmsObject(cms);
+        if (locale != null) {
+            taskCms.getRequestContext().setLocale(locale);
+        }
+        final HttpServletRequest taskReq = CmsFlexDetachedRequest.createRequest(req, null);
+        final HttpServletResponse taskRes = CmsFlexDetachedRequest.createResponse(res);
+        try {
+            return executor.submit(new Callable<CmsFlexController>() {
+
+                @SuppressWarnings("synthetic-access")
+                public CmsFlexController call() throws Exception {
+
+                    CmsFlexController controller = getController(taskCms, file, taskReq, taskRes, false, false);
+                    controller.getCurrentRequest().addAttributeMap(CmsRequestUtil.getAtrributeMap(taskReq));
+                    dispatchJsp(controller);
+                    return controller;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_JSP_ELEMENT_THREADS_BUSY_1, file.getRootPath()));
+            }
+            return null;
+        }
+    }
+
     /**
      * @see org.opencms.loader.I_CmsResourceLoader#export(org.opencms.file.CmsObject, org.opencms.file.CmsResource, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
      */
@@ -401,6 +520,16 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         return Messages.get().getBundle().key(Messages.GUI_LOADER_JSP_DEFAULT_DESC_0);
     }
 
+    /**
+     * Returns the warm-up of the JSP repository, which also provides the progress and timing of the last warm-up.<p>
+     *
+     * @return the warm-up of the JSP repository
+     */
+    public CmsJspWarmUp getWarmUp() {
+
+        return m_warmUp;
+    }
+
     /**
      * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
      */
@@ -431,6 +560,13 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             initCaches(cacheSize);
         }
 
+        m_warmUp.setThreads(m_configuration.getInteger(PARAM_JSP_WARMUP_THREADS, DEFAULT_JSP_WARMUP_THREADS));
+
+        int elementThreads = m_configuration.getInteger(PARAM_JSP_ELEMENT_THREADS, DEFAULT_JSP_ELEMENT_THREADS);
+        if ((elementThreads > 0) && (m_elementExecutor == null)) {
+            m_elementExecutor = createElementExecutor(elementThreads);
+        }
+
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JSP_REPOSITORY_ABS_PATH_1, m_jspRepository));
@@ -446,11 +582,39 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(Messages.INIT_JSP_CACHE_SIZE_1, String.valueOf(cacheSize)));
             }
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_JSP_WARMUP_THREADS_1,
+                    String.valueOf(m_warmUp.getThreads())));
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(Messages.INIT_JSP_ELEMENT_THREADS_1, String.valueOf(elementThreads)));
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.INIT_LOADER_INITIALIZED_1, this.getClass().getName()));
         }
     }
 
+    /**
+     * Initializes the warm-up of the JSP repository and starts writing and compiling all JSPs of the online project.<p>
+     *
+     * @param adminCms a user context with admin permissions
+     *
+     * @throws CmsException if the warm-up can not be initialized
+     */
+    public void initWarmUp(CmsObject adminCms) throws CmsException {
+
+        m_warmUp.initialize(adminCms);
+    }
+
+    /**
+     * Checks if JSPs can be processed in the background.<p>
+     *
+     * @return <code>true</code> if JSPs can be processed in the background
+     */
+    public boolean isBackgroundDumpEnabled() {
+
+        return m_elementExecutor != null;
+    }
+
     /**
      * @see org.opencms.loader.I_CmsResourceLoader#isStaticExportEnabled()
      */
@@ -698,6 +862,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                     }
                     m_purgeLock.writeLock().unlock();
                 }
+                // write and compile the JSPs again, instead of letting the next requests wait for this
+                m_warmUp.warmUpAll();
             }
         });
     }
@@ -1735,6 +1901,73 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         return numberOfUpdates < updatedFiles.size();
     }
 
+    /**
+     * Writes the given JSP to the repository and lets the servlet container compile it, without a client request.<p>
+     *
+     * The JSP is only compiled, not executed. Compiling requires the servlet context, which is not
+     * available e.g. when running in the shell.<p>
+     *
+     * @param cms the current user context
+     * @param resource the JSP resource
+     *
+     * @return <code>true</code> if the JSP was handed over to the servlet container for compilation
+     *
+     * @throws IOException if writing or compiling the JSP fails
+     * @throws ServletException if writing or compiling the JSP fails
+     * @throws CmsLoaderException if the resource type can not be read
+     */
+    boolean warmUpJsp(CmsObject cms, CmsResource resource) throws IOException, ServletException, CmsLoaderException {
+
+        cms.getRequestContext().setUri(cms.getSitePath(resource));
+        HttpServletRequest req = CmsFlexDetachedRequest.createRequest(null, null);
+        HttpServletResponse res = CmsFlexDetachedRequest.createResponse(null);
+        CmsFlexController controller = new CmsFlexController(cms, resource, m_cache, req, res, false, true);
+        CmsFlexController.setController(req, controller);
+        controller.push(new CmsFlexRequest(req, controller), new CmsFlexResponse(res, controller, false, true));
+        String jspTargetName = updateJsp(resource, controller, new HashSet<String>(8));
+
+        ServletContext context = OpenCms.getSystemInfo().getServletContainerSettings().getServletContext();
+        if (context == null) {
+            return false;
+        }
+        RequestDispatcher dispatcher = context.getRequestDispatcher(jspTargetName);
+        if (dispatcher == null) {
+            return false;
+        }
+        dispatcher.include(CmsFlexDetachedRequest.createRequest(null, PRECOMPILE_QUERY), res);
+        return true;
+    }
+
+    /**
+     * Creates the bounded pool of threads processing JSPs in the background.<p>
+     *
+     * @param threads the number of threads
+     *
+     * @return the executor for processing JSPs in the background
+     */
+    private ThreadPoolExecutor createElementExecutor(int threads) {
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(threads * ELEMENT_QUEUE_SIZE_PER_THREAD),
+            new ThreadFactory() {
+
+                private AtomicInteger m_count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: JSP element renderer " + m_count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Returns the read-write-lock for the given jsp vfs name.<p>
      *
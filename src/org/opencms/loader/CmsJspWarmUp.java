@@ -0,0 +1,483 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.I_CmsResourceType;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Writes the JSPs of the online project to the JSP repository and lets the servlet container compile them
+ * in the background, so that the first requests after startup, a publish or a purge of the JSP repository
+ * do not have to wait for this.<p>
+ *
+ * A warm-up either covers all JSP resources, including the formatter JSPs, or only the JSPs of a publish job.
+ * The JSPs are processed in parallel on a bounded pool of threads, coordinated by a dedicated daemon thread,
+ * so the warm-up never occupies the shared executor of OpenCms. Warm-ups requested while another warm-up
+ * is running are merged and started afterwards.<p>
+ *
+ * The progress and timing of the current or last warm-up can be read from this object.<p>
+ *
+ * @since 11.0.0
+ */
+public final class CmsJspWarmUp {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspWarmUp.class);
+
+    /** The admin user context, set to the online project. */
+    private CmsObject m_adminCms;
+
+    /** The number of JSPs handed over to the servlet container for compilation in the current or last warm-up. */
+    private AtomicInteger m_compiledCount = new AtomicInteger();
+
+    /** The number of JSPs that failed in the current or last warm-up. */
+    private AtomicInteger m_failedCount = new AtomicInteger();
+
+    /** The duration of the last finished warm-up in milliseconds. */
+    private volatile long m_lastDuration = -1;
+
+    /** The start time of the current or last warm-up. */
+    private volatile long m_lastStartTime = -1;
+
+    /** The JSP loader. */
+    private CmsJspLoader m_loader;
+
+    /** Indicates if a warm-up of all JSPs is waiting to be started. */
+    private boolean m_pendingAll;
+
+    /** The publish history ids of the publish jobs whose JSPs are waiting to be warmed up. */
+    private Set<CmsUUID> m_pendingPublishIds = new LinkedHashSet<CmsUUID>();
+
+    /** The number of JSPs already processed in the current or last warm-up. */
+    private AtomicInteger m_processedCount = new AtomicInteger();
+
+    /** The number of finished warm-ups. */
+    private AtomicInteger m_runCount = new AtomicInteger();
+
+    /** Indicates if a warm-up is running. */
+    private boolean m_running;
+
+    /** The number of threads used for a warm-up, 0 disables the warm-up. */
+    private int m_threads;
+
+    /** The number of JSPs in the current or last warm-up. */
+    private volatile int m_totalCount;
+
+    /**
+     * Creates a new warm-up for the given JSP loader.<p>
+     *
+     * @param loader the JSP loader
+     * @param threads the number of threads used for a warm-up, 0 disables the warm-up
+     */
+    CmsJspWarmUp(CmsJspLoader loader, int threads) {
+
+        m_loader = loader;
+        m_threads = threads;
+    }
+
+    /**
+     * Returns the number of JSPs handed over to the servlet container for compilation in the current or last warm-up.<p>
+     *
+     * @return the number of compiled JSPs
+     */
+    public int getCompiledCount() {
+
+        return m_compiledCount.get();
+    }
+
+    /**
+     * Returns the number of JSPs that failed in the current or last warm-up.<p>
+     *
+     * @return the number of failed JSPs
+     */
+    public int getFailedCount() {
+
+        return m_failedCount.get();
+    }
+
+    /**
+     * Returns the duration of the last finished warm-up in milliseconds, or -1 if no warm-up has finished yet.<p>
+     *
+     * @return the duration of the last finished warm-up
+     */
+    public long getLastDuration() {
+
+        return m_lastDuration;
+    }
+
+    /**
+     * Returns the start time of the current or last warm-up, or -1 if no warm-up has been started yet.<p>
+     *
+     * @return the start time of the current or last warm-up
+     */
+    public long getLastStartTime() {
+
+        return m_lastStartTime;
+    }
+
+    /**
+     * Returns the number of JSPs already processed in the current or last warm-up.<p>
+     *
+     * @return the number of processed JSPs
+     */
+    public int getProcessedCount() {
+
+        return m_processedCount.get();
+    }
+
+    /**
+     * Returns the number of finished warm-ups.<p>
+     *
+     * @return the number of finished warm-ups
+     */
+    public int getRunCount() {
+
+        return m_runCount.get();
+    }
+
+    /**
+     * Returns the number of threads used for a warm-up, 0 means the warm-up is disabled.<p>
+     *
+     * @return the number of threads used for a warm-up
+     */
+    public int getThreads() {
+
+        return m_threads;
+    }
+
+    /**
+     * Returns the number of JSPs in the current or last warm-up.<p>
+     *
+     * @return the number of JSPs in the current or last warm-up
+     */
+    public int getTotalCount() {
+
+        return m_totalCount;
+    }
+
+    /**
+     * Checks if a warm-up is running.<p>
+     *
+     * @return <code>true</code> if a warm-up is running
+     */
+    public synchronized boolean isRunning() {
+
+        return m_running;
+    }
+
+    /**
+     * Initializes the warm-up with the admin user context and starts a warm-up of all JSPs.<p>
+     *
+     * @param adminCms a user context with admin permissions
+     *
+     * @throws CmsException if the online project can not be read
+     */
+    void initialize(CmsObject adminCms) throws CmsException {
+
+        CmsObject cms = OpenCms.initCmsObject(adminCms);
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        cms.getRequestContext().setSiteRoot("");
+        synchronized (this) {
+            m_adminCms = cms;
+        }
+        warmUpAll();
+    }
+
+    /**
+     * Sets the number of threads used for a warm-up, 0 disables the warm-up.<p>
+     *
+     * @param threads the number of threads used for a warm-up
+     */
+    void setThreads(int threads) {
+
+        m_threads = threads;
+    }
+
+    /**
+     * Starts a warm-up of all JSPs.<p>
+     */
+    synchronized void warmUpAll() {
+
+        m_pendingAll = true;
+        start();
+    }
+
+    /**
+     * Starts a warm-up of the JSPs published with the given publish job.<p>
+     *
+     * @param publishHistoryId the publish history id of the publish job
+     */
+    synchronized void warmUpPublished(CmsUUID publishHistoryId) {
+
+        m_pendingPublishIds.add(publishHistoryId);
+        start();
+    }
+
+    /**
+     * Checks if resources of the given type are processed by the JSP loader.<p>
+     *
+     * @param typeId the resource type id
+     *
+     * @return <code>true</code> if resources of the given type are processed by the JSP loader
+     */
+    private boolean isJspType(int typeId) {
+
+        try {
+            int loaderId = OpenCms.getResourceManager().getResourceType(typeId).getLoaderId();
+            return loaderId == CmsJspLoader.RESOURCE_LOADER_ID;
+        } catch (CmsLoaderException e) {
+            // unknown resource type
+            return false;
+        }
+    }
+
+    /**
+     * Processes the given JSPs on a bounded pool of threads.<p>
+     *
+     * @param resources the JSPs to process
+     */
+    private void process(List<CmsResource> resources) {
+
+        m_totalCount = resources.size();
+        m_processedCount.set(0);
+        m_compiledCount.set(0);
+        m_failedCount.set(0);
+        if (resources.isEmpty()) {
+            return;
+        }
+        final AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(m_threads, resources.size()),
+            new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: JSP warm-up worker " + counter.incrementAndGet());
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(resources.size());
+            for (final CmsResource resource : resources) {
+                futures.add(executor.submit(new Runnable() {
+
+                    @SuppressWarnings("synthetic-access")
+                    public void run() {
+
+                        try {
+                            // the user context is not thread safe, so every task needs its own
+                            if (m_loader.warmUpJsp(OpenCms.initCmsObject(m_adminCms), resource)) {
+                                m_compiledCount.incrementAndGet();
+                            }
+                        } catch (Throwable t) {
+                            m_failedCount.incrementAndGet();
+                            LOG.warn(
+                                Messages.get().getBundle().key(
+                                    Messages.LOG_JSP_WARMUP_FAILED_1,
+                                    resource.getRootPath()),
+                                t);
+                        } finally {
+                            m_processedCount.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOG.error(e.getLocalizedMessage(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the JSPs to warm up.<p>
+     *
+     * @param cms the admin user context
+     * @param all if <code>true</code>, all JSPs are read
+     * @param publishIds the publish history ids of the publish jobs whose JSPs should be read
+     *
+     * @return the JSPs to warm up
+     */
+    private List<CmsResource> readResources(CmsObject cms, boolean all, Set<CmsUUID> publishIds) {
+
+        Map<CmsUUID, CmsResource> result = new LinkedHashMap<CmsUUID, CmsResource>();
+        if (all) {
+            for (I_CmsResourceType type : OpenCms.getResourceManager().getResourceTypes()) {
+                if (type.getLoaderId() != CmsJspLoader.RESOURCE_LOADER_ID) {
+                    continue;
+                }
+                try {
+                    for (CmsResource resource : cms.readResources(
+                        "/",
+                        CmsResourceFilter.DEFAULT_FILES.addRequireType(type),
+                        true)) {
+                        result.put(resource.getStructureId(), resource);
+                    }
+                } catch (CmsException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
+            }
+            return new ArrayList<CmsResource>(result.values());
+        }
+        for (CmsUUID publishId : publishIds) {
+            try {
+                for (CmsPublishedResource published : cms.readPublishedResources(publishId)) {
+                    if (published.getState().isDeleted()
+                        || published.isFolder()
+                        || !isJspType(published.getType())
+                        || result.containsKey(published.getStructureId())) {
+                        continue;
+                    }
+                    try {
+                        result.put(
+                            published.getStructureId(),
+                            cms.readResource(published.getStructureId(), CmsResourceFilter.DEFAULT_FILES));
+                    } catch (CmsException e) {
+                        // the JSP has been deleted or is not released
+                        LOG.debug(e.getLocalizedMessage(), e);
+                    }
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return new ArrayList<CmsResource>(result.values());
+    }
+
+    /**
+     * Runs the pending warm-ups until there are none left.<p>
+     */
+    private void run() {
+
+        while (true) {
+            CmsObject cms;
+            boolean all;
+            Set<CmsUUID> publishIds;
+            synchronized (this) {
+                if (!m_pendingAll && m_pendingPublishIds.isEmpty()) {
+                    m_running = false;
+                    return;
+                }
+                cms = m_adminCms;
+                all = m_pendingAll;
+                publishIds = new LinkedHashSet<CmsUUID>(m_pendingPublishIds);
+                m_pendingAll = false;
+                m_pendingPublishIds.clear();
+            }
+            long start = System.currentTimeMillis();
+            m_lastStartTime = start;
+            try {
+                List<CmsResource> resources = readResources(cms, all, publishIds);
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_JSP_WARMUP_STARTED_2,
+                            Integer.valueOf(resources.size()),
+                            Integer.valueOf(m_threads)));
+                }
+                process(resources);
+            } catch (Throwable t) {
+                LOG.error(t.getLocalizedMessage(), t);
+            } finally {
+                m_lastDuration = System.currentTimeMillis() - start;
+                m_runCount.incrementAndGet();
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_JSP_WARMUP_FINISHED_4,
+                        new Object[] {
+                            Integer.valueOf(getProcessedCount()),
+                            Integer.valueOf(getCompiledCount()),
+                            Integer.valueOf(getFailedCount()),
+                            Long.valueOf(m_lastDuration)}));
+            }
+        }
+    }
+
+    /**
+     * Starts processing the pending warm-ups in the background, unless this is already running.<p>
+     */
+    private synchronized void start() {
+
+        if (m_running || (m_adminCms == null)) {
+            // the pending warm-ups are picked up by the running warm-up, or when the warm-up is initialized
+            return;
+        }
+        if (m_threads < 1) {
+            // the warm-up is disabled
+            m_pendingAll = false;
+            m_pendingPublishIds.clear();
+            return;
+        }
+        m_running = true;
+        Thread thread = new Thread(new Runnable() {
+
+            @SuppressWarnings("synthetic-access")
+            public void run() {
+
+                CmsJspWarmUp.this.run();
+            }
+        }, "OpenCms: JSP warm-up");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
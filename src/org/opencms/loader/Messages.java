@@ -178,15 +178,24 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_IMAGE_SCALING_ENABLED_1 = "INIT_IMAGE_SCALING_ENABLED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_THREADS_2 = "INIT_IMAGE_SCALING_THREADS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_CACHE_SIZE_1 = "INIT_JSP_CACHE_SIZE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_JSP_ELEMENT_THREADS_1 = "INIT_JSP_ELEMENT_THREADS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_REPOSITORY_ABS_PATH_1 = "INIT_JSP_REPOSITORY_ABS_PATH_1";
 
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_REPOSITORY_ERR_PAGE_COMMOTED_1 = "INIT_JSP_REPOSITORY_ERR_PAGE_COMMOTED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_JSP_WARMUP_THREADS_1 = "INIT_JSP_WARMUP_THREADS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_LOADER_CONFIG_FINISHED_0 = "INIT_LOADER_CONFIG_FINISHED_0";
 
@@ -238,9 +247,24 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_IGNORING_EXC_1 = "LOG_IGNORING_EXC_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_SCALING_OVERLOAD_1 = "LOG_IMAGE_SCALING_OVERLOAD_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_ELEMENT_THREADS_BUSY_1 = "LOG_JSP_ELEMENT_THREADS_BUSY_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_JSP_PERMCHECK_4 = "LOG_JSP_PERMCHECK_4";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_FAILED_1 = "LOG_JSP_WARMUP_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_FINISHED_4 = "LOG_JSP_WARMUP_FINISHED_4";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_STARTED_2 = "LOG_JSP_WARMUP_STARTED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NAME_REAL_FS_1 = "LOG_NAME_REAL_FS_1";
 
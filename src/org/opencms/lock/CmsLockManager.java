@@ -126,11 +126,11 @@ public final class CmsLockManager {
         // handle collisions with exclusive locked sub-resources in case of a folder
         if (resource.isFolder() && newLock.getSystemLock().isUnlocked()) {
             String resourceName = resource.getRootPath();
-            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksForPrefix(resourceName).iterator();
             while (itLocks.hasNext()) {
                 CmsLock lock = itLocks.next();
                 String lockedPath = lock.getResourceName();
-                if (lockedPath.startsWith(resourceName) && !lockedPath.equals(resourceName)) {
+                if (!lockedPath.equals(resourceName)) {
                     unlockResource(lockedPath, false);
                 }
             }
@@ -147,7 +147,8 @@ public final class CmsLockManager {
     public int countExclusiveLocksInProject(CmsProject project) {
 
         int count = 0;
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksForProject(
+            project.getUuid()).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (lock.getEditionLock().isInProject(project)) {
@@ -231,12 +232,12 @@ public final class CmsLockManager {
     throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
             boolean matchesFilter = filter.match(resource.getRootPath(), lock);
-            if (!matchesFilter && !filter.isSharedExclusive()) {
+            if (!matchesFilter && !mayHaveMatchingSiblings(filter, lock)) {
                 // we don't need to read the resource if the filter didn't match and we don't need to look at the siblings
                 continue;
             }
@@ -283,12 +284,12 @@ public final class CmsLockManager {
         Map<String, CmsResource> cache) throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
             boolean matchesFilter = filter.match(resource.getRootPath(), lock);
-            if (!matchesFilter && !filter.isSharedExclusive()) {
+            if (!matchesFilter && !mayHaveMatchingSiblings(filter, lock)) {
                 // we don't need to read the resource if the filter didn't match and we don't need to look at the siblings
                 continue;
             }
@@ -358,10 +359,10 @@ public final class CmsLockManager {
     public List<CmsLock> getLocks(CmsDbContext dbc, String resourceName, CmsLockFilter filter) throws CmsException {
 
         List<CmsLock> locks = new ArrayList<CmsLock>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resourceName, filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
-            if (filter.isSharedExclusive()) {
+            if (mayHaveMatchingSiblings(filter, lock)) {
                 CmsResource resource;
                 try {
                     resource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
@@ -404,40 +405,13 @@ public final class CmsLockManager {
         if (resource == null) {
             return false;
         }
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksForPrefix(
+            resource.getRootPath()).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
-            if (lock.getSystemLock().isUnlocked()) {
+            if (!lock.getSystemLock().isUnlocked()) {
                 // only system locks matter here
-                continue;
-            }
-            if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                    return true;
-                }
-                try {
-                    resource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                CmsResource lockedResource;
-                try {
-                    lockedResource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                if (lockedResource.getSiblingCount() > 1) {
-                    Iterator<CmsResource> itSiblings = internalReadSiblings(dbc, lockedResource).iterator();
-                    while (itSiblings.hasNext()) {
-                        CmsResource sibling = itSiblings.next();
-                        CmsLock siblingLock = internalSiblingLock(lock, sibling.getRootPath());
-                        if (siblingLock.getResourceName().startsWith(resource.getRootPath())) {
-                            return true;
-                        }
-                    }
-                }
+                return true;
             }
         }
         return false;
@@ -519,7 +493,7 @@ public final class CmsLockManager {
      */
     public void removeLocks(CmsUUID userId) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksForUser(userId).iterator();
         while (itLocks.hasNext()) {
             CmsLock currentLock = itLocks.next();
             boolean editLock = currentLock.getEditionLock().getUserId().equals(userId);
@@ -576,10 +550,11 @@ public final class CmsLockManager {
             if (resource.isFolder()) {
                 // in case of a folder, remove any exclusive locks on sub-resources that probably have
                 // been upgraded from an inherited lock when the user edited a resource
-                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksForPrefix(
+                    resourcename).iterator();
                 while (itLocks.hasNext()) {
                     String lockedPath = (itLocks.next()).getResourceName();
-                    if (lockedPath.startsWith(resourcename) && !lockedPath.equals(resourcename)) {
+                    if (!lockedPath.equals(resourcename)) {
                         // remove the exclusive locked sub-resource
                         unlockResource(lockedPath, false);
                     }
@@ -593,13 +568,12 @@ public final class CmsLockManager {
         }
 
         if (lock.getType().isSharedExclusive()) {
-            List<String> locks = OpenCms.getMemoryMonitor().getAllCachedLockPaths();
             // when a resource with a shared lock gets unlocked, fetch all siblings of the resource
             // to the same content record to identify the exclusive locked sibling
             List<CmsResource> siblings = internalReadSiblings(dbc, resource);
             for (int i = 0; i < siblings.size(); i++) {
                 CmsResource sibling = siblings.get(i);
-                if (locks.contains(sibling.getRootPath())) {
+                if (getDirectLock(sibling.getRootPath()) != null) {
                     // remove the exclusive locked sibling
                     if (removeSystemLock) {
                         unlockResource(sibling.getRootPath(), true);
@@ -626,7 +600,7 @@ public final class CmsLockManager {
      */
     public void removeResourcesInProject(CmsUUID projectId, boolean removeSystemLocks) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksForProject(projectId).iterator();
         while (itLocks.hasNext()) {
             CmsLock currentLock = itLocks.next();
             if (removeSystemLocks && currentLock.getSystemLock().getProjectId().equals(projectId)) {
@@ -647,7 +621,7 @@ public final class CmsLockManager {
      */
     public void removeTempLocks(CmsUUID userId) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksForUser(userId).iterator();
         while (itLocks.hasNext()) {
             CmsLock currentLock = itLocks.next();
             if (currentLock.isTemporary() && currentLock.getUserId().equals(userId)) {
@@ -745,6 +719,40 @@ public final class CmsLockManager {
         }
     }
 
+    /**
+     * Returns the locks which may match the given resource and filter, without looking at all locks if possible.<p>
+     *
+     * @param rootPath the root path of the resource
+     * @param filter the lock filter
+     *
+     * @return the locks to check with the filter
+     */
+    private List<CmsLock> getCandidateLocks(String rootPath, CmsLockFilter filter) {
+
+        CmsUUID ownerId = filter.getOwnedByUserId();
+        boolean hasOwner = (ownerId != null) && !ownerId.isNullUUID();
+        if (filter.isSharedExclusive() || (filter.isIncludeChildren() && "/".equals(rootPath))) {
+            // the siblings of a locked resource may be located anywhere,
+            // and shared locks belong to the owner of the exclusive lock
+            if (hasOwner) {
+                return OpenCms.getMemoryMonitor().getCachedLocksForUser(ownerId);
+            }
+            return OpenCms.getMemoryMonitor().getAllCachedLocks();
+        }
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        if (filter.isIncludeParent()) {
+            for (CmsLock lock : OpenCms.getMemoryMonitor().getCachedLocksForPathAndParents(rootPath)) {
+                if (!filter.isIncludeChildren() || !lock.getResourceName().startsWith(rootPath)) {
+                    result.add(lock);
+                }
+            }
+        }
+        if (filter.isIncludeChildren()) {
+            result.addAll(OpenCms.getMemoryMonitor().getCachedLocksForPrefix(rootPath));
+        }
+        return result;
+    }
+
     /**
      * Returns the direct lock of a resource.<p>
      *
@@ -766,12 +774,11 @@ public final class CmsLockManager {
      */
     private CmsLock getParentFolderLock(String resourceName) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocksForPathAndParents(
+            resourceName).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
-            if (lock.getResourceName().endsWith("/")
-                && resourceName.startsWith(lock.getResourceName())
-                && !resourceName.equals(lock.getResourceName())) {
+            if (lock.getResourceName().endsWith("/") && !resourceName.equals(lock.getResourceName())) {
                 // system locks does not get inherited
                 lock = lock.getEditionLock();
                 // check the lock
@@ -854,6 +861,10 @@ public final class CmsLockManager {
                 }
             } else if (currentLock.getSystemLock().isUnlocked() && !lock.getSystemLock().isUnlocked()) {
                 currentLock.setRelatedLock(lock);
+                if (locks == null) {
+                    // update the user and project index of the lock table
+                    OpenCms.getMemoryMonitor().cacheLock(currentLock);
+                }
             } else {
                 throw new CmsLockException(
                     Messages.get().container(Messages.ERR_LOCK_ILLEGAL_STATE_2, currentLock, lock));
@@ -945,6 +956,20 @@ public final class CmsLockManager {
         internalLockResource(lock, null);
     }
 
+    /**
+     * Checks if the siblings of the resource with the given lock have to be checked with the filter.<p>
+     *
+     * @param filter the lock filter
+     * @param lock the lock of the resource
+     *
+     * @return <code>false</code> if the filter does not match shared locks or the locked resource is a folder,
+     *      which can not have siblings
+     */
+    private boolean mayHaveMatchingSiblings(CmsLockFilter filter, CmsLock lock) {
+
+        return filter.isSharedExclusive() && !lock.getResourceName().endsWith("/");
+    }
+
     /**
      * Unlocks the the resource with the given name.<p>
      *
@@ -0,0 +1,330 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Concurrent table of the locks of all resources, indexed by root path, user and project.<p>
+ *
+ * The locks are stored sorted by the root path of the locked resources, so the locks in a folder
+ * and the locks of the parent folders of a resource are found without looking at any other lock.
+ * Additionally, the root paths of the locks are indexed by the ids of the users and projects of the
+ * locks and their related locks.<p>
+ *
+ * Reading is not blocked, modifications are synchronized so the indexes stay consistent.
+ * The user and project indexes may contain more locks than requested, since locks can be modified
+ * in place, so callers always have to check the returned locks.<p>
+ *
+ * @since 11.0.0
+ */
+public class CmsLockTable extends AbstractMap<String, CmsLock> {
+
+    /** The user and project ids each lock has been indexed with, by root path. */
+    private Map<String, CmsUUID[][]> m_indexedIds = new HashMap<String, CmsUUID[][]>();
+
+    /** The locks by root path. */
+    private ConcurrentSkipListMap<String, CmsLock> m_locks = new ConcurrentSkipListMap<String, CmsLock>();
+
+    /** The root paths of the locks by project id. */
+    private Map<CmsUUID, Set<String>> m_pathsByProject = new ConcurrentHashMap<CmsUUID, Set<String>>();
+
+    /** The root paths of the locks by user id. */
+    private Map<CmsUUID, Set<String>> m_pathsByUser = new ConcurrentHashMap<CmsUUID, Set<String>>();
+
+    /**
+     * Creates a new, empty lock table.<p>
+     */
+    public CmsLockTable() {
+
+        // noop
+    }
+
+    /**
+     * Creates a new lock table containing the given locks.<p>
+     *
+     * @param locks the locks by root path
+     */
+    public CmsLockTable(Map<String, CmsLock> locks) {
+
+        putAll(locks);
+    }
+
+    /**
+     * Adds the given root path to the index for the given id.<p>
+     *
+     * @param index the index
+     * @param id the user or project id
+     * @param path the root path
+     */
+    private static void addToIndex(Map<CmsUUID, Set<String>> index, CmsUUID id, String path) {
+
+        if ((id == null) || id.isNullUUID()) {
+            return;
+        }
+        Set<String> paths = index.get(id);
+        if (paths == null) {
+            paths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            index.put(id, paths);
+        }
+        paths.add(path);
+    }
+
+    /**
+     * Removes the given root path from the index for the given id.<p>
+     *
+     * @param index the index
+     * @param id the user or project id
+     * @param path the root path
+     */
+    private static void removeFromIndex(Map<CmsUUID, Set<String>> index, CmsUUID id, String path) {
+
+        if (id == null) {
+            return;
+        }
+        Set<String> paths = index.get(id);
+        if (paths != null) {
+            paths.remove(path);
+            if (paths.isEmpty()) {
+                index.remove(id);
+            }
+        }
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public synchronized void clear() {
+
+        m_locks.clear();
+        m_indexedIds.clear();
+        m_pathsByProject.clear();
+        m_pathsByUser.clear();
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return m_locks.containsKey(key);
+    }
+
+    /**
+     * Returns an unmodifiable view of the locks by root path, sorted by root path.<p>
+     *
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<String, CmsLock>> entrySet() {
+
+        return Collections.unmodifiableSet(m_locks.entrySet());
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public CmsLock get(Object key) {
+
+        return m_locks.get(key);
+    }
+
+    /**
+     * Returns the locks of the given resource and of all its parent folders, starting with the root folder.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the locks of the resource and its parent folders
+     */
+    public List<CmsLock> getLocksForPathAndParents(String rootPath) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        int pos = rootPath.indexOf('/');
+        while (pos >= 0) {
+            CmsLock lock = m_locks.get(rootPath.substring(0, pos + 1));
+            if (lock != null) {
+                result.add(lock);
+            }
+            pos = rootPath.indexOf('/', pos + 1);
+        }
+        if (!rootPath.endsWith("/")) {
+            CmsLock lock = m_locks.get(rootPath);
+            if (lock != null) {
+                result.add(lock);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the locks of all resources with a root path starting with the given prefix,
+     * i.e. for a folder the locks of the folder and all resources in it.<p>
+     *
+     * @param prefix the root path prefix
+     *
+     * @return the locks of the resources with the given root path prefix, sorted by root path
+     */
+    public Collection<CmsLock> getLocksForPrefix(String prefix) {
+
+        return Collections.unmodifiableCollection(
+            m_locks.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    /**
+     * Returns the locks in the given project, may contain additional locks.<p>
+     *
+     * @param projectId the project id
+     *
+     * @return the locks which are or have a related lock in the given project
+     */
+    public List<CmsLock> getLocksForProject(CmsUUID projectId) {
+
+        return getLocks(m_pathsByProject.get(projectId));
+    }
+
+    /**
+     * Returns the locks of the given user, may contain additional locks.<p>
+     *
+     * @param userId the user id
+     *
+     * @return the locks which are or have a related lock owned by the given user
+     */
+    public List<CmsLock> getLocksForUser(CmsUUID userId) {
+
+        return getLocks(m_pathsByUser.get(userId));
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public synchronized CmsLock put(String rootPath, CmsLock lock) {
+
+        CmsLock previous = m_locks.put(rootPath, lock);
+        if (previous != null) {
+            unindex(rootPath);
+        }
+        index(rootPath, lock);
+        return previous;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public synchronized CmsLock remove(Object key) {
+
+        CmsLock previous = m_locks.remove(key);
+        if (previous != null) {
+            unindex((String)key);
+        }
+        return previous;
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_locks.size();
+    }
+
+    /**
+     * Returns the current locks for the given root paths.<p>
+     *
+     * @param paths the root paths, may be <code>null</code>
+     *
+     * @return the locks
+     */
+    private List<CmsLock> getLocks(Set<String> paths) {
+
+        if (paths == null) {
+            return Collections.emptyList();
+        }
+        List<CmsLock> result = new ArrayList<CmsLock>(paths.size());
+        for (String path : paths) {
+            CmsLock lock = m_locks.get(path);
+            if (lock != null) {
+                result.add(lock);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a lock to the user and project indexes.<p>
+     *
+     * @param rootPath the root path of the lock
+     * @param lock the lock
+     */
+    private void index(String rootPath, CmsLock lock) {
+
+        CmsLock editionLock = lock.getEditionLock();
+        CmsLock systemLock = lock.getSystemLock();
+        CmsUUID[] userIds = new CmsUUID[] {editionLock.getUserId(), systemLock.getUserId()};
+        CmsUUID[] projectIds = new CmsUUID[] {editionLock.getProjectId(), systemLock.getProjectId()};
+        for (int i = 0; i < 2; i++) {
+            addToIndex(m_pathsByUser, userIds[i], rootPath);
+            addToIndex(m_pathsByProject, projectIds[i], rootPath);
+        }
+        m_indexedIds.put(rootPath, new CmsUUID[][] {userIds, projectIds});
+    }
+
+    /**
+     * Removes a lock from the user and project indexes.<p>
+     *
+     * The ids recorded when the lock was indexed are used, since the lock may have been modified in the meantime.<p>
+     *
+     * @param rootPath the root path of the lock
+     */
+    private void unindex(String rootPath) {
+
+        CmsUUID[][] ids = m_indexedIds.remove(rootPath);
+        if (ids != null) {
+            for (int i = 0; i < 2; i++) {
+                removeFromIndex(m_pathsByUser, ids[0][i], rootPath);
+                removeFromIndex(m_pathsByProject, ids[1][i], rootPath);
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Event manager that delivers events to the listeners asynchronously.<p>
+ *
+ * Every listener has its own lane, so events are delivered to a listener in the order
+ * they were fired and a slow listener does not delay the others. Repeated cache flush
+ * events waiting for delivery are merged. If the lane of a listener is full, the event is
+ * delivered on the firing thread.<p>
+ *
+ * Events are still delivered synchronously to listeners implementing {@link I_CmsSynchronousEventListener},
+ * and to all listeners if the event data contains a report or a database context,
+ * since these are only valid while the firing operation is running.<p>
+ *
+ * To use this event manager, configure it in <code>opencms-system.xml</code>:
+ * <pre>
+ * &lt;events&gt;
+ *     &lt;eventmanager class="org.opencms.main.CmsAsyncEventManager" /&gt;
+ * &lt;/events&gt;
+ * </pre>
+ *
+ * @since 11.0.0
+ */
+public class CmsAsyncEventManager extends CmsEventManager {
+
+    /** The default maximum number of events waiting for delivery per listener. */
+    public static final int DEFAULT_LANE_CAPACITY = 1000;
+
+    /** The default number of threads delivering events. */
+    public static final int DEFAULT_WORKERS = 4;
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsAsyncEventManager.class);
+
+    /** The threads delivering the events. */
+    private ExecutorService m_executor;
+
+    /** The maximum number of events waiting for delivery per listener. */
+    private int m_laneCapacity;
+
+    /** The lanes of the listeners. */
+    private ConcurrentMap<I_CmsEventListener, CmsEventListenerLane> m_lanes;
+
+    /**
+     * Creates a new asynchronous event manager.<p>
+     */
+    public CmsAsyncEventManager() {
+
+        this(DEFAULT_WORKERS, DEFAULT_LANE_CAPACITY);
+    }
+
+    /**
+     * Creates a new asynchronous event manager.<p>
+     *
+     * @param workers the number of threads delivering events
+     * @param laneCapacity the maximum number of events waiting for delivery per listener
+     */
+    public CmsAsyncEventManager(int workers, int laneCapacity) {
+
+        super();
+        m_laneCapacity = laneCapacity;
+        m_lanes = new ConcurrentHashMap<I_CmsEventListener, CmsEventListenerLane>();
+        m_executor = createExecutor(Math.max(1, workers));
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_ASYNC_EVENT_MANAGER_2,
+                    Integer.valueOf(workers),
+                    Integer.valueOf(laneCapacity)));
+        }
+    }
+
+    /**
+     * Returns the lanes of all listeners that received events, containing the statistics for each listener.<p>
+     *
+     * @return the lanes of the listeners
+     */
+    public List<CmsEventListenerLane> getListenerLanes() {
+
+        return new ArrayList<CmsEventListenerLane>(m_lanes.values());
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#removeCmsEventListener(org.opencms.main.I_CmsEventListener)
+     */
+    @Override
+    public void removeCmsEventListener(I_CmsEventListener listener) {
+
+        super.removeCmsEventListener(listener);
+        CmsEventListenerLane lane = m_lanes.remove(listener);
+        if (lane != null) {
+            lane.deliverWaiting();
+        }
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#shutDown()
+     */
+    @Override
+    public void shutDown() {
+
+        m_executor.shutdown();
+        try {
+            m_executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // deliver the remaining events on the current thread
+        for (CmsEventListenerLane lane : m_lanes.values()) {
+            lane.deliverWaiting();
+        }
+    }
+
+    /**
+     * Creates the executor that runs the threads delivering the events.<p>
+     *
+     * @param workers the number of threads
+     *
+     * @return the executor
+     */
+    protected ExecutorService createExecutor(int workers) {
+
+        return Executors.newFixedThreadPool(workers, new ThreadFactory() {
+
+            private AtomicInteger m_count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, "OpenCms: Event worker " + m_count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#fireEventHandler(java.util.List, org.opencms.main.CmsEvent)
+     */
+    @Override
+    protected void fireEventHandler(List<I_CmsEventListener> listeners, CmsEvent event) {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_DEBUG_EVENT_1, event.toString()));
+        }
+        if ((listeners == null) || listeners.isEmpty()) {
+            return;
+        }
+        I_CmsEventListener[] list = listeners.toArray(EVENT_LIST);
+        boolean synchronous = isSynchronousEvent(event);
+        for (int i = 0; i < list.length; i++) {
+            CmsEventListenerLane lane = getLane(list[i]);
+            if (synchronous || (list[i] instanceof I_CmsSynchronousEventListener)) {
+                lane.deliver(event);
+            } else if (lane.enqueue(event)) {
+                schedule(lane);
+            } else if (lane.getQueueSize() > m_laneCapacity) {
+                // the listener does not keep up, so let the firing thread do the work
+                lane.recordCallerRuns();
+                lane.deliverWaiting();
+            }
+        }
+    }
+
+    /**
+     * Checks if the given event must be delivered to all listeners on the firing thread.<p>
+     *
+     * @param event the event to check
+     *
+     * @return <code>true</code> if the event must be delivered on the firing thread
+     */
+    protected boolean isSynchronousEvent(CmsEvent event) {
+
+        Map<String, Object> data = event.getData();
+        return data.containsKey(I_CmsEventListener.KEY_REPORT) || data.containsKey(I_CmsEventListener.KEY_DBCONTEXT);
+    }
+
+    /**
+     * Returns the lane for the given listener, creating it if required.<p>
+     *
+     * @param listener the listener
+     *
+     * @return the lane for the listener
+     */
+    private CmsEventListenerLane getLane(I_CmsEventListener listener) {
+
+        CmsEventListenerLane lane = m_lanes.get(listener);
+        if (lane == null) {
+            lane = new CmsEventListenerLane(listener);
+            CmsEventListenerLane existing = m_lanes.putIfAbsent(listener, lane);
+            if (existing != null) {
+                lane = existing;
+            }
+        }
+        return lane;
+    }
+
+    /**
+     * Schedules a worker to deliver the events waiting in the given lane.<p>
+     *
+     * @param lane the lane
+     */
+    private void schedule(final CmsEventListenerLane lane) {
+
+        try {
+            m_executor.execute(new Runnable() {
+
+                public void run() {
+
+                    lane.deliverWaiting();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the event manager is shutting down
+            lane.deliverWaiting();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Delivers the events for a single event listener of the {@link CmsAsyncEventManager}
+ * and collects the statistics for this listener.<p>
+ *
+ * The events are delivered in the order they were fired, and never to the same listener
+ * from two threads at the same time. Repeated cache flush events that are still waiting
+ * for delivery are merged into one.<p>
+ *
+ * @since 11.0.0
+ */
+public class CmsEventListenerLane {
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsEventListenerLane.class);
+
+    /** The number of events delivered on the firing thread because the queue was full. */
+    private AtomicLong m_callerRunsCount = new AtomicLong();
+
+    /** The number of events merged into an already waiting event. */
+    private AtomicLong m_coalescedCount = new AtomicLong();
+
+    /** Lock to make sure the listener is only called by one thread at a time. */
+    private Object m_deliveryLock = new Object();
+
+    /** The number of events the listener failed to handle. */
+    private AtomicLong m_errorCount = new AtomicLong();
+
+    /** The number of events delivered to the listener. */
+    private AtomicLong m_handledCount = new AtomicLong();
+
+    /** The event listener. */
+    private I_CmsEventListener m_listener;
+
+    /** The maximum time the listener needed to handle an event in milliseconds. */
+    private AtomicLong m_maxHandlingTime = new AtomicLong();
+
+    /** The events waiting for delivery. */
+    private Deque<CmsEvent> m_queue = new ArrayDeque<CmsEvent>();
+
+    /** Indicates if a worker has been scheduled to deliver the waiting events. */
+    private boolean m_scheduled;
+
+    /** The total time the listener needed to handle events in milliseconds. */
+    private AtomicLong m_totalHandlingTime = new AtomicLong();
+
+    /**
+     * Creates a new lane for the given listener.<p>
+     *
+     * @param listener the event listener
+     */
+    public CmsEventListenerLane(I_CmsEventListener listener) {
+
+        m_listener = listener;
+    }
+
+    /**
+     * Checks if the given event only flushes caches, so that repeated events can be merged into one.<p>
+     *
+     * @param event the event to check
+     *
+     * @return <code>true</code> if the event only flushes caches
+     */
+    protected static boolean isFlushEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
+            case I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR:
+            case I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the average time the listener needed to handle an event in milliseconds.<p>
+     *
+     * @return the average time the listener needed to handle an event
+     */
+    public long getAverageHandlingTime() {
+
+        long count = m_handledCount.get();
+        return count == 0 ? 0 : m_totalHandlingTime.get() / count;
+    }
+
+    /**
+     * Returns the number of events delivered on the firing thread because the queue was full.<p>
+     *
+     * @return the number of events delivered on the firing thread because the queue was full
+     */
+    public long getCallerRunsCount() {
+
+        return m_callerRunsCount.get();
+    }
+
+    /**
+     * Returns the number of events merged into an already waiting event.<p>
+     *
+     * @return the number of events merged into an already waiting event
+     */
+    public long getCoalescedCount() {
+
+        return m_coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of events the listener failed to handle.<p>
+     *
+     * @return the number of events the listener failed to handle
+     */
+    public long getErrorCount() {
+
+        return m_errorCount.get();
+    }
+
+    /**
+     * Returns the number of events delivered to the listener.<p>
+     *
+     * @return the number of events delivered to the listener
+     */
+    public long getHandledCount() {
+
+        return m_handledCount.get();
+    }
+
+    /**
+     * Returns the event listener.<p>
+     *
+     * @return the event listener
+     */
+    public I_CmsEventListener getListener() {
+
+        return m_listener;
+    }
+
+    /**
+     * Returns the maximum time the listener needed to handle an event in milliseconds.<p>
+     *
+     * @return the maximum time the listener needed to handle an event
+     */
+    public long getMaxHandlingTime() {
+
+        return m_maxHandlingTime.get();
+    }
+
+    /**
+     * Returns the number of events waiting for delivery.<p>
+     *
+     * @return the number of events waiting for delivery
+     */
+    public int getQueueSize() {
+
+        synchronized (m_queue) {
+            return m_queue.size();
+        }
+    }
+
+    /**
+     * Returns the total time the listener needed to handle events in milliseconds.<p>
+     *
+     * @return the total time the listener needed to handle events
+     */
+    public long getTotalHandlingTime() {
+
+        return m_totalHandlingTime.get();
+    }
+
+    /**
+     * Delivers the given event on the current thread, after all events still waiting for delivery.<p>
+     *
+     * @param event the event to deliver
+     */
+    protected void deliver(CmsEvent event) {
+
+        synchronized (m_deliveryLock) {
+            deliverWaiting();
+            handle(event);
+        }
+    }
+
+    /**
+     * Delivers all events waiting for delivery on the current thread.<p>
+     */
+    protected void deliverWaiting() {
+
+        synchronized (m_deliveryLock) {
+            CmsEvent event = poll();
+            while (event != null) {
+                handle(event);
+                event = poll();
+            }
+        }
+    }
+
+    /**
+     * Adds an event to the events waiting for delivery.<p>
+     *
+     * @param event the event to add
+     *
+     * @return <code>true</code> if a worker must be scheduled to deliver the waiting events
+     */
+    protected boolean enqueue(CmsEvent event) {
+
+        synchronized (m_queue) {
+            if (isFlushEvent(event)) {
+                for (CmsEvent waiting : m_queue) {
+                    if ((waiting.getType() == event.getType()) && waiting.getData().equals(event.getData())) {
+                        // the waiting event will flush the caches anyway
+                        m_coalescedCount.incrementAndGet();
+                        return false;
+                    }
+                }
+            }
+            m_queue.add(event);
+            if (m_scheduled) {
+                return false;
+            }
+            m_scheduled = true;
+            return true;
+        }
+    }
+
+    /**
+     * Counts an event delivered on the firing thread because the queue was full.<p>
+     */
+    protected void recordCallerRuns() {
+
+        m_callerRunsCount.incrementAndGet();
+    }
+
+    /**
+     * Calls the listener for the given event and records the handling time.<p>
+     *
+     * @param event the event
+     */
+    private void handle(CmsEvent event) {
+
+        long start = System.currentTimeMillis();
+        try {
+            m_listener.cmsEvent(event);
+        } catch (Throwable t) {
+            m_errorCount.incrementAndGet();
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.ERR_CALLING_EVENT_LISTENER_FAILED_2,
+                    m_listener.getClass().getName(),
+                    event.toString()),
+                t);
+        }
+        long time = System.currentTimeMillis() - start;
+        m_handledCount.incrementAndGet();
+        m_totalHandlingTime.addAndGet(time);
+        long max = m_maxHandlingTime.get();
+        while ((time > max) && !m_maxHandlingTime.compareAndSet(max, time)) {
+            max = m_maxHandlingTime.get();
+        }
+    }
+
+    /**
+     * Removes the next event waiting for delivery.<p>
+     *
+     * @return the next event, or <code>null</code> if no event is waiting
+     */
+    private CmsEvent poll() {
+
+        synchronized (m_queue) {
+            CmsEvent event = m_queue.poll();
+            if (event == null) {
+                m_scheduled = false;
+            }
+            return event;
+        }
+    }
+}
@@ -155,6 +155,16 @@ public class CmsEventManager {
         }
     }
 
+    /**
+     * Shuts down this event manager, only intended to be called at system shutdown.<p>
+     *
+     * The default implementation delivers all events synchronously, so there is nothing to do.<p>
+     */
+    public void shutDown() {
+
+        // noop
+    }
+
     /**
      * Fires the specified event to a list of event listeners.<p>
      *
@@ -276,6 +276,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_ADDED_REQUEST_HANDLER_2 = "INIT_ADDED_REQUEST_HANDLER_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_ASYNC_EVENT_MANAGER_2 = "INIT_ASYNC_EVENT_MANAGER_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_CURRENT_RUNLEVEL_1 = "INIT_CURRENT_RUNLEVEL_1";
 
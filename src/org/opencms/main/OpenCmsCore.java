@@ -72,6 +72,7 @@ import org.opencms.i18n.CmsVfsBundleManager;
 import org.opencms.importexport.CmsImportExportManager;
 import org.opencms.jsp.jsonpart.CmsJsonPartFilter;
 import org.opencms.letsencrypt.CmsLetsEncryptConfiguration;
+import org.opencms.loader.CmsJspLoader;
 import org.opencms.loader.CmsResourceManager;
 import org.opencms.loader.CmsTemplateContextManager;
 import org.opencms.loader.I_CmsFlexCacheEnabledLoader;
@@ -1580,6 +1581,7 @@ public final class OpenCmsCore {
 
         // initialize the link manager
         m_linkManager = new CmsLinkManager(m_staticExportManager.getLinkSubstitutionHandler());
+        m_linkManager.initialize();
 
         m_aliasManager = new CmsAliasManager(m_securityManager);
 
@@ -1696,6 +1698,16 @@ public final class OpenCmsCore {
         } catch (Exception e) {
             CmsLog.INIT.error("Problem with clearing caches after initialization: " + e.getLocalizedMessage(), e);
         }
+
+        try {
+            // write and compile the JSPs in the background, after the caches have been cleared
+            I_CmsResourceLoader jspLoader = m_resourceManager.getLoader(CmsJspLoader.RESOURCE_LOADER_ID);
+            if (jspLoader instanceof CmsJspLoader) {
+                ((CmsJspLoader)jspLoader).initWarmUp(initCmsObject(adminCms));
+            }
+        } catch (Exception e) {
+            CmsLog.INIT.error("Problem with starting the JSP warm-up: " + e.getLocalizedMessage(), e);
+        }
     }
 
     /**
@@ -2139,6 +2151,15 @@ public final class OpenCmsCore {
                         e);
                 }
 
+                try {
+                    // deliver the events still waiting before the managers they may use are shut down
+                    if (m_eventManager != null) {
+                        m_eventManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(e.getLocalizedMessage(), e);
+                }
+
                 try {
                     if (m_executor != null) {
                         m_executor.shutdownNow();
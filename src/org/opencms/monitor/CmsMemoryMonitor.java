@@ -47,6 +47,7 @@ import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.lock.CmsLock;
 import org.opencms.lock.CmsLockManager;
+import org.opencms.lock.CmsLockTable;
 import org.opencms.mail.CmsMailTransport;
 import org.opencms.mail.CmsSimpleMail;
 import org.opencms.main.CmsEvent;
@@ -80,6 +81,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.mail.internet.InternetAddress;
 
@@ -184,7 +187,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, Locale> m_cacheLocale;
 
     /** Cache for the resource locks. */
-    private Map<String, CmsLock> m_cacheLock;
+    private CmsLockTable m_cacheLock;
 
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
@@ -193,7 +196,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsOrganizationalUnit> m_cacheOrgUnit;
 
     /** Cache for permission checks. */
-    private Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
+    private Map<Object, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
 
     /** Cache for offline projects. */
     private Map<String, CmsProject> m_cacheProject;
@@ -207,6 +210,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for property lists. */
     private Map<String, List<CmsProperty>> m_cachePropertyList;
 
+    /** Cache for inherited property lists of folders, sorted by path so that whole sub trees can be removed. */
+    private ConcurrentSkipListMap<String, List<CmsProperty>> m_cacheInheritedPropertyList;
+
+    /** The maximum number of entries in the inherited property list cache. */
+    private int m_cacheInheritedPropertyListCapacity;
+
+    /** The number of entries in the inherited property list cache. */
+    private AtomicInteger m_cacheInheritedPropertyListSize = new AtomicInteger();
+
     /** Cache for published resources. */
     private Map<String, List<CmsPublishedResource>> m_cachePublishedResources;
 
@@ -294,6 +306,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Flag for memory warning mail send. */
     private boolean m_warningSendSinceLastStatus;
 
+    /** The size of the cache for parsed XML content documents, per project. */
+    private int m_xmlContentDocumentsCacheSize = CmsCacheSettings.DEFAULT_XML_CONTENT_DOCUMENTS_CACHE_SIZE;
+
     /**
      * Empty constructor, required by OpenCms scheduler.<p>
      */
@@ -652,7 +667,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param permission the permission check result to cache
      */
-    public void cachePermission(String key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
+    public void cachePermission(Object key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
 
         if (m_disabled.get(CacheType.PERMISSION) != null) {
             return;
@@ -702,6 +717,31 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheProperty.put(key, property);
     }
 
+    /**
+     * Caches the inherited property list of the given folder.<p>
+     *
+     * The inherited property list contains the properties of the folder merged
+     * with the properties of all its parent folders.<p>
+     *
+     * @param online <code>true</code> if the list was read in the online project
+     * @param folderPath the root path of the folder
+     * @param propertyList the inherited property list to cache
+     */
+    public void cacheInheritedPropertyList(boolean online, String folderPath, List<CmsProperty> propertyList) {
+
+        if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
+            return;
+        }
+        if (m_cacheInheritedPropertyListSize.get() >= m_cacheInheritedPropertyListCapacity) {
+            // the paths of a sub tree are only valid together, so start over instead of evicting single entries
+            m_cacheInheritedPropertyList.clear();
+            m_cacheInheritedPropertyListSize.set(0);
+        }
+        if (m_cacheInheritedPropertyList.put(getInheritedPropertyListKey(online, folderPath), propertyList) == null) {
+            m_cacheInheritedPropertyListSize.incrementAndGet();
+        }
+    }
+
     /**
      * Caches the given property list under the given cache key.<p>
      *
@@ -1055,6 +1095,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case PROPERTY_LIST:
                     m_cachePropertyList.clear();
+                    m_cacheInheritedPropertyList.clear();
+                    m_cacheInheritedPropertyListSize.set(0);
                     break;
                 case PUBLISHED_RESOURCES:
                     m_cachePublishedResources.clear();
@@ -1143,11 +1185,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         // initialize new lock cache
-        Map<String, CmsLock> newLockCache = new ConcurrentHashMap<String, CmsLock>(newLocks);
+        CmsLockTable newLockCache = new CmsLockTable(newLocks);
         // register it
         register(CmsLockManager.class.getName(), newLockCache);
         // save the old cache
-        Map<String, CmsLock> oldCache = m_cacheLock;
+        CmsLockTable oldCache = m_cacheLock;
         // replace the old by the new cache
         m_cacheLock = newLockCache;
         // clean up the old cache
@@ -1470,6 +1512,58 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheLock.get(rootPath);
     }
 
+    /**
+     * Returns the cached locks of the resource with the given root path and of all its parent folders.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the locks of the resource and its parent folders, starting with the root folder
+     */
+    public List<CmsLock> getCachedLocksForPathAndParents(String rootPath) {
+
+        return m_cacheLock.getLocksForPathAndParents(rootPath);
+    }
+
+    /**
+     * Returns the cached locks of all resources with a root path starting with the given prefix.<p>
+     *
+     * @param prefix the root path prefix, e.g. the root path of a folder
+     *
+     * @return the locks of the resources with the given root path prefix
+     */
+    public List<CmsLock> getCachedLocksForPrefix(String prefix) {
+
+        return new ArrayList<CmsLock>(m_cacheLock.getLocksForPrefix(prefix));
+    }
+
+    /**
+     * Returns the cached locks in the given project.<p>
+     *
+     * The result may contain additional locks and has to be checked by the caller.<p>
+     *
+     * @param projectId the project id
+     *
+     * @return the locks which are or have a related lock in the given project
+     */
+    public List<CmsLock> getCachedLocksForProject(CmsUUID projectId) {
+
+        return m_cacheLock.getLocksForProject(projectId);
+    }
+
+    /**
+     * Returns the cached locks of the given user.<p>
+     *
+     * The result may contain additional locks and has to be checked by the caller.<p>
+     *
+     * @param userId the user id
+     *
+     * @return the locks which are or have a related lock owned by the given user
+     */
+    public List<CmsLock> getCachedLocksForUser(CmsUUID userId) {
+
+        return m_cacheLock.getLocksForUser(userId);
+    }
+
     /**
      * Returns the memory object cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1501,7 +1595,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      *
      * @return the permission check result cached with the given cache key
      */
-    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(String key) {
+    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(Object key) {
 
         return m_cachePermission.get(key);
     }
@@ -1542,6 +1636,19 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheProperty.get(key);
     }
 
+    /**
+     * Returns the cached inherited property list of the given folder or <code>null</code> if not found.<p>
+     *
+     * @param online <code>true</code> to look up the list read in the online project
+     * @param folderPath the root path of the folder
+     *
+     * @return the cached inherited property list of the given folder
+     */
+    public List<CmsProperty> getCachedInheritedPropertyList(boolean online, String folderPath) {
+
+        return m_cacheInheritedPropertyList.get(getInheritedPropertyListKey(online, folderPath));
+    }
+
     /**
      * Returns the property list cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1772,6 +1879,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_memoryCurrent;
     }
 
+    /**
+     * Returns the size of the cache for parsed XML content documents, per project.<p>
+     *
+     * @return the size of the cache for parsed XML content documents
+     */
+    public int getXmlContentDocumentsCacheSize() {
+
+        return m_xmlContentDocumentsCacheSize;
+    }
+
     /**
      * Initializes the monitor with the provided configuration.<p>
      *
@@ -1850,7 +1967,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
         // lock cache
-        m_cacheLock = new ConcurrentHashMap<String, CmsLock>();
+        m_cacheLock = new CmsLockTable();
         register(CmsLockManager.class.getName(), m_cacheLock);
 
         // locale cache
@@ -1924,6 +2041,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cachePropertyList = createLRUCacheMap(cacheSettings.getPropertyListsCacheSize());
         register(CmsDriverManager.class.getName() + ".propertyListCache", m_cachePropertyList);
 
+        // inherited property list cache
+        m_cacheInheritedPropertyList = new ConcurrentSkipListMap<String, List<CmsProperty>>();
+        m_cacheInheritedPropertyListCapacity = cacheSettings.getPropertyListsCacheSize();
+        register(CmsDriverManager.class.getName() + ".inheritedPropertyListCache", m_cacheInheritedPropertyList);
+
         // published resources list cache
         m_cachePublishedResources = createLRUCacheMap(5);
         register(CmsDriverManager.class.getName() + ".publishedResourcesCache", m_cachePublishedResources);
@@ -1940,6 +2062,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheMemObject = new ConcurrentHashMap<String, Object>();
         register(CmsMemoryObjectCache.class.getName(), m_cacheMemObject);
 
+        // the XML content document cache is created on first use, see CmsXmlContentFactory
+        m_xmlContentDocumentsCacheSize = cacheSettings.getXmlContentDocumentsCacheSize();
+
         if (LOG.isDebugEnabled()) {
             // this will happen only once during system startup
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_MM_CREATED_1, new Date(System.currentTimeMillis())));
@@ -2183,6 +2308,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
     }
 
+    /**
+     * Removes the property list cached with the given cache key from the cache.<p>
+     *
+     * @param key the cache key to remove from cache
+     */
+    public void uncachePropertyList(String key) {
+
+        m_cachePropertyList.remove(key);
+    }
+
     /**
      * Removes the given xml content definition from the cache.<p>
      *
@@ -2216,6 +2351,29 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheLock.remove(rootPath);
     }
 
+    /**
+     * Removes the cached inherited property lists of the given folder and all its sub folders from the cache,
+     * both for the online and the offline project.<p>
+     *
+     * @param folderPath the root path of the folder
+     */
+    public void uncacheInheritedPropertyLists(String folderPath) {
+
+        for (boolean online : new boolean[] {true, false}) {
+            String prefix = getInheritedPropertyListKey(online, folderPath);
+            Iterator<String> it = m_cacheInheritedPropertyList.subMap(
+                prefix,
+                true,
+                prefix + Character.MAX_VALUE,
+                false).keySet().iterator();
+            while (it.hasNext()) {
+                if (m_cacheInheritedPropertyList.remove(it.next()) != null) {
+                    m_cacheInheritedPropertyListSize.decrementAndGet();
+                }
+            }
+        }
+    }
+
     /**
      * Removes the given organizational unit from the cache.<p>
      *
@@ -2736,4 +2894,17 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Returns the key for the inherited property list cache.<p>
+     *
+     * @param online <code>true</code> for the online project
+     * @param folderPath the root path of the folder
+     *
+     * @return the cache key
+     */
+    private String getInheritedPropertyListKey(boolean online, String folderPath) {
+
+        return (online ? "+" : "-") + folderPath;
+    }
 }
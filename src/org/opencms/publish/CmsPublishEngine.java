@@ -50,6 +50,7 @@ import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -70,8 +71,8 @@ public final class CmsPublishEngine {
     /** The id of the admin user. */
     private CmsUUID m_adminUserId;
 
-    /** The current running publish job. */
-    private CmsPublishThread m_currentPublishThread;
+    /** The running publish threads, in the order they were started. */
+    private final List<CmsPublishThread> m_publishThreads;
 
     /** The runtime info factory used during publishing. */
     private final I_CmsDbContextFactory m_dbContextFactory;
@@ -91,6 +92,9 @@ public final class CmsPublishEngine {
     /** The queue with still waiting publish job. */
     private final CmsPublishQueue m_publishQueue;
 
+    /** The scheduler deciding which publish jobs may run in parallel. */
+    private CmsPublishScheduler m_publishScheduler;
+
     /** The amount of time the system will wait for a running publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
@@ -124,6 +128,9 @@ public final class CmsPublishEngine {
         m_publishHistory = new CmsPublishHistory(this);
         // initialize event handling
         m_listeners = new CmsPublishListenerCollection(this);
+        // by default only one publish job runs at a time
+        m_publishThreads = new ArrayList<CmsPublishThread>();
+        m_publishScheduler = new CmsPublishScheduler(1);
         // set engine state to normal processing
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -132,11 +139,38 @@ public final class CmsPublishEngine {
     }
 
     /**
-     * Abandons the given publish thread.<p>
+     * Abandons the oldest running publish thread.<p>
      */
     public void abandonThread() {
 
-        if (!m_currentPublishThread.isAlive()) {
+        CmsPublishThread publishThread = getCurrentPublishJob();
+        if (publishThread != null) {
+            abandonThread(publishThread.getUUID());
+        }
+    }
+
+    /**
+     * Abandons the running publish thread with the given id.<p>
+     *
+     * @param threadId the id of the publish thread to abandon
+     */
+    public void abandonThread(CmsUUID threadId) {
+
+        CmsPublishThread publishThread = null;
+        synchronized (m_publishThreads) {
+            for (CmsPublishThread runningThread : m_publishThreads) {
+                if (runningThread.getUUID().equals(threadId)) {
+                    publishThread = runningThread;
+                    break;
+                }
+            }
+            if (publishThread == null) {
+                return;
+            }
+            // just throw it away
+            m_publishThreads.remove(publishThread);
+        }
+        if (!publishThread.isAlive()) {
             // thread is dead
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
@@ -147,19 +181,20 @@ public final class CmsPublishEngine {
                 LOG.warn(
                     Messages.get().getBundle().key(
                         Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
-                        m_currentPublishThread.getName(),
-                        m_currentPublishThread.getUUID()));
+                        publishThread.getName(),
+                        publishThread.getUUID()));
             }
-            m_currentPublishThread.interrupt();
+            publishThread.interrupt();
         }
-        // just throw it away
-        m_currentPublishThread = null;
+        m_publishScheduler.removeJob(publishThread.getPublishJob());
         // and try again
         checkCurrentPublishJobThread();
     }
 
     /**
      * Controls the publish process.<p>
+     *
+     * Starts as many waiting publish jobs as the publish scheduler allows.<p>
      */
     public synchronized void checkCurrentPublishJobThread() {
 
@@ -186,31 +221,39 @@ public final class CmsPublishEngine {
             return;
         }
 
-        // there is no running publish job
-        if (m_currentPublishThread == null) {
-            // but something is waiting in the queue
-            if (!m_publishQueue.isEmpty()) {
-                // start the next waiting publish job
-                CmsPublishJobInfoBean publishJob = m_publishQueue.next();
-                m_currentPublishThread = new CmsPublishThread(this, publishJob);
-                m_currentPublishThread.start();
-            } else {
-                // nothing to do
-                if (LOG.isDebugEnabled()) {
+        // clean up dead threads
+        for (CmsPublishThread publishThread : getRunningPublishThreads()) {
+            if (!publishThread.isAlive()) {
+                abandonThread(publishThread.getUUID());
+                // abandoning already started the next jobs
+                return;
+            }
+        }
+
+        if (m_publishQueue.isEmpty()) {
+            // nothing to do
+            if (LOG.isDebugEnabled()) {
+                if (getRunningPublishThreads().isEmpty()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+                } else {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
                 }
             }
             return;
         }
-        if (m_currentPublishThread.isAlive()) {
-            // normal running
-            // wait until it is finished
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
+
+        // start the waiting publish jobs that do not conflict with the running ones
+        CmsPublishJobInfoBean publishJob;
+        while ((publishJob = m_publishQueue.next(m_publishScheduler, getRunningPublishJobs())) != null) {
+            CmsPublishThread publishThread = new CmsPublishThread(this, publishJob);
+            synchronized (m_publishThreads) {
+                m_publishThreads.add(publishThread);
             }
-        } else {
-            // clean up the dead thread
-            abandonThread();
+            publishThread.start();
+        }
+        if (LOG.isDebugEnabled() && !m_publishQueue.isEmpty()) {
+            // normal running, wait until the running jobs are finished
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
         }
     }
 
@@ -272,10 +315,11 @@ public final class CmsPublishEngine {
      */
     public CmsPublishJobBase getJobByPublishHistoryId(CmsUUID publishHistoryId) {
 
-        // try current running job
-        if ((m_currentPublishThread != null)
-            && m_currentPublishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
-            return new CmsPublishJobRunning(m_currentPublishThread.getPublishJob());
+        // try running jobs
+        for (CmsPublishJobInfoBean runningJob : getRunningPublishJobs()) {
+            if (runningJob.getPublishHistoryId().equals(publishHistoryId)) {
+                return new CmsPublishJobRunning(runningJob);
+            }
         }
         // try enqueued jobs
         Iterator<CmsPublishJobEnqueued> itEnqueuedJobs = getPublishQueue().asList().iterator();
@@ -334,10 +378,10 @@ public final class CmsPublishEngine {
         // prevent new publish jobs are accepted
         m_shuttingDown = true;
 
-        // if a job is currently running,
+        // if jobs are currently running,
         // wait the specified amount of time,
-        // then write an abort message to the report
-        if (m_currentPublishThread != null) {
+        // then write an abort message to the reports
+        if (!getRunningPublishThreads().isEmpty()) {
 
             // if a shutdown time is defined, wait  if a publish process is running
             if (m_publishQueueShutdowntime > 0) {
@@ -350,8 +394,7 @@ public final class CmsPublishEngine {
                 }
             }
 
-            if (m_currentPublishThread != null) {
-                CmsPublishJobInfoBean publishJob = m_currentPublishThread.getPublishJob();
+            for (CmsPublishJobInfoBean publishJob : getRunningPublishJobs()) {
                 try {
                     abortPublishJob(m_adminUserId, new CmsPublishJobEnqueued(publishJob), false);
                 } catch (CmsException e) {
@@ -398,20 +441,27 @@ public final class CmsPublishEngine {
         // abort event should be raised before the job is removed implicitly
         m_listeners.fireAbort(userId, publishJob);
 
-        if ((m_currentPublishThread == null)
-            || !publishJob.m_publishJob.equals(m_currentPublishThread.getPublishJob())) {
-            // engine is currently publishing another job or is not publishing
+        CmsPublishThread publishThread = null;
+        for (CmsPublishThread runningThread : getRunningPublishThreads()) {
+            if (publishJob.m_publishJob.equals(runningThread.getPublishJob())) {
+                publishThread = runningThread;
+                break;
+            }
+        }
+        if (publishThread == null) {
+            // engine is currently publishing other jobs or is not publishing
             if (!m_publishQueue.abortPublishJob(publishJob.m_publishJob)) {
                 // job not found
                 throw new CmsPublishException(
                     Messages.get().container(Messages.ERR_PUBLISH_ENGINE_MISSING_PUBLISH_JOB_0));
             }
+            m_publishScheduler.removeJob(publishJob.m_publishJob);
         } else if (!m_shuttingDown) {
             // engine is currently publishing the job to abort
-            m_currentPublishThread.abort();
-        } else if (m_shuttingDown && (m_currentPublishThread != null)) {
-            // aborting the current job during shut down
-            I_CmsReport report = m_currentPublishThread.getReport();
+            publishThread.abort();
+        } else {
+            // aborting a running job during shut down
+            I_CmsReport report = publishThread.getReport();
             report.println();
             report.println();
             report.println(
@@ -459,19 +509,21 @@ public final class CmsPublishEngine {
 
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         // start publish job if jobs waiting
-        if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+        if (!m_publishQueue.isEmpty()) {
             checkCurrentPublishJobThread();
         }
     }
 
     /**
-     * Returns the current running publish job.<p>
+     * Returns the oldest running publish job.<p>
      *
-     * @return the current running publish job
+     * @return the oldest running publish job, or <code>null</code> if no publish job is running
      */
     protected CmsPublishThread getCurrentPublishJob() {
 
-        return m_currentPublishThread;
+        synchronized (m_publishThreads) {
+            return m_publishThreads.isEmpty() ? null : m_publishThreads.get(0);
+        }
     }
 
     /**
@@ -540,6 +592,20 @@ public final class CmsPublishEngine {
         return result;
     }
 
+    /**
+     * Returns the running publish jobs, in the order they were started.<p>
+     *
+     * @return the running publish jobs
+     */
+    protected List<CmsPublishJobInfoBean> getRunningPublishJobs() {
+
+        List<CmsPublishJobInfoBean> result = new ArrayList<CmsPublishJobInfoBean>();
+        for (CmsPublishThread publishThread : getRunningPublishThreads()) {
+            result.add(publishThread.getPublishJob());
+        }
+        return result;
+    }
+
     /**
      * Returns the user identified by the given id.<p>
      *
@@ -567,10 +633,15 @@ public final class CmsPublishEngine {
      * @param adminCms the admin cms
      * @param publishQueuePersistance flag if the queue is persisted
      * @param publishQueueShutdowntime amount of time to wait for a publish job during shutdown
+     * @param publishWorkers the maximum number of non conflicting publish jobs running at the same time
      *
      * @throws CmsException if something goes wrong
      */
-    protected void initialize(CmsObject adminCms, boolean publishQueuePersistance, int publishQueueShutdowntime)
+    protected void initialize(
+        CmsObject adminCms,
+        boolean publishQueuePersistance,
+        int publishQueueShutdowntime,
+        int publishWorkers)
     throws CmsException {
 
         // check the driver manager
@@ -579,6 +650,7 @@ public final class CmsPublishEngine {
         }
 
         m_publishQueueShutdowntime = publishQueueShutdowntime;
+        m_publishScheduler = new CmsPublishScheduler(publishWorkers);
 
         // initially the engine is stopped, must be restartet after full system initialization
         m_engineState = CmsPublishEngineState.ENGINE_STOPPED;
@@ -598,7 +670,7 @@ public final class CmsPublishEngine {
     protected boolean isRunning() {
 
         return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty())
-            || (m_currentPublishThread != null));
+            || !getRunningPublishThreads().isEmpty());
     }
 
     /**
@@ -693,10 +765,11 @@ public final class CmsPublishEngine {
             // log failure, most likely a database problem
             LOG.error(t.getLocalizedMessage(), t);
         }
-        if (Thread.currentThread() == m_currentPublishThread) {
+        synchronized (m_publishThreads) {
             // wipe the dead thread, only if this thread has not been abandoned
-            m_currentPublishThread = null;
+            m_publishThreads.remove(Thread.currentThread());
         }
+        m_publishScheduler.removeJob(publishJob);
         // clear the published resources cache
         OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PUBLISHED_RESOURCES);
         // try to start a new publish job
@@ -771,7 +844,7 @@ public final class CmsPublishEngine {
         if (m_engineState != CmsPublishEngineState.ENGINE_STARTED) {
             m_engineState = CmsPublishEngineState.ENGINE_STARTED;
             // start publish job if jobs waiting
-            if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+            if (!m_publishQueue.isEmpty()) {
                 checkCurrentPublishJobThread();
             }
         }
@@ -831,4 +904,16 @@ public final class CmsPublishEngine {
             return false;
         }
     }
+
+    /**
+     * Returns a copy of the list of running publish threads.<p>
+     *
+     * @return the running publish threads
+     */
+    private List<CmsPublishThread> getRunningPublishThreads() {
+
+        synchronized (m_publishThreads) {
+            return new ArrayList<CmsPublishThread>(m_publishThreads);
+        }
+    }
 }
@@ -473,6 +473,15 @@ public final class CmsPublishJobInfoBean {
         return (m_startTime != 0L);
     }
 
+    /**
+     * Resets the start information of a publish job that was interrupted, so that it can be started again.<p>
+     */
+    protected void resume() {
+
+        m_startTime = 0L;
+        m_threadUUID = null;
+    }
+
     /**
      * Signalizes the start of the publish job.<p>
      * Actually sets the starting time, writes the report header and sets the running thread uuid.<p>
@@ -72,6 +72,9 @@ public class CmsPublishManager {
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
+    /** The default number of publish jobs running at the same time. */
+    public static final int DEFAULT_PUBLISH_WORKERS = 1;
+
     /** The default shutdown time for the running publish job. */
     public static final int DEFAULT_QUEUE_SHUTDOWNTIME = 1;
 
@@ -99,6 +102,9 @@ public class CmsPublishManager {
     /** The amount of time to wait for a publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The maximum number of non conflicting publish jobs running at the same time. */
+    private int m_publishWorkers = DEFAULT_PUBLISH_WORKERS;
+
     /** The security manager. */
     private CmsSecurityManager m_securityManager;
 
@@ -135,6 +141,16 @@ public class CmsPublishManager {
         m_publishEngine.abandonThread();
     }
 
+    /**
+     * Abandons the running publish thread with the given id.<p>
+     *
+     * @param threadId the id of the publish thread to abandon
+     */
+    public void abandonThread(CmsUUID threadId) {
+
+        m_publishEngine.abandonThread(threadId);
+    }
+
     /**
      * Aborts the given publish job.<p>
      *
@@ -413,6 +429,16 @@ public class CmsPublishManager {
         return m_publishQueueShutdowntime;
     }
 
+    /**
+     * Returns the maximum number of non conflicting publish jobs running at the same time.<p>
+     *
+     * @return the maximum number of publish jobs running at the same time
+     */
+    public int getPublishWorkers() {
+
+        return m_publishWorkers;
+    }
+
     /**
      * Returns a new publish list that contains the unpublished resources related
      * to all resources in the given publish list, the related resources exclude
@@ -446,6 +472,20 @@ public class CmsPublishManager {
         return m_publishEngine.getReportContents(publishJob);
     }
 
+    /**
+     * Returns the running publish jobs, in the order they were started.<p>
+     *
+     * @return a list of {@link CmsPublishJobRunning} objects
+     */
+    public List<CmsPublishJobRunning> getRunningPublishJobs() {
+
+        List<CmsPublishJobRunning> result = new ArrayList<CmsPublishJobRunning>();
+        for (CmsPublishJobInfoBean publishJob : m_publishEngine.getRunningPublishJobs()) {
+            result.add(new CmsPublishJobRunning(publishJob));
+        }
+        return result;
+    }
+
     /**
      * Returns the current user's publish list.<p>
      *
@@ -469,7 +509,7 @@ public class CmsPublishManager {
      */
     public void initialize(CmsObject cms) throws CmsException {
 
-        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime, m_publishWorkers);
         m_frozen = true;
     }
 
@@ -712,6 +752,19 @@ public class CmsPublishManager {
         m_publishQueueShutdowntime = Integer.parseInt(publishQueueShutdowntime);
     }
 
+    /**
+     * Sets the maximum number of non conflicting publish jobs running at the same time.<p>
+     *
+     * @param publishWorkers the number of publish workers, parsed as <code>int</code>
+     */
+    public void setPublishWorkers(String publishWorkers) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishWorkers = Math.max(1, Integer.parseInt(publishWorkers));
+    }
+
     /**
      * Sets the security manager during initialization.<p>
      *
@@ -234,12 +234,19 @@ public class CmsPublishQueue {
                                 dbc.clear();
                             }
                         } else {
+                            // resume interrupted jobs, resources whose state has been reset are skipped,
+                            // resources already in the publish history of the job are not copied again
                             try {
-                                // remove locks, set finish info and move job to history
                                 job.revive(adminCms, driverManager.readPublishList(dbc, job.getPublishHistoryId()));
-                                m_publishEngine.unlockPublishList(job);
-                                new CmsPublishJobEnqueued(job).m_publishJob.finish();
-                                m_publishEngine.getPublishHistory().add(job);
+                                job.resume();
+                                m_publishEngine.lockPublishList(job);
+                                OpenCms.getMemoryMonitor().cachePublishJob(job);
+                                if (LOG.isInfoEnabled()) {
+                                    LOG.info(
+                                        Messages.get().getBundle().key(
+                                            Messages.LOG_PUBLISH_JOB_RESUME_1,
+                                            job.getPublishHistoryId()));
+                                }
                             } catch (CmsException exc) {
                                 dbc.rollback();
                                 LOG.error(exc.getLocalizedMessage(), exc);
@@ -283,6 +290,29 @@ public class CmsPublishQueue {
         return publishJob;
     }
 
+    /**
+     * Returns the first publish job that may be published next according to the given scheduler,
+     * removing it from the queue, or <code>null</code> if no job may be started now.<p>
+     *
+     * @param scheduler the publish scheduler
+     * @param runningJobs the currently running publish jobs
+     *
+     * @return the next publish job to be published
+     */
+    protected CmsPublishJobInfoBean next(CmsPublishScheduler scheduler, List<CmsPublishJobInfoBean> runningJobs) {
+
+        if (isEmpty()) {
+            return null;
+        }
+        CmsPublishJobInfoBean publishJob = scheduler.selectNext(
+            OpenCms.getMemoryMonitor().getAllCachedPublishJobs(),
+            runningJobs);
+        if (publishJob != null) {
+            OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
+        }
+        return publishJob;
+    }
+
     /**
      * Removes the given job from the list.<p>
      *
@@ -0,0 +1,267 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Decides which of the waiting publish jobs may be started while other publish jobs are running.<p>
+ *
+ * Two publish jobs conflict if they share a resource or a sibling, or if a resource of one job
+ * is located inside a folder published by the other job. A waiting job is only started if it does
+ * not conflict with any running job and with any job enqueued before it, so conflicting jobs are
+ * still published in the order they were enqueued.<p>
+ *
+ * @since 11.0.0
+ */
+class CmsPublishScheduler {
+
+    /**
+     * The resources touched by a publish job.<p>
+     */
+    static class CmsPublishFootprint {
+
+        /** The root paths of all published folders. */
+        private Set<String> m_folders = new HashSet<String>();
+
+        /** The structure and resource ids of all published resources. */
+        private Set<CmsUUID> m_ids = new HashSet<CmsUUID>();
+
+        /** The root paths of all published resources, sorted to find the contents of a folder. */
+        private NavigableSet<String> m_paths = new TreeSet<String>();
+
+        /**
+         * Creates an empty footprint.<p>
+         */
+        CmsPublishFootprint() {
+
+            // noop
+        }
+
+        /**
+         * Creates the footprint for the given resources.<p>
+         *
+         * @param resources the resources to publish
+         */
+        CmsPublishFootprint(Collection<CmsResource> resources) {
+
+            for (CmsResource resource : resources) {
+                addResource(
+                    resource.getStructureId(),
+                    resource.getResourceId(),
+                    resource.getRootPath(),
+                    resource.isFolder());
+            }
+        }
+
+        /**
+         * Adds a resource to this footprint.<p>
+         *
+         * @param structureId the structure id of the resource
+         * @param resourceId the resource id of the resource, shared by all siblings
+         * @param rootPath the root path of the resource
+         * @param folder <code>true</code> if the resource is a folder
+         */
+        void addResource(CmsUUID structureId, CmsUUID resourceId, String rootPath, boolean folder) {
+
+            m_ids.add(structureId);
+            m_ids.add(resourceId);
+            m_paths.add(rootPath);
+            if (folder) {
+                m_folders.add(rootPath);
+            }
+        }
+
+        /**
+         * Checks if the publish job with this footprint conflicts with the job with the given footprint.<p>
+         *
+         * @param other the footprint of the other job
+         *
+         * @return <code>true</code> if the two jobs must not be published at the same time
+         */
+        boolean conflictsWith(CmsPublishFootprint other) {
+
+            // look up the entries of the smaller footprint in the bigger one
+            CmsPublishFootprint small = m_paths.size() <= other.m_paths.size() ? this : other;
+            CmsPublishFootprint big = (small == this) ? other : this;
+
+            for (CmsUUID id : small.m_ids) {
+                if (big.m_ids.contains(id)) {
+                    // same resource or a sibling of it
+                    return true;
+                }
+            }
+            for (String path : small.m_paths) {
+                if (big.m_paths.contains(path)) {
+                    return true;
+                }
+                String parent = CmsResource.getParentFolder(path);
+                while (parent != null) {
+                    if (big.m_folders.contains(parent)) {
+                        // the resource is located in a folder published by the other job
+                        return true;
+                    }
+                    parent = CmsResource.getParentFolder(parent);
+                }
+            }
+            for (String folder : small.m_folders) {
+                String next = big.m_paths.higher(folder);
+                if ((next != null) && next.startsWith(folder)) {
+                    // the other job publishes a resource in this folder
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsPublishScheduler.class);
+
+    /** The footprints of the known publish jobs, by publish history id. */
+    private Map<CmsUUID, CmsPublishFootprint> m_footprints = new HashMap<CmsUUID, CmsPublishFootprint>();
+
+    /** The maximum number of publish jobs running at the same time. */
+    private int m_publishWorkers;
+
+    /**
+     * Creates a new publish scheduler.<p>
+     *
+     * @param publishWorkers the maximum number of publish jobs running at the same time
+     */
+    CmsPublishScheduler(int publishWorkers) {
+
+        m_publishWorkers = Math.max(1, publishWorkers);
+    }
+
+    /**
+     * Checks if two publish jobs conflict, where an unknown footprint conflicts with every other job.<p>
+     *
+     * @param footprint the footprint of the first job, may be <code>null</code>
+     * @param other the footprint of the second job, may be <code>null</code>
+     *
+     * @return <code>true</code> if the two jobs must not be published at the same time
+     */
+    private static boolean conflicts(CmsPublishFootprint footprint, CmsPublishFootprint other) {
+
+        return (footprint == null) || (other == null) || footprint.conflictsWith(other);
+    }
+
+    /**
+     * Returns the maximum number of publish jobs running at the same time.<p>
+     *
+     * @return the maximum number of publish jobs running at the same time
+     */
+    int getPublishWorkers() {
+
+        return m_publishWorkers;
+    }
+
+    /**
+     * Forgets the footprint of the given publish job, must be called once the job is finished or removed.<p>
+     *
+     * @param publishJob the publish job
+     */
+    synchronized void removeJob(CmsPublishJobInfoBean publishJob) {
+
+        m_footprints.remove(publishJob.getPublishHistoryId());
+    }
+
+    /**
+     * Returns the first of the waiting publish jobs that may be started now, or <code>null</code>.<p>
+     *
+     * @param waitingJobs the waiting publish jobs, in the order they were enqueued
+     * @param runningJobs the currently running publish jobs
+     *
+     * @return the publish job to start next, or <code>null</code> if no job may be started now
+     */
+    synchronized CmsPublishJobInfoBean selectNext(
+        List<CmsPublishJobInfoBean> waitingJobs,
+        List<CmsPublishJobInfoBean> runningJobs) {
+
+        if (runningJobs.size() >= m_publishWorkers) {
+            return null;
+        }
+        List<CmsPublishFootprint> blocking = new ArrayList<CmsPublishFootprint>();
+        for (CmsPublishJobInfoBean runningJob : runningJobs) {
+            blocking.add(getFootprint(runningJob));
+        }
+        for (CmsPublishJobInfoBean waitingJob : waitingJobs) {
+            CmsPublishFootprint footprint = getFootprint(waitingJob);
+            boolean free = true;
+            for (CmsPublishFootprint other : blocking) {
+                if (conflicts(footprint, other)) {
+                    free = false;
+                    break;
+                }
+            }
+            if (free) {
+                return waitingJob;
+            }
+            // jobs enqueued later must not overtake this one
+            blocking.add(footprint);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the footprint of the given publish job, or <code>null</code> if it is not available.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the footprint of the publish job
+     */
+    private CmsPublishFootprint getFootprint(CmsPublishJobInfoBean publishJob) {
+
+        CmsPublishFootprint footprint = m_footprints.get(publishJob.getPublishHistoryId());
+        if (footprint == null) {
+            try {
+                footprint = new CmsPublishFootprint(publishJob.getPublishList().getAllResources());
+                m_footprints.put(publishJob.getPublishHistoryId(), footprint);
+            } catch (RuntimeException e) {
+                // without a footprint the job is published exclusively
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+        }
+        return footprint;
+    }
+}
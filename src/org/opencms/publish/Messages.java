@@ -154,6 +154,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_JOB_REMOVE_0 = "LOG_PUBLISH_JOB_REMOVE_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PUBLISH_JOB_RESUME_1 = "LOG_PUBLISH_JOB_RESUME_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_JOB_START_0 = "LOG_PUBLISH_JOB_START_0";
 
@@ -0,0 +1,132 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.report;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report that buffers all output and writes it to another report in one piece.<p>
+ *
+ * This is used by worker threads that run in parallel, so that the output of one
+ * work item is not mixed up with the output of other work items in the target report.<p>
+ *
+ * @since 11.0.0
+ */
+public class CmsBufferedReport extends A_CmsReport {
+
+    /** Format value used to mark a line break in the buffer. */
+    private static final int FORMAT_LINEBREAK = -1;
+
+    /** The buffered entries, each is a pair of the output string and its format. */
+    private List<Object[]> m_entries;
+
+    /** The report to write the buffered output to. */
+    private I_CmsReport m_target;
+
+    /**
+     * Creates a new buffered report for the given target report.<p>
+     *
+     * @param target the report to write the buffered output to
+     */
+    public CmsBufferedReport(I_CmsReport target) {
+
+        init(target.getLocale(), target.getSiteRoot());
+        m_target = target;
+        m_entries = new ArrayList<Object[]>();
+    }
+
+    /**
+     * Writes all buffered output to the target report and clears the buffer.<p>
+     */
+    public void flush() {
+
+        List<Object[]> entries;
+        synchronized (m_entries) {
+            entries = new ArrayList<Object[]>(m_entries);
+            m_entries.clear();
+        }
+        for (Object[] entry : entries) {
+            int format = ((Integer)entry[1]).intValue();
+            if (format == FORMAT_LINEBREAK) {
+                m_target.println();
+            } else {
+                m_target.print(Messages.get().container(Messages.RPT_ARGUMENT_1, entry[0]), format);
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getReportUpdate()
+     */
+    public String getReportUpdate() {
+
+        return "";
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println()
+     */
+    public void println() {
+
+        synchronized (m_entries) {
+            m_entries.add(new Object[] {null, Integer.valueOf(FORMAT_LINEBREAK)});
+        }
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(java.lang.Throwable)
+     */
+    public void println(Throwable t) {
+
+        print(getMessages().key(Messages.RPT_EXCEPTION_0), FORMAT_WARNING);
+        println(t.getMessage(), FORMAT_ERROR);
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(java.lang.String, int)
+     */
+    @Override
+    protected void print(String value, int format) {
+
+        switch (format) {
+            case FORMAT_WARNING:
+                addWarning(value);
+                break;
+            case FORMAT_ERROR:
+                addError(value);
+                break;
+            default:
+                // no special handling for other formats
+        }
+        synchronized (m_entries) {
+            m_entries.add(new Object[] {value, Integer.valueOf(format)});
+        }
+        setLastEntryTime(System.currentTimeMillis());
+    }
+}
@@ -43,6 +43,9 @@ import org.apache.commons.logging.Log;
  * The indexing of a single resource is wrapped into a thread
  * in order to prevent the overall indexer from hanging.<p>
  *
+ * The {@link CmsIndexingThreadManager} does not start this as a separate thread,
+ * but executes it with a worker of its indexing pool.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThread extends Thread {
@@ -130,8 +133,8 @@ public class CmsIndexingThread extends Thread {
             m_result = createIndexDocument(m_cms, m_res, m_index, m_count, m_report);
             docOk = true;
 
-            // check if the thread was interrupted
-            if (isInterrupted() && LOG.isDebugEnabled()) {
+            // check if the thread was interrupted, this is the worker thread in case this is executed by a pool
+            if (Thread.currentThread().isInterrupted() && LOG.isDebugEnabled()) {
                 LOG.debug(
                     Messages.get().getBundle().key(Messages.LOG_ABANDONED_THREAD_FINISHED_1, m_res.getRootPath()));
             }
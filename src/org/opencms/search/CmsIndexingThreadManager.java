@@ -28,44 +28,157 @@
 package org.opencms.search;
 
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Implements the management of indexing threads.<p>
  *
+ * The manager is an indexing pipeline with two stages. The text extraction of the resources
+ * is done in parallel by a bounded pool of worker threads. The results are written to the index
+ * by a single writer stage, which is the thread that calls {@link #createIndexingThread(CmsVfsIndexer, I_CmsIndexWriter, CmsResource)}
+ * and {@link #isRunning()}. The writer stage processes the results in the order the resources
+ * were submitted and commits the index based on the number of modifications and the
+ * accumulated byte volume of the indexed resources.<p>
+ *
+ * Because of this, an instance of this class must only be used by a single thread.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * A single resource submitted to the indexing pipeline.<p>
+     */
+    private class CmsIndexingTask implements Runnable {
+
+        /** Flag indicating the writer stage has given up waiting for this task. */
+        private volatile boolean m_abandoned;
+
+        /** Flag indicating the task has finished. */
+        private volatile boolean m_done;
+
+        /** The future of the task in the worker pool. */
+        private Future<?> m_future;
+
+        /** The indexer the resource belongs to. */
+        private CmsVfsIndexer m_indexer;
+
+        /** The buffer for the report output of this task. */
+        private CmsBufferedReport m_report;
+
+        /** The resource to index. */
+        private CmsResource m_resource;
+
+        /** The time the task was started by a worker, 0 if not started yet. */
+        private volatile long m_startTime;
+
+        /** The indexing thread used to extract the document, executed by a worker of the pool. */
+        private CmsIndexingThread m_thread;
+
+        /** The index writer to write the result to. */
+        private I_CmsIndexWriter m_writer;
+
+        /**
+         * Creates a new indexing task.<p>
+         *
+         * @param indexer the indexer the resource belongs to
+         * @param writer the index writer to write the result to
+         * @param resource the resource to index
+         * @param thread the indexing thread used to extract the document
+         * @param report the buffer for the report output of this task, may be <code>null</code>
+         */
+        CmsIndexingTask(
+            CmsVfsIndexer indexer,
+            I_CmsIndexWriter writer,
+            CmsResource resource,
+            CmsIndexingThread thread,
+            CmsBufferedReport report) {
+
+            m_indexer = indexer;
+            m_writer = writer;
+            m_resource = resource;
+            m_thread = thread;
+            m_report = report;
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            m_startTime = System.currentTimeMillis();
+            try {
+                m_thread.run();
+            } finally {
+                finishTask(this);
+            }
+        }
+    }
+
+    /** The default maximum byte volume of indexed resources before a commit in the search index is triggered (64 MB). */
+    public static final long DEFAULT_MAX_BYTES_BEFORE_COMMIT = 64L * 1024L * 1024L;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The accumulated byte volume of the resources written since the last commit. */
+    private long m_bytesSinceCommit;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
     /** The time the last warning was written to the log. */
     private long m_lastLogWarnTime;
 
+    /** The maximum byte volume of indexed resources before a commit in the search index is triggered. */
+    private long m_maxBytesBeforeCommit;
+
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The number of modifications written since the last commit. */
+    private int m_modificationsSinceCommit;
+
+    /** The tasks submitted to the worker pool, in the order of submission. */
+    private Deque<CmsIndexingTask> m_pending;
+
+    /** The worker pool used for extracting the documents. */
+    private ThreadPoolExecutor m_pool;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
     /** Overall number of threads started. */
     private int m_startedCounter;
 
+    /** The number of worker threads used for extracting the documents. */
+    private int m_threadCount;
+
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
@@ -77,16 +190,42 @@ public class CmsIndexingThreadManager {
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(
+            timeout,
+            maxModificationsBeforeCommit,
+            DEFAULT_MAX_BYTES_BEFORE_COMMIT,
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     *
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param maxBytesBeforeCommit the maximum byte volume of indexed resources before a commit in the search index is triggered
+     * @param threadCount the number of worker threads used for extracting the documents
+     */
+    public CmsIndexingThreadManager(
+        long timeout,
+        int maxModificationsBeforeCommit,
+        long maxBytesBeforeCommit,
+        int threadCount) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_maxBytesBeforeCommit = maxBytesBeforeCommit;
+        m_threadCount = Math.max(1, threadCount);
+        m_pending = new ArrayDeque<CmsIndexingTask>();
     }
 
     /**
-     * Creates and starts a new indexing thread for a resource.<p>
+     * Submits a resource to the indexing pipeline.<p>
      *
-     * After an indexing thread was started, the manager suspends itself
-     * and waits for an amount of time specified by the <code>timeout</code>
-     * value. If the timeout value is reached, the indexing thread is
+     * The document for the resource is created by a worker of the indexing pool.
+     * If the number of resources waiting to be written to the index is exceeded,
+     * the manager first writes finished documents to the index, waiting for at most
+     * the amount of time specified by the <code>timeout</code> value per resource.
+     * If the timeout value is reached, the indexing of the resource is
      * aborted by an interrupt signal.<p>
      *
      * @param indexer the VFS indexer to create the index thread for
@@ -95,67 +234,38 @@ public class CmsIndexingThreadManager {
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
+        // make sure there is enough work for all workers, but limit the number of documents kept in memory
+        while (m_pending.size() >= (2 * m_threadCount)) {
+            if (!processNextResult(true)) {
+                break;
+            }
+        }
+        // write all documents that are already finished
+        while (processNextResult(false)) {
+            // continue
+        }
+
         I_CmsReport report = indexer.getReport();
+        CmsBufferedReport buffer = report != null ? new CmsBufferedReport(report) : null;
         m_startedCounter++;
-        CmsIndexingThread thread = new CmsIndexingThread(
-            indexer.getCms(),
+        CmsIndexingThread thread = newIndexingThread(
+            getWorkerCms(indexer.getCms()),
             res,
             indexer.getIndex(),
             m_startedCounter,
-            report);
-        thread.setPriority(Thread.MIN_PRIORITY);
-        thread.start();
-        try {
-            thread.join(m_timeout);
-        } catch (InterruptedException e) {
-            // ignore
-        }
-        if (thread.isAlive()) {
-            // the thread has not finished - so it must be marked as an abandoned thread
-            m_abandonedCounter++;
-            thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
-        } else {
-            // the thread finished normally
-            m_returnedCounter++;
-        }
-        I_CmsSearchDocument doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        } else {
-            indexer.deleteResource(writer, new CmsPublishedResource(res));
-        }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
-            try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
-            }
-        }
+            buffer);
+        CmsIndexingTask task = new CmsIndexingTask(indexer, writer, res, thread, buffer);
+        task.m_future = getPool().submit(task);
+        m_pending.addLast(task);
     }
 
     /**
      * Returns if the indexing manager still have indexing threads.<p>
      *
+     * Before returning, the writer stage writes all finished documents
+     * to the index, waiting for unfinished documents until they are done or
+     * their timeout is reached.<p>
+     *
      * @return true if the indexing manager still have indexing threads
      */
     public boolean isRunning() {
@@ -187,10 +297,17 @@ public class CmsIndexingThreadManager {
             }
         }
 
-        boolean result = (m_returnedCounter + m_abandonedCounter) < m_startedCounter;
-        if (result && LOG.isInfoEnabled()) {
-            // write a note to the log that all threads have finished
-            LOG.info(Messages.get().getBundle().key(Messages.LOG_THREADS_FINISHED_0));
+        while (processNextResult(true)) {
+            // write all pending documents to the index
+        }
+
+        boolean result = !m_pending.isEmpty();
+        if (!result) {
+            shutdownPool();
+            if (LOG.isInfoEnabled()) {
+                // write a note to the log that all threads have finished
+                LOG.info(Messages.get().getBundle().key(Messages.LOG_THREADS_FINISHED_0));
+            }
         }
         return result;
     }
@@ -223,4 +340,244 @@ public class CmsIndexingThreadManager {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the indexing thread used to extract the document for a resource.<p>
+     *
+     * The thread is not started, its <code>run()</code> method is executed by a worker of the indexing pool.<p>
+     *
+     * @param cms the OpenCms user context of the worker
+     * @param res the resource to index
+     * @param index the index to update the resource in
+     * @param count the report count
+     * @param report the report to write the output to
+     *
+     * @return the indexing thread
+     */
+    protected CmsIndexingThread newIndexingThread(
+        CmsObject cms,
+        CmsResource res,
+        I_CmsSearchIndex index,
+        int count,
+        I_CmsReport report) {
+
+        return new CmsIndexingThread(cms, res, index, count, report);
+    }
+
+    /**
+     * Abandons a task that has reached its timeout.<p>
+     *
+     * A replacement worker is added to the pool, since the worker executing
+     * the abandoned task may be blocked for a long time.<p>
+     *
+     * @param task the task to abandon
+     *
+     * @return <code>false</code> if the task has finished in the meantime and was not abandoned
+     */
+    synchronized boolean abandonTask(CmsIndexingTask task) {
+
+        if (task.m_done) {
+            return false;
+        }
+        task.m_abandoned = true;
+        if (m_pool != null) {
+            m_pool.setMaximumPoolSize(m_pool.getMaximumPoolSize() + 1);
+            m_pool.setCorePoolSize(m_pool.getCorePoolSize() + 1);
+        }
+        task.m_future.cancel(true);
+        return true;
+    }
+
+    /**
+     * Marks a task as finished, called by the worker that executed the task.<p>
+     *
+     * If the task had been abandoned, the replacement worker is removed from the pool again.<p>
+     *
+     * @param task the finished task
+     */
+    synchronized void finishTask(CmsIndexingTask task) {
+
+        task.m_done = true;
+        if (task.m_abandoned) {
+            if ((m_pool != null) && (m_pool.getCorePoolSize() > m_threadCount)) {
+                m_pool.setCorePoolSize(m_pool.getCorePoolSize() - 1);
+                m_pool.setMaximumPoolSize(m_pool.getMaximumPoolSize() - 1);
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_ABANDONED_THREAD_FINISHED_1,
+                        task.m_resource.getRootPath()));
+            }
+        }
+    }
+
+    /**
+     * Commits the index writer if the number of modifications or the byte volume since the last commit exceed the configured limits.<p>
+     *
+     * @param indexer the indexer that has written the last modification
+     * @param writer the index writer to commit
+     */
+    private void commitIfRequired(CmsVfsIndexer indexer, I_CmsIndexWriter writer) {
+
+        if ((m_modificationsSinceCommit < m_maxModificationsBeforeCommit)
+            && ((m_maxBytesBeforeCommit <= 0) || (m_bytesSinceCommit < m_maxBytesBeforeCommit))) {
+            return;
+        }
+        m_modificationsSinceCommit = 0;
+        m_bytesSinceCommit = 0;
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                        indexer.getIndex().getName(),
+                        indexer.getIndex().getPath()),
+                    e);
+            }
+        }
+    }
+
+    /**
+     * Returns the worker pool, creating it if required.<p>
+     *
+     * @return the worker pool
+     */
+    private synchronized ThreadPoolExecutor getPool() {
+
+        if (m_pool == null) {
+            final AtomicInteger counter = new AtomicInteger();
+            m_pool = new ThreadPoolExecutor(
+                m_threadCount,
+                m_threadCount,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Indexing worker " + counter.incrementAndGet());
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            // make sure the workers go away if the manager is not properly finished
+            m_pool.allowCoreThreadTimeOut(true);
+        }
+        return m_pool;
+    }
+
+    /**
+     * Returns a copy of the indexer context for a worker, so that workers do not share the request context.<p>
+     *
+     * @param cms the indexer context
+     *
+     * @return a copy of the indexer context, or the indexer context itself if no copy could be created
+     */
+    private CmsObject getWorkerCms(CmsObject cms) {
+
+        try {
+            return OpenCms.initCmsObject(cms);
+        } catch (CmsException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+            return cms;
+        }
+    }
+
+    /**
+     * Processes the oldest pending task and writes its result to the index.<p>
+     *
+     * If the task is not finished yet and blocking is requested, waits until the
+     * task is finished or its timeout is reached. A task that reaches its timeout
+     * is abandoned and reported.<p>
+     *
+     * @param block if <code>true</code>, wait for the oldest task to finish
+     *
+     * @return <code>true</code> if a task has been processed
+     */
+    private boolean processNextResult(boolean block) {
+
+        CmsIndexingTask task = m_pending.peekFirst();
+        if (task == null) {
+            return false;
+        }
+        while (!task.m_done) {
+            long startTime = task.m_startTime;
+            long wait = startTime > 0 ? (startTime + m_timeout) - System.currentTimeMillis() : m_timeout;
+            if ((startTime > 0) && (wait <= 0)) {
+                // the task has reached its timeout
+                break;
+            }
+            if (!block) {
+                return false;
+            }
+            try {
+                task.m_future.get(wait, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // check the timeout again in the loop
+            } catch (ExecutionException e) {
+                // errors are already handled by the indexing thread
+                LOG.debug(e.getLocalizedMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        m_pending.removeFirst();
+
+        I_CmsReport report = task.m_indexer.getReport();
+        if (!abandonTask(task)) {
+            // the thread finished normally
+            m_returnedCounter++;
+            if (task.m_report != null) {
+                task.m_report.flush();
+            }
+        } else {
+            // the thread has not finished - so it must be marked as an abandoned thread
+            m_abandonedCounter++;
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, task.m_resource.getRootPath()));
+            }
+            if (report != null) {
+                task.m_report.flush();
+                report.println();
+                report.print(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                    I_CmsReport.FORMAT_WARNING);
+                report.println(
+                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, task.m_resource.getRootPath()),
+                    I_CmsReport.FORMAT_WARNING);
+            }
+        }
+
+        I_CmsSearchDocument doc = task.m_thread.getResult();
+        if (doc != null) {
+            // write the document to the index
+            task.m_indexer.updateResource(task.m_writer, task.m_resource.getRootPath(), doc);
+            m_bytesSinceCommit += Math.max(0, task.m_resource.getLength());
+        } else {
+            task.m_indexer.deleteResource(task.m_writer, new CmsPublishedResource(task.m_resource));
+        }
+        m_modificationsSinceCommit++;
+        commitIfRequired(task.m_indexer, task.m_writer);
+        return true;
+    }
+
+    /**
+     * Shuts down the worker pool after all tasks have been processed.<p>
+     *
+     * Workers still blocked by abandoned tasks finish in the background.<p>
+     */
+    private synchronized void shutdownPool() {
+
+        if (m_pool != null) {
+            m_pool.shutdown();
+            m_pool = null;
+        }
+    }
+}
@@ -64,6 +64,7 @@ import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.fields.CmsSearchFieldConfiguration;
 import org.opencms.search.fields.CmsSearchFieldMapping;
 import org.opencms.search.fields.I_CmsSearchFieldConfiguration;
+import org.opencms.search.solr.CmsSolrClientRegistry;
 import org.opencms.search.solr.CmsSolrConfiguration;
 import org.opencms.search.solr.CmsSolrFieldConfiguration;
 import org.opencms.search.solr.CmsSolrIndex;
@@ -100,7 +101,6 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
-import org.apache.solr.client.solrj.impl.HttpSolrClient.Builder;
 import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.CoreDescriptor;
 import org.apache.solr.core.SolrCore;
@@ -164,6 +164,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected class CmsSearchOfflineHandler implements I_CmsEventListener {
 
+        /** The root paths of the folders with changed access control lists, the resources inside must be re-indexed. */
+        private List<String> m_aclChangedFolders;
+
         /** Indicates if the event handlers for the offline search have been already registered. */
         private boolean m_isEventRegistered;
 
@@ -176,6 +179,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         protected CmsSearchOfflineHandler() {
 
             m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+            m_aclChangedFolders = new ArrayList<String>();
         }
 
         /**
@@ -206,6 +210,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     List<CmsResource> resources = Collections.singletonList(
                         (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE));
                     reIndexResources(resources);
+                    if (isFolderAccessControlChange(event)) {
+                        // the resources inside the folder inherit the changed access control list
+                        addFolderToIndex(resources.get(0).getRootPath());
+                    }
                     break;
                 case I_CmsEventListener.EVENT_RESOURCE_DELETED:
                     List<CmsResource> eventResources = (List<CmsResource>)event.getData().get(
@@ -232,6 +240,20 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             }
         }
 
+        /**
+         * Adds a folder whose contained resources must be indexed.<p>
+         *
+         * The resources inside the folder are read later by the offline indexing thread.<p>
+         *
+         * @param rootPath the root path of the folder
+         */
+        protected synchronized void addFolderToIndex(String rootPath) {
+
+            if (!m_aclChangedFolders.contains(rootPath)) {
+                m_aclChangedFolders.add(rootPath);
+            }
+        }
+
         /**
          * Adds a list of {@link CmsPublishedResource} objects to be indexed.<p>
          *
@@ -250,9 +272,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         protected List<CmsPublishedResource> getResourcesToIndex() {
 
             List<CmsPublishedResource> result;
+            List<String> folders;
             synchronized (this) {
                 result = m_resourcesToIndex;
                 m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+                folders = m_aclChangedFolders;
+                m_aclChangedFolders = new ArrayList<String>();
             }
             try {
                 CmsObject cms = m_adminCms;
@@ -262,6 +287,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                     cms = OpenCms.initCmsObject(m_adminCms);
                     cms.getRequestContext().setCurrentProject(offline);
                 }
+                addResourcesInFolders(cms, folders, result);
                 addAdditionallyAffectedResources(cms, result);
             } catch (CmsException e) {
                 LOG.error(e.getLocalizedMessage(), e);
@@ -641,6 +667,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Default for the maximum number of modifications before a commit in the search index is triggered (500). */
     public static final int DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT = 500;
 
+    /** Default for the maximum byte volume of indexed resources before a commit in the search index is triggered (64 MB). */
+    public static final long DEFAULT_MAX_BYTES_BEFORE_COMMIT = CmsIndexingThreadManager.DEFAULT_MAX_BYTES_BEFORE_COMMIT;
+
     /** The default update frequency for offline indexes (15000 msec = 15 sec). */
     public static final int DEFAULT_OFFLINE_UPDATE_FREQNENCY = 15000;
 
@@ -671,6 +700,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The thread used of offline indexing. */
     protected CmsSearchOfflineIndexThread m_offlineIndexThread;
 
+    /** The structure ids of the folders with changed access control lists that have not been published yet. */
+    private Set<CmsUUID> m_aclChangedFolders = Collections.synchronizedSet(new HashSet<CmsUUID>());
+
     /** Configured analyzers for languages using &lt;analyzer&gt;. */
     private HashMap<Locale, CmsSearchAnalyzer> m_analyzers;
 
@@ -710,6 +742,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Configured index sources. */
     private Map<String, CmsSearchIndexSource> m_indexSources;
 
+    /** The number of worker threads used for extracting documents during indexing. */
+    private int m_indexingThreads;
+
+    /** The maximum byte volume of indexed resources before a commit in the search index is triggered. */
+    private long m_maxBytesBeforeCommit;
+
     /** The max. char. length of the excerpt in the search result. */
     private int m_maxExcerptLength;
 
@@ -728,6 +766,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Path to index files below WEB-INF/. */
     private String m_path;
 
+    /** The clients for remote Solr servers, shared by all indexes using the server. */
+    private CmsSolrClientRegistry m_remoteSolrClients = new CmsSolrClientRegistry();
+
     /** The Solr configuration. */
     private CmsSolrConfiguration m_solrConfig;
 
@@ -750,6 +791,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_offlineUpdateFrequency = DEFAULT_OFFLINE_UPDATE_FREQNENCY;
         m_maxIndexWaitTime = DEFAULT_MAX_INDEX_WAITTIME;
         m_maxModificationsBeforeCommit = DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT;
+        m_maxBytesBeforeCommit = DEFAULT_MAX_BYTES_BEFORE_COMMIT;
+        m_indexingThreads = Runtime.getRuntime().availableProcessors();
 
         m_fieldConfigurations = new HashMap<String, I_CmsSearchFieldConfiguration>();
         // make sure we have a "standard" field configuration
@@ -1010,6 +1053,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                             publishHistoryId));
                 }
                 break;
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+                if (isFolderAccessControlChange(event)) {
+                    // the resources inside the folder must be re-indexed when the folder is published
+                    CmsResource folder = (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE);
+                    m_aclChangedFolders.add(folder.getStructureId());
+                }
+                break;
             default:
                 // no operation
         }
@@ -1294,6 +1344,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return null;
     }
 
+    /**
+     * Returns the number of worker threads used for extracting documents during indexing.<p>
+     *
+     * @return the number of worker threads used for extracting documents during indexing
+     */
+    public int getIndexingThreads() {
+
+        return m_indexingThreads;
+    }
+
     /**
      * Returns the seconds to wait for an index lock during an update operation.<p>
      *
@@ -1366,6 +1426,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_maxIndexWaitTime;
     }
 
+    /**
+     * Returns the maximum byte volume of indexed resources before a commit in the search index is triggered.<p>
+     *
+     * @return the maximum byte volume of indexed resources before a commit in the search index is triggered
+     */
+    public long getMaxBytesBeforeCommit() {
+
+        return m_maxBytesBeforeCommit;
+    }
+
     /**
      * Returns the maximum number of modifications before a commit in the search index is triggered.<p>
      *
@@ -1500,7 +1570,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             new int[] {
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
-                I_CmsEventListener.EVENT_REBUILD_SEARCHINDEXES});
+                I_CmsEventListener.EVENT_REBUILD_SEARCHINDEXES,
+                I_CmsEventListener.EVENT_RESOURCE_MODIFIED});
     }
 
     /**
@@ -1773,7 +1844,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             // HTTP Server configured
             // TODO Implement multi core support for HTTP server
             // @see http://lucidworks.lucidimagination.com/display/solr/Configuring+solr.xml
-            index.setSolrServer(new Builder().withBaseSolrUrl(m_solrConfig.getServerUrl()).build());
+            index.setSolrServer(m_remoteSolrClients.getClient(m_solrConfig.getServerUrl(), index.getName()));
         }
 
         // get the core container that contains one core for each configured index
@@ -1963,6 +2034,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         if (searchIndex instanceof CmsSolrIndex) {
             CmsSolrIndex solrIndex = (CmsSolrIndex)searchIndex;
             m_coreContainer.unload(solrIndex.getCoreName(), true, true, true);
+            // the client of a remote server is only closed if no other index uses it
+            m_remoteSolrClients.releaseClient(solrIndex.getName());
         }
         m_indexes.remove(searchIndex);
         initOfflineIndexes();
@@ -2122,6 +2195,37 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the number of worker threads used for extracting documents during indexing.<p>
+     *
+     * @param indexingThreads the number of worker threads to set
+     */
+    public void setIndexingThreads(int indexingThreads) {
+
+        m_indexingThreads = Math.max(1, indexingThreads);
+    }
+
+    /**
+     * Sets the number of worker threads used for extracting documents during indexing as a String.<p>
+     *
+     * @param value the number of worker threads to set
+     */
+    public void setIndexingThreads(String value) {
+
+        int defaultValue = Runtime.getRuntime().availableProcessors();
+        try {
+            setIndexingThreads(Integer.parseInt(value));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_INDEXING_THREADS_FAILED_2,
+                    value,
+                    new Integer(defaultValue)),
+                e);
+            setIndexingThreads(defaultValue);
+        }
+    }
+
     /**
      * Sets the seconds to wait for an index lock during an update operation.<p>
      *
@@ -2192,6 +2296,38 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the maximum byte volume of indexed resources before a commit in the search index is triggered.<p>
+     *
+     * A value of 0 or less disables commits based on the byte volume.<p>
+     *
+     * @param maxBytesBeforeCommit the maximum byte volume to set
+     */
+    public void setMaxBytesBeforeCommit(long maxBytesBeforeCommit) {
+
+        m_maxBytesBeforeCommit = maxBytesBeforeCommit;
+    }
+
+    /**
+     * Sets the maximum byte volume of indexed resources before a commit in the search index is triggered as a string.<p>
+     *
+     * @param value the maximum byte volume to set
+     */
+    public void setMaxBytesBeforeCommit(String value) {
+
+        try {
+            setMaxBytesBeforeCommit(Long.parseLong(value));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_MAXBYTES_FAILED_2,
+                    value,
+                    new Long(DEFAULT_MAX_BYTES_BEFORE_COMMIT)),
+                e);
+            setMaxBytesBeforeCommit(DEFAULT_MAX_BYTES_BEFORE_COMMIT);
+        }
+    }
+
     /**
      * Sets the maximum number of modifications before a commit in the search index is triggered.<p>
      *
@@ -2423,6 +2559,41 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return additionalUpdateResources;
     }
 
+    /**
+     * Adds all files inside the given folders to the resources to re-index.<p>
+     *
+     * This is required if the access control lists of the folders have changed, because the
+     * permission fields of the indexed documents contain the inherited access control entries.<p>
+     *
+     * @param adminCms an OpenCms user context with Admin permissions
+     * @param folders the root paths of the folders
+     * @param updateResources the resources to be re-indexed
+     */
+    protected void addResourcesInFolders(
+        CmsObject adminCms,
+        Collection<String> folders,
+        List<CmsPublishedResource> updateResources) {
+
+        if (folders.isEmpty()) {
+            return;
+        }
+        Set<CmsPublishedResource> updateResourceSet = new HashSet<CmsPublishedResource>(updateResources);
+        for (String folder : folders) {
+            try {
+                for (CmsResource res : adminCms.readResources(folder, CmsResourceFilter.ALL, true)) {
+                    if (res.isFile()) {
+                        CmsPublishedResource pubRes = new CmsPublishedResource(res);
+                        if (updateResourceSet.add(pubRes)) {
+                            updateResources.add(pubRes);
+                        }
+                    }
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
     /**
      * Cleans up the extraction result cache.<p>
      */
@@ -2568,7 +2739,11 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        return new CmsIndexingThreadManager(
+            m_timeout,
+            m_maxModificationsBeforeCommit,
+            m_maxBytesBeforeCommit,
+            m_indexingThreads);
     }
 
     /**
@@ -2731,7 +2906,14 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             // When published resources with both states 'new' and 'deleted' exist in the same publish job history, the resource has been moved
 
             List<CmsPublishedResource> updateResources = new ArrayList<CmsPublishedResource>();
+            List<String> aclChangedFolders = new ArrayList<String>();
             for (CmsPublishedResource res : publishedResources) {
+                if (res.isFolder()
+                    && m_aclChangedFolders.remove(res.getStructureId())
+                    && !res.getState().isDeleted()) {
+                    // the resources inside the folder inherit the published access control list
+                    aclChangedFolders.add(res.getRootPath());
+                }
                 if (res.isFolder() || res.getState().isUnchanged()) {
                     // folders and unchanged resources don't need to be indexed after publish
                     continue;
@@ -2787,6 +2969,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 }
             }
 
+            addResourcesInFolders(adminCms, aclChangedFolders, updateResources);
             addAdditionallyAffectedResources(adminCms, updateResources);
             if (!updateResources.isEmpty()) {
                 // sort the resource to update
@@ -3286,6 +3469,23 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Checks if the given event reports a changed access control list of a folder.<p>
+     *
+     * @param event the event to check
+     *
+     * @return <code>true</code> if the access control list of a folder has changed
+     */
+    private boolean isFolderAccessControlChange(CmsEvent event) {
+
+        Object change = event.getData().get(I_CmsEventListener.KEY_CHANGE);
+        Object resource = event.getData().get(I_CmsEventListener.KEY_RESOURCE);
+        return (change instanceof Integer)
+            && ((((Integer)change).intValue() & CmsDriverManager.CHANGED_ACCESSCONTROL) > 0)
+            && (resource instanceof CmsResource)
+            && ((CmsResource)resource).isFolder();
+    }
+
     /**
      * Shuts down the Solr core container.<p>
      */
@@ -3305,6 +3505,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             }
             m_coreContainer = null;
         }
+        m_remoteSolrClients.closeAll();
     }
 
 }
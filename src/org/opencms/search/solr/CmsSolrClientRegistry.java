@@ -0,0 +1,156 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.main.CmsLog;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.impl.HttpSolrClient.Builder;
+
+/**
+ * Keeps one client for each remote Solr server, shared by all indexes using the server.<p>
+ *
+ * The clients are thread safe and keep their own connection pool. A client is closed when
+ * the last index using it is released.<p>
+ *
+ * @since 11.0.0
+ */
+public class CmsSolrClientRegistry {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSolrClientRegistry.class);
+
+    /** The clients by server URL. */
+    private final Map<String, SolrClient> m_clients = new HashMap<String, SolrClient>();
+
+    /** The names of the indexes using a client, by server URL. */
+    private final Map<String, Set<String>> m_indexes = new HashMap<String, Set<String>>();
+
+    /**
+     * Closes all clients.<p>
+     */
+    public synchronized void closeAll() {
+
+        for (SolrClient client : m_clients.values()) {
+            close(client);
+        }
+        m_clients.clear();
+        m_indexes.clear();
+    }
+
+    /**
+     * Returns the client for the Solr server with the given URL, creating it if required,
+     * and registers the index as a user of the client.<p>
+     *
+     * An index uses only one client. If it used the client of another server before, that client is released.<p>
+     *
+     * @param serverUrl the URL of the Solr server
+     * @param indexName the name of the index using the client
+     *
+     * @return the client for the Solr server
+     */
+    public synchronized SolrClient getClient(String serverUrl, String indexName) {
+
+        release(indexName, serverUrl);
+        SolrClient client = m_clients.get(serverUrl);
+        if (client == null) {
+            client = createClient(serverUrl);
+            m_clients.put(serverUrl, client);
+            m_indexes.put(serverUrl, new HashSet<String>());
+        }
+        m_indexes.get(serverUrl).add(indexName);
+        return client;
+    }
+
+    /**
+     * Releases the client used by the given index, the client is closed if no other index uses it.<p>
+     *
+     * @param indexName the name of the index
+     */
+    public synchronized void releaseClient(String indexName) {
+
+        release(indexName, null);
+    }
+
+    /**
+     * Creates the client for the Solr server with the given URL.<p>
+     *
+     * @param serverUrl the URL of the Solr server
+     *
+     * @return the client
+     */
+    protected SolrClient createClient(String serverUrl) {
+
+        return new Builder().withBaseSolrUrl(serverUrl).build();
+    }
+
+    /**
+     * Closes the given client.<p>
+     *
+     * @param client the client to close
+     */
+    private void close(SolrClient client) {
+
+        try {
+            client.close();
+        } catch (IOException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Removes the given index from the users of all clients except the client for the given server,
+     * and closes the clients no longer used.<p>
+     *
+     * @param indexName the name of the index
+     * @param keepServerUrl the URL of the server whose client is kept, may be <code>null</code>
+     */
+    private void release(String indexName, String keepServerUrl) {
+
+        Iterator<Entry<String, Set<String>>> it = m_indexes.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry<String, Set<String>> entry = it.next();
+            if (entry.getKey().equals(keepServerUrl)) {
+                continue;
+            }
+            if (entry.getValue().remove(indexName) && entry.getValue().isEmpty()) {
+                it.remove();
+                close(m_clients.remove(entry.getKey()));
+            }
+        }
+    }
+}
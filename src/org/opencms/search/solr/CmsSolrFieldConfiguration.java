@@ -186,6 +186,10 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
             document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_SEARCH_CHANNEL), "content");
         }
 
+        if (document.getDocument() instanceof SolrInputDocument) {
+            CmsSolrPermissionFilter.appendPermissionFields((SolrInputDocument)document.getDocument(), cms, resource);
+        }
+
         document = appendFieldsForListSortOptions(document);
 
         if (resource.getRootPath().startsWith(OpenCms.getSiteManager().getSharedFolder())
@@ -88,6 +88,7 @@ import javax.servlet.ServletResponse;
 import org.apache.commons.logging.Log;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
@@ -216,8 +217,8 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The name of the query parameter expand. */
     private static final String QUERY_PARAM_EXPAND = "expand";
 
-    /** The embedded Solr client for this index. */
-    transient SolrClient m_solr;
+    /** The embedded Solr client for this index, shared by all concurrent searches. */
+    transient volatile SolrClient m_solr;
 
     /** The post document manipulator. */
     private transient I_CmsSolrPostSearchProcessor m_postProcessor;
@@ -243,6 +244,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** Flag, indicating if the spellcheck handler is disabled for the index. */
     private boolean m_handlerSpellDisabled;
 
+    /** The concurrency statistics for the queries sent to the core of this index. */
+    private final CmsSolrIndexStatistics m_statistics = new CmsSolrIndexStatistics();
+
     /** The maximal number of results to process for search queries. */
     int m_maxProcessedResults = -2; // special value for not initialized.
 
@@ -519,7 +523,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
      * @see org.opencms.search.CmsSearchIndex#getDocument(java.lang.String, java.lang.String)
      */
     @Override
-    public synchronized I_CmsSearchDocument getDocument(String fieldname, String term) {
+    public I_CmsSearchDocument getDocument(String fieldname, String term) {
 
         return getDocument(fieldname, term, null);
     }
@@ -533,7 +537,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
      * @param fls the returned fields.
      * @return the document.
      */
-    public synchronized I_CmsSearchDocument getDocument(String fieldname, String term, String[] fls) {
+    public I_CmsSearchDocument getDocument(String fieldname, String term, String[] fls) {
 
         try {
             SolrQuery query = new SolrQuery();
@@ -546,9 +550,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
             if (null != fls) {
                 query.setFields(fls);
             }
-            QueryResponse res = m_solr.query(query);
+            QueryResponse res = query(query);
             if (res != null) {
-                SolrDocumentList sdl = m_solr.query(query).getResults();
+                SolrDocumentList sdl = res.getResults();
                 if ((sdl.getNumFound() > 0L) && (sdl.get(0) != null)) {
                     return new CmsSolrDocument(sdl.get(0));
                 }
@@ -635,6 +639,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return m_postProcessor;
     }
 
+    /**
+     * Returns the concurrency statistics for the queries sent to the Solr core of this index.<p>
+     *
+     * @return the query statistics of this index
+     */
+    public CmsSolrIndexStatistics getStatistics() {
+
+        return m_statistics;
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#initialize()
      */
@@ -674,7 +688,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
      */
     @Override
     @Deprecated
-    public synchronized CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) {
+    public CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) {
 
         throw new UnsupportedOperationException();
     }
@@ -883,7 +897,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
                         query,
                         getName()));
             }
-            query.addFilterQuery(CmsSearchField.FIELD_SEARCH_EXCLUDE + ":\"false\"");
+            String searchExcludeFilter = CmsSearchField.FIELD_SEARCH_EXCLUDE + ":\"false\"";
+            if ((query.getFilterQueries() == null)
+                || !Arrays.asList(query.getFilterQueries()).contains(searchExcludeFilter)) {
+                // do not add the filter twice if the query is searched again
+                query.addFilterQuery(searchExcludeFilter);
+            }
         }
 
         // get start parameter from the request
@@ -965,9 +984,19 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
             // Clone the query and keep the original one
             CmsSolrQuery checkQuery = query.clone();
+            // Let Solr filter the documents the user can not read, the Java check below remains the final authority.
+            // The filter is only added to the check query, so the principals of the user are not part of the response.
+            String permissionFilter = isCheckingPermissions()
+            ? CmsSolrPermissionFilter.getFilterQuery(searchCms)
+            : null;
+            if (permissionFilter != null) {
+                checkQuery.addFilterQuery(permissionFilter);
+            }
             // Initialize rows, offset, end and the current page.
             int end = start + rows;
-            int itemsToCheck = 0 == end ? 0 : Math.max(10, end + (end / 5)); // request 20 percent more, but at least 10 results if permissions are filtered
+            int itemsToCheck = (0 == end) || (permissionFilter != null)
+            ? end
+            : Math.max(10, end + (end / 5)); // request 20 percent more, but at least 10 results if permissions are filtered
             // use a set to prevent double entries if multiple check queries are performed.
             Set<String> resultSolrIds = new HashSet<>(rows); // rows are set before definitely.
 
@@ -993,7 +1022,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
             }
             // perform the permission check Solr query and remember the response and time Solr took.
             long solrCheckTime = System.currentTimeMillis();
-            QueryResponse checkQueryResponse = m_solr.query(checkQuery);
+            QueryResponse checkQueryResponse = query(checkQuery);
             solrCheckTime = System.currentTimeMillis() - solrCheckTime;
             solrPermissionTime += solrCheckTime;
 
@@ -1051,7 +1080,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     }
 
                     long solrSecondCheckTime = System.currentTimeMillis();
-                    QueryResponse secondCheckQueryResponse = m_solr.query(secondCheckQuery);
+                    QueryResponse secondCheckQueryResponse = query(secondCheckQuery);
                     processedResults += secondCheckQueryResponse.getResults().size();
                     solrSecondCheckTime = System.currentTimeMillis() - solrSecondCheckTime;
                     solrPermissionTime += solrCheckTime;
@@ -1137,7 +1166,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
             }
             // perform the result query.
             solrResultTime = System.currentTimeMillis();
-            QueryResponse resultQueryResponse = m_solr.query(queryForResults);
+            QueryResponse resultQueryResponse = query(queryForResults);
             solrResultTime = System.currentTimeMillis() - solrResultTime;
 
             // List containing solr ids of filtered contents for which highlighting has to be removed.
@@ -1388,7 +1417,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
             q.setRequestHandler("/spell");
             q.setRows(Integer.valueOf(0));
 
-            QueryResponse queryResponse = m_solr.query(q);
+            QueryResponse queryResponse = query(q);
 
             List<CmsSearchResource> resourceDocumentList = new ArrayList<CmsSearchResource>();
             SolrDocumentList solrDocumentList = new SolrDocumentList();
@@ -1615,6 +1644,28 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return false;
     }
 
+    /**
+     * Sends the given query to the Solr core of this index and records it in the statistics.<p>
+     *
+     * This method is not synchronized, the Solr client is thread safe and shared by all concurrent queries.<p>
+     *
+     * @param query the query to send
+     *
+     * @return the response
+     *
+     * @throws SolrServerException if the query fails in Solr
+     * @throws IOException if the communication with the Solr server fails
+     */
+    private QueryResponse query(SolrQuery query) throws SolrServerException, IOException {
+
+        long startTime = m_statistics.queryStarted();
+        try {
+            return m_solr.query(query);
+        } finally {
+            m_statistics.queryFinished(startTime);
+        }
+    }
+
     /**
      * Throws an exception if the request can for security reasons not be performed.
      * Security restrictions can be set via parameters of the index.
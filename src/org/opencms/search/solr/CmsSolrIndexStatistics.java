@@ -0,0 +1,175 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency statistics for the queries sent to the Solr core of one index.<p>
+ *
+ * Searches and document lookups on an index run in parallel, so the number of queries
+ * executed at the same time shows how busy the core is.<p>
+ *
+ * @since 11.0.0
+ */
+public final class CmsSolrIndexStatistics implements Serializable {
+
+    /** The serial version id. */
+    private static final long serialVersionUID = 5470148263318727391L;
+
+    /** The number of queries currently executed. */
+    private final AtomicInteger m_activeQueries = new AtomicInteger();
+
+    /** The highest number of queries executed at the same time. */
+    private final AtomicInteger m_maxActiveQueries = new AtomicInteger();
+
+    /** The longest query time in nanoseconds. */
+    private final AtomicLong m_maxTime = new AtomicLong();
+
+    /** The number of executed queries. */
+    private final LongAdder m_queries = new LongAdder();
+
+    /** The summed up query time in nanoseconds. */
+    private final LongAdder m_totalTime = new LongAdder();
+
+    /**
+     * Returns the number of queries currently executed.<p>
+     *
+     * @return the number of queries currently executed
+     */
+    public int getActiveQueries() {
+
+        return m_activeQueries.get();
+    }
+
+    /**
+     * Returns the average query time in milliseconds.<p>
+     *
+     * @return the average query time in milliseconds
+     */
+    public double getAverageTime() {
+
+        long queries = m_queries.sum();
+        return queries == 0 ? 0 : (m_totalTime.sum() / (double)queries) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the highest number of queries executed at the same time.<p>
+     *
+     * @return the highest number of queries executed at the same time
+     */
+    public int getMaxActiveQueries() {
+
+        return m_maxActiveQueries.get();
+    }
+
+    /**
+     * Returns the longest query time in milliseconds.<p>
+     *
+     * @return the longest query time in milliseconds
+     */
+    public long getMaxTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_maxTime.get());
+    }
+
+    /**
+     * Returns the number of executed queries.<p>
+     *
+     * @return the number of executed queries
+     */
+    public long getQueries() {
+
+        return m_queries.sum();
+    }
+
+    /**
+     * Returns the summed up query time in milliseconds.<p>
+     *
+     * @return the summed up query time in milliseconds
+     */
+    public long getTotalTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(m_totalTime.sum());
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "[queries="
+            + getQueries()
+            + ", active="
+            + getActiveQueries()
+            + ", maxActive="
+            + getMaxActiveQueries()
+            + ", total="
+            + getTotalTime()
+            + "ms, max="
+            + getMaxTime()
+            + "ms]";
+    }
+
+    /**
+     * Records the end of a query.<p>
+     *
+     * @param startTime the start time returned by {@link #queryStarted()}
+     */
+    void queryFinished(long startTime) {
+
+        long nanos = System.nanoTime() - startTime;
+        m_activeQueries.decrementAndGet();
+        m_queries.increment();
+        m_totalTime.add(nanos);
+        long max = m_maxTime.get();
+        while ((nanos > max) && !m_maxTime.compareAndSet(max, nanos)) {
+            max = m_maxTime.get();
+        }
+    }
+
+    /**
+     * Records the start of a query.<p>
+     *
+     * @return the start time in nanoseconds, to pass to {@link #queryFinished(long)}
+     */
+    long queryStarted() {
+
+        int active = m_activeQueries.incrementAndGet();
+        int max = m_maxActiveQueries.get();
+        while ((active > max) && !m_maxActiveQueries.compareAndSet(max, active)) {
+            max = m_maxActiveQueries.get();
+        }
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsUser;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
+import org.opencms.security.CmsRole;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * Stores the read permissions of a resource in the Solr document and creates the matching filter query for a user.<p>
+ *
+ * For every principal of the effective access control list of a resource the document stores if the principal
+ * grants or denies read access. The filter query built for a user mirrors
+ * {@link CmsAccessControlList#getPermissions(CmsUser, List, List)}: a document matches if one of the principals
+ * of the user grants read access and none of them denies it, or if no principal of the user is contained in the
+ * access control list and the "all others" entry grants read access.<p>
+ *
+ * Documents indexed without the permission fields always match, so the Java permission check performed
+ * for every search result stays the final authority.<p>
+ *
+ * @since 11.0.0
+ */
+final class CmsSolrPermissionFilter {
+
+    /** Field containing the ids of the principals that grant read access. */
+    static final String FIELD_ACL_ALLOW = "acl_allow_mvs";
+
+    /** Field containing the ids of the principals that deny read access. */
+    static final String FIELD_ACL_DENY = "acl_deny_mvs";
+
+    /** Field marking documents indexed with the permission fields. */
+    static final String FIELD_ACL_INDEXED = "acl_indexed_b";
+
+    /** Field indicating if the "all others" entry grants read access. */
+    static final String FIELD_ACL_OTHERS = "acl_others_b";
+
+    /** Field containing the ids of all principals of the access control list, except "all others". */
+    static final String FIELD_ACL_PRINCIPALS = "acl_principals_mvs";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSolrPermissionFilter.class);
+
+    /**
+     * Hidden constructor.<p>
+     */
+    private CmsSolrPermissionFilter() {
+
+        // noop
+    }
+
+    /**
+     * Adds the permission fields for the given resource to the Solr document.<p>
+     *
+     * @param doc the Solr document
+     * @param cms the OpenCms context used for indexing
+     * @param resource the indexed resource
+     */
+    static void appendPermissionFields(SolrInputDocument doc, CmsObject cms, CmsResource resource) {
+
+        CmsAccessControlList acl;
+        try {
+            acl = cms.getAccessControlList(cms.getRequestContext().removeSiteRoot(resource.getRootPath()));
+        } catch (CmsException e) {
+            // without the fields the document is only checked in Java
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_ACL_FIELDS_1, resource.getRootPath()), e);
+            return;
+        }
+        boolean others = false;
+        for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : acl.getPermissionMap().entrySet()) {
+            CmsPermissionSet permissions = entry.getValue();
+            boolean allowed = (permissions.getAllowedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0;
+            boolean denied = (permissions.getDeniedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0;
+            if (CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.equals(entry.getKey())) {
+                others = allowed && !denied;
+                continue;
+            }
+            String principal = entry.getKey().toString();
+            doc.addField(FIELD_ACL_PRINCIPALS, principal);
+            if (allowed) {
+                doc.addField(FIELD_ACL_ALLOW, principal);
+            }
+            if (denied) {
+                doc.addField(FIELD_ACL_DENY, principal);
+            }
+        }
+        doc.addField(FIELD_ACL_OTHERS, Boolean.valueOf(others));
+        doc.addField(FIELD_ACL_INDEXED, Boolean.TRUE);
+    }
+
+    /**
+     * Creates the filter query that restricts the search results to the documents readable by the given principals.<p>
+     *
+     * @param principalIds the ids of the user, its groups and its roles
+     *
+     * @return the filter query
+     */
+    static String createFilterQuery(Collection<CmsUUID> principalIds) {
+
+        String principals = createOrClause(principalIds);
+        StringBuffer result = new StringBuffer(128 + (3 * principals.length()));
+        // documents indexed without the permission fields are checked in Java only
+        result.append("(*:* -").append(FIELD_ACL_INDEXED).append(":true)");
+        // one of the principals grants read access and none denies it
+        result.append(" OR (").append(FIELD_ACL_ALLOW).append(':').append(principals);
+        result.append(" -").append(FIELD_ACL_DENY).append(':').append(principals).append(')');
+        // none of the principals is contained in the list, the "all others" entry applies
+        result.append(" OR (").append(FIELD_ACL_OTHERS).append(":true");
+        result.append(" -").append(FIELD_ACL_PRINCIPALS).append(':').append(principals).append(')');
+        return result.toString();
+    }
+
+    /**
+     * Returns the filter query restricting the search results to the documents readable by the current user.<p>
+     *
+     * The principals of the user are read from the group and role caches, so the query is the same string for
+     * every search of the user and is cached in the filter cache of Solr.<p>
+     *
+     * Returns <code>null</code> if the user may ignore the access control lists or if the principals of the
+     * user can not be read, then all documents are checked in Java only.<p>
+     *
+     * @param cms the OpenCms context of the searching user
+     *
+     * @return the filter query, or <code>null</code>
+     */
+    static String getFilterQuery(CmsObject cms) {
+
+        CmsUser user = cms.getRequestContext().getCurrentUser();
+        Set<CmsUUID> principalIds = new LinkedHashSet<CmsUUID>();
+        principalIds.add(user.getId());
+        try {
+            for (CmsGroup group : cms.getGroupsOfUser(user.getName(), false)) {
+                principalIds.add(group.getId());
+            }
+            if (!user.isGuestUser()) {
+                // like the permission check in Java, include the roles implied by the roles of the user
+                List<CmsRole> roles = OpenCms.getRoleManager().getRolesOfUser(
+                    cms,
+                    user.getName(),
+                    "",
+                    true,
+                    false,
+                    false);
+                for (CmsRole role : roles) {
+                    if (isVfsManager(role)) {
+                        // the access control lists are ignored for this user
+                        return null;
+                    }
+                    principalIds.add(role.forOrgUnit(null).getId());
+                }
+            }
+        } catch (CmsException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_SOLR_ERR_ACL_FILTER_1, user.getName()), e);
+            return null;
+        }
+        return createFilterQuery(principalIds);
+    }
+
+    /**
+     * Creates a disjunction of the quoted principal ids.<p>
+     *
+     * @param principalIds the principal ids
+     *
+     * @return the disjunction, in parentheses
+     */
+    private static String createOrClause(Collection<CmsUUID> principalIds) {
+
+        List<String> terms = new ArrayList<String>(principalIds.size());
+        for (CmsUUID id : principalIds) {
+            terms.add("\"" + id + "\"");
+        }
+        StringBuffer result = new StringBuffer(terms.size() * 42);
+        result.append('(');
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) {
+                result.append(" OR ");
+            }
+            result.append(terms.get(i));
+        }
+        result.append(')');
+        return result.toString();
+    }
+
+    /**
+     * Checks if the given role includes the role to ignore the access control lists of resources.<p>
+     *
+     * @param role the role to check
+     *
+     * @return <code>true</code> if the given role is the VFS manager role or one of its parent roles
+     */
+    private static boolean isVfsManager(CmsRole role) {
+
+        for (CmsRole parent = CmsRole.VFS_MANAGER; parent != null; parent = parent.getParentRole()) {
+            if (parent.getRoleName().equals(role.getRoleName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -67,6 +67,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_INFO_REMOVING_EXPAND_2 = "LOG_SOLR_INFO_REMOVING_EXPAND_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_ERR_ACL_FIELDS_1 = "LOG_SOLR_ERR_ACL_FIELDS_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_ERR_ACL_FILTER_1 = "LOG_SOLR_ERR_ACL_FILTER_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_ERR_CONFIG_XML_NOT_FOUND_1 = "LOG_SOLR_ERR_CONFIG_XML_NOT_FOUND_1";
 
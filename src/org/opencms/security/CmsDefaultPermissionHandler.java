@@ -31,6 +31,7 @@ import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPermissionCacheKey;
 import org.opencms.db.CmsSecurityManager;
 import org.opencms.db.I_CmsCacheKey;
 import org.opencms.file.CmsProject;
@@ -85,16 +86,19 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
 
         // checking the filter is less cost intensive then checking the cache,
         // this is why basic filter results are not cached
-        String cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(
-            filter.requireVisible() && checkLock
-            ? "11"
-            : (!filter.requireVisible() && checkLock ? "01" : (filter.requireVisible() && !checkLock ? "10" : "00")),
-            dbc,
-            resource,
-            requiredPermissions);
-        CmsPermissionCheckResult cacheResult = OpenCms.getMemoryMonitor().getCachedPermission(cacheKey);
-        if (cacheResult != null) {
-            return cacheResult;
+        int flags = 0;
+        if (filter.requireVisible()) {
+            flags |= CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE;
+        }
+        if (checkLock) {
+            flags |= CmsPermissionCacheKey.FLAG_CHECK_LOCK;
+        }
+        Object cacheKey = m_keyGenerator.getPermissionCacheKey(flags, dbc, resource, requiredPermissions);
+        if (cacheKey != null) {
+            CmsPermissionCheckResult cacheResult = OpenCms.getMemoryMonitor().getCachedPermission(cacheKey);
+            if (cacheResult != null) {
+                return cacheResult;
+            }
         }
 
         int denied = 0;
@@ -214,7 +218,7 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
                             permissions.getPermissionString()}));
             }
         }
-        if (dbc.getProjectId().isNullUUID()) {
+        if (cacheKey != null) {
             OpenCms.getMemoryMonitor().cachePermission(cacheKey, result);
         }
 
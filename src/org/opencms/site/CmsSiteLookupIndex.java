@@ -0,0 +1,209 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable index for looking up the configured sites by resource root path and by server.<p>
+ *
+ * The site roots are stored in a character trie, so finding the site for a root path
+ * only walks the path once and does not create any objects. The site matchers are
+ * grouped by their lower case server name.<p>
+ *
+ * A new index is created by the site manager every time the configured sites change.<p>
+ *
+ * @since 11.0.0
+ */
+final class CmsSiteLookupIndex {
+
+    /**
+     * A node of the site root trie.<p>
+     */
+    private static final class CmsTrieNode {
+
+        /** The characters leading to the child nodes, sorted. */
+        char[] m_chars = new char[0];
+
+        /** The child nodes, in the order of the characters. */
+        CmsTrieNode[] m_children = new CmsTrieNode[0];
+
+        /** The site whose root path followed by a slash leads to this node, or <code>null</code>. */
+        CmsSite m_site;
+
+        /**
+         * Returns the child node for the given character, or <code>null</code>.<p>
+         *
+         * @param c the character
+         *
+         * @return the child node for the given character
+         */
+        CmsTrieNode getChild(char c) {
+
+            int pos = Arrays.binarySearch(m_chars, c);
+            return pos < 0 ? null : m_children[pos];
+        }
+
+        /**
+         * Returns the child node for the given character, creating it if required.<p>
+         *
+         * @param c the character
+         *
+         * @return the child node for the given character
+         */
+        CmsTrieNode getOrCreateChild(char c) {
+
+            int pos = Arrays.binarySearch(m_chars, c);
+            if (pos >= 0) {
+                return m_children[pos];
+            }
+            pos = -(pos + 1);
+            int size = m_chars.length;
+            char[] chars = new char[size + 1];
+            CmsTrieNode[] children = new CmsTrieNode[size + 1];
+            System.arraycopy(m_chars, 0, chars, 0, pos);
+            System.arraycopy(m_children, 0, children, 0, pos);
+            System.arraycopy(m_chars, pos, chars, pos + 1, size - pos);
+            System.arraycopy(m_children, pos, children, pos + 1, size - pos);
+            CmsTrieNode child = new CmsTrieNode();
+            chars[pos] = c;
+            children[pos] = child;
+            m_chars = chars;
+            m_children = children;
+            return child;
+        }
+    }
+
+    /** The configured site matchers with their sites, by lower case server name. */
+    private final Map<String, List<Map.Entry<CmsSiteMatcher, CmsSite>>> m_servers;
+
+    /** The root node of the site root trie. */
+    private final CmsTrieNode m_root;
+
+    /**
+     * Creates a new index.<p>
+     *
+     * @param siteRootSites the configured sites by site root
+     * @param siteMatcherSites the configured sites by site matcher
+     */
+    CmsSiteLookupIndex(Map<String, CmsSite> siteRootSites, Map<CmsSiteMatcher, CmsSite> siteMatcherSites) {
+
+        m_root = new CmsTrieNode();
+        for (Map.Entry<String, CmsSite> entry : siteRootSites.entrySet()) {
+            String siteRoot = entry.getKey();
+            if ((siteRoot.length() == 0) || siteRoot.equals("/")) {
+                // would match every path
+                continue;
+            }
+            CmsTrieNode node = m_root;
+            for (int i = 0; i < siteRoot.length(); i++) {
+                node = node.getOrCreateChild(siteRoot.charAt(i));
+            }
+            node.getOrCreateChild('/').m_site = entry.getValue();
+        }
+
+        m_servers = new HashMap<String, List<Map.Entry<CmsSiteMatcher, CmsSite>>>();
+        for (Map.Entry<CmsSiteMatcher, CmsSite> entry : siteMatcherSites.entrySet()) {
+            String key = entry.getKey().getServerName().toLowerCase(Locale.ROOT);
+            List<Map.Entry<CmsSiteMatcher, CmsSite>> entries = m_servers.get(key);
+            if (entries == null) {
+                entries = new ArrayList<Map.Entry<CmsSiteMatcher, CmsSite>>(2);
+                m_servers.put(key, entries);
+            }
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * Returns the site for the given resource root path, or <code>null</code> if the path does not belong to any site.<p>
+     *
+     * If the site roots of several sites match, the longest site root wins.<p>
+     *
+     * @param rootPath the root path of a resource, may be the site root itself with or without trailing slash
+     *
+     * @return the site for the given root path, or <code>null</code>
+     */
+    CmsSite getSiteForRootPath(String rootPath) {
+
+        CmsSite result = null;
+        CmsTrieNode node = m_root;
+        int length = rootPath.length();
+        for (int i = 0; i < length; i++) {
+            char c = rootPath.charAt(i);
+            node = node.getChild(c);
+            if (node == null) {
+                return result;
+            }
+            if ((c == '/') && (node.m_site != null)) {
+                result = node.m_site;
+            }
+        }
+        if ((length > 0) && (rootPath.charAt(length - 1) != '/')) {
+            // the path may be a site root without the trailing slash
+            node = node.getChild('/');
+            if ((node != null) && (node.m_site != null)) {
+                result = node.m_site;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the configured site matcher with its site for the given server, or <code>null</code> if no site matcher matches.<p>
+     *
+     * @param scheme the scheme, e.g. <code>http</code>
+     * @param serverName the server name
+     * @param port the port
+     *
+     * @return the configured site matcher with its site, or <code>null</code>
+     */
+    Map.Entry<CmsSiteMatcher, CmsSite> matchServer(String scheme, String serverName, int port) {
+
+        List<Map.Entry<CmsSiteMatcher, CmsSite>> entries = m_servers.get(serverName);
+        if ((entries == null) && (serverName != null)) {
+            entries = m_servers.get(serverName.toLowerCase(Locale.ROOT));
+        }
+        if (entries == null) {
+            return null;
+        }
+        port = Math.max(port, 0);
+        for (int i = 0, size = entries.size(); i < size; i++) {
+            Map.Entry<CmsSiteMatcher, CmsSite> entry = entries.get(i);
+            CmsSiteMatcher matcher = entry.getKey();
+            if ((matcher.getServerPort() == port) && matcher.getServerProtocol().equalsIgnoreCase(scheme)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+}
@@ -43,6 +43,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.I_CmsSynchronousEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.CmsPermissionSet;
@@ -79,7 +80,7 @@ import com.google.common.collect.Maps;
  *
  * @since 7.0.2
  */
-public final class CmsSiteManagerImpl implements I_CmsEventListener {
+public final class CmsSiteManagerImpl implements I_CmsSynchronousEventListener {
 
     /** The default shared folder name. */
     public static final String DEFAULT_SHARED_FOLDER = "shared";
@@ -115,15 +116,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /** The static log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSiteManagerImpl.class);
 
-    /** The path to the "/sites/" folder. */
-    private static final String SITES_FOLDER = "/sites/";
-
-    /** The length of the "/sites/" folder plus 1. */
-    private static final int SITES_FOLDER_POS = SITES_FOLDER.length() + 1;
-
-    /** A list of additional site roots, that is site roots that are not below the "/sites/" folder. */
-    private List<String> m_additionalSiteRoots;
-
     /**
      * The list of aliases for the site that is configured at the moment,
      * needed for the sites added during configuration. */
@@ -147,6 +139,9 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /**Is the publish listener already set? */
     private boolean m_isListenerSet;
 
+    /** The index for looking up sites by root path and by server, rebuilt whenever the sites change. */
+    private volatile CmsSiteLookupIndex m_lookupIndex;
+
     /**Old style secure server allowed? */
     private boolean m_oldStyleSecureServer;
 
@@ -156,9 +151,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     /** The shared folder name. */
     private String m_sharedFolder;
 
-    /** Contains all configured site matchers in a list for direct access. */
-    private List<CmsSiteMatcher> m_siteMatchers;
-
     /** Maps site matchers to sites. */
     private Map<CmsSiteMatcher, CmsSite> m_siteMatcherSites;
 
@@ -185,9 +177,9 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
 
         m_siteMatcherSites = new HashMap<CmsSiteMatcher, CmsSite>();
         m_siteRootSites = new HashMap<String, CmsSite>();
+        updateLookupIndex();
         m_aliases = new ArrayList<CmsSiteMatcher>();
         m_siteParams = new TreeMap<String, String>();
-        m_additionalSiteRoots = new ArrayList<String>();
         m_workplaceServers = new LinkedHashMap<String, CmsSSLMode>();
         m_workplaceMatchers = new ArrayList<CmsSiteMatcher>();
         m_oldStyleSecureServer = true;
@@ -377,6 +369,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         m_siteParams = new TreeMap<String, String>();
         m_siteRootSites = new HashMap<String, CmsSite>(m_siteRootSites);
         m_siteRootSites.put(site.getSiteRoot(), site);
+        updateLookupIndex();
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SITE_ROOT_ADDED_1, site.toString()));
         }
@@ -894,17 +887,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
      */
     public CmsSite getSiteForRootPath(String rootPath) {
 
-        if ((rootPath.length() > 0) && !rootPath.endsWith("/")) {
-            rootPath = rootPath + "/";
-        }
-        // most sites will be below the "/sites/" folder,
-        CmsSite result = lookupSitesFolder(rootPath);
-        if (result != null) {
-            return result;
-        }
-        // look through all folders that are not below "/sites/"
-        String siteRoot = lookupAdditionalSite(rootPath);
-        return (siteRoot != null) ? getSiteForSiteRoot(siteRoot) : null;
+        return m_lookupIndex.getSiteForRootPath(rootPath);
     }
 
     /**
@@ -944,17 +927,8 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
      */
     public String getSiteRoot(String rootPath) {
 
-        // add a trailing slash, because the path may be the path of a site root itself
-        if (!rootPath.endsWith("/")) {
-            rootPath = rootPath + "/";
-        }
-        // most sites will be below the "/sites/" folder,
-        CmsSite site = lookupSitesFolder(rootPath);
-        if (site != null) {
-            return site.getSiteRoot();
-        }
-        // look through all folders that are not below "/sites/"
-        return lookupAdditionalSite(rootPath);
+        CmsSite site = m_lookupIndex.getSiteForRootPath(rootPath);
+        return (site != null) ? site.getSiteRoot() : null;
     }
 
     /**
@@ -1177,13 +1151,6 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
             // set site lists to unmodifiable
             setSiteMatcherSites(m_siteMatcherSites);
 
-            // store additional site roots to optimize lookups later
-            for (String root : m_siteRootSites.keySet()) {
-                if (!root.startsWith(SITES_FOLDER) || (root.split("/").length >= 4)) {
-                    m_additionalSiteRoots.add(root);
-                }
-            }
-
             if (m_sharedFolder == null) {
                 m_sharedFolder = DEFAULT_SHARED_FOLDER;
             }
@@ -1354,16 +1321,26 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
      */
     public CmsSite matchRequest(HttpServletRequest req) {
 
-        CmsSiteMatcher matcher = getRequestMatcher(req);
-        if (matcher.getTimeOffset() != 0) {
-            HttpSession session = req.getSession();
-            if (session != null) {
-                session.setAttribute(
-                    CmsContextInfo.ATTRIBUTE_REQUEST_TIME,
-                    new Long(System.currentTimeMillis() + matcher.getTimeOffset()));
+        Map.Entry<CmsSiteMatcher, CmsSite> entry = m_lookupIndex.matchServer(
+            req.getScheme(),
+            req.getServerName(),
+            req.getServerPort());
+        CmsSite site;
+        if (entry != null) {
+            CmsSiteMatcher matcher = entry.getKey();
+            if (matcher.getTimeOffset() != 0) {
+                HttpSession session = req.getSession();
+                if (session != null) {
+                    session.setAttribute(
+                        CmsContextInfo.ATTRIBUTE_REQUEST_TIME,
+                        new Long(System.currentTimeMillis() + matcher.getTimeOffset()));
+                }
             }
+            site = entry.getValue();
+        } else {
+            // return the default site (might be null as well)
+            site = m_defaultSite;
         }
-        CmsSite site = matchSite(matcher);
 
         if (LOG.isDebugEnabled()) {
             String requestServer = req.getScheme() + "://" + req.getServerName() + ":" + req.getServerPort();
@@ -1427,6 +1404,7 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
         Map<String, CmsSite> siteRootSites = new HashMap<String, CmsSite>(m_siteRootSites);
         siteRootSites.remove(site.getSiteRoot());
         m_siteRootSites = Collections.unmodifiableMap(siteRootSites);
+        updateLookupIndex();
 
         // re-initialize, will freeze the state when finished
         initialize(cms);
@@ -1698,13 +1676,15 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
      */
     private CmsSiteMatcher getRequestMatcher(HttpServletRequest req) {
 
-        CmsSiteMatcher matcher = new CmsSiteMatcher(req.getScheme(), req.getServerName(), req.getServerPort());
         // this is required to get the right configured time offset
-        int index = m_siteMatchers.indexOf(matcher);
-        if (index < 0) {
-            return matcher;
+        Map.Entry<CmsSiteMatcher, CmsSite> entry = m_lookupIndex.matchServer(
+            req.getScheme(),
+            req.getServerName(),
+            req.getServerPort());
+        if (entry == null) {
+            return new CmsSiteMatcher(req.getScheme(), req.getServerName(), req.getServerPort());
         }
-        return m_siteMatchers.get(index);
+        return entry.getKey();
     }
 
     /**
@@ -1756,52 +1736,22 @@ public final class CmsSiteManagerImpl implements I_CmsEventListener {
     }
 
     /**
-     * Returns <code>true</code> if the given root path matches any of the stored additional sites.<p>
-     *
-     * @param rootPath the root path to check
-     *
-     * @return <code>true</code> if the given root path matches any of the stored additional sites
-     */
-    private String lookupAdditionalSite(String rootPath) {
-
-        for (int i = 0, size = m_additionalSiteRoots.size(); i < size; i++) {
-            String siteRoot = m_additionalSiteRoots.get(i);
-            if (rootPath.startsWith(siteRoot + "/")) {
-                return siteRoot;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Returns the configured site if the given root path matches site in the "/sites/" folder,
-     * or <code>null</code> otherwise.<p>
-     *
-     * @param rootPath the root path to check
+     * Sets the class member variable {@link #m_siteMatcherSites}
+     * from the provided map of configured site matchers.<p>
      *
-     * @return the configured site if the given root path matches site in the "/sites/" folder,
-     *      or <code>null</code> otherwise
+     * @param siteMatcherSites the site matches to set
      */
-    private CmsSite lookupSitesFolder(String rootPath) {
+    private void setSiteMatcherSites(Map<CmsSiteMatcher, CmsSite> siteMatcherSites) {
 
-        int pos = rootPath.indexOf('/', SITES_FOLDER_POS);
-        if (pos > 0) {
-            // this assumes that the root path may likely start with something like "/sites/default/"
-            // just cut the first 2 directories from the root path and do a direct lookup in the internal map
-            return m_siteRootSites.get(rootPath.substring(0, pos));
-        }
-        return null;
+        m_siteMatcherSites = Collections.unmodifiableMap(siteMatcherSites);
+        updateLookupIndex();
     }
 
     /**
-     * Sets the class member variables {@link #m_siteMatcherSites} and  {@link #m_siteMatchers}
-     * from the provided map of configured site matchers.<p>
-     *
-     * @param siteMatcherSites the site matches to set
+     * Replaces the lookup index with a new one for the currently configured sites.<p>
      */
-    private void setSiteMatcherSites(Map<CmsSiteMatcher, CmsSite> siteMatcherSites) {
+    private void updateLookupIndex() {
 
-        m_siteMatcherSites = Collections.unmodifiableMap(siteMatcherSites);
-        m_siteMatchers = Collections.unmodifiableList(new ArrayList<CmsSiteMatcher>(m_siteMatcherSites.keySet()));
+        m_lookupIndex = new CmsSiteLookupIndex(m_siteRootSites, m_siteMatcherSites);
     }
 }
\ No newline at end of file
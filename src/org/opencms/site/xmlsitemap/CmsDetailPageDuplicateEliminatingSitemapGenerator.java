@@ -177,6 +177,17 @@ public class CmsDetailPageDuplicateEliminatingSitemapGenerator extends CmsXmlSit
         }
     }
 
+    /**
+     * Returns false, since duplicate detail page entries are eliminated by {@link #generateSitemapBeans()}.<p>
+     *
+     * @see org.opencms.site.xmlsitemap.CmsXmlSitemapGenerator#supportsIteratorGeneration()
+     */
+    @Override
+    protected boolean supportsIteratorGeneration() {
+
+        return false;
+    }
+
     /**
      * Gets the contents for the given folder path and type name.<p>
      *
@@ -42,9 +42,15 @@ import org.apache.commons.logging.Log;
 
 /**
  * Scheduled job for updating the XML sitemap cache.<p>
+ *
+ * With the parameter <code>incremental=true</code>, only the sitemaps which are not cached yet or which
+ * may have been changed by resources published since the last run are updated.<p>
  */
 public class CmsUpdateXmlSitemapCacheJob implements I_CmsScheduledJob {
 
+    /** Job parameter to only update the sitemaps which may have been changed by published resources. */
+    public static final String PARAM_INCREMENTAL = "incremental";
+
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsUpdateXmlSitemapCacheJob.class);
 
@@ -60,6 +66,10 @@ public class CmsUpdateXmlSitemapCacheJob implements I_CmsScheduledJob {
         if (parentFolder == null) {
             parentFolder = "/";
         }
+        boolean incremental = Boolean.parseBoolean(parameters.get(PARAM_INCREMENTAL));
+        if (incremental) {
+            CmsXmlSitemapCache.INSTANCE.checkPublishedResources(cms);
+        }
         I_CmsResourceType type = OpenCms.getResourceManager().getResourceType(CmsXmlSeoConfiguration.SEO_FILE_TYPE);
         List<CmsResource> resources = cms.readResources(
             parentFolder,
@@ -79,11 +89,14 @@ public class CmsUpdateXmlSitemapCacheJob implements I_CmsScheduledJob {
                 config.load(cms, res);
                 CmsXmlSitemapGenerator generator = null;
                 if (config.usesCache()) {
+                    if (incremental && !CmsXmlSitemapCache.INSTANCE.isStale(res.getRootPath())) {
+                        LOG.info("Sitemap for file " + res.getRootPath() + " is up to date");
+                        continue;
+                    }
                     generator = CmsXmlSitemapActionElement.prepareSitemapGenerator(res, config);
                 }
                 if (generator != null) {
-                    String xml = generator.renderSitemap();
-                    CmsXmlSitemapCache.INSTANCE.put(res.getRootPath(), xml);
+                    CmsXmlSitemapCache.INSTANCE.update(res, generator);
                 } else {
                     LOG.info("Ignoring file " + res.getRootPath());
                 }
@@ -38,6 +38,7 @@ import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.Writer;
 import java.lang.reflect.Constructor;
 import java.util.List;
 
@@ -158,30 +159,40 @@ public class CmsXmlSitemapActionElement extends CmsJspActionElement {
             showRobotsTxt();
         } else {
             boolean updateCache = Boolean.parseBoolean(getRequest().getParameter("updateCache"));
-            String value = "";
-            if (updateCache && m_configuration.usesCache()) {
-                // update request, and caching is configured -> update the cache
-                CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
-                value = generator.renderSitemap();
-                CmsXmlSitemapCache.INSTANCE.put(seoFile.getRootPath(), value);
-            } else if (!updateCache && m_configuration.usesCache()) {
-                // normal request, and caching is configured -> look in the cache first, and if not found, calculate sitemap and store it in cache
-                String cachedValue = CmsXmlSitemapCache.INSTANCE.get(seoFile.getRootPath());
-                if (cachedValue != null) {
-                    value = cachedValue;
-                } else {
+            int part = 0;
+            String partParam = getRequest().getParameter(CmsXmlSitemapGenerator.PARAM_PART);
+            if (partParam != null) {
+                try {
+                    part = Integer.parseInt(partParam);
+                } catch (NumberFormatException e) {
+                    part = -1;
+                }
+            }
+            if (part < 0) {
+                getResponse().sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            Writer out = getResponse().getWriter();
+            boolean found;
+            if (m_configuration.usesCache()) {
+                // update request or sitemap not cached yet -> calculate the sitemap and store it in the cache
+                String key = seoFile.getRootPath();
+                if (updateCache || !CmsXmlSitemapCache.INSTANCE.isCached(key)) {
                     CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
-                    value = generator.renderSitemap();
-                    CmsXmlSitemapCache.INSTANCE.put(seoFile.getRootPath(), value);
+                    CmsXmlSitemapCache.INSTANCE.update(seoFile, generator);
                 }
-            } else if (!updateCache && !m_configuration.usesCache()) {
+                found = CmsXmlSitemapCache.INSTANCE.write(key, part, out);
+            } else if (!updateCache) {
                 // normal request, caching is not configured -> always generate a fresh sitemap
                 CmsXmlSitemapGenerator generator = prepareSitemapGenerator(seoFile, m_configuration);
-                value = generator.renderSitemap();
-            } else if (updateCache && !m_configuration.usesCache()) {
+                found = generator.writeSitemapPartition(out, seoFile.getRootPath(), part);
+            } else {
                 // update request with no caching configured -> ignore
+                found = true;
+            }
+            if (!found) {
+                getResponse().sendError(HttpServletResponse.SC_NOT_FOUND);
             }
-            getResponse().getWriter().print(value);
         }
 
     }
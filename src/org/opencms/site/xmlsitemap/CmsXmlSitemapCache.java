@@ -27,55 +27,583 @@
 
 package org.opencms.site.xmlsitemap;
 
+import org.opencms.ade.configuration.CmsADEManager;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Cache for XML sitemaps.<p>
+ *
+ * The sitemaps are stored as files in the RFS, so a large sitemap does not occupy the heap. Sitemaps with more than
+ * {@link CmsXmlSitemapGenerator#MAX_URLS_PER_SITEMAP} entries are split into partitions, which are referenced by a
+ * sitemap index. When a sitemap is updated, partitions whose content did not change keep their file and their
+ * modification date in the sitemap index.<p>
+ *
+ * The cache remembers the published resources, so {@link #checkPublishedResources(CmsObject)} can find out
+ * which of the cached sitemaps have to be updated.<p>
  */
-public class CmsXmlSitemapCache {
+public class CmsXmlSitemapCache implements I_CmsEventListener {
 
-    /** The logger for this class. */
-    private static final Log LOG = CmsLog.getLog(CmsXmlSitemapCache.class);
+    /**
+     * A sitemap stored in the cache.<p>
+     */
+    private static class CmsCachedSitemap {
+
+        /** True if every change in the site may change the sitemap. */
+        boolean m_checkAllResources;
+
+        /** The dates the partitions were last modified. */
+        long[] m_datesLastModified;
+
+        /** The MD5 digests of the partitions. */
+        byte[][] m_digests;
+
+        /** The files storing the partitions. */
+        File[] m_files;
+
+        /** The hash codes of the structure ids of all resources in the sitemap, sorted. */
+        int[] m_ids;
+
+        /** The sitemap index, or <code>null</code> if the sitemap has only one partition. */
+        String m_index;
+
+        /** The site root of the sitemap. */
+        String m_siteRoot;
+
+        /** True if the sitemap has to be updated. */
+        volatile boolean m_stale;
+    }
+
+    /**
+     * Iterates over sitemap entries and collects the hash codes of the structure ids of their resources.<p>
+     */
+    private static class CmsIdCollectingIterator implements Iterator<CmsXmlSitemapUrlBean> {
+
+        /** The number of hash codes collected. */
+        private int m_count;
+
+        /** The hash codes collected. */
+        private int[] m_ids = new int[1024];
+
+        /** The sitemap entries. */
+        private Iterator<CmsXmlSitemapUrlBean> m_urlBeans;
+
+        /**
+         * Creates a new iterator.<p>
+         *
+         * @param urlBeans the sitemap entries
+         */
+        CmsIdCollectingIterator(Iterator<CmsXmlSitemapUrlBean> urlBeans) {
+
+            m_urlBeans = urlBeans;
+        }
+
+        /**
+         * @see java.util.Iterator#hasNext()
+         */
+        public boolean hasNext() {
+
+            return m_urlBeans.hasNext();
+        }
+
+        /**
+         * @see java.util.Iterator#next()
+         */
+        public CmsXmlSitemapUrlBean next() {
+
+            CmsXmlSitemapUrlBean urlBean = m_urlBeans.next();
+            if (m_ids.length < (m_count + 2)) {
+                m_ids = Arrays.copyOf(m_ids, m_ids.length * 2);
+            }
+            if (urlBean.getOriginalResource() != null) {
+                m_ids[m_count++] = urlBean.getOriginalResource().getStructureId().hashCode();
+            }
+            if (urlBean.getDetailPageResource() != null) {
+                m_ids[m_count++] = urlBean.getDetailPageResource().getStructureId().hashCode();
+            }
+            return urlBean;
+        }
+
+        /**
+         * @see java.util.Iterator#remove()
+         */
+        public void remove() {
+
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Returns the sorted hash codes of the structure ids of the resources of the entries iterated so far.<p>
+         *
+         * @return the sorted hash codes
+         */
+        int[] getIds() {
+
+            int[] ids = Arrays.copyOf(m_ids, m_count);
+            Arrays.sort(ids);
+            return ids;
+        }
+    }
+
+    /** The name of the RFS folder storing the cached sitemaps, relative to the WEB-INF folder. */
+    public static final String CACHE_FOLDER = "xmlsitemapcache";
 
     /** Static instance for this class. */
     public static final CmsXmlSitemapCache INSTANCE = new CmsXmlSitemapCache();
 
+    /** The maximum number of publish jobs remembered until they are checked, if more jobs are published, all sitemaps are updated. */
+    public static final int MAX_PENDING_PUBLISH_JOBS = 100;
+
+    /** The logger for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsXmlSitemapCache.class);
+
+    /** The lock objects used for updating the sitemaps. */
+    private ConcurrentHashMap<String, Object> m_locks = new ConcurrentHashMap<String, Object>();
+
+    /** The publish history ids of the publish jobs which have not been checked yet. */
+    private Queue<CmsUUID> m_pendingPublishIds = new ConcurrentLinkedQueue<CmsUUID>();
+
+    /** Flag indicating if this cache has been registered as event listener. */
+    private boolean m_registered;
+
+    /** The RFS folder storing the cached sitemaps. */
+    private File m_rfsFolder;
+
     /** The map for storing the cached sitemaps. */
-    private ConcurrentHashMap<String, String> m_cache = new ConcurrentHashMap<String, String>();
+    private ConcurrentHashMap<String, CmsCachedSitemap> m_sitemaps = new ConcurrentHashMap<String, CmsCachedSitemap>();
+
+    /**
+     * Checks the resources published since the last check and marks the sitemaps which may have changed as stale.<p>
+     *
+     * @param cms the CMS context used to read the published resources
+     */
+    public void checkPublishedResources(CmsObject cms) {
+
+        Set<CmsPublishedResource> publishedResources = new HashSet<CmsPublishedResource>();
+        CmsUUID publishId = m_pendingPublishIds.poll();
+        while (publishId != null) {
+            try {
+                publishedResources.addAll(cms.readPublishedResources(publishId));
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                markAllStale();
+                return;
+            }
+            publishId = m_pendingPublishIds.poll();
+        }
+        if (publishedResources.isEmpty()) {
+            return;
+        }
+        String sharedFolder = OpenCms.getSiteManager().getSharedFolder();
+        int configType = getResourceTypeId(CmsADEManager.CONFIG_TYPE);
+        for (String key : m_sitemaps.keySet()) {
+            CmsCachedSitemap sitemap = m_sitemaps.get(key);
+            if ((sitemap == null) || sitemap.m_stale) {
+                continue;
+            }
+            for (CmsPublishedResource res : publishedResources) {
+                if (isAffected(key, sitemap, res, sharedFolder, configType)) {
+                    LOG.info("Sitemap " + key + " is affected by the publishing of " + res.getRootPath());
+                    sitemap.m_stale = true;
+                    break;
+                }
+            }
+        }
+    }
 
     /**
      * Clears the cache.<p>
      */
     public void clear() {
 
-        m_cache.clear();
+        List<CmsCachedSitemap> sitemaps = new ArrayList<CmsCachedSitemap>(m_sitemaps.values());
+        m_sitemaps.clear();
+        for (CmsCachedSitemap sitemap : sitemaps) {
+            deleteFiles(sitemap.m_files);
+        }
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                String publishIdStr = (String)(event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
+                if ((publishIdStr == null) || m_sitemaps.isEmpty()) {
+                    return;
+                }
+                if (m_pendingPublishIds.size() >= MAX_PENDING_PUBLISH_JOBS) {
+                    // nobody checks the published resources, so it does not pay off to find the affected sitemaps
+                    m_pendingPublishIds.clear();
+                    markAllStale();
+                } else {
+                    m_pendingPublishIds.add(new CmsUUID(publishIdStr));
+                }
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                clear();
+                break;
+            default:
+                // no operation
+        }
     }
 
     /**
-     * Gets the cached entry for the given key (the key will normally be the root path of a sitemap.xml file).<p>
+     * Checks if the sitemap for the given key is cached.<p>
+     *
+     * @param key the key (usually the root path of the sitemap.xml)
      *
-     * @param key the key
-     * @return the cached XML sitemap, or null if no cached value exists
+     * @return true if the sitemap is cached
      */
-    public String get(String key) {
+    public boolean isCached(String key) {
 
-        return m_cache.get(key);
+        return m_sitemaps.containsKey(key);
     }
 
     /**
-     * Stores an XML sitemap in the cache.<p>
+     * Checks if the sitemap for the given key is not cached or has to be updated
+     * because of published resources.<p>
      *
-     * @param key the XML sitemap key (usually the root path of the sitemap.xml)
-     * @param value the XML sitemap content
+     * @param key the key (usually the root path of the sitemap.xml)
+     *
+     * @return true if the sitemap has to be updated
      */
-    public void put(String key, String value) {
+    public boolean isStale(String key) {
 
-        LOG.info("Caching sitemap for key " + key + ", size = " + value.length());
-        m_cache.put(key, value);
+        CmsCachedSitemap sitemap = m_sitemaps.get(key);
+        return (sitemap == null) || sitemap.m_stale;
     }
 
+    /**
+     * Generates the sitemap with the given generator and stores it in the cache.<p>
+     *
+     * @param seoFile the sitemap.xml file, its root path is used as cache key
+     * @param generator the generator for the sitemap
+     *
+     * @throws CmsException if generating the sitemap fails
+     * @throws IOException if storing the sitemap fails
+     */
+    public void update(CmsResource seoFile, CmsXmlSitemapGenerator generator) throws CmsException, IOException {
+
+        String key = seoFile.getRootPath();
+        Object lock = new Object();
+        Object existingLock = m_locks.putIfAbsent(key, lock);
+        synchronized ((existingLock != null) ? existingLock : lock) {
+            registerEventListener();
+            CmsCachedSitemap previous = m_sitemaps.get(key);
+            boolean wasStale = (previous != null) && previous.m_stale;
+            if (previous != null) {
+                // changes published while generating the sitemap must not get lost
+                previous.m_stale = false;
+            }
+            CmsCachedSitemap sitemap = null;
+            try {
+                sitemap = writeSitemap(key, generator, generator.iterateSitemapBeans(), previous);
+            } finally {
+                if ((sitemap == null) && wasStale) {
+                    previous.m_stale = true;
+                }
+            }
+            if (sitemap.m_files.length > 1) {
+                StringWriter index = new StringWriter();
+                generator.writeSitemapIndex(index, key, sitemap.m_datesLastModified);
+                sitemap.m_index = index.toString();
+            }
+            if ((previous != null) && previous.m_stale) {
+                sitemap.m_stale = true;
+            }
+            m_sitemaps.put(key, sitemap);
+            if (previous != null) {
+                List<File> obsoleteFiles = new ArrayList<File>(Arrays.asList(previous.m_files));
+                obsoleteFiles.removeAll(Arrays.asList(sitemap.m_files));
+                deleteFiles(obsoleteFiles.toArray(new File[obsoleteFiles.size()]));
+            }
+        }
+    }
+
+    /**
+     * Writes a cached sitemap.<p>
+     *
+     * @param key the key (usually the root path of the sitemap.xml)
+     * @param part the number of the partition to write, starting with 1, or 0 for the sitemap itself,
+     *      which is the sitemap index if the sitemap has more than one partition
+     * @param out the writer to write the sitemap to
+     *
+     * @return false if the sitemap or the partition is not cached
+     *
+     * @throws IOException if writing the sitemap fails
+     */
+    public boolean write(String key, int part, Writer out) throws IOException {
+
+        CmsCachedSitemap sitemap = m_sitemaps.get(key);
+        if (sitemap == null) {
+            return false;
+        }
+        if (part == 0) {
+            if (sitemap.m_index != null) {
+                out.write(sitemap.m_index);
+                return true;
+            }
+            part = 1;
+        }
+        if ((part < 1) || (part > sitemap.m_files.length)) {
+            return false;
+        }
+        Reader in;
+        try {
+            in = new InputStreamReader(new FileInputStream(sitemap.m_files[part - 1]), StandardCharsets.UTF_8);
+        } catch (FileNotFoundException e) {
+            if (m_sitemaps.get(key) != sitemap) {
+                // the sitemap has just been updated
+                return write(key, part, out);
+            }
+            LOG.warn(e.getLocalizedMessage(), e);
+            m_sitemaps.remove(key, sitemap);
+            return false;
+        }
+        try {
+            char[] buffer = new char[8192];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+            }
+        } finally {
+            in.close();
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the given files.<p>
+     *
+     * @param files the files to delete
+     */
+    private void deleteFiles(File[] files) {
+
+        for (File file : files) {
+            if (file.exists() && !file.delete()) {
+                // the file may still be read by a request
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Returns the RFS folder storing the cached sitemaps, which is emptied when it is first used.<p>
+     *
+     * @return the RFS folder storing the cached sitemaps
+     */
+    private synchronized File getRfsFolder() {
+
+        if (m_rfsFolder == null) {
+            File folder = new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(CACHE_FOLDER));
+            // remove the sitemaps cached before the last restart
+            CmsFileUtil.purgeDirectory(folder);
+            folder.mkdirs();
+            m_rfsFolder = folder;
+        }
+        return m_rfsFolder;
+    }
+
+    /**
+     * Returns the id of the resource type with the given name, or -1 if the type does not exist.<p>
+     *
+     * @param typeName the resource type name
+     *
+     * @return the resource type id
+     */
+    private int getResourceTypeId(String typeName) {
+
+        try {
+            return OpenCms.getResourceManager().getResourceType(typeName).getTypeId();
+        } catch (CmsException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Checks if a published resource may change a cached sitemap.<p>
+     *
+     * @param key the key of the sitemap
+     * @param sitemap the cached sitemap
+     * @param res the published resource
+     * @param sharedFolder the shared folder, may be <code>null</code>
+     * @param configType the id of the sitemap configuration resource type
+     *
+     * @return true if the sitemap has to be updated
+     */
+    private boolean isAffected(
+        String key,
+        CmsCachedSitemap sitemap,
+        CmsPublishedResource res,
+        String sharedFolder,
+        int configType) {
+
+        if ((Arrays.binarySearch(sitemap.m_ids, res.getStructureId().hashCode()) >= 0)
+            || key.equals(res.getRootPath())) {
+            // a resource of the sitemap or the sitemap configuration has changed
+            return true;
+        }
+        String rootPath = res.getRootPath();
+        boolean inScope = CmsStringUtil.isPrefixPath(sitemap.m_siteRoot, rootPath)
+            || ((sharedFolder != null) && CmsStringUtil.isPrefixPath(sharedFolder, rootPath));
+        if (!inScope) {
+            return false;
+        }
+        // new resources and detail page configurations may add entries, folders change the navigation
+        // and the inherited properties of the sitemap entries
+        return sitemap.m_checkAllResources
+            || res.isFolder()
+            || res.isMoved()
+            || res.getState().isNew()
+            || (res.getType() == configType);
+    }
+
+    /**
+     * Marks all cached sitemaps as stale.<p>
+     */
+    private void markAllStale() {
+
+        for (CmsCachedSitemap sitemap : m_sitemaps.values()) {
+            sitemap.m_stale = true;
+        }
+    }
+
+    /**
+     * Registers this cache as event listener, if not already done.<p>
+     */
+    private synchronized void registerEventListener() {
+
+        if (!m_registered) {
+            OpenCms.addCmsEventListener(
+                this,
+                new int[] {I_CmsEventListener.EVENT_PUBLISH_PROJECT, I_CmsEventListener.EVENT_CLEAR_CACHES});
+            m_registered = true;
+        }
+    }
+
+    /**
+     * Writes the partitions of a sitemap to the RFS.<p>
+     *
+     * Partitions with the same content as in the previous version of the sitemap are not replaced.<p>
+     *
+     * @param key the key of the sitemap
+     * @param generator the sitemap generator
+     * @param urlBeans the sitemap entries, which are written to the partitions while iterating
+     * @param previous the previous version of the sitemap, may be <code>null</code>
+     *
+     * @return the cached sitemap
+     *
+     * @throws IOException if writing the sitemap fails
+     */
+    private CmsCachedSitemap writeSitemap(
+        String key,
+        CmsXmlSitemapGenerator generator,
+        Iterator<CmsXmlSitemapUrlBean> urlBeans,
+        CmsCachedSitemap previous)
+    throws IOException {
+
+        CmsIdCollectingIterator beans = new CmsIdCollectingIterator(urlBeans);
+        List<File> files = new ArrayList<File>();
+        List<Long> datesLastModified = new ArrayList<Long>();
+        List<byte[]> digests = new ArrayList<byte[]>();
+        File folder = new File(getRfsFolder(), CmsUUID.getConstantUUID(key).toString());
+        folder.mkdirs();
+        long now = System.currentTimeMillis();
+        int urls = 0;
+        int unchanged = 0;
+        do {
+            int i = files.size();
+            File file = File.createTempFile("sitemap-" + (i + 1) + "-", ".xml", folder);
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+            Writer out = new OutputStreamWriter(
+                new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(file)), digest),
+                StandardCharsets.UTF_8);
+            try {
+                urls += generator.writeSitemap(out, beans, CmsXmlSitemapGenerator.MAX_URLS_PER_SITEMAP);
+            } finally {
+                out.close();
+            }
+            byte[] partitionDigest = digest.digest();
+            digests.add(partitionDigest);
+            if ((previous != null)
+                && (i < previous.m_files.length)
+                && MessageDigest.isEqual(partitionDigest, previous.m_digests[i])
+                && previous.m_files[i].exists()) {
+                // keep the unchanged partition with its modification date
+                file.delete();
+                files.add(previous.m_files[i]);
+                datesLastModified.add(Long.valueOf(previous.m_datesLastModified[i]));
+                unchanged++;
+            } else {
+                files.add(file);
+                datesLastModified.add(Long.valueOf(now));
+            }
+        } while (beans.hasNext());
+
+        CmsCachedSitemap sitemap = new CmsCachedSitemap();
+        sitemap.m_files = files.toArray(new File[files.size()]);
+        sitemap.m_datesLastModified = new long[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            sitemap.m_datesLastModified[i] = datesLastModified.get(i).longValue();
+        }
+        sitemap.m_digests = digests.toArray(new byte[digests.size()][]);
+        sitemap.m_siteRoot = generator.m_siteRoot;
+        sitemap.m_checkAllResources = generator.m_computeContainerPageDates;
+        sitemap.m_ids = beans.getIds();
+
+        LOG.info(
+            "Caching sitemap for key "
+                + key
+                + ", URLs = "
+                + urls
+                + ", partitions = "
+                + files.size()
+                + ", unchanged partitions = "
+                + unchanged);
+        return sitemap;
+    }
 }
@@ -39,6 +39,7 @@ import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.gwt.shared.alias.CmsAliasMode;
+import org.opencms.i18n.CmsEncoder;
 import org.opencms.jsp.CmsJspNavBuilder;
 import org.opencms.jsp.CmsJspNavElement;
 import org.opencms.loader.CmsLoaderException;
@@ -51,13 +52,19 @@ import org.opencms.relations.CmsRelationFilter;
 import org.opencms.relations.CmsRelationType;
 import org.opencms.site.CmsSite;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -133,6 +140,12 @@ public class CmsXmlSitemapGenerator {
     /** The default priority. */
     public static final double DEFAULT_PRIORITY = 0.5;
 
+    /** The maximum number of URLs in one sitemap, larger sitemaps are split up and referenced by a sitemap index. */
+    public static final int MAX_URLS_PER_SITEMAP = 50000;
+
+    /** The request parameter selecting a partition of a sitemap, starting with 1. */
+    public static final String PARAM_PART = "part";
+
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsXmlSitemapGenerator.class);
 
@@ -299,38 +312,7 @@ public class CmsXmlSitemapGenerator {
      */
     public List<CmsXmlSitemapUrlBean> generateSitemapBeans() throws CmsException {
 
-        String baseSitePath = m_siteGuestCms.getRequestContext().removeSiteRoot(m_baseFolderRootPath);
-        initializeFileData(baseSitePath);
-        for (CmsResource resource : getDirectPages()) {
-            String sitePath = m_siteGuestCms.getSitePath(resource);
-            List<CmsProperty> propertyList = m_siteGuestCms.readPropertyObjects(resource, true);
-            String onlineLink = OpenCms.getLinkManager().getOnlineLink(m_siteGuestCms, sitePath);
-            boolean isContainerPage = CmsResourceTypeXmlContainerPage.isContainerPage(resource);
-            long dateModified = resource.getDateLastModified();
-            if (isContainerPage) {
-                if (m_computeContainerPageDates) {
-                    dateModified = computeContainerPageModificationDate(resource);
-                } else {
-                    dateModified = -1;
-                }
-            }
-            CmsXmlSitemapUrlBean urlBean = new CmsXmlSitemapUrlBean(
-                replaceServerUri(onlineLink),
-                dateModified,
-                getChangeFrequency(propertyList),
-                getPriority(propertyList));
-            urlBean.setOriginalResource(resource);
-            addResult(urlBean, 3);
-            if (isContainerPage) {
-                Locale locale = getLocale(resource, propertyList);
-                addDetailLinks(resource, locale);
-            }
-        }
-
-        for (CmsUUID aliasStructureId : m_pageAliasesBelowBaseFolderByStructureId.keySet()) {
-            addAliasLinks(aliasStructureId);
-        }
-
+        generateResults();
         List<CmsXmlSitemapUrlBean> result = new ArrayList<CmsXmlSitemapUrlBean>();
         for (ResultEntry resultEntry : m_resultMap.values()) {
             result.add(resultEntry.getUrlBean());
@@ -348,6 +330,59 @@ public class CmsXmlSitemapGenerator {
         return m_includeExcludeSet;
     }
 
+    /**
+     * Gets the online link to the sitemap.xml file with the given root path.<p>
+     *
+     * @param rootPath the root path of the sitemap.xml file
+     *
+     * @return the online link to the sitemap
+     */
+    public String getSitemapLink(String rootPath) {
+
+        return OpenCms.getLinkManager().getOnlineLink(
+            m_siteGuestCms,
+            m_siteGuestCms.getRequestContext().removeSiteRoot(rootPath));
+    }
+
+    /**
+     * Generates the XML sitemap entries for the root folder which has been set in the constructor
+     * and returns them one by one, so they can be written without creating a list of all entries.<p>
+     *
+     * Note that the entries are still collected in memory while they are generated, since an entry may be
+     * replaced by a later entry with the same URL and a higher internal priority, so the complete sitemap must
+     * be known before the first entry can be written. If {@link #supportsIteratorGeneration()} returns false,
+     * the list returned by {@link #generateSitemapBeans()} is iterated.<p>
+     *
+     * @return the XML sitemap entries
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Iterator<CmsXmlSitemapUrlBean> iterateSitemapBeans() throws CmsException {
+
+        if (!supportsIteratorGeneration()) {
+            return generateSitemapBeans().iterator();
+        }
+        generateResults();
+        final Iterator<ResultEntry> results = m_resultMap.values().iterator();
+        return new Iterator<CmsXmlSitemapUrlBean>() {
+
+            public boolean hasNext() {
+
+                return results.hasNext();
+            }
+
+            public CmsXmlSitemapUrlBean next() {
+
+                return results.next().getUrlBean();
+            }
+
+            public void remove() {
+
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
     /**
      * Generates a sitemap and formats it as a string.<p>
      *
@@ -357,16 +392,14 @@ public class CmsXmlSitemapGenerator {
      */
     public String renderSitemap() throws CmsException {
 
-        StringBuffer buffer = new StringBuffer();
-        List<CmsXmlSitemapUrlBean> urlBeans = generateSitemapBeans();
-        buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-        buffer.append(getUrlSetOpenTag() + "\n");
-        for (CmsXmlSitemapUrlBean bean : urlBeans) {
-            buffer.append(getXmlForEntry(bean));
-            buffer.append("\n");
+        StringWriter writer = new StringWriter();
+        try {
+            writeSitemap(writer, iterateSitemapBeans(), Integer.MAX_VALUE);
+        } catch (IOException e) {
+            // can not happen when writing to a String
+            LOG.error(e.getLocalizedMessage(), e);
         }
-        buffer.append("</urlset>");
-        return buffer.toString();
+        return writer.toString();
     }
 
     /**
@@ -391,6 +424,100 @@ public class CmsXmlSitemapGenerator {
         m_serverUrl = serverUrl;
     }
 
+    /**
+     * Writes a sitemap for the given entries.<p>
+     *
+     * The entries are written one by one, so the XML of the complete sitemap is never held in memory.
+     * The sitemap protocol allows at most {@link #MAX_URLS_PER_SITEMAP} entries in one sitemap.<p>
+     *
+     * @param out the writer to write the sitemap XML to
+     * @param urlBeans the sitemap entries
+     *
+     * @throws IOException if writing the sitemap fails
+     */
+    public void writeSitemap(Writer out, List<CmsXmlSitemapUrlBean> urlBeans) throws IOException {
+
+        writeSitemap(out, urlBeans.iterator(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Writes a sitemap for the next entries returned by the given iterator.<p>
+     *
+     * At most <code>maxEntries</code> entries are taken from the iterator, so the remaining entries
+     * can be written to the next partition of a large sitemap.<p>
+     *
+     * @param out the writer to write the sitemap XML to
+     * @param urlBeans the sitemap entries
+     * @param maxEntries the maximum number of entries to write
+     *
+     * @return the number of entries written
+     *
+     * @throws IOException if writing the sitemap fails
+     */
+    public int writeSitemap(Writer out, Iterator<CmsXmlSitemapUrlBean> urlBeans, int maxEntries)
+    throws IOException {
+
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write(getUrlSetOpenTag() + "\n");
+        int count = 0;
+        while ((count < maxEntries) && urlBeans.hasNext()) {
+            out.write(getXmlForEntry(urlBeans.next()));
+            out.write("\n");
+            count++;
+        }
+        out.write("</urlset>");
+        return count;
+    }
+
+    /**
+     * Writes a sitemap index referencing the partitions of a sitemap.<p>
+     *
+     * The partitions are addressed by the {@link #PARAM_PART} parameter of the link to the sitemap.xml file.<p>
+     *
+     * @param out the writer to write the sitemap index XML to
+     * @param rootPath the root path of the sitemap.xml file
+     * @param datesLastModified the dates the partitions were last modified, one for each partition
+     *
+     * @throws IOException if writing the sitemap index fails
+     */
+    public void writeSitemapIndex(Writer out, String rootPath, long[] datesLastModified) throws IOException {
+
+        String sitemapLink = replaceServerUri(getSitemapLink(rootPath));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+        for (int i = 0; i < datesLastModified.length; i++) {
+            String link = CmsRequestUtil.appendParameter(sitemapLink, PARAM_PART, String.valueOf(i + 1));
+            StringBuffer buffer = new StringBuffer();
+            buffer.append("<sitemap><loc>");
+            buffer.append(CmsEncoder.escapeXml(link));
+            buffer.append("</loc><lastmod>");
+            buffer.append(CmsXmlSitemapUrlBean.formatDate(new Date(datesLastModified[i])));
+            buffer.append("</lastmod></sitemap>\n");
+            out.write(buffer.toString());
+        }
+        out.write("</sitemapindex>");
+    }
+
+    /**
+     * Generates the sitemap and writes either the sitemap itself or one of its partitions.<p>
+     *
+     * The entries are generated only once. If the sitemap has more than {@link #MAX_URLS_PER_SITEMAP} entries,
+     * the sitemap itself is a sitemap index referencing the partitions.<p>
+     *
+     * @param out the writer to write the sitemap to
+     * @param rootPath the root path of the sitemap.xml file
+     * @param part the number of the partition to write, starting with 1, or 0 for the sitemap itself
+     *
+     * @return false if the requested partition does not exist
+     *
+     * @throws CmsException if generating the sitemap fails
+     * @throws IOException if writing the sitemap fails
+     */
+    public boolean writeSitemapPartition(Writer out, String rootPath, int part) throws CmsException, IOException {
+
+        return writeSitemapPartition(out, rootPath, part, MAX_URLS_PER_SITEMAP);
+    }
+
     /**
      * Adds the detail page links for a given page to the results.<p>
      *
@@ -482,6 +609,47 @@ public class CmsXmlSitemapGenerator {
         return result;
     }
 
+    /**
+     * Generates the XML sitemap entries for the root folder which has been set in the constructor
+     * and stores them in the result map.<p>
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void generateResults() throws CmsException {
+
+        String baseSitePath = m_siteGuestCms.getRequestContext().removeSiteRoot(m_baseFolderRootPath);
+        initializeFileData(baseSitePath);
+        for (CmsResource resource : getDirectPages()) {
+            String sitePath = m_siteGuestCms.getSitePath(resource);
+            List<CmsProperty> propertyList = m_siteGuestCms.readPropertyObjects(resource, true);
+            String onlineLink = OpenCms.getLinkManager().getOnlineLink(m_siteGuestCms, sitePath);
+            boolean isContainerPage = CmsResourceTypeXmlContainerPage.isContainerPage(resource);
+            long dateModified = resource.getDateLastModified();
+            if (isContainerPage) {
+                if (m_computeContainerPageDates) {
+                    dateModified = computeContainerPageModificationDate(resource);
+                } else {
+                    dateModified = -1;
+                }
+            }
+            CmsXmlSitemapUrlBean urlBean = new CmsXmlSitemapUrlBean(
+                replaceServerUri(onlineLink),
+                dateModified,
+                getChangeFrequency(propertyList),
+                getPriority(propertyList));
+            urlBean.setOriginalResource(resource);
+            addResult(urlBean, 3);
+            if (isContainerPage) {
+                Locale locale = getLocale(resource, propertyList);
+                addDetailLinks(resource, locale);
+            }
+        }
+
+        for (CmsUUID aliasStructureId : m_pageAliasesBelowBaseFolderByStructureId.keySet()) {
+            addAliasLinks(aliasStructureId);
+        }
+    }
+
     /**
      * Gets the detail link for a given container page and detail content.<p>
      *
@@ -701,6 +869,54 @@ public class CmsXmlSitemapGenerator {
         return replaceServerUri(link, m_serverUrl);
     }
 
+    /**
+     * Checks if {@link #iterateSitemapBeans()} may return the generated entries directly.<p>
+     *
+     * Subclasses which override {@link #generateSitemapBeans()} to change the entries must return false,
+     * so that the entries are read from that method instead.<p>
+     *
+     * @return true if the generated entries can be iterated directly
+     */
+    protected boolean supportsIteratorGeneration() {
+
+        return true;
+    }
+
+    /**
+     * Generates the sitemap and writes either the sitemap itself or one of its partitions
+     * of the given size.<p>
+     *
+     * @param out the writer to write the sitemap to
+     * @param rootPath the root path of the sitemap.xml file
+     * @param part the number of the partition to write, starting with 1, or 0 for the sitemap itself
+     * @param partitionSize the maximum number of entries in one partition
+     *
+     * @return false if the requested partition does not exist
+     *
+     * @throws CmsException if generating the sitemap fails
+     * @throws IOException if writing the sitemap fails
+     */
+    protected boolean writeSitemapPartition(Writer out, String rootPath, int part, int partitionSize)
+    throws CmsException, IOException {
+
+        List<CmsXmlSitemapUrlBean> urlBeans = generateSitemapBeans();
+        int partitions = Math.max(1, ((urlBeans.size() + partitionSize) - 1) / partitionSize);
+        if ((part == 0) && (partitions > 1)) {
+            long[] datesLastModified = new long[partitions];
+            Arrays.fill(datesLastModified, System.currentTimeMillis());
+            writeSitemapIndex(out, rootPath, datesLastModified);
+            return true;
+        }
+        part = Math.max(part, 1);
+        if (part > partitions) {
+            return false;
+        }
+        writeSitemap(
+            out,
+            urlBeans.subList((part - 1) * partitionSize, Math.min(urlBeans.size(), part * partitionSize)));
+        return true;
+    }
+
     /**
      * Adds the alias links for a given structure id to the results.<p>
      *
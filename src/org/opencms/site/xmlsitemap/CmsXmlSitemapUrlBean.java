@@ -95,7 +95,7 @@ public class CmsXmlSitemapUrlBean {
      *
      * @return the formatted date
      */
-    private static String formatDate(Date date) {
+    static String formatDate(Date date) {
 
         String dateStr = dateFormat.format(date);
         // insert colon into timezone
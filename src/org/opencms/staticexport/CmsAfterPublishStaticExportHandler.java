@@ -33,10 +33,13 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsVfsResourceNotFoundException;
+import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
+import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
@@ -57,6 +60,17 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
@@ -74,6 +88,9 @@ import org.apache.commons.logging.Log;
  */
 public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler {
 
+    /** The maximum number of publish jobs waiting for the asynchronous export, further publish jobs have to wait. */
+    protected static final int ASYNC_QUEUE_SIZE = 16;
+
     /** Header field set-cookie constant. */
     private static final String HEADER_FIELD_SET_COOKIE = "Set-Cookie";
 
@@ -86,6 +103,12 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     /** Request property cookie constant. */
     private static final String REQUEST_PROPERTY_COOKIE = "Cookie";
 
+    /** The executor for the asynchronous export after publishing, created on first use. */
+    private ThreadPoolExecutor m_asyncExecutor;
+
+    /** The number of publish jobs waiting for or running the asynchronous export. */
+    private final AtomicInteger m_pendingExports = new AtomicInteger();
+
     /**
      * Does the actual static export.<p>
      *
@@ -211,12 +234,25 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         return resources;
     }
 
+    /**
+     * @see org.opencms.staticexport.A_CmsStaticExportHandler#isBusy()
+     */
+    @Override
+    public boolean isBusy() {
+
+        return super.isBusy() || (m_pendingExports.get() > 0);
+    }
+
     /**
      * @see org.opencms.staticexport.I_CmsStaticExportHandler#performEventPublishProject(org.opencms.util.CmsUUID, org.opencms.report.I_CmsReport)
      */
     @Override
     public void performEventPublishProject(CmsUUID publishHistoryId, I_CmsReport report) {
 
+        if (OpenCms.getStaticExportManager().isExportAsync()) {
+            exportAfterPublishAsync(publishHistoryId, report);
+            return;
+        }
         try {
             m_busy = true;
             exportAfterPublish(publishHistoryId, report);
@@ -277,6 +313,53 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
     }
 
+    /**
+     * Enqueues the static export for a publish job, so that it is done in the background.<p>
+     *
+     * The exports are done one after the other in the order of the publish jobs. If too many publish jobs
+     * are waiting for their export, the calling publish thread is blocked until there is room in the queue.<p>
+     *
+     * @param publishHistoryId the publish history id of the published project
+     * @param report the publish report, only used to announce the background export
+     */
+    protected void exportAfterPublishAsync(final CmsUUID publishHistoryId, I_CmsReport report) {
+
+        final I_CmsReport exportReport;
+        if (report != null) {
+            report.println(
+                Messages.get().container(Messages.RPT_STATICEXPORT_ASYNC_1, publishHistoryId),
+                I_CmsReport.FORMAT_NOTE);
+            exportReport = new CmsLogReport(report.getLocale(), CmsAfterPublishStaticExportHandler.class);
+        } else {
+            exportReport = new CmsLogReport(
+                CmsLocaleManager.getDefaultLocale(),
+                CmsAfterPublishStaticExportHandler.class);
+        }
+        m_pendingExports.incrementAndGet();
+        try {
+            getAsyncExecutor().execute(new Runnable() {
+
+                public void run() {
+
+                    try {
+                        exportAfterPublish(publishHistoryId, exportReport);
+                    } catch (Throwable t) {
+                        if (LOG.isErrorEnabled()) {
+                            LOG.error(Messages.get().getBundle().key(Messages.LOG_STATIC_EXPORT_ERROR_0), t);
+                        }
+                    } finally {
+                        m_pendingExports.decrementAndGet();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            m_pendingExports.decrementAndGet();
+            if (LOG.isErrorEnabled()) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_STATIC_EXPORT_ERROR_0), e);
+            }
+        }
+    }
+
     /**
      * Exports all non template resources found in a list of published resources.<p>
      *
@@ -291,9 +374,9 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
      * @throws ServletException in case of errors accessing the servlet
      */
     protected boolean exportNonTemplateResources(
-        CmsObject cms,
+        final CmsObject cms,
         List<CmsPublishedResource> publishedResources,
-        I_CmsReport report)
+        final I_CmsReport report)
     throws CmsException, IOException, ServletException {
 
         report.println(
@@ -307,60 +390,36 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                     new Integer(publishedResources.size())));
         }
 
-        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         List<CmsStaticExportData> resourcesToExport = new ArrayList<CmsStaticExportData>();
         boolean templatesFound = readNonTemplateResourcesToExport(cms, publishedResources, resourcesToExport);
 
-        int count = 1;
-        int size = resourcesToExport.size();
+        final AtomicInteger count = new AtomicInteger();
+        final int size = resourcesToExport.size();
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, new Integer(size)));
         }
         // now do the export
-        Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
-        while (i.hasNext()) {
-            CmsStaticExportData exportData = i.next();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_EXPORT_FILE_2,
-                        exportData.getVfsName(),
-                        exportData.getRfsName()));
-            }
-
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_2,
-                    new Integer(count++),
-                    new Integer(size)),
-                I_CmsReport.FORMAT_NOTE);
-            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    exportData.getVfsName()));
-            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = manager.export(null, null, cms, exportData);
-            if (status == HttpServletResponse.SC_OK) {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                    I_CmsReport.FORMAT_OK);
-            } else {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                    I_CmsReport.FORMAT_NOTE);
-            }
-
-            if (LOG.isInfoEnabled()) {
-                Object[] arguments = new Object[] {
-                    exportData.getVfsName(),
-                    exportData.getRfsName(),
-                    new Integer(status)};
-                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
-            }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
+        List<Runnable> tasks = new ArrayList<Runnable>(size);
+        for (final CmsStaticExportData exportData : resourcesToExport) {
+            tasks.add(new Runnable() {
+
+                public void run() {
+
+                    I_CmsReport itemReport = getItemReport(report);
+                    try {
+                        exportNonTemplateResource(
+                            getWorkerCms(cms),
+                            exportData,
+                            count.incrementAndGet(),
+                            size,
+                            itemReport);
+                    } finally {
+                        flushItemReport(itemReport, report);
+                    }
+                }
+            });
         }
+        executeExportTasks(tasks, report);
 
         resourcesToExport = null;
 
@@ -499,6 +558,66 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     //        return HttpServletResponse.SC_SEE_OTHER;
     //    }
 
+    /**
+     * Exports a single non template resource.<p>
+     *
+     * @param cms the cms context, in the root site as Export user
+     * @param exportData the export data of the resource
+     * @param count the number of the resource in the list of resources to export
+     * @param size the number of resources to export
+     * @param report the report to print output messages to
+     */
+    protected void exportNonTemplateResource(
+        CmsObject cms,
+        CmsStaticExportData exportData,
+        int count,
+        int size,
+        I_CmsReport report) {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXPORT_FILE_2,
+                    exportData.getVfsName(),
+                    exportData.getRfsName()));
+        }
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                new Integer(count),
+                new Integer(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                exportData.getVfsName()));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        int status;
+        try {
+            status = manager.export(null, null, cms, exportData);
+        } catch (Exception e) {
+            report.println(e);
+            return;
+        }
+        if (status == HttpServletResponse.SC_OK) {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                I_CmsReport.FORMAT_OK);
+        } else {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                I_CmsReport.FORMAT_NOTE);
+        }
+
+        if (LOG.isInfoEnabled()) {
+            Object[] arguments = new Object[] {exportData.getVfsName(), exportData.getRfsName(), new Integer(status)};
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+        }
+    }
+
     /**
      * Exports a single (template) resource specified by its export data.<p>
      *
@@ -581,11 +700,13 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         urlcon.connect();
         int status = urlcon.getResponseCode();
 
-        if (cookies.length() == 0) {
-            //Now retrieve the cookies. The jsessionid is here
-            cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+        synchronized (cookies) {
+            if (cookies.length() == 0) {
+                //Now retrieve the cookies. The jsessionid is here
+                cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+                }
             }
         }
         urlcon.disconnect();
@@ -600,6 +721,106 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         return status;
     }
 
+    /**
+     * Exports a single template resource specified by its RFS name.<p>
+     *
+     * @param cms the cms context, in the root site as Export user
+     * @param rfsName the RFS name of the resource
+     * @param count the counter for the exported resources
+     * @param size the number of resources to export
+     * @param cookies cookies to keep the session
+     * @param report the report to print output messages to
+     */
+    protected void exportTemplateResource(
+        CmsObject cms,
+        String rfsName,
+        AtomicInteger count,
+        int size,
+        StringBuffer cookies,
+        I_CmsReport report) {
+
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        CmsStaticExportData data = null;
+        try {
+            data = manager.getVfsNameInternal(cms, rfsName);
+        } catch (CmsVfsResourceNotFoundException e) {
+            String rfsBaseName = rfsName;
+            int pos = rfsName.lastIndexOf('_');
+            if (pos >= 0) {
+                rfsBaseName = rfsName.substring(0, pos);
+            }
+            try {
+                data = manager.getVfsNameInternal(cms, rfsBaseName);
+            } catch (CmsVfsResourceNotFoundException e2) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
+                            new String[] {rfsName}));
+                }
+            }
+        }
+        if (data != null) {
+            data.setRfsName(rfsName);
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_2,
+                    new Integer(count.incrementAndGet()),
+                    new Integer(size)),
+                I_CmsReport.FORMAT_NOTE);
+            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
+            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        } else {
+            // no valid resource found for rfs name (already deleted), skip it
+            return;
+        }
+
+        try {
+            CmsResource resource = data.getResource();
+            try {
+                Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                for (String detailPageUri : detailPages) {
+                    String altRfsName = manager.getRfsName(cms, detailPageUri);
+                    CmsStaticExportData detailData = new CmsStaticExportData(
+                        data.getVfsName(),
+                        altRfsName,
+                        data.getResource(),
+                        data.getParameters());
+                    exportTemplateResource(detailData, cookies);
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+
+            int status = exportTemplateResource(data, cookies);
+
+            // write the report
+            if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        new Integer(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+        } catch (IOException e) {
+            report.println(e);
+        }
+    }
+
     /**
      * Exports all template resources found in a list of published resources.<p>
      *
@@ -607,11 +828,13 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
      * @param publishedTemplateResources list of potential candidates to export
      * @param report an I_CmsReport instance to print output message, or null to write messages to the log file
      */
-    protected void exportTemplateResources(CmsObject cms, List<String> publishedTemplateResources, I_CmsReport report) {
+    protected void exportTemplateResources(
+        final CmsObject cms,
+        List<String> publishedTemplateResources,
+        final I_CmsReport report) {
 
-        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
-        int size = publishedTemplateResources.size();
-        int count = 1;
+        final int size = publishedTemplateResources.size();
+        final AtomicInteger count = new AtomicInteger();
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, new Integer(size)));
@@ -620,93 +843,24 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
-        StringBuffer cookies = new StringBuffer();
+        final StringBuffer cookies = new StringBuffer();
         // now loop through all of them and request them from the server
-        Iterator<String> i = publishedTemplateResources.iterator();
-        while (i.hasNext()) {
-            String rfsName = i.next();
-            CmsStaticExportData data = null;
-            try {
-                data = manager.getVfsNameInternal(cms, rfsName);
-            } catch (CmsVfsResourceNotFoundException e) {
-                String rfsBaseName = rfsName;
-                int pos = rfsName.lastIndexOf('_');
-                if (pos >= 0) {
-                    rfsBaseName = rfsName.substring(0, pos);
-                }
-                try {
-                    data = manager.getVfsNameInternal(cms, rfsBaseName);
-                } catch (CmsVfsResourceNotFoundException e2) {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info(
-                            Messages.get().getBundle().key(
-                                Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
-                                new String[] {rfsName}));
-                    }
-                }
-            }
-            if (data != null) {
-                data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        new Integer(count++),
-                        new Integer(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
-                // no valid resource found for rfs name (already deleted), skip it
-                continue;
-            }
+        List<Runnable> tasks = new ArrayList<Runnable>(size);
+        for (final String rfsName : publishedTemplateResources) {
+            tasks.add(new Runnable() {
 
-            try {
-                CmsResource resource = data.getResource();
-                try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
-                    for (String detailPageUri : detailPages) {
-                        String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
-                            data.getVfsName(),
-                            altRfsName,
-                            data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
-                    }
-                } catch (CmsException e) {
-                    LOG.error(e.getLocalizedMessage(), e);
-                }
+                public void run() {
 
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            new Integer(status)),
-                        I_CmsReport.FORMAT_OK);
+                    I_CmsReport itemReport = getItemReport(report);
+                    try {
+                        exportTemplateResource(getWorkerCms(cms), rfsName, count, size, cookies, itemReport);
+                    } finally {
+                        flushItemReport(itemReport, report);
+                    }
                 }
-            } catch (IOException e) {
-                report.println(e);
-            }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
+            });
         }
+        executeExportTasks(tasks, report);
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
             I_CmsReport.FORMAT_HEADLINE);
@@ -898,4 +1052,170 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs the given export tasks with the configured number of worker threads and waits until all are finished.<p>
+     *
+     * If a task fails, the error is written to the report and the remaining tasks are still run.<p>
+     *
+     * @param tasks the export tasks
+     * @param report the report of the export
+     */
+    private void executeExportTasks(List<Runnable> tasks, I_CmsReport report) {
+
+        int workers = Math.min(OpenCms.getStaticExportManager().getExportWorkers(), tasks.size());
+        if (workers <= 1) {
+            for (Runnable task : tasks) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    reportTaskError(e, report);
+                }
+                //don't lock up the CPU exclusively - allow other Threads to run as well
+                Thread.yield();
+            }
+            return;
+        }
+        final AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, "OpenCms: Static export worker " + counter.incrementAndGet());
+                thread.setPriority(Thread.MIN_PRIORITY);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    reportTaskError(e.getCause(), report);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the output of a single export task to the report, if it was buffered.<p>
+     *
+     * @param itemReport the report used by the export task
+     * @param report the report of the export
+     */
+    private void flushItemReport(I_CmsReport itemReport, I_CmsReport report) {
+
+        if (itemReport instanceof CmsBufferedReport) {
+            synchronized (report) {
+                ((CmsBufferedReport)itemReport).flush();
+            }
+        }
+    }
+
+    /**
+     * Returns the executor for the asynchronous export, creating it if required.<p>
+     *
+     * If the queue of the executor is full, the caller is blocked until there is room in the queue.<p>
+     *
+     * @return the executor for the asynchronous export
+     */
+    private synchronized ThreadPoolExecutor getAsyncExecutor() {
+
+        if (m_asyncExecutor == null) {
+            m_asyncExecutor = new ThreadPoolExecutor(
+                1,
+                1,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(ASYNC_QUEUE_SIZE),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Asynchronous static export");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new RejectedExecutionHandler() {
+
+                    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException();
+                        }
+                        try {
+                            // wait for the export of earlier publish jobs
+                            executor.getQueue().put(r);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(e);
+                        }
+                    }
+                });
+            m_asyncExecutor.allowCoreThreadTimeOut(true);
+        }
+        return m_asyncExecutor;
+    }
+
+    /**
+     * Returns the report a single export task should print to.<p>
+     *
+     * If the export tasks run in parallel, the output of each task is buffered
+     * so that it is not mixed up with the output of other tasks.<p>
+     *
+     * @param report the report of the export
+     *
+     * @return the report for a single export task
+     */
+    private I_CmsReport getItemReport(I_CmsReport report) {
+
+        if (OpenCms.getStaticExportManager().getExportWorkers() > 1) {
+            return new CmsBufferedReport(report);
+        }
+        return report;
+    }
+
+    /**
+     * Writes the error of a failed export task to the log and to the report.<p>
+     *
+     * @param t the error of the export task
+     * @param report the report of the export
+     */
+    private void reportTaskError(Throwable t, I_CmsReport report) {
+
+        LOG.error(t.getLocalizedMessage(), t);
+        synchronized (report) {
+            report.println(t);
+        }
+    }
+
+    /**
+     * Returns a copy of the export context for a worker, so that workers do not share the request context.<p>
+     *
+     * @param cms the export context
+     *
+     * @return a copy of the export context, or the export context itself if no copy could be created
+     */
+    private CmsObject getWorkerCms(CmsObject cms) {
+
+        if (OpenCms.getStaticExportManager().getExportWorkers() <= 1) {
+            return cms;
+        }
+        try {
+            return OpenCms.initCmsObject(cms);
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            return cms;
+        }
+    }
+}
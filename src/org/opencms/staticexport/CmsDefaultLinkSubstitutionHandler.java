@@ -130,676 +130,706 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
             return CmsWorkplace.getStaticResourceUri(link);
         }
 
-        // make sure we have an absolute link
-        String absoluteLink = CmsLinkManager.getAbsoluteUri(link, cms.getRequestContext().getUri());
-        String overrideSiteRoot = null;
-
-        String vfsName;
-        String parameters;
-        // check if the link has parameters, if so cut them
-        int pos = absoluteLink.indexOf('?');
-        if (pos >= 0) {
-            vfsName = absoluteLink.substring(0, pos);
-            parameters = absoluteLink.substring(pos);
-        } else {
-            vfsName = absoluteLink;
-            parameters = null;
+        CmsLinkResolutionCache cache = OpenCms.getLinkManager().getResolutionCache();
+        if ((cache == null) || !cache.isCacheable(cms)) {
+            return resolveLink(cms, link, siteRoot, targetDetailPage, forceSecure).apply(cms);
         }
+        String cacheKey = cache.getKey(cms, link, siteRoot, targetDetailPage, forceSecure);
+        CmsLinkResolutionCache.CmsResolvedLink resolved = cache.get(cacheKey);
+        if (resolved == null) {
+            long epoch = cache.getEpoch();
+            resolved = resolveLink(cms, link, siteRoot, targetDetailPage, forceSecure);
+            cache.put(cacheKey, resolved, epoch);
+        }
+        return resolved.apply(cms);
+    }
 
-        // check for anchor
-        String anchor = null;
-        pos = vfsName.indexOf('#');
-        if (pos >= 0) {
-            anchor = vfsName.substring(pos);
-            vfsName = vfsName.substring(0, pos);
+    /**
+     * @see org.opencms.staticexport.I_CmsLinkSubstitutionHandler#getRootPath(org.opencms.file.CmsObject, java.lang.String, java.lang.String)
+     */
+    public String getRootPath(CmsObject cms, String targetUri, String basePath) {
+
+        String result = getSimpleRootPath(cms, targetUri, basePath);
+        String detailRootPath = getDetailRootPath(cms, result);
+        if (detailRootPath != null) {
+            result = detailRootPath;
         }
+        return result;
 
-        String resultLink = null;
-        String uriBaseName = null;
-        boolean useRelativeLinks = false;
+    }
 
-        // determine the target site of the link
-        CmsSite currentSite = OpenCms.getSiteManager().getCurrentSite(cms);
-        CmsSite targetSite = null;
-        if (CmsStringUtil.isNotEmpty(siteRoot)) {
-            targetSite = OpenCms.getSiteManager().getSiteForSiteRoot(siteRoot);
+    /**
+     * Adds the VFS prefix to the VFS name and potentially adjusts request parameters<p>
+     * This method is required as a hook used in {@link CmsLocalePrefixLinkSubstitutionHandler}.<p>
+     *
+     * @param cms the cms context
+     * @param vfsName the VFS name
+     * @param targetSite the target site
+     * @param parameters the request parameters
+     *
+     * @return the path and the (adjusted) request parameters.
+     */
+    protected CmsPair<String, String> addVfsPrefix(
+        CmsObject cms,
+        String vfsName,
+        CmsSite targetSite,
+        String parameters) {
+
+        return new CmsPair<String, String>(OpenCms.getStaticExportManager().getVfsPrefix().concat(vfsName), parameters);
+    }
+
+    /**
+     * Generates the cache key for Online links.
+     * @param cms the current CmsObject
+     * @param targetSiteRoot the target site root
+     * @param detailPagePart the detail page part
+     * @param absoluteLink the absolute (site-relative) link to the resource
+     * @return the cache key
+     */
+    protected String generateCacheKey(
+        CmsObject cms,
+        String targetSiteRoot,
+        String detailPagePart,
+        String absoluteLink) {
+
+        return cms.getRequestContext().getSiteRoot() + ":" + targetSiteRoot + ":" + detailPagePart + absoluteLink;
+    }
+
+    /**
+     * Returns the root path for given site.<p>
+     * This method is required as a hook used in {@link CmsLocalePrefixLinkSubstitutionHandler}.<p>
+     * @param cms the cms context
+     * @param path the path
+     * @param siteRoot the site root, will be null in case of the root site
+     * @param isRootPath in case the path is already a root path
+     *
+     * @return the root path
+     */
+    protected String getRootPathForSite(CmsObject cms, String path, String siteRoot, boolean isRootPath) {
+
+        if (isRootPath || (siteRoot == null)) {
+            return CmsStringUtil.joinPaths("/", path);
+        } else {
+            return cms.getRequestContext().addSiteRoot(siteRoot, path);
         }
-        if (targetSite == null) {
-            targetSite = currentSite;
+    }
+
+    /**
+     * Gets the root path without taking into account detail page links.<p>
+     *
+     * @param cms - see the getRootPath() method
+     * @param targetUri - see the getRootPath() method
+     * @param basePath - see the getRootPath() method
+     * @return - see the getRootPath() method
+     */
+    protected String getSimpleRootPath(CmsObject cms, String targetUri, String basePath) {
+
+        if (cms == null) {
+            // required by unit test cases
+            return targetUri;
         }
 
-        String targetSiteRoot = targetSite.getSiteRoot();
-        String originalVfsName = vfsName;
-        String detailPage = null;
-        CmsResource detailContent = null;
+        URI uri;
+        String path;
+        String suffix = "";
+
+        // malformed uri
         try {
-            String rootVfsName;
-            if (!vfsName.startsWith(targetSiteRoot)
-                && !vfsName.startsWith(CmsResource.VFS_FOLDER_SYSTEM + "/")
-                && !OpenCms.getSiteManager().startsWithShared(vfsName)) {
-                rootVfsName = CmsStringUtil.joinPaths(targetSiteRoot, vfsName);
-            } else {
-                rootVfsName = vfsName;
-            }
-            if (!rootVfsName.startsWith(CmsWorkplace.VFS_PATH_WORKPLACE)) {
-                // never use the ADE manager for workplace links, to be sure the workplace stays usable in case of configuration errors
-                I_CmsDetailPageHandler finder = OpenCms.getADEManager().getDetailPageHandler();
-                detailPage = finder.getDetailPage(cms, rootVfsName, cms.getRequestContext().getUri(), targetDetailPage);
+            uri = new URI(targetUri);
+            path = uri.getPath();
+            suffix = getSuffix(uri);
+        } catch (Exception e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_MALFORMED_URI_1, targetUri), e);
             }
-            if (detailPage != null) {
-                CmsSite detailPageSite = OpenCms.getSiteManager().getSiteForRootPath(detailPage);
-                if (detailPageSite != null) {
-                    targetSite = detailPageSite;
-                    overrideSiteRoot = targetSiteRoot = targetSite.getSiteRoot();
-                    detailPage = detailPage.substring(targetSiteRoot.length());
-                    if (!detailPage.startsWith("/")) {
-                        detailPage = "/" + detailPage;
-                    }
-                }
-                String originalSiteRoot = cms.getRequestContext().getSiteRoot();
-                try {
-                    cms.getRequestContext().setSiteRoot("");
-                    CmsResource element = cms.readResource(rootVfsName, CmsResourceFilter.IGNORE_EXPIRATION);
-                    detailContent = element;
-                    Locale locale = cms.getRequestContext().getLocale();
-                    List<Locale> defaultLocales = OpenCms.getLocaleManager().getDefaultLocales();
-                    vfsName = CmsStringUtil.joinPaths(
-                        detailPage,
-                        cms.getDetailName(element, locale, defaultLocales),
-                        "/");
+            return null;
+        }
+        // opaque URI
+        if (uri.isOpaque()) {
+            return null;
+        }
 
-                } catch (CmsVfsException e) {
-                    if (LOG.isWarnEnabled()) {
-                        LOG.warn(e.getLocalizedMessage(), e);
-                    }
-                } finally {
-                    cms.getRequestContext().setSiteRoot(originalSiteRoot);
+        // in case the target is the workplace UI
+        if (CmsLinkManager.isWorkplaceUri(uri)) {
+            return null;
+        }
+
+        // in case the target is a static resource served from the class path
+        if (CmsStaticResourceHandler.isStaticResourceUri(uri)) {
+            return CmsStringUtil.joinPaths(
+                CmsStaticResourceHandler.STATIC_RESOURCE_PREFIX,
+                CmsStaticResourceHandler.removeStaticResourcePrefix(path));
+        }
 
+        CmsStaticExportManager exportManager = OpenCms.getStaticExportManager();
+        if (exportManager.isValidRfsName(path)) {
+            String originalSiteRoot = cms.getRequestContext().getSiteRoot();
+            String vfsName = null;
+            try {
+                cms.getRequestContext().setSiteRoot("");
+                vfsName = exportManager.getVfsName(cms, path);
+                if (vfsName != null) {
+                    return vfsName;
                 }
+            } finally {
+                cms.getRequestContext().setSiteRoot(originalSiteRoot);
             }
-        } catch (CmsVfsResourceNotFoundException e) {
-            LOG.info(e.getLocalizedMessage(), e);
-        } catch (CmsException e) {
-            LOG.error(e.getLocalizedMessage(), e);
         }
 
-        // if the link points to another site, there needs to be a server prefix
-        String serverPrefix;
-        if ((targetSite != currentSite) || cms.getRequestContext().isForceAbsoluteLinks()) {
-            serverPrefix = targetSite.getUrl();
-        } else {
-            serverPrefix = "";
-        }
+        // absolute URI (i.e. URI has a scheme component like http:// ...)
+        if (uri.isAbsolute()) {
+            CmsSiteMatcher targetMatcher = new CmsSiteMatcher(targetUri);
+            if (OpenCms.getSiteManager().isMatching(targetMatcher)
+                || targetMatcher.equals(cms.getRequestContext().getRequestMatcher())) {
 
-        // in the online project, check static export and secure settings
-        if (cms.getRequestContext().getCurrentProject().isOnlineProject()) {
-            // first check if this link needs static export
-            CmsStaticExportManager exportManager = OpenCms.getStaticExportManager();
-            String oriUri = cms.getRequestContext().getUri();
-            // check if we need relative links in the exported pages
-            if (exportManager.relativeLinksInExport(cms.getRequestContext().getSiteRoot() + oriUri)) {
-                // try to get base URI from cache
-                String cacheKey = exportManager.getCacheKey(targetSiteRoot, oriUri);
-                uriBaseName = exportManager.getCachedOnlineLink(cacheKey);
-                if (uriBaseName == null) {
-                    // base not cached, check if we must export it
-                    if (exportManager.isExportLink(cms, oriUri)) {
-                        // base URI must also be exported
-                        uriBaseName = exportManager.getRfsName(cms, oriUri);
+                path = CmsLinkManager.removeOpenCmsContext(path);
+                boolean isWorkplaceServer = OpenCms.getSiteManager().isWorkplaceRequest(targetMatcher)
+                    || targetMatcher.equals(cms.getRequestContext().getRequestMatcher());
+                if (isWorkplaceServer) {
+                    String selectedPath;
+                    String targetSiteRoot = OpenCms.getSiteManager().getSiteRoot(path);
+                    if (targetSiteRoot != null) {
+                        selectedPath = getRootPathForSite(cms, path, targetSiteRoot, true);
                     } else {
-                        // base URI dosn't need to be exported
-                        CmsPair<String, String> uriParamPair = addVfsPrefix(cms, oriUri, targetSite, parameters);
-                        uriBaseName = uriParamPair.getFirst();
-                        parameters = uriParamPair.getSecond();
+                        // set selectedPath with the path for the current site
+                        selectedPath = getRootPathForSite(cms, path, cms.getRequestContext().getSiteRoot(), false);
+                        String pathForMatchedSite = getRootPathForSite(
+                            cms,
+                            path,
+                            OpenCms.getSiteManager().matchSite(targetMatcher).getSiteRoot(),
+                            false);
+                        String originalSiteRoot = cms.getRequestContext().getSiteRoot();
+                        try {
+                            cms.getRequestContext().setSiteRoot("");
+                            // the path for the current site normally is preferred, but if it doesn't exist and the path for the matched site
+                            // does exist, then use the path for the matched site
+                            if (!cms.existsResource(selectedPath, CmsResourceFilter.ALL)
+                                && cms.existsResource(pathForMatchedSite, CmsResourceFilter.ALL)) {
+                                selectedPath = pathForMatchedSite;
+                            }
+                        } finally {
+                            cms.getRequestContext().setSiteRoot(originalSiteRoot);
+                        }
                     }
-                    // cache export base URI
-                    exportManager.cacheOnlineLink(cacheKey, uriBaseName);
-                }
-                // use relative links only on pages that get exported
-                useRelativeLinks = uriBaseName.startsWith(
-                    exportManager.getRfsPrefix(cms.getRequestContext().getSiteRoot() + oriUri));
-            }
-
-            String detailPagePart = detailPage == null ? "" : detailPage + ":";
-            // check if we have the absolute VFS name for the link target cached
-            // (We really need the target site root in the cache key, because different resources with the same site paths
-            // but in different sites may have different export settings. It seems we don't really need the site root
-            // from the request context as part of the key, but we'll leave it in to make sure we don't break anything.)
-            String cacheKey = generateCacheKey(cms, targetSiteRoot, detailPagePart, absoluteLink);
-            resultLink = exportManager.getCachedOnlineLink(cacheKey);
-            if (resultLink == null) {
-                String storedSiteRoot = cms.getRequestContext().getSiteRoot();
-                try {
-                    cms.getRequestContext().setSiteRoot(targetSite.getSiteRoot());
-                    // didn't find the link in the cache
-                    if (exportManager.isExportLink(cms, vfsName)) {
-                        parameters = prepareExportParameters(cms, vfsName, parameters);
-                        // export required, get export name for target link
-                        resultLink = exportManager.getRfsName(cms, vfsName, parameters, targetDetailPage);
-                        // now set the parameters to null, we do not need them anymore
-                        parameters = null;
-                    } else {
-                        // no export required for the target link
-                        CmsPair<String, String> uriParamPair = addVfsPrefix(cms, vfsName, targetSite, parameters);
-                        resultLink = uriParamPair.getFirst();
-                        parameters = uriParamPair.getSecond();
-                        // add cut off parameters if required
-                        if (parameters != null) {
-                            resultLink = resultLink.concat(parameters);
-                        }
-                    }
-                } finally {
-                    cms.getRequestContext().setSiteRoot(storedSiteRoot);
+                    return selectedPath + suffix;
+                } else {
+                    // add the site root of the matching site
+                    return getRootPathForSite(
+                        cms,
+                        path + suffix,
+                        OpenCms.getSiteManager().matchSite(targetMatcher).getSiteRoot(),
+                        false);
                 }
-                // cache the result
-                exportManager.cacheOnlineLink(cacheKey, resultLink);
+            } else {
+                return null;
             }
+        }
 
-            // now check for the secure settings
-
-            // check if either the current site or the target site does have a secure server configured
-            if (targetSite.hasSecureServer() || currentSite.hasSecureServer()) {
+        // relative URI (i.e. no scheme component, but filename can still start with "/")
+        String context = OpenCms.getSystemInfo().getOpenCmsContext();
+        String vfsPrefix = OpenCms.getStaticExportManager().getVfsPrefix();
+        if ((context != null) && (path.startsWith(context + "/") || (path.startsWith(vfsPrefix + "/")))) {
+            // URI is starting with opencms context
 
-                if (!vfsName.startsWith(CmsWorkplace.VFS_PATH_SYSTEM)) {
-                    // don't make a secure connection to the "/system" folder (why ?)
-                    int linkType = -1;
-                    try {
-                        // read the linked resource
-                        linkType = cms.readResource(originalVfsName).getTypeId();
-                    } catch (CmsException e) {
-                        // the resource could not be read
-                        if (LOG.isInfoEnabled()) {
-                            String message = Messages.get().getBundle().key(
-                                Messages.LOG_RESOURCE_ACESS_ERROR_3,
-                                vfsName,
-                                cms.getRequestContext().getCurrentUser().getName(),
-                                cms.getRequestContext().getSiteRoot());
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug(message, e);
-                            } else {
-                                LOG.info(message);
-                            }
-                        }
-                    }
+            // cut context from path
+            path = CmsLinkManager.removeOpenCmsContext(path);
 
-                    // images are always referenced without a server prefix
-                    int imageId;
-                    try {
-                        imageId = OpenCms.getResourceManager().getResourceType(
-                            CmsResourceTypeImage.getStaticTypeName()).getTypeId();
-                    } catch (CmsLoaderException e1) {
-                        // should really never happen
-                        LOG.warn(e1.getLocalizedMessage(), e1);
-                        imageId = CmsResourceTypeImage.getStaticTypeId();
-                    }
-                    boolean hasIsImageLinkAttr = Boolean.parseBoolean(
-                        "" + cms.getRequestContext().getAttribute(ATTR_IS_IMAGE_LINK));
-                    if ((linkType != imageId) && !hasIsImageLinkAttr) {
-                        // check the secure property of the link
-                        boolean secureRequest = cms.getRequestContext().isSecureRequest()
-                            || exportManager.isSecureLink(cms, oriUri);
+            String targetSiteRoot = getTargetSiteRoot(cms, path, basePath);
 
-                        boolean secureLink;
-                        if (detailContent == null) {
-                            secureLink = isSecureLink(cms, vfsName, targetSite, secureRequest);
-                        } else {
-                            secureLink = isDetailPageLinkSecure(
-                                cms,
-                                detailPage,
-                                detailContent,
-                                targetSite,
-                                secureRequest);
+            return getRootPathForSite(
+                cms,
+                path + suffix,
+                targetSiteRoot,
+                (targetSiteRoot != null) && path.startsWith(targetSiteRoot));
+        }
 
-                        }
-                        // if we are on a normal server, and the requested resource is secure,
-                        // the server name has to be prepended
-                        if (secureLink && (forceSecure || !secureRequest)) {
-                            serverPrefix = targetSite.getSecureUrl();
-                        } else if (!secureLink && secureRequest) {
-                            serverPrefix = targetSite.getUrl();
-                        }
-                    }
+        // URI with relative path is relative to the given relativePath if available and in a site,
+        // otherwise invalid
+        if (CmsStringUtil.isNotEmpty(path) && (path.charAt(0) != '/')) {
+            if (basePath != null) {
+                String absolutePath;
+                int pos = path.indexOf("../../galleries/pics/");
+                if (pos >= 0) {
+                    // HACK: mixed up editor path to system gallery image folder
+                    return CmsWorkplace.VFS_PATH_SYSTEM + path.substring(pos + 6) + suffix;
                 }
-            }
-            // make absolute link relative, if relative links in export are required
-            // and if the link does not point to another server
-            if (useRelativeLinks && CmsStringUtil.isEmpty(serverPrefix)) {
-                // in case the current page is a detailpage, append another path level
-                if (cms.getRequestContext().getDetailContentId() != null) {
-                    uriBaseName = CmsStringUtil.joinPaths(
-                        CmsResource.getFolderPath(uriBaseName),
-                        cms.getRequestContext().getDetailContentId().toString() + "/index.html");
+                absolutePath = CmsLinkManager.getAbsoluteUri(path, cms.getRequestContext().addSiteRoot(basePath));
+                if (OpenCms.getSiteManager().getSiteRoot(absolutePath) != null) {
+                    return absolutePath + suffix;
+                }
+                // HACK: some editor components (e.g. HtmlArea) mix up the editor URL with the current request URL
+                absolutePath = CmsLinkManager.getAbsoluteUri(
+                    path,
+                    cms.getRequestContext().getSiteRoot() + CmsWorkplace.VFS_PATH_EDITORS);
+                if (OpenCms.getSiteManager().getSiteRoot(absolutePath) != null) {
+                    return absolutePath + suffix;
+                }
+                // HACK: same as above, but XmlContent editor has one path element more
+                absolutePath = CmsLinkManager.getAbsoluteUri(
+                    path,
+                    cms.getRequestContext().getSiteRoot() + CmsWorkplace.VFS_PATH_EDITORS + "xmlcontent/");
+                if (OpenCms.getSiteManager().getSiteRoot(absolutePath) != null) {
+                    return absolutePath + suffix;
                 }
-                resultLink = CmsLinkManager.getRelativeUri(uriBaseName, resultLink);
-            }
-
-        } else {
-            // offline project, no export or secure handling required
-            if (OpenCms.getRunLevel() >= OpenCms.RUNLEVEL_3_SHELL_ACCESS) {
-                // in unit test this code would fail otherwise
-                CmsPair<String, String> uriParamPair = addVfsPrefix(cms, vfsName, targetSite, parameters);
-                resultLink = uriParamPair.getFirst();
-                parameters = uriParamPair.getSecond();
             }
 
-            // add cut off parameters and return the result
-            if ((parameters != null) && (resultLink != null)) {
-                resultLink = resultLink.concat(parameters);
-            }
+            return null;
         }
 
-        if ((anchor != null) && (resultLink != null)) {
-            resultLink = resultLink.concat(anchor);
-        }
-        if (overrideSiteRoot != null) {
-            cms.getRequestContext().setAttribute(OVERRIDE_SITEROOT_PREFIX + resultLink, overrideSiteRoot);
+        if (CmsStringUtil.isNotEmpty(path)) {
+            String targetSiteRoot = getTargetSiteRoot(cms, path, basePath);
+
+            return getRootPathForSite(
+                cms,
+                path + suffix,
+                targetSiteRoot,
+                (targetSiteRoot != null) && path.startsWith(targetSiteRoot));
         }
 
-        return serverPrefix.concat(resultLink);
+        // URI without path (typically local link)
+        return suffix;
     }
 
     /**
-     * @see org.opencms.staticexport.I_CmsLinkSubstitutionHandler#getRootPath(org.opencms.file.CmsObject, java.lang.String, java.lang.String)
+     * Checks whether a link to a detail page should be secure.<p>
+     *
+     * @param cms the current CMS context
+     * @param detailPage the detail page path
+     * @param detailContent the detail content resource
+     * @param targetSite the target site containing the detail page
+     * @param secureRequest true if the currently running request is secure
+     *
+     * @return true if the link should be a secure link
      */
-    public String getRootPath(CmsObject cms, String targetUri, String basePath) {
+    protected boolean isDetailPageLinkSecure(
+        CmsObject cms,
+        String detailPage,
+        CmsResource detailContent,
+        CmsSite targetSite,
+        boolean secureRequest) {
 
-        String result = getSimpleRootPath(cms, targetUri, basePath);
-        String detailRootPath = getDetailRootPath(cms, result);
-        if (detailRootPath != null) {
-            result = detailRootPath;
+        boolean result = false;
+        CmsStaticExportManager exportManager = OpenCms.getStaticExportManager();
+        try {
+            cms = OpenCms.initCmsObject(cms);
+            if (targetSite.getSiteRoot() != null) {
+                cms.getRequestContext().setSiteRoot(targetSite.getSiteRoot());
+            }
+            CmsResource defaultFile = cms.readDefaultFile(detailPage);
+            if (defaultFile != null) {
+                result = exportManager.isSecureLink(cms, defaultFile.getRootPath(), "", secureRequest);
+            }
+        } catch (Exception e) {
+            LOG.error("Error while checking whether detail page link should be secure: " + e.getLocalizedMessage(), e);
         }
         return result;
+    }
+
+    /**
+     * Checks if the link target is a secure link.<p
+     *
+     * @param cms the current CMS context
+     * @param vfsName the path of the link target
+     * @param targetSite the target site containing the detail page
+     * @param secureRequest true if the currently running request is secure
+     *
+     * @return true if the link should be a secure link
+     */
+    protected boolean isSecureLink(CmsObject cms, String vfsName, CmsSite targetSite, boolean secureRequest) {
 
+        return OpenCms.getStaticExportManager().isSecureLink(cms, vfsName, targetSite.getSiteRoot(), secureRequest);
     }
 
     /**
-     * Adds the VFS prefix to the VFS name and potentially adjusts request parameters<p>
+     * Prepares the request parameters for the given resource.<p>
      * This method is required as a hook used in {@link CmsLocalePrefixLinkSubstitutionHandler}.<p>
      *
      * @param cms the cms context
-     * @param vfsName the VFS name
-     * @param targetSite the target site
-     * @param parameters the request parameters
+     * @param vfsName the vfs name
+     * @param parameters the parameters to prepare
      *
-     * @return the path and the (adjusted) request parameters.
+     * @return the root path
      */
-    protected CmsPair<String, String> addVfsPrefix(
-        CmsObject cms,
-        String vfsName,
-        CmsSite targetSite,
-        String parameters) {
+    protected String prepareExportParameters(CmsObject cms, String vfsName, String parameters) {
 
-        return new CmsPair<String, String>(OpenCms.getStaticExportManager().getVfsPrefix().concat(vfsName), parameters);
+        return parameters;
     }
 
     /**
-     * Generates the cache key for Online links.
-     * @param cms the current CmsObject
-     * @param targetSiteRoot the target site root
-     * @param detailPagePart the detail page part
-     * @param absoluteLink the absolute (site-relative) link to the resource
-     * @return the cache key
-     */
-    protected String generateCacheKey(
-        CmsObject cms,
-        String targetSiteRoot,
-        String detailPagePart,
-        String absoluteLink) {
-
-        return cms.getRequestContext().getSiteRoot() + ":" + targetSiteRoot + ":" + detailPagePart + absoluteLink;
-    }
-
-    /**
-     * Returns the root path for given site.<p>
-     * This method is required as a hook used in {@link CmsLocalePrefixLinkSubstitutionHandler}.<p>
-     * @param cms the cms context
-     * @param path the path
-     * @param siteRoot the site root, will be null in case of the root site
-     * @param isRootPath in case the path is already a root path
+     * Gets the suffix (query + fragment) of the URI.<p>
      *
-     * @return the root path
+     * @param uri the URI
+     * @return the suffix of the URI
      */
-    protected String getRootPathForSite(CmsObject cms, String path, String siteRoot, boolean isRootPath) {
+    String getSuffix(URI uri) {
 
-        if (isRootPath || (siteRoot == null)) {
-            return CmsStringUtil.joinPaths("/", path);
+        String fragment = uri.getFragment();
+        if (fragment != null) {
+            fragment = "#" + fragment;
         } else {
-            return cms.getRequestContext().addSiteRoot(siteRoot, path);
+            fragment = "";
         }
+
+        String query = uri.getRawQuery();
+        if (query != null) {
+            query = "?" + query;
+        } else {
+            query = "";
+        }
+        return query.concat(fragment);
     }
 
     /**
-     * Gets the root path without taking into account detail page links.<p>
+     * Tries to interpret the given URI as a detail page URI and returns the detail content's root path if possible.<p>
      *
-     * @param cms - see the getRootPath() method
-     * @param targetUri - see the getRootPath() method
-     * @param basePath - see the getRootPath() method
-     * @return - see the getRootPath() method
+     * If the given URI is not a detail URI, null will be returned.<p>
+     *
+     * @param cms the CMS context to use
+     * @param result the detail root path, or null if the given uri is not a detail page URI
+     *
+     * @return the detail content root path
      */
-    protected String getSimpleRootPath(CmsObject cms, String targetUri, String basePath) {
+    private String getDetailRootPath(CmsObject cms, String result) {
 
-        if (cms == null) {
-            // required by unit test cases
-            return targetUri;
+        if (result == null) {
+            return null;
         }
-
-        URI uri;
-        String path;
-        String suffix = "";
-
-        // malformed uri
         try {
-            uri = new URI(targetUri);
-            path = uri.getPath();
-            suffix = getSuffix(uri);
-        } catch (Exception e) {
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_MALFORMED_URI_1, targetUri), e);
+            URI uri = new URI(result);
+            String path = uri.getPath();
+            if (CmsStringUtil.isEmptyOrWhitespaceOnly(path) || !OpenCms.getADEManager().isInitialized()) {
+                return null;
             }
-            return null;
-        }
-        // opaque URI
-        if (uri.isOpaque()) {
-            return null;
-        }
-
-        // in case the target is the workplace UI
-        if (CmsLinkManager.isWorkplaceUri(uri)) {
-            return null;
-        }
-
-        // in case the target is a static resource served from the class path
-        if (CmsStaticResourceHandler.isStaticResourceUri(uri)) {
-            return CmsStringUtil.joinPaths(
-                CmsStaticResourceHandler.STATIC_RESOURCE_PREFIX,
-                CmsStaticResourceHandler.removeStaticResourcePrefix(path));
-        }
-
-        CmsStaticExportManager exportManager = OpenCms.getStaticExportManager();
-        if (exportManager.isValidRfsName(path)) {
-            String originalSiteRoot = cms.getRequestContext().getSiteRoot();
-            String vfsName = null;
+            String name = CmsFileUtil.removeTrailingSeparator(CmsResource.getName(path));
+            CmsUUID detailId = OpenCms.getADEManager().getDetailIdCache(
+                cms.getRequestContext().getCurrentProject().isOnlineProject()).getDetailId(name);
+            if (detailId == null) {
+                return null;
+            }
+            String origSiteRoot = cms.getRequestContext().getSiteRoot();
             try {
                 cms.getRequestContext().setSiteRoot("");
-                vfsName = exportManager.getVfsName(cms, path);
-                if (vfsName != null) {
-                    return vfsName;
+                // real root paths have priority over detail contents
+                if (cms.existsResource(path)) {
+                    return null;
                 }
             } finally {
-                cms.getRequestContext().setSiteRoot(originalSiteRoot);
-            }
-        }
-
-        // absolute URI (i.e. URI has a scheme component like http:// ...)
-        if (uri.isAbsolute()) {
-            CmsSiteMatcher targetMatcher = new CmsSiteMatcher(targetUri);
-            if (OpenCms.getSiteManager().isMatching(targetMatcher)
-                || targetMatcher.equals(cms.getRequestContext().getRequestMatcher())) {
-
-                path = CmsLinkManager.removeOpenCmsContext(path);
-                boolean isWorkplaceServer = OpenCms.getSiteManager().isWorkplaceRequest(targetMatcher)
-                    || targetMatcher.equals(cms.getRequestContext().getRequestMatcher());
-                if (isWorkplaceServer) {
-                    String selectedPath;
-                    String targetSiteRoot = OpenCms.getSiteManager().getSiteRoot(path);
-                    if (targetSiteRoot != null) {
-                        selectedPath = getRootPathForSite(cms, path, targetSiteRoot, true);
-                    } else {
-                        // set selectedPath with the path for the current site
-                        selectedPath = getRootPathForSite(cms, path, cms.getRequestContext().getSiteRoot(), false);
-                        String pathForMatchedSite = getRootPathForSite(
-                            cms,
-                            path,
-                            OpenCms.getSiteManager().matchSite(targetMatcher).getSiteRoot(),
-                            false);
-                        String originalSiteRoot = cms.getRequestContext().getSiteRoot();
-                        try {
-                            cms.getRequestContext().setSiteRoot("");
-                            // the path for the current site normally is preferred, but if it doesn't exist and the path for the matched site
-                            // does exist, then use the path for the matched site
-                            if (!cms.existsResource(selectedPath, CmsResourceFilter.ALL)
-                                && cms.existsResource(pathForMatchedSite, CmsResourceFilter.ALL)) {
-                                selectedPath = pathForMatchedSite;
-                            }
-                        } finally {
-                            cms.getRequestContext().setSiteRoot(originalSiteRoot);
-                        }
-                    }
-                    return selectedPath + suffix;
-                } else {
-                    // add the site root of the matching site
-                    return getRootPathForSite(
-                        cms,
-                        path + suffix,
-                        OpenCms.getSiteManager().matchSite(targetMatcher).getSiteRoot(),
-                        false);
-                }
-            } else {
-                return null;
+                cms.getRequestContext().setSiteRoot(origSiteRoot);
             }
+            CmsResource detailResource = cms.readResource(detailId, CmsResourceFilter.ALL);
+            return detailResource.getRootPath() + getSuffix(uri);
+        } catch (Exception e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
         }
+    }
 
-        // relative URI (i.e. no scheme component, but filename can still start with "/")
-        String context = OpenCms.getSystemInfo().getOpenCmsContext();
-        String vfsPrefix = OpenCms.getStaticExportManager().getVfsPrefix();
-        if ((context != null) && (path.startsWith(context + "/") || (path.startsWith(vfsPrefix + "/")))) {
-            // URI is starting with opencms context
-
-            // cut context from path
-            path = CmsLinkManager.removeOpenCmsContext(path);
-
-            String targetSiteRoot = getTargetSiteRoot(cms, path, basePath);
-
-            return getRootPathForSite(
-                cms,
-                path + suffix,
-                targetSiteRoot,
-                (targetSiteRoot != null) && path.startsWith(targetSiteRoot));
-        }
-
-        // URI with relative path is relative to the given relativePath if available and in a site,
-        // otherwise invalid
-        if (CmsStringUtil.isNotEmpty(path) && (path.charAt(0) != '/')) {
-            if (basePath != null) {
-                String absolutePath;
-                int pos = path.indexOf("../../galleries/pics/");
-                if (pos >= 0) {
-                    // HACK: mixed up editor path to system gallery image folder
-                    return CmsWorkplace.VFS_PATH_SYSTEM + path.substring(pos + 6) + suffix;
-                }
-                absolutePath = CmsLinkManager.getAbsoluteUri(path, cms.getRequestContext().addSiteRoot(basePath));
-                if (OpenCms.getSiteManager().getSiteRoot(absolutePath) != null) {
-                    return absolutePath + suffix;
-                }
-                // HACK: some editor components (e.g. HtmlArea) mix up the editor URL with the current request URL
-                absolutePath = CmsLinkManager.getAbsoluteUri(
-                    path,
-                    cms.getRequestContext().getSiteRoot() + CmsWorkplace.VFS_PATH_EDITORS);
-                if (OpenCms.getSiteManager().getSiteRoot(absolutePath) != null) {
-                    return absolutePath + suffix;
-                }
-                // HACK: same as above, but XmlContent editor has one path element more
-                absolutePath = CmsLinkManager.getAbsoluteUri(
-                    path,
-                    cms.getRequestContext().getSiteRoot() + CmsWorkplace.VFS_PATH_EDITORS + "xmlcontent/");
-                if (OpenCms.getSiteManager().getSiteRoot(absolutePath) != null) {
-                    return absolutePath + suffix;
-                }
-            }
+    /**
+     * Returns the target site for the given path.<p>
+     *
+     * @param cms the cms context
+     * @param path the path
+     * @param basePath the base path
+     *
+     * @return the target site
+     */
+    private String getTargetSiteRoot(CmsObject cms, String path, String basePath) {
 
+        if (OpenCms.getSiteManager().startsWithShared(path) || path.startsWith(CmsWorkplace.VFS_PATH_SYSTEM)) {
             return null;
         }
-
-        if (CmsStringUtil.isNotEmpty(path)) {
-            String targetSiteRoot = getTargetSiteRoot(cms, path, basePath);
-
-            return getRootPathForSite(
-                cms,
-                path + suffix,
-                targetSiteRoot,
-                (targetSiteRoot != null) && path.startsWith(targetSiteRoot));
+        String targetSiteRoot = OpenCms.getSiteManager().getSiteRoot(path);
+        if ((targetSiteRoot == null) && (basePath != null)) {
+            targetSiteRoot = OpenCms.getSiteManager().getSiteRoot(basePath);
         }
-
-        // URI without path (typically local link)
-        return suffix;
+        if (targetSiteRoot == null) {
+            targetSiteRoot = cms.getRequestContext().getSiteRoot();
+        }
+        return targetSiteRoot;
     }
 
     /**
-     * Checks whether a link to a detail page should be secure.<p>
+     * Resolves a link without using the link resolution cache.<p>
      *
-     * @param cms the current CMS context
-     * @param detailPage the detail page path
-     * @param detailContent the detail content resource
-     * @param targetSite the target site containing the detail page
-     * @param secureRequest true if the currently running request is secure
+     * @param cms the current OpenCms user context
+     * @param link the link to process, neither empty nor a static resource link
+     * @param siteRoot the site root of the link
+     * @param targetDetailPage the target detail page, in case of linking to a specific detail page
+     * @param forceSecure if <code>true</code> generates always an absolute URL (with protocol and server name) for secure links
      *
-     * @return true if the link should be a secure link
+     * @return the resolved link, together with the site root override for it
      */
-    protected boolean isDetailPageLinkSecure(
+    private CmsLinkResolutionCache.CmsResolvedLink resolveLink(
         CmsObject cms,
-        String detailPage,
-        CmsResource detailContent,
-        CmsSite targetSite,
-        boolean secureRequest) {
+        String link,
+        String siteRoot,
+        String targetDetailPage,
+        boolean forceSecure) {
 
-        boolean result = false;
-        CmsStaticExportManager exportManager = OpenCms.getStaticExportManager();
-        try {
-            cms = OpenCms.initCmsObject(cms);
-            if (targetSite.getSiteRoot() != null) {
-                cms.getRequestContext().setSiteRoot(targetSite.getSiteRoot());
-            }
-            CmsResource defaultFile = cms.readDefaultFile(detailPage);
-            if (defaultFile != null) {
-                result = exportManager.isSecureLink(cms, defaultFile.getRootPath(), "", secureRequest);
-            }
-        } catch (Exception e) {
-            LOG.error("Error while checking whether detail page link should be secure: " + e.getLocalizedMessage(), e);
+        // make sure we have an absolute link
+        String absoluteLink = CmsLinkManager.getAbsoluteUri(link, cms.getRequestContext().getUri());
+        String overrideSiteRoot = null;
+
+        String vfsName;
+        String parameters;
+        // check if the link has parameters, if so cut them
+        int pos = absoluteLink.indexOf('?');
+        if (pos >= 0) {
+            vfsName = absoluteLink.substring(0, pos);
+            parameters = absoluteLink.substring(pos);
+        } else {
+            vfsName = absoluteLink;
+            parameters = null;
         }
-        return result;
-    }
 
-    /**
-     * Checks if the link target is a secure link.<p
-     *
-     * @param cms the current CMS context
-     * @param vfsName the path of the link target
-     * @param targetSite the target site containing the detail page
-     * @param secureRequest true if the currently running request is secure
-     *
-     * @return true if the link should be a secure link
-     */
-    protected boolean isSecureLink(CmsObject cms, String vfsName, CmsSite targetSite, boolean secureRequest) {
+        // check for anchor
+        String anchor = null;
+        pos = vfsName.indexOf('#');
+        if (pos >= 0) {
+            anchor = vfsName.substring(pos);
+            vfsName = vfsName.substring(0, pos);
+        }
 
-        return OpenCms.getStaticExportManager().isSecureLink(cms, vfsName, targetSite.getSiteRoot(), secureRequest);
-    }
+        String resultLink = null;
+        String uriBaseName = null;
+        boolean useRelativeLinks = false;
 
-    /**
-     * Prepares the request parameters for the given resource.<p>
-     * This method is required as a hook used in {@link CmsLocalePrefixLinkSubstitutionHandler}.<p>
-     *
-     * @param cms the cms context
-     * @param vfsName the vfs name
-     * @param parameters the parameters to prepare
-     *
-     * @return the root path
-     */
-    protected String prepareExportParameters(CmsObject cms, String vfsName, String parameters) {
+        // determine the target site of the link
+        CmsSite currentSite = OpenCms.getSiteManager().getCurrentSite(cms);
+        CmsSite targetSite = null;
+        if (CmsStringUtil.isNotEmpty(siteRoot)) {
+            targetSite = OpenCms.getSiteManager().getSiteForSiteRoot(siteRoot);
+        }
+        if (targetSite == null) {
+            targetSite = currentSite;
+        }
 
-        return parameters;
-    }
+        String targetSiteRoot = targetSite.getSiteRoot();
+        String originalVfsName = vfsName;
+        String detailPage = null;
+        CmsResource detailContent = null;
+        try {
+            String rootVfsName;
+            if (!vfsName.startsWith(targetSiteRoot)
+                && !vfsName.startsWith(CmsResource.VFS_FOLDER_SYSTEM + "/")
+                && !OpenCms.getSiteManager().startsWithShared(vfsName)) {
+                rootVfsName = CmsStringUtil.joinPaths(targetSiteRoot, vfsName);
+            } else {
+                rootVfsName = vfsName;
+            }
+            if (!rootVfsName.startsWith(CmsWorkplace.VFS_PATH_WORKPLACE)) {
+                // never use the ADE manager for workplace links, to be sure the workplace stays usable in case of configuration errors
+                I_CmsDetailPageHandler finder = OpenCms.getADEManager().getDetailPageHandler();
+                detailPage = finder.getDetailPage(cms, rootVfsName, cms.getRequestContext().getUri(), targetDetailPage);
+            }
+            if (detailPage != null) {
+                CmsSite detailPageSite = OpenCms.getSiteManager().getSiteForRootPath(detailPage);
+                if (detailPageSite != null) {
+                    targetSite = detailPageSite;
+                    overrideSiteRoot = targetSiteRoot = targetSite.getSiteRoot();
+                    detailPage = detailPage.substring(targetSiteRoot.length());
+                    if (!detailPage.startsWith("/")) {
+                        detailPage = "/" + detailPage;
+                    }
+                }
+                String originalSiteRoot = cms.getRequestContext().getSiteRoot();
+                try {
+                    cms.getRequestContext().setSiteRoot("");
+                    CmsResource element = cms.readResource(rootVfsName, CmsResourceFilter.IGNORE_EXPIRATION);
+                    detailContent = element;
+                    Locale locale = cms.getRequestContext().getLocale();
+                    List<Locale> defaultLocales = OpenCms.getLocaleManager().getDefaultLocales();
+                    vfsName = CmsStringUtil.joinPaths(
+                        detailPage,
+                        cms.getDetailName(element, locale, defaultLocales),
+                        "/");
 
-    /**
-     * Gets the suffix (query + fragment) of the URI.<p>
-     *
-     * @param uri the URI
-     * @return the suffix of the URI
-     */
-    String getSuffix(URI uri) {
+                } catch (CmsVfsException e) {
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn(e.getLocalizedMessage(), e);
+                    }
+                } finally {
+                    cms.getRequestContext().setSiteRoot(originalSiteRoot);
 
-        String fragment = uri.getFragment();
-        if (fragment != null) {
-            fragment = "#" + fragment;
-        } else {
-            fragment = "";
+                }
+            }
+        } catch (CmsVfsResourceNotFoundException e) {
+            LOG.info(e.getLocalizedMessage(), e);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
         }
 
-        String query = uri.getRawQuery();
-        if (query != null) {
-            query = "?" + query;
+        // if the link points to another site, there needs to be a server prefix
+        String serverPrefix;
+        if ((targetSite != currentSite) || cms.getRequestContext().isForceAbsoluteLinks()) {
+            serverPrefix = targetSite.getUrl();
         } else {
-            query = "";
+            serverPrefix = "";
         }
-        return query.concat(fragment);
-    }
 
-    /**
-     * Tries to interpret the given URI as a detail page URI and returns the detail content's root path if possible.<p>
-     *
-     * If the given URI is not a detail URI, null will be returned.<p>
-     *
-     * @param cms the CMS context to use
-     * @param result the detail root path, or null if the given uri is not a detail page URI
-     *
-     * @return the detail content root path
-     */
-    private String getDetailRootPath(CmsObject cms, String result) {
+        // in the online project, check static export and secure settings
+        if (cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+            // first check if this link needs static export
+            CmsStaticExportManager exportManager = OpenCms.getStaticExportManager();
+            String oriUri = cms.getRequestContext().getUri();
+            // check if we need relative links in the exported pages
+            if (exportManager.relativeLinksInExport(cms.getRequestContext().getSiteRoot() + oriUri)) {
+                // try to get base URI from cache
+                String cacheKey = exportManager.getCacheKey(targetSiteRoot, oriUri);
+                uriBaseName = exportManager.getCachedOnlineLink(cacheKey);
+                if (uriBaseName == null) {
+                    // base not cached, check if we must export it
+                    if (exportManager.isExportLink(cms, oriUri)) {
+                        // base URI must also be exported
+                        uriBaseName = exportManager.getRfsName(cms, oriUri);
+                    } else {
+                        // base URI dosn't need to be exported
+                        CmsPair<String, String> uriParamPair = addVfsPrefix(cms, oriUri, targetSite, parameters);
+                        uriBaseName = uriParamPair.getFirst();
+                        parameters = uriParamPair.getSecond();
+                    }
+                    // cache export base URI
+                    exportManager.cacheOnlineLink(cacheKey, uriBaseName);
+                }
+                // use relative links only on pages that get exported
+                useRelativeLinks = uriBaseName.startsWith(
+                    exportManager.getRfsPrefix(cms.getRequestContext().getSiteRoot() + oriUri));
+            }
 
-        if (result == null) {
-            return null;
-        }
-        try {
-            URI uri = new URI(result);
-            String path = uri.getPath();
-            if (CmsStringUtil.isEmptyOrWhitespaceOnly(path) || !OpenCms.getADEManager().isInitialized()) {
-                return null;
+            String detailPagePart = detailPage == null ? "" : detailPage + ":";
+            // check if we have the absolute VFS name for the link target cached
+            // (We really need the target site root in the cache key, because different resources with the same site paths
+            // but in different sites may have different export settings. It seems we don't really need the site root
+            // from the request context as part of the key, but we'll leave it in to make sure we don't break anything.)
+            String cacheKey = generateCacheKey(cms, targetSiteRoot, detailPagePart, absoluteLink);
+            resultLink = exportManager.getCachedOnlineLink(cacheKey);
+            if (resultLink == null) {
+                String storedSiteRoot = cms.getRequestContext().getSiteRoot();
+                try {
+                    cms.getRequestContext().setSiteRoot(targetSite.getSiteRoot());
+                    // didn't find the link in the cache
+                    if (exportManager.isExportLink(cms, vfsName)) {
+                        parameters = prepareExportParameters(cms, vfsName, parameters);
+                        // export required, get export name for target link
+                        resultLink = exportManager.getRfsName(cms, vfsName, parameters, targetDetailPage);
+                        // now set the parameters to null, we do not need them anymore
+                        parameters = null;
+                    } else {
+                        // no export required for the target link
+                        CmsPair<String, String> uriParamPair = addVfsPrefix(cms, vfsName, targetSite, parameters);
+                        resultLink = uriParamPair.getFirst();
+                        parameters = uriParamPair.getSecond();
+                        // add cut off parameters if required
+                        if (parameters != null) {
+                            resultLink = resultLink.concat(parameters);
+                        }
+                    }
+                } finally {
+                    cms.getRequestContext().setSiteRoot(storedSiteRoot);
+                }
+                // cache the result
+                exportManager.cacheOnlineLink(cacheKey, resultLink);
             }
-            String name = CmsFileUtil.removeTrailingSeparator(CmsResource.getName(path));
-            CmsUUID detailId = OpenCms.getADEManager().getDetailIdCache(
-                cms.getRequestContext().getCurrentProject().isOnlineProject()).getDetailId(name);
-            if (detailId == null) {
-                return null;
+
+            // now check for the secure settings
+
+            // check if either the current site or the target site does have a secure server configured
+            if (targetSite.hasSecureServer() || currentSite.hasSecureServer()) {
+
+                if (!vfsName.startsWith(CmsWorkplace.VFS_PATH_SYSTEM)) {
+                    // don't make a secure connection to the "/system" folder (why ?)
+                    int linkType = -1;
+                    try {
+                        // read the linked resource
+                        linkType = cms.readResource(originalVfsName).getTypeId();
+                    } catch (CmsException e) {
+                        // the resource could not be read
+                        if (LOG.isInfoEnabled()) {
+                            String message = Messages.get().getBundle().key(
+                                Messages.LOG_RESOURCE_ACESS_ERROR_3,
+                                vfsName,
+                                cms.getRequestContext().getCurrentUser().getName(),
+                                cms.getRequestContext().getSiteRoot());
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug(message, e);
+                            } else {
+                                LOG.info(message);
+                            }
+                        }
+                    }
+
+                    // images are always referenced without a server prefix
+                    int imageId;
+                    try {
+                        imageId = OpenCms.getResourceManager().getResourceType(
+                            CmsResourceTypeImage.getStaticTypeName()).getTypeId();
+                    } catch (CmsLoaderException e1) {
+                        // should really never happen
+                        LOG.warn(e1.getLocalizedMessage(), e1);
+                        imageId = CmsResourceTypeImage.getStaticTypeId();
+                    }
+                    boolean hasIsImageLinkAttr = Boolean.parseBoolean(
+                        "" + cms.getRequestContext().getAttribute(ATTR_IS_IMAGE_LINK));
+                    if ((linkType != imageId) && !hasIsImageLinkAttr) {
+                        // check the secure property of the link
+                        boolean secureRequest = cms.getRequestContext().isSecureRequest()
+                            || exportManager.isSecureLink(cms, oriUri);
+
+                        boolean secureLink;
+                        if (detailContent == null) {
+                            secureLink = isSecureLink(cms, vfsName, targetSite, secureRequest);
+                        } else {
+                            secureLink = isDetailPageLinkSecure(
+                                cms,
+                                detailPage,
+                                detailContent,
+                                targetSite,
+                                secureRequest);
+
+                        }
+                        // if we are on a normal server, and the requested resource is secure,
+                        // the server name has to be prepended
+                        if (secureLink && (forceSecure || !secureRequest)) {
+                            serverPrefix = targetSite.getSecureUrl();
+                        } else if (!secureLink && secureRequest) {
+                            serverPrefix = targetSite.getUrl();
+                        }
+                    }
+                }
             }
-            String origSiteRoot = cms.getRequestContext().getSiteRoot();
-            try {
-                cms.getRequestContext().setSiteRoot("");
-                // real root paths have priority over detail contents
-                if (cms.existsResource(path)) {
-                    return null;
+            // make absolute link relative, if relative links in export are required
+            // and if the link does not point to another server
+            if (useRelativeLinks && CmsStringUtil.isEmpty(serverPrefix)) {
+                // in case the current page is a detailpage, append another path level
+                if (cms.getRequestContext().getDetailContentId() != null) {
+                    uriBaseName = CmsStringUtil.joinPaths(
+                        CmsResource.getFolderPath(uriBaseName),
+                        cms.getRequestContext().getDetailContentId().toString() + "/index.html");
                 }
-            } finally {
-                cms.getRequestContext().setSiteRoot(origSiteRoot);
+                resultLink = CmsLinkManager.getRelativeUri(uriBaseName, resultLink);
             }
-            CmsResource detailResource = cms.readResource(detailId, CmsResourceFilter.ALL);
-            return detailResource.getRootPath() + getSuffix(uri);
-        } catch (Exception e) {
-            LOG.error(e.getLocalizedMessage(), e);
-            return null;
-        }
-    }
 
-    /**
-     * Returns the target site for the given path.<p>
-     *
-     * @param cms the cms context
-     * @param path the path
-     * @param basePath the base path
-     *
-     * @return the target site
-     */
-    private String getTargetSiteRoot(CmsObject cms, String path, String basePath) {
+        } else {
+            // offline project, no export or secure handling required
+            if (OpenCms.getRunLevel() >= OpenCms.RUNLEVEL_3_SHELL_ACCESS) {
+                // in unit test this code would fail otherwise
+                CmsPair<String, String> uriParamPair = addVfsPrefix(cms, vfsName, targetSite, parameters);
+                resultLink = uriParamPair.getFirst();
+                parameters = uriParamPair.getSecond();
+            }
 
-        if (OpenCms.getSiteManager().startsWithShared(path) || path.startsWith(CmsWorkplace.VFS_PATH_SYSTEM)) {
-            return null;
-        }
-        String targetSiteRoot = OpenCms.getSiteManager().getSiteRoot(path);
-        if ((targetSiteRoot == null) && (basePath != null)) {
-            targetSiteRoot = OpenCms.getSiteManager().getSiteRoot(basePath);
+            // add cut off parameters and return the result
+            if ((parameters != null) && (resultLink != null)) {
+                resultLink = resultLink.concat(parameters);
+            }
         }
-        if (targetSiteRoot == null) {
-            targetSiteRoot = cms.getRequestContext().getSiteRoot();
+
+        if ((anchor != null) && (resultLink != null)) {
+            resultLink = resultLink.concat(anchor);
         }
-        return targetSiteRoot;
+        return new CmsLinkResolutionCache.CmsResolvedLink(
+            serverPrefix.concat(resultLink),
+            overrideSiteRoot != null ? OVERRIDE_SITEROOT_PREFIX + resultLink : null,
+            overrideSiteRoot);
     }
-
 }
@@ -31,11 +31,14 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.wrapper.CmsObjectWrapper;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsPermalinkResourceHandler;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.relations.CmsExternalLinksValidationResult;
+import org.opencms.relations.CmsLink;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.site.CmsSite;
@@ -47,6 +50,10 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 
@@ -87,6 +94,9 @@ public class CmsLinkManager {
     /** Stores the results of a external link validation. */
     private CmsExternalLinksValidationResult m_pointerLinkValidationResult;
 
+    /** The cache for links resolved in the online project, <code>null</code> if links are not cached. */
+    private CmsLinkResolutionCache m_resolutionCache;
+
     /**
      * Public constructor.<p>
      *
@@ -603,6 +613,25 @@ public class CmsLinkManager {
 
     }
 
+    /**
+     * Initializes the cache for links resolved in the online project.<p>
+     *
+     * The cache is cleared with every publish, it is not used before this method is called.<p>
+     */
+    public void initialize() {
+
+        CmsLinkResolutionCache cache = new CmsLinkResolutionCache();
+        OpenCms.addCmsEventListener(
+            cache,
+            new int[] {
+                I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+                I_CmsEventListener.EVENT_UPDATE_EXPORTS});
+        OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resolutionCache", cache.getCacheMap());
+        m_resolutionCache = cache;
+    }
+
     /**
      * Sets the internal link substitution handler.<p>
      *
@@ -616,6 +645,9 @@ public class CmsLinkManager {
 
         OpenCms.getRoleManager().checkRole(cms, CmsRole.ROOT_ADMIN);
         m_linkSubstitutionHandler = linkSubstitutionHandler;
+        if (m_resolutionCache != null) {
+            m_resolutionCache.clear();
+        }
     }
 
     /**
@@ -810,6 +842,44 @@ public class CmsLinkManager {
 
     }
 
+    /**
+     * Returns the links <i>from</i> the URI stored in the provided OpenCms user context
+     * <i>to</i> the given links of one document, for use on web pages.<p>
+     *
+     * This gives the same results as calling {@link CmsLink#getLink(CmsObject)} for every link,
+     * but links to the same target are only resolved once. The targets of the other links are
+     * still checked, which reads the resources from the resource cache.<p>
+     *
+     * @param cms the current OpenCms user context
+     * @param links the links of the document
+     *
+     * @return the resolved links, in the order of the given links
+     */
+    public List<String> substituteLinks(CmsObject cms, List<CmsLink> links) {
+
+        List<String> result = new ArrayList<String>(links.size());
+        // an object wrapper rewrites every single link
+        boolean resolveAll = cms.getRequestContext().getAttribute(CmsObjectWrapper.ATTRIBUTE_NAME) != null;
+        Map<String, String> resolved = new HashMap<String, String>();
+        for (CmsLink link : links) {
+            if (resolveAll || !link.isInternal()) {
+                result.add(link.getLink(cms));
+                continue;
+            }
+            String key = link.getStructureId() + link.getUri();
+            String value = resolved.get(key);
+            if (value == null) {
+                value = link.getLink(cms);
+                resolved.put(key, value);
+            } else {
+                // update the target of the link if the resource has been moved
+                link.checkConsistency(cms);
+            }
+            result.add(value);
+        }
+        return result;
+    }
+
     /**
      * Returns a link <i>from</i> the URI stored in the provided OpenCms user context
      * <i>to</i> the VFS resource indicated by the given root path, for use on web pages.<p>
@@ -952,6 +1022,16 @@ public class CmsLinkManager {
         return substituteLink(cms, sitePath, siteRoot, targetDetailPage, forceSecure);
     }
 
+    /**
+     * Returns the cache for links resolved in the online project.<p>
+     *
+     * @return the link resolution cache, or <code>null</code> if links are not cached
+     */
+    CmsLinkResolutionCache getResolutionCache() {
+
+        return m_resolutionCache;
+    }
+
     /**
      * Returns the link for the given resource in the current project, with full server prefix.<p>
      *
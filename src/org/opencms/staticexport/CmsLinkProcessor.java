@@ -40,6 +40,11 @@ import org.opencms.util.CmsMacroResolver;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import org.htmlparser.Attribute;
@@ -110,6 +115,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** The relative path for relative links, if not set, relative links are treated as external links. */
     private String m_relativePath;
 
+    /** The links of the link table resolved in a batch before processing, by link name. */
+    private Map<String, String> m_resolvedLinks;
+
     /** Another OpenCms context based on the current users OpenCms context, but with the site root set to '/'. */
     private CmsObject m_rootCms;
 
@@ -216,7 +224,12 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     public String processLinks(String content) throws ParserException {
 
         m_mode = PROCESS_LINKS;
-        return process(content, m_encoding);
+        m_resolvedLinks = resolveLinks();
+        try {
+            return process(content, m_encoding);
+        } finally {
+            m_resolvedLinks = null;
+        }
     }
 
     /**
@@ -313,7 +326,10 @@ public class CmsLinkProcessor extends CmsHtmlParser {
                 link = m_linkTable.getLink(CmsMacroResolver.stripMacro(tag.getAttribute(attr)));
                 if (link != null) {
                     // link management check
-                    String l = link.getLink(m_cms);
+                    String l = m_resolvedLinks != null ? m_resolvedLinks.get(link.getName()) : null;
+                    if (l == null) {
+                        l = link.getLink(m_cms);
+                    }
                     if (TAG_PARAM.equals(tag.getTagName())) {
                         // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
                         // another solution should be a kind of macro...
@@ -442,6 +458,29 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         }
     }
 
+    /**
+     * Resolves all links of the link table in one batch, so links to the same target are only resolved once.<p>
+     *
+     * @return the resolved links by link name
+     */
+    private Map<String, String> resolveLinks() {
+
+        Map<String, String> result = new HashMap<String, String>();
+        if ((m_cms == null) || (m_linkTable == null) || m_linkTable.isEmpty()) {
+            return result;
+        }
+        List<CmsLink> links = new ArrayList<CmsLink>(m_linkTable.size());
+        Iterator<CmsLink> it = m_linkTable.iterator();
+        while (it.hasNext()) {
+            links.add(it.next());
+        }
+        List<String> resolved = OpenCms.getLinkManager().substituteLinks(m_cms, links);
+        for (int i = 0; i < links.size(); i++) {
+            result.put(links.get(i).getName(), resolved.get(i));
+        }
+        return result;
+    }
+
     /**
      * Use the {@link org.opencms.file.wrapper.CmsObjectWrapper} to restore the link in the VFS.<p>
      *
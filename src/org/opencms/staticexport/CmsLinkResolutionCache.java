@@ -0,0 +1,232 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.monitor.CmsMemoryMonitor;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Caches the links resolved by the {@link CmsDefaultLinkSubstitutionHandler} in the online project.<p>
+ *
+ * A link is cached for the site, the source URI, the target, the detail page and the secure flag, together with
+ * all other request context values the link substitution depends on. The whole cache is invalidated for every
+ * publish, so a cached link is only valid in the publish epoch it was resolved in.<p>
+ *
+ * @since 11.0.0
+ */
+final class CmsLinkResolutionCache implements I_CmsEventListener {
+
+    /**
+     * A resolved link, together with the site root override the link substitution handler has stored for it.<p>
+     */
+    static final class CmsResolvedLink {
+
+        /** The resolved link. */
+        private final String m_link;
+
+        /** The name of the request context attribute for the site root override, or <code>null</code>. */
+        private final String m_overrideAttribute;
+
+        /** The site root override, or <code>null</code>. */
+        private final String m_overrideSiteRoot;
+
+        /**
+         * Creates a new resolved link.<p>
+         *
+         * @param link the resolved link
+         * @param overrideAttribute the name of the request context attribute for the site root override, or <code>null</code>
+         * @param overrideSiteRoot the site root override, or <code>null</code>
+         */
+        CmsResolvedLink(String link, String overrideAttribute, String overrideSiteRoot) {
+
+            m_link = link;
+            m_overrideAttribute = overrideAttribute;
+            m_overrideSiteRoot = overrideSiteRoot;
+        }
+
+        /**
+         * Stores the site root override in the request context, if required, and returns the link.<p>
+         *
+         * @param cms the current OpenCms user context
+         *
+         * @return the resolved link
+         */
+        String apply(CmsObject cms) {
+
+            if (m_overrideAttribute != null) {
+                cms.getRequestContext().setAttribute(m_overrideAttribute, m_overrideSiteRoot);
+            }
+            return m_link;
+        }
+    }
+
+    /** The maximum number of cached links. */
+    private static final int CACHE_SIZE = 8192;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsLinkResolutionCache.class);
+
+    /** The cached links, by cache key. */
+    private final Map<String, CmsResolvedLink> m_cache = CmsMemoryMonitor.createLRUCacheMap(CACHE_SIZE);
+
+    /** The current publish epoch, incremented whenever the cache is cleared. */
+    private final AtomicLong m_epoch = new AtomicLong();
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+            case I_CmsEventListener.EVENT_UPDATE_EXPORTS:
+                clear();
+                break;
+            default:
+                // no operation
+        }
+    }
+
+    /**
+     * Clears the cache and starts a new publish epoch.<p>
+     */
+    void clear() {
+
+        // links resolved while the cache is cleared must not be stored any more
+        m_epoch.incrementAndGet();
+        m_cache.clear();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Cleared the link resolution cache, new epoch " + m_epoch.get());
+        }
+    }
+
+    /**
+     * Returns the cached link for the given key, or <code>null</code>.<p>
+     *
+     * @param key the cache key
+     *
+     * @return the cached link, or <code>null</code>
+     */
+    CmsResolvedLink get(String key) {
+
+        return m_cache.get(key);
+    }
+
+    /**
+     * Returns the map of cached links, to register it with the memory monitor.<p>
+     *
+     * @return the map of cached links
+     */
+    Map<String, CmsResolvedLink> getCacheMap() {
+
+        return m_cache;
+    }
+
+    /**
+     * Returns the current publish epoch.<p>
+     *
+     * @return the current publish epoch
+     */
+    long getEpoch() {
+
+        return m_epoch.get();
+    }
+
+    /**
+     * Creates the cache key for a link, containing all request context values the link substitution depends on.<p>
+     *
+     * @param cms the current OpenCms user context
+     * @param link the link to resolve
+     * @param siteRoot the site root of the link, may be <code>null</code>
+     * @param targetDetailPage the target detail page, may be <code>null</code>
+     * @param forceSecure the force secure flag
+     *
+     * @return the cache key
+     */
+    String getKey(CmsObject cms, String link, String siteRoot, String targetDetailPage, boolean forceSecure) {
+
+        CmsRequestContext context = cms.getRequestContext();
+        StringBuilder key = new StringBuilder(128 + link.length() + context.getUri().length());
+        key.append(context.getSiteRoot()).append('|');
+        key.append(context.getUri()).append('|');
+        key.append(link).append('|');
+        key.append(siteRoot).append('|');
+        key.append(targetDetailPage).append('|');
+        key.append(forceSecure ? 'S' : '-');
+        key.append(context.isSecureRequest() ? 'S' : '-');
+        key.append(context.isForceAbsoluteLinks() ? 'A' : '-').append('|');
+        key.append(context.getLocale()).append('|');
+        key.append(context.getCurrentUser().getId()).append('|');
+        key.append(context.getDetailContentId()).append('|');
+        key.append(context.getAttribute(CmsDefaultLinkSubstitutionHandler.ATTR_IS_IMAGE_LINK));
+        return key.toString();
+    }
+
+    /**
+     * Checks if links resolved in the given user context can be cached.<p>
+     *
+     * Only links in the online project are cached, since offline changes do not start a new publish epoch.<p>
+     *
+     * @param cms the current OpenCms user context
+     *
+     * @return <code>true</code> if links can be cached for the given user context
+     */
+    boolean isCacheable(CmsObject cms) {
+
+        return cms.getRequestContext().getCurrentProject().isOnlineProject();
+    }
+
+    /**
+     * Caches a resolved link, unless the publish epoch has changed since the resolution was started.<p>
+     *
+     * @param key the cache key
+     * @param link the resolved link
+     * @param epoch the publish epoch at the start of the link resolution
+     */
+    void put(String key, CmsResolvedLink link, long epoch) {
+
+        if (epoch == m_epoch.get()) {
+            m_cache.put(key, link);
+            if (epoch != m_epoch.get()) {
+                // cleared concurrently, the link may be outdated already
+                m_cache.remove(key);
+            }
+        }
+    }
+}
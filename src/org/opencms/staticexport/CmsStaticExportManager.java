@@ -68,6 +68,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -119,6 +122,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Name for the folder default index file. */
     public static final String EXPORT_DEFAULT_FILE = "index_export.html";
 
+    /** The default number of worker threads for the export after publishing. */
+    public static final int EXPORT_DEFAULT_WORKERS = 1;
+
     /** Name for the default work path. */
     public static final String EXPORT_DEFAULT_WORKPATH = CmsSystemInfo.FOLDER_WEBINF + "temp";
 
@@ -251,6 +257,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Temporary variable for reading the xml config file. */
     private CmsStaticExportRfsRule m_rfsTmpRule;
 
+    /** Indicates if the export after publishing runs asynchronously from the publish job. */
+    private boolean m_staticExportAsync;
+
     /** The number of backups stored for the export folder. */
     private Integer m_staticExportBackups;
 
@@ -260,6 +269,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** The path to where the static export will be written. */
     private String m_staticExportPath;
 
+    /** The number of worker threads for the export after publishing, <code>null</code> if not configured. */
+    private Integer m_staticExportWorkers;
+
     /** The path to where the static export will be written without the complete rfs path. */
     private String m_staticExportPathConfigured;
 
@@ -887,6 +899,30 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return EXPORT_DEFAULT_BACKUPS;
     }
 
+    /**
+     * Returns the number of worker threads that render and write the resources exported after publishing.<p>
+     *
+     * @return the number of worker threads for the export after publishing
+     */
+    public int getExportWorkers() {
+
+        if (m_staticExportWorkers != null) {
+            return Math.max(1, m_staticExportWorkers.intValue());
+        }
+        return EXPORT_DEFAULT_WORKERS;
+    }
+
+    /**
+     * Returns the configured number of worker threads for the export after publishing,
+     * or <code>null</code> if not configured.<p>
+     *
+     * @return the configured number of worker threads, or <code>null</code>
+     */
+    public Integer getExportWorkersConfigured() {
+
+        return m_staticExportWorkers;
+    }
+
     /**
      * Returns the export data for the request, if null is returned no export is required.<p>
      *
@@ -2040,6 +2076,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Returns <code>true</code> if the export after publishing runs asynchronously from the publish job.<p>
+     *
+     * @return <code>true</code> if the export after publishing runs asynchronously
+     */
+    public boolean isExportAsync() {
+
+        return m_staticExportAsync;
+    }
+
     /**
      * Returns true if the static export is enabled.<p>
      *
@@ -2132,6 +2178,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_exportPropertyDefault = Boolean.valueOf(value).booleanValue();
     }
 
+    /**
+     * Sets if the export after publishing runs asynchronously from the publish job.<p>
+     *
+     * @param value must be <code>true</code> or <code>false</code>
+     */
+    public void setExportAsync(String value) {
+
+        m_staticExportAsync = Boolean.valueOf(value).booleanValue();
+    }
+
     /**
      * Sets the number of backups for the static export.<p>
      *
@@ -2152,6 +2208,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_staticExportEnabled = Boolean.valueOf(value).booleanValue();
     }
 
+    /**
+     * Sets the number of worker threads for the export after publishing.<p>
+     *
+     * @param workers the number of worker threads
+     */
+    public void setExportWorkers(String workers) {
+
+        m_staticExportWorkers = new Integer(workers.trim());
+    }
+
     /**
      * Adds a resource pattern to the list of resources which are part of the export.<p>
      *
@@ -2923,11 +2989,34 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         createExportFolder(exportPath, rfsName);
         // generate export file instance and output stream
         File exportFile = new File(exportFileName);
-        // write new exported file content
+        // write new exported file content to a temporary file first,
+        // so that the web server never delivers a partially written file
         try {
-            FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
+            File tempFile = File.createTempFile(
+                "." + exportFile.getName() + ".",
+                ".tmp",
+                exportFile.getParentFile());
+            try {
+                FileOutputStream exportStream = new FileOutputStream(tempFile);
+                try {
+                    exportStream.write(content);
+                } finally {
+                    exportStream.close();
+                }
+                try {
+                    Files.move(
+                        tempFile.toPath(),
+                        exportFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile.toPath(), exportFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                if (tempFile.exists()) {
+                    tempFile.delete();
+                }
+            }
 
             // log export success
             if (LOG.isInfoEnabled()) {
@@ -319,6 +319,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_EXPORTING_0 = "RPT_EXPORTING_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_STATICEXPORT_ASYNC_1 = "RPT_STATICEXPORT_ASYNC_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_BEGIN_0 = "RPT_STATICEXPORT_BEGIN_0";
 
@@ -57,6 +57,7 @@ import org.opencms.ui.apps.dbmanager.CmsDbRemovePubLocksConfiguration;
 import org.opencms.ui.apps.dbmanager.CmsDbStaticExportConfiguration;
 import org.opencms.ui.apps.dbmanager.CmsDbSynchronizationConfiguration;
 import org.opencms.ui.apps.dbmanager.sqlconsole.CmsSqlConsoleAppConfiguration;
+import org.opencms.ui.apps.dbmanager.sqlmetrics.CmsSqlMetricsAppConfiguration;
 import org.opencms.ui.apps.filehistory.CmsFileHistoryClearConfiguration;
 import org.opencms.ui.apps.filehistory.CmsFileHistoryConfiguration;
 import org.opencms.ui.apps.filehistory.CmsFileHistoryFolder;
@@ -825,6 +826,7 @@ public class CmsWorkplaceAppManager {
                 new CmsDbExportConfiguration(),
                 new CmsDbStaticExportConfiguration(),
                 new CmsSqlConsoleAppConfiguration(),
+                new CmsSqlMetricsAppConfiguration(),
                 new CmsDbRemovePubLocksConfiguration(),
                 new CmsDbSynchronizationConfiguration(),
                 new CmsDbPropertiesAppConfiguration(),
@@ -2733,6 +2733,60 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_SQLCONSOLE_QUERY_RESULTS_0 = "GUI_SQLCONSOLE_QUERY_RESULTS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_APP_HELP_0 = "GUI_SQLMETRICS_APP_HELP_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_APP_TITLE_0 = "GUI_SQLMETRICS_APP_TITLE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_COL_AVERAGE_0 = "GUI_SQLMETRICS_COL_AVERAGE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_COL_CALLS_0 = "GUI_SQLMETRICS_COL_CALLS_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_COL_HISTOGRAM_1 = "GUI_SQLMETRICS_COL_HISTOGRAM_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_COL_MAX_0 = "GUI_SQLMETRICS_COL_MAX_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_COL_QUERY_0 = "GUI_SQLMETRICS_COL_QUERY_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_COL_ROWS_0 = "GUI_SQLMETRICS_COL_ROWS_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_COL_TOTAL_0 = "GUI_SQLMETRICS_COL_TOTAL_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_POOL_1 = "GUI_SQLMETRICS_POOL_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_POOL_ACQUIRED_0 = "GUI_SQLMETRICS_POOL_ACQUIRED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_POOL_ACTIVE_0 = "GUI_SQLMETRICS_POOL_ACTIVE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_POOL_AVERAGE_WAIT_0 = "GUI_SQLMETRICS_POOL_AVERAGE_WAIT_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_POOL_IDLE_0 = "GUI_SQLMETRICS_POOL_IDLE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_POOL_MAX_WAIT_0 = "GUI_SQLMETRICS_POOL_MAX_WAIT_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_POOL_PENDING_0 = "GUI_SQLMETRICS_POOL_PENDING_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_POOL_TIMEOUTS_0 = "GUI_SQLMETRICS_POOL_TIMEOUTS_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SQLMETRICS_RESET_0 = "GUI_SQLMETRICS_RESET_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_STATEXP_THREAD_NAME_0 = "GUI_STATEXP_THREAD_NAME_0";
 
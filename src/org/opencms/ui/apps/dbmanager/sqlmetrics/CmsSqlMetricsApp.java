@@ -0,0 +1,169 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ui.apps.dbmanager.sqlmetrics;
+
+import org.opencms.db.CmsSqlMetrics;
+import org.opencms.db.CmsSqlPoolStatistics;
+import org.opencms.ui.CmsVaadinUtils;
+import org.opencms.ui.FontOpenCms;
+import org.opencms.ui.apps.A_CmsWorkplaceApp;
+import org.opencms.ui.apps.Messages;
+import org.opencms.ui.components.CmsInfoButton;
+import org.opencms.ui.components.CmsToolBar;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Button.ClickEvent;
+import com.vaadin.ui.Button.ClickListener;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.themes.ValoTheme;
+import com.vaadin.v7.event.FieldEvents.TextChangeEvent;
+import com.vaadin.v7.event.FieldEvents.TextChangeListener;
+import com.vaadin.v7.ui.TextField;
+
+/**
+ * App showing the SQL query and database pool statistics.<p>
+ */
+public class CmsSqlMetricsApp extends A_CmsWorkplaceApp {
+
+    /** The table filter input. */
+    private TextField m_tableFilter;
+
+    /**
+     * Creates an info button showing the statistics of the given database pool.<p>
+     *
+     * @param statistics the pool statistics
+     *
+     * @return the info button
+     */
+    protected static CmsInfoButton getPoolStatisticButton(CmsSqlPoolStatistics statistics) {
+
+        Map<String, String> infoMap = new LinkedHashMap<String, String>();
+        infoMap.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_POOL_ACTIVE_0),
+            String.valueOf(statistics.getActiveConnections()));
+        infoMap.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_POOL_IDLE_0),
+            String.valueOf(statistics.getIdleConnections()));
+        infoMap.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_POOL_PENDING_0),
+            String.valueOf(statistics.getPendingThreads()));
+        infoMap.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_POOL_ACQUIRED_0),
+            String.valueOf(statistics.getConnectionsAcquired()));
+        infoMap.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_POOL_AVERAGE_WAIT_0),
+            String.format("%.2f", Double.valueOf(statistics.getAverageWaitTime())));
+        infoMap.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_POOL_MAX_WAIT_0),
+            String.valueOf(statistics.getMaxWaitTime()));
+        infoMap.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_POOL_TIMEOUTS_0),
+            String.valueOf(statistics.getConnectionTimeouts()));
+
+        CmsInfoButton info = new CmsInfoButton(infoMap);
+        String caption = CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_POOL_1, statistics.getPoolName());
+        info.setWindowCaption(caption);
+        info.setDescription(caption);
+        return info;
+    }
+
+    /**
+     * @see org.opencms.ui.apps.A_CmsWorkplaceApp#getBreadCrumbForState(java.lang.String)
+     */
+    @Override
+    protected LinkedHashMap<String, String> getBreadCrumbForState(String state) {
+
+        LinkedHashMap<String, String> crumbs = new LinkedHashMap<String, String>();
+        crumbs.put("", CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_APP_TITLE_0));
+        return crumbs;
+    }
+
+    /**
+     * @see org.opencms.ui.apps.A_CmsWorkplaceApp#getComponentForState(java.lang.String)
+     */
+    @Override
+    protected Component getComponentForState(String state) {
+
+        if (m_tableFilter != null) {
+            m_infoLayout.removeComponent(m_tableFilter);
+            m_tableFilter = null;
+        }
+        m_rootLayout.setMainHeightFull(true);
+
+        final CmsSqlMetricsTable table = new CmsSqlMetricsTable();
+        m_tableFilter = new TextField();
+        m_tableFilter.setIcon(FontOpenCms.FILTER);
+        m_tableFilter.setInputPrompt(CmsVaadinUtils.getMessageText(Messages.GUI_EXPLORER_FILTER_0));
+        m_tableFilter.addStyleName(ValoTheme.TEXTFIELD_INLINE_ICON);
+        m_tableFilter.setWidth("200px");
+        m_tableFilter.addTextChangeListener(new TextChangeListener() {
+
+            private static final long serialVersionUID = 1L;
+
+            public void textChange(TextChangeEvent event) {
+
+                table.filterTable(event.getText());
+            }
+        });
+        m_infoLayout.addComponent(m_tableFilter);
+
+        for (CmsSqlPoolStatistics statistics : CmsSqlMetrics.getInstance().getPoolStatistics()) {
+            m_uiContext.addToolbarButton(getPoolStatisticButton(statistics));
+        }
+        Button reset = CmsToolBar.createButton(
+            FontOpenCms.RESET,
+            CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_RESET_0));
+        reset.addClickListener(new ClickListener() {
+
+            private static final long serialVersionUID = 1L;
+
+            public void buttonClick(ClickEvent event) {
+
+                CmsSqlMetrics.getInstance().resetQueryStatistics();
+                table.loadTableEntries();
+            }
+        });
+        m_uiContext.addToolbarButton(reset);
+
+        table.setSizeFull();
+        return table;
+    }
+
+    /**
+     * @see org.opencms.ui.apps.A_CmsWorkplaceApp#getSubNavEntries(java.lang.String)
+     */
+    @Override
+    protected List<NavEntry> getSubNavEntries(String state) {
+
+        return null;
+    }
+}
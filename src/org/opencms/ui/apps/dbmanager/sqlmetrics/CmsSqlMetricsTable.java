@@ -0,0 +1,155 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ui.apps.dbmanager.sqlmetrics;
+
+import org.opencms.db.CmsSqlMetrics;
+import org.opencms.db.CmsSqlQueryStatistics;
+import org.opencms.ui.CmsVaadinUtils;
+import org.opencms.ui.apps.Messages;
+import org.opencms.util.CmsStringUtil;
+
+import com.vaadin.v7.data.Item;
+import com.vaadin.v7.data.util.IndexedContainer;
+import com.vaadin.v7.data.util.filter.SimpleStringFilter;
+import com.vaadin.v7.ui.Table;
+
+/**
+ * Table showing the execution statistics per SQL query key.<p>
+ */
+public class CmsSqlMetricsTable extends Table {
+
+    /** Column for the average execution time. */
+    private static final String PROP_AVERAGE = "average";
+
+    /** Column for the number of executions. */
+    private static final String PROP_CALLS = "calls";
+
+    /** Column for the latency histogram. */
+    private static final String PROP_HISTOGRAM = "histogram";
+
+    /** Column for the longest execution time. */
+    private static final String PROP_MAX = "max";
+
+    /** Column for the query key. */
+    private static final String PROP_QUERY = "query";
+
+    /** Column for the rows read. */
+    private static final String PROP_ROWS = "rows";
+
+    /** Column for the summed up execution time. */
+    private static final String PROP_TOTAL = "total";
+
+    /** vaadin serial id. */
+    private static final long serialVersionUID = -2519374218870645623L;
+
+    /** The container. */
+    private IndexedContainer m_container;
+
+    /**
+     * Public constructor.<p>
+     */
+    public CmsSqlMetricsTable() {
+
+        m_container = new IndexedContainer();
+        m_container.addContainerProperty(PROP_QUERY, String.class, "");
+        m_container.addContainerProperty(PROP_CALLS, Long.class, Long.valueOf(0));
+        m_container.addContainerProperty(PROP_TOTAL, Long.class, Long.valueOf(0));
+        m_container.addContainerProperty(PROP_AVERAGE, Double.class, Double.valueOf(0));
+        m_container.addContainerProperty(PROP_MAX, Long.class, Long.valueOf(0));
+        m_container.addContainerProperty(PROP_ROWS, Long.class, Long.valueOf(0));
+        m_container.addContainerProperty(PROP_HISTOGRAM, String.class, "");
+
+        setContainerDataSource(m_container);
+
+        setColumnHeader(PROP_QUERY, CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_COL_QUERY_0));
+        setColumnHeader(PROP_CALLS, CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_COL_CALLS_0));
+        setColumnHeader(PROP_TOTAL, CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_COL_TOTAL_0));
+        setColumnHeader(PROP_AVERAGE, CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_COL_AVERAGE_0));
+        setColumnHeader(PROP_MAX, CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_COL_MAX_0));
+        setColumnHeader(PROP_ROWS, CmsVaadinUtils.getMessageText(Messages.GUI_SQLMETRICS_COL_ROWS_0));
+        setColumnHeader(
+            PROP_HISTOGRAM,
+            CmsVaadinUtils.getMessageText(
+                Messages.GUI_SQLMETRICS_COL_HISTOGRAM_1,
+                joinValues(CmsSqlQueryStatistics.getHistogramBounds())));
+
+        setSelectable(true);
+        loadTableEntries();
+    }
+
+    /**
+     * Filters the table according to given search string.<p>
+     *
+     * @param search string to be looked for
+     */
+    public void filterTable(String search) {
+
+        m_container.removeAllContainerFilters();
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(search)) {
+            m_container.addContainerFilter(new SimpleStringFilter(PROP_QUERY, search, true, false));
+        }
+    }
+
+    /**
+     * Reads the query statistics and puts them into the table.<p>
+     */
+    public void loadTableEntries() {
+
+        m_container.removeAllItems();
+        for (CmsSqlQueryStatistics statistics : CmsSqlMetrics.getInstance().getQueryStatistics()) {
+            Item item = m_container.addItem(statistics.getQueryKey());
+            item.getItemProperty(PROP_QUERY).setValue(statistics.getQueryKey());
+            item.getItemProperty(PROP_CALLS).setValue(Long.valueOf(statistics.getCalls()));
+            item.getItemProperty(PROP_TOTAL).setValue(Long.valueOf(statistics.getTotalTime()));
+            item.getItemProperty(PROP_AVERAGE).setValue(
+                Double.valueOf(Math.round(statistics.getAverageTime() * 100) / 100.0));
+            item.getItemProperty(PROP_MAX).setValue(Long.valueOf(statistics.getMaxTime()));
+            item.getItemProperty(PROP_ROWS).setValue(Long.valueOf(statistics.getRowsRead()));
+            item.getItemProperty(PROP_HISTOGRAM).setValue(joinValues(statistics.getLatencyHistogram()));
+        }
+    }
+
+    /**
+     * Joins the given values for display.<p>
+     *
+     * @param values the values
+     *
+     * @return the joined values
+     */
+    private static String joinValues(long[] values) {
+
+        StringBuffer result = new StringBuffer();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                result.append(" / ");
+            }
+            result.append(values[i]);
+        }
+        return result.toString();
+    }
+}
@@ -58,6 +58,7 @@ import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.I_CmsSynchronousEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.module.CmsModule;
 import org.opencms.module.CmsModuleManager;
@@ -124,7 +125,7 @@ import com.google.common.collect.Sets;
  *
  * @since 6.0.0
  */
-public final class CmsWorkplaceManager implements I_CmsLocaleHandler, I_CmsEventListener {
+public final class CmsWorkplaceManager implements I_CmsLocaleHandler, I_CmsSynchronousEventListener {
 
     /**
      * Helper class used to easily define default view mappings for standard resource types.<p>
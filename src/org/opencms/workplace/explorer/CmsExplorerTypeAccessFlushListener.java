@@ -29,6 +29,7 @@ package org.opencms.workplace.explorer;
 
 import org.opencms.main.CmsEvent;
 import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.I_CmsSynchronousEventListener;
 import org.opencms.main.OpenCms;
 
 import java.lang.ref.WeakReference;
@@ -39,7 +40,7 @@ import java.util.List;
 /**
  * Class which listens for cache flush events to uncache cached access control settings.<p>
  */
-public class CmsExplorerTypeAccessFlushListener implements I_CmsEventListener {
+public class CmsExplorerTypeAccessFlushListener implements I_CmsSynchronousEventListener {
 
     /** List of weak references to the access settings. */
     private List<WeakReference<CmsExplorerTypeAccess>> m_contents = new ArrayList<WeakReference<CmsExplorerTypeAccess>>();
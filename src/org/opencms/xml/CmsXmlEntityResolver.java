@@ -38,6 +38,7 @@ import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.I_CmsSynchronousEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.util.CmsCollectionsGenericWrapper;
@@ -64,7 +65,7 @@ import org.xml.sax.InputSource;
  *
  * @since 6.0.0
  */
-public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener {
+public class CmsXmlEntityResolver implements EntityResolver, I_CmsSynchronousEventListener {
 
     /** Maximum size of the content definition cache. */
     public static final int CONTENT_DEFINITION_CACHE_SIZE = 2048;
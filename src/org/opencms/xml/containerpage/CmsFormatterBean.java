@@ -52,6 +52,9 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
  */
 public class CmsFormatterBean implements I_CmsFormatterBean {
 
+    /** Name of the formatter attribute which allows rendering the formatter in parallel to other elements. */
+    public static final String ATTRIBUTE_PARALLEL_RENDERING = "parallelRendering";
+
     /** Default rank for formatters from formatter configuration files. */
     public static final int DEFAULT_CONFIGURATION_RANK = 1000;
 
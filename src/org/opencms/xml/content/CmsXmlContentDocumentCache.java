@@ -0,0 +1,221 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.cache.CmsVfsCache;
+import org.opencms.db.CmsCacheSettings;
+import org.opencms.file.CmsResource;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.dom4j.Document;
+
+/**
+ * Caches the parsed XML documents of XML contents across requests.<p>
+ *
+ * The cached documents are never handed out directly, since the XML content objects
+ * created from them are modified by their users. Instead every caller gets its own
+ * copy of the cached document, which is much cheaper than parsing the XML again.<p>
+ *
+ * An entry is only used if the structure id, the project, the date of last modification,
+ * the encoding and the bytes of the file all match. The online entries are flushed
+ * when a project is published, the offline entries when the resource is modified.<p>
+ *
+ * @since 11.0.0
+ */
+final class CmsXmlContentDocumentCache extends CmsVfsCache {
+
+    /**
+     * A cached document together with the data it was parsed from.<p>
+     */
+    private static final class CmsCachedDocument {
+
+        /** The bytes the document was parsed from. */
+        final byte[] m_contents;
+
+        /** The date of last modification of the file. */
+        final long m_dateLastModified;
+
+        /** The parsed document. */
+        final Document m_document;
+
+        /** The encoding of the file. */
+        final String m_encoding;
+
+        /**
+         * Creates a new cache entry.<p>
+         *
+         * @param dateLastModified the date of last modification of the file
+         * @param encoding the encoding of the file
+         * @param contents the bytes the document was parsed from
+         * @param document the parsed document
+         */
+        CmsCachedDocument(long dateLastModified, String encoding, byte[] contents, Document document) {
+
+            m_dateLastModified = dateLastModified;
+            m_encoding = encoding;
+            m_contents = contents;
+            m_document = document;
+        }
+    }
+
+    /** The singleton instance. */
+    private static volatile CmsXmlContentDocumentCache m_instance;
+
+    /** The cached documents of the offline projects, by structure id. */
+    private Map<CmsUUID, CmsCachedDocument> m_offlineDocuments;
+
+    /** The cached documents of the online project, by structure id. */
+    private Map<CmsUUID, CmsCachedDocument> m_onlineDocuments;
+
+    /**
+     * Creates a new cache without registering it as event listener.<p>
+     *
+     * @param capacity the maximum number of cached documents per project
+     */
+    CmsXmlContentDocumentCache(int capacity) {
+
+        m_offlineDocuments = CmsMemoryMonitor.createLRUCacheMap(capacity);
+        m_onlineDocuments = CmsMemoryMonitor.createLRUCacheMap(capacity);
+    }
+
+    /**
+     * Returns the document cache, creating it if required.<p>
+     *
+     * The size of the cache is read from the cache settings of the memory monitor.<p>
+     *
+     * @return the document cache
+     */
+    static CmsXmlContentDocumentCache getInstance() {
+
+        CmsXmlContentDocumentCache result = m_instance;
+        if (result == null) {
+            synchronized (CmsXmlContentDocumentCache.class) {
+                result = m_instance;
+                if (result == null) {
+                    CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+                    int capacity = CmsCacheSettings.DEFAULT_XML_CONTENT_DOCUMENTS_CACHE_SIZE;
+                    if (monitor != null) {
+                        capacity = monitor.getXmlContentDocumentsCacheSize();
+                    }
+                    result = new CmsXmlContentDocumentCache(capacity);
+                    result.registerEventListener();
+                    if (monitor != null) {
+                        String name = CmsXmlContentDocumentCache.class.getName();
+                        monitor.register(name + ".offlineDocuments", result.m_offlineDocuments);
+                        monitor.register(name + ".onlineDocuments", result.m_onlineDocuments);
+                    }
+                    m_instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the cached document for the given file, or <code>null</code> if no matching document is cached.<p>
+     *
+     * @param online <code>true</code> if the file was read from the online project
+     * @param structureId the structure id of the file
+     * @param dateLastModified the date of last modification of the file
+     * @param encoding the encoding of the file
+     * @param contents the bytes of the file
+     *
+     * @return a copy of the cached document, or <code>null</code>
+     */
+    Document getDocument(boolean online, CmsUUID structureId, long dateLastModified, String encoding, byte[] contents) {
+
+        CmsCachedDocument entry = getDocuments(online).get(structureId);
+        if ((entry == null)
+            || (entry.m_dateLastModified != dateLastModified)
+            || !entry.m_encoding.equals(encoding)
+            || !Arrays.equals(entry.m_contents, contents)) {
+            // the contents may have been changed without writing the file
+            return null;
+        }
+        return (Document)entry.m_document.clone();
+    }
+
+    /**
+     * Caches a copy of the document parsed from the given file.<p>
+     *
+     * @param online <code>true</code> if the file was read from the online project
+     * @param structureId the structure id of the file
+     * @param dateLastModified the date of last modification of the file
+     * @param encoding the encoding of the file
+     * @param contents the bytes of the file
+     * @param document the document parsed from the bytes, must not yet be used by an XML content
+     */
+    void putDocument(
+        boolean online,
+        CmsUUID structureId,
+        long dateLastModified,
+        String encoding,
+        byte[] contents,
+        Document document) {
+
+        getDocuments(online).put(
+            structureId,
+            new CmsCachedDocument(dateLastModified, encoding, contents.clone(), (Document)document.clone()));
+    }
+
+    /**
+     * @see org.opencms.cache.CmsVfsCache#flush(boolean)
+     */
+    @Override
+    protected void flush(boolean online) {
+
+        getDocuments(online).clear();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsVfsCache#uncacheResource(org.opencms.file.CmsResource)
+     */
+    @Override
+    protected void uncacheResource(CmsResource resource) {
+
+        // the online documents are only flushed when a project is published
+        m_offlineDocuments.remove(resource.getStructureId());
+    }
+
+    /**
+     * Returns the cached documents for the online or the offline project.<p>
+     *
+     * @param online <code>true</code> for the online project
+     *
+     * @return the cached documents
+     */
+    private Map<CmsUUID, CmsCachedDocument> getDocuments(boolean online) {
+
+        return online ? m_onlineDocuments : m_offlineDocuments;
+    }
+}
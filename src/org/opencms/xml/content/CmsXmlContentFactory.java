@@ -233,8 +233,27 @@ public final class CmsXmlContentFactory {
         if (contentBytes.length > 0) {
             // content is initialized
             if (keepEncoding) {
-                // use the encoding from the content
-                content = unmarshal(cms, contentBytes, encoding, new CmsXmlEntityResolver(cms));
+                // use the encoding from the content, reusing the parsed document if the file is unchanged
+                CmsXmlContentDocumentCache cache = CmsXmlContentDocumentCache.getInstance();
+                boolean online = cms.getRequestContext().getCurrentProject().isOnlineProject();
+                EntityResolver resolver = new CmsXmlEntityResolver(cms);
+                Document document = cache.getDocument(
+                    online,
+                    file.getStructureId(),
+                    file.getDateLastModified(),
+                    encoding,
+                    contentBytes);
+                if (document == null) {
+                    document = CmsXmlUtils.unmarshalHelper(contentBytes, resolver);
+                    cache.putDocument(
+                        online,
+                        file.getStructureId(),
+                        file.getDateLastModified(),
+                        encoding,
+                        contentBytes,
+                        document);
+                }
+                content = unmarshal(cms, document, encoding, resolver);
             } else {
                 // use the encoding from the file property
                 // this usually only triggered by a save operation
@@ -0,0 +1,243 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the synchronized {@link CmsLruCache} with the {@link CmsConcurrentLruCache}.<p>
+ *
+ * The workload simulates the FlexCache: most operations are cache hits that touch an entry,
+ * some operations add an entry that has been evicted before.<p>
+ *
+ * @since 11.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsLruCacheBenchmark {
+
+    /**
+     * Simple cache object with fixed costs.<p>
+     */
+    static class CmsTestCacheObject implements I_CmsLruCacheObject {
+
+        /** The cache costs. */
+        private int m_costs;
+
+        /** The next object in the LRU list. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous object in the LRU list. */
+        private I_CmsLruCacheObject m_previous;
+
+        /**
+         * Creates a new test cache object.<p>
+         *
+         * @param costs the cache costs
+         */
+        CmsTestCacheObject(int costs) {
+
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            // nothing to do
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            // nothing to do
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /** The costs of a single cache object. */
+    private static final int OBJECT_COSTS = 4096;
+
+    /** The number of distinct cache objects. */
+    private static final int OBJECT_COUNT = 20000;
+
+    /** The cache implementation to benchmark. */
+    @Param({"synchronized", "concurrent"})
+    public String m_implementation;
+
+    /** The percentage of operations that add an object instead of touching it. */
+    @Param({"10"})
+    public int m_addPercentage;
+
+    /** The cache under test. */
+    private CmsLruCache m_cache;
+
+    /** The cache objects. */
+    private I_CmsLruCacheObject[] m_objects;
+
+    /**
+     * Benchmarks the cache with 8 threads.<p>
+     *
+     * @return the result of the operation
+     */
+    @Benchmark
+    @Threads(8)
+    public boolean access008() {
+
+        return access();
+    }
+
+    /**
+     * Benchmarks the cache with 32 threads.<p>
+     *
+     * @return the result of the operation
+     */
+    @Benchmark
+    @Threads(32)
+    public boolean access032() {
+
+        return access();
+    }
+
+    /**
+     * Benchmarks the cache with 128 threads.<p>
+     *
+     * @return the result of the operation
+     */
+    @Benchmark
+    @Threads(128)
+    public boolean access128() {
+
+        return access();
+    }
+
+    /**
+     * Creates the cache and fills it with objects.<p>
+     *
+     * Only about half of the objects fit into the cache, so adding objects causes evictions.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        long maxCosts = ((long)OBJECT_COUNT * OBJECT_COSTS) / 2;
+        long avgCosts = (maxCosts * 9) / 10;
+        if ("concurrent".equals(m_implementation)) {
+            m_cache = new CmsConcurrentLruCache(maxCosts, avgCosts, -1);
+        } else {
+            m_cache = new CmsLruCache(maxCosts, avgCosts, -1);
+        }
+        m_objects = new I_CmsLruCacheObject[OBJECT_COUNT];
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            m_objects[i] = new CmsTestCacheObject(OBJECT_COSTS);
+            m_cache.add(m_objects[i]);
+        }
+    }
+
+    /**
+     * Performs a single cache operation on a random object.<p>
+     *
+     * @return the result of the operation
+     */
+    private boolean access() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        I_CmsLruCacheObject object = m_objects[random.nextInt(OBJECT_COUNT)];
+        if (random.nextInt(100) < m_addPercentage) {
+            return m_cache.add(object);
+        }
+        return m_cache.touch(object);
+    }
+}
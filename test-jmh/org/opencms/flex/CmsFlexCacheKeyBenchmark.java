@@ -0,0 +1,261 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the matching of a FlexCache key with a request, which is done for every cached include.<p>
+ *
+ * Compares building the variation String with {@link CmsFlexCacheKey#matchRequestKey(CmsFlexRequestKey)}
+ * to calculating the variation hash with {@link CmsFlexCacheKey#matchRequestHash(CmsFlexRequestKey)}.<p>
+ *
+ * @since 11.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsFlexCacheKeyBenchmark {
+
+    /**
+     * Request key with fixed request data.<p>
+     */
+    private static class CmsBenchmarkRequestKey extends CmsFlexRequestKey {
+
+        /** The request attributes. */
+        private Map<String, Object> m_attributes = new HashMap<String, Object>();
+
+        /** The request parameters. */
+        private Map<String, String[]> m_params = new HashMap<String, String[]>();
+
+        /**
+         * Creates a new request key.<p>
+         */
+        CmsBenchmarkRequestKey() {
+
+            super("/sites/default/system/modules/org.opencms.demo/elements/article.jsp");
+            m_params.put("id", new String[] {"4711"});
+            m_params.put("page", new String[] {"2"});
+            m_params.put("sort", new String[] {"date"});
+            m_attributes.put("attr1", "value1");
+            m_attributes.put("attr2", Integer.valueOf(2));
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getAttributes()
+         */
+        @Override
+        public Map<String, Object> getAttributes() {
+
+            return m_attributes;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getContainerElement()
+         */
+        @Override
+        public String getContainerElement() {
+
+            return "-1948473527_tc_desktop";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getDevice()
+         */
+        @Override
+        public String getDevice() {
+
+            return "desktop";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getElement()
+         */
+        @Override
+        public String getElement() {
+
+            return "body";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getEncoding()
+         */
+        @Override
+        public String getEncoding() {
+
+            return "UTF-8";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getIp()
+         */
+        @Override
+        public String getIp() {
+
+            return "192.168.10.42";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getLocale()
+         */
+        @Override
+        public String getLocale() {
+
+            return "en";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getParams()
+         */
+        @Override
+        public Map<String, String[]> getParams() {
+
+            return m_params;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getPort()
+         */
+        @Override
+        public Integer getPort() {
+
+            return Integer.valueOf(443);
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getScheme()
+         */
+        @Override
+        public String getScheme() {
+
+            return "https";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getSite()
+         */
+        @Override
+        public String getSite() {
+
+            return "/sites/default";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getUri()
+         */
+        @Override
+        public String getUri() {
+
+            return "/sites/default/news/2018/index.html";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getUser()
+         */
+        @Override
+        public String getUser() {
+
+            return "Guest";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#isForceAbsoluteLinks()
+         */
+        @Override
+        public boolean isForceAbsoluteLinks() {
+
+            return false;
+        }
+    }
+
+    /** The cache directives of the resource. */
+    @Param({
+        "always",
+        "uri;locale;params=(id,page);timeout=30",
+        "uri;user;element;site;locale;encoding;attrs=(attr1,attr2);container-element;device",
+        "params;schemes=(https);ports=(443)"})
+    public String m_directives;
+
+    /** The FlexCache key under test. */
+    private CmsFlexCacheKey m_key;
+
+    /** The request key to match. */
+    private CmsFlexRequestKey m_requestKey;
+
+    /**
+     * Calculates the variation hash for the request.<p>
+     *
+     * @return the variation hash
+     */
+    @Benchmark
+    public CmsFlexVariationHash matchRequestHash() {
+
+        return m_key.matchRequestHash(m_requestKey);
+    }
+
+    /**
+     * Builds the variation String for the request.<p>
+     *
+     * @return the variation String
+     */
+    @Benchmark
+    public String matchRequestKey() {
+
+        return m_key.matchRequestKey(m_requestKey);
+    }
+
+    /**
+     * Creates the FlexCache key and the request key.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        m_key = new CmsFlexCacheKey(
+            "/sites/default/system/modules/org.opencms.demo/elements/article.jsp",
+            m_directives,
+            true);
+        m_requestKey = new CmsBenchmarkRequestKey();
+    }
+}
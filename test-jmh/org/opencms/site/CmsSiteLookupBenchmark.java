@@ -0,0 +1,130 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the site lookups by root path and by server done by the {@link CmsSiteLookupIndex}.<p>
+ *
+ * These are the lookups behind {@link CmsSiteManagerImpl#getSiteForRootPath(String)} and
+ * {@link CmsSiteManagerImpl#matchRequest(javax.servlet.http.HttpServletRequest)}.<p>
+ *
+ * @since 11.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsSiteLookupBenchmark {
+
+    /** The number of aliases per site. */
+    private static final int ALIASES = 2;
+
+    /** The number of configured sites. */
+    @Param({"100", "1500"})
+    public int m_siteCount;
+
+    /** The lookup index under test. */
+    private CmsSiteLookupIndex m_index;
+
+    /** The root paths to look up. */
+    private String[] m_rootPaths;
+
+    /** The server names to look up. */
+    private String[] m_serverNames;
+
+    /**
+     * Looks up the site for a random resource root path.<p>
+     *
+     * @return the site found
+     */
+    @Benchmark
+    public CmsSite getSiteForRootPath() {
+
+        return m_index.getSiteForRootPath(m_rootPaths[ThreadLocalRandom.current().nextInt(m_rootPaths.length)]);
+    }
+
+    /**
+     * Looks up the site matcher for a random server name.<p>
+     *
+     * @return the site matcher found
+     */
+    @Benchmark
+    public Map.Entry<CmsSiteMatcher, CmsSite> matchServer() {
+
+        return m_index.matchServer(
+            "https",
+            m_serverNames[ThreadLocalRandom.current().nextInt(m_serverNames.length)],
+            443);
+    }
+
+    /**
+     * Creates the sites with their aliases, half of the sites are located outside of the "/sites/" folder.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        Map<String, CmsSite> siteRootSites = new HashMap<String, CmsSite>();
+        Map<CmsSiteMatcher, CmsSite> siteMatcherSites = new HashMap<CmsSiteMatcher, CmsSite>();
+        m_rootPaths = new String[m_siteCount * 2];
+        m_serverNames = new String[m_siteCount * (ALIASES + 1)];
+        for (int i = 0; i < m_siteCount; i++) {
+            String siteRoot = ((i % 2) == 0) ? "/sites/site" + i : "/customers/c" + (i % 10) + "/site" + i;
+            CmsSite site = new CmsSite(siteRoot, "https://www.site" + i + ".example.com");
+            siteRootSites.put(site.getSiteRoot(), site);
+            siteMatcherSites.put(site.getSiteMatcher(), site);
+            m_serverNames[i * (ALIASES + 1)] = site.getSiteMatcher().getServerName();
+            for (int j = 1; j <= ALIASES; j++) {
+                CmsSiteMatcher alias = new CmsSiteMatcher("https://alias" + j + ".site" + i + ".example.com");
+                siteMatcherSites.put(alias, site);
+                m_serverNames[(i * (ALIASES + 1)) + j] = alias.getServerName();
+            }
+            m_rootPaths[i * 2] = siteRoot + "/news/2018/article-" + i + ".xml";
+            m_rootPaths[(i * 2) + 1] = siteRoot;
+        }
+        m_index = new CmsSiteLookupIndex(siteRootSites, siteMatcherSites);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.staticexport;
+
+import org.opencms.file.CmsObject;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+import org.opencms.test.CmsBenchmarkVfs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the link substitution done by {@link CmsLinkManager#substituteLink(CmsObject, String)}.<p>
+ *
+ * @since 11.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsLinkManagerBenchmark {
+
+    /** The absolute link to substitute. */
+    private static final String LINK_ABSOLUTE = "/folder1/page1.html";
+
+    /** The relative link to substitute. */
+    private static final String LINK_RELATIVE = "../folder1/subfolder11/index.html?param=value";
+
+    /** The URI of the page that contains the links. */
+    private static final String URI = "/folder2/index.html";
+
+    /** <code>true</code> to substitute the links in the "Online" project. */
+    @Param({"true", "false"})
+    public boolean m_online;
+
+    /** The current user context. */
+    private CmsObject m_cms;
+
+    /** The link manager under test. */
+    private CmsLinkManager m_linkManager;
+
+    /**
+     * Initializes the user context.<p>
+     *
+     * @param vfs the OpenCms instance to use
+     *
+     * @throws CmsException if something goes wrong
+     */
+    @Setup
+    public void setUp(CmsBenchmarkVfs vfs) throws CmsException {
+
+        m_cms = vfs.getCmsObject(m_online);
+        m_cms.getRequestContext().setUri(URI);
+        m_linkManager = OpenCms.getLinkManager();
+    }
+
+    /**
+     * Substitutes an absolute link in the current site.<p>
+     *
+     * @return the substituted link
+     */
+    @Benchmark
+    public String substituteAbsoluteLink() {
+
+        return m_linkManager.substituteLink(m_cms, LINK_ABSOLUTE);
+    }
+
+    /**
+     * Substitutes a relative link with parameters.<p>
+     *
+     * @return the substituted link
+     */
+    @Benchmark
+    public String substituteRelativeLink() {
+
+        return m_linkManager.substituteLink(m_cms, LINK_RELATIVE);
+    }
+}
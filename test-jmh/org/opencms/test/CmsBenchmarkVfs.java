@@ -0,0 +1,95 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.test;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark state that provides an OpenCms instance with the "simpletest" VFS.<p>
+ *
+ * The instance is set up like for the test cases, by default with the in-memory HSQLDB database
+ * configured in <code>test/test.properties</code>. It is started once per benchmark trial,
+ * so the startup and the import are not part of the measurement.<p>
+ *
+ * @since 11.0.0
+ */
+@State(Scope.Benchmark)
+public class CmsBenchmarkVfs {
+
+    /** The site root of the default site in the "simpletest" VFS. */
+    public static final String SITE_ROOT = "/sites/default";
+
+    /** The Admin context in the "Offline" project. */
+    private CmsObject m_cms;
+
+    /**
+     * Returns a new context for the given project and the default site.<p>
+     *
+     * @param online <code>true</code> for the "Online" project, <code>false</code> for the "Offline" project
+     *
+     * @return a new context for the given project and the default site
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsObject getCmsObject(boolean online) throws CmsException {
+
+        CmsObject cms = OpenCms.initCmsObject(m_cms);
+        if (online) {
+            cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        }
+        cms.getRequestContext().setSiteRoot(SITE_ROOT);
+        return cms;
+    }
+
+    /**
+     * Starts OpenCms and imports the "simpletest" VFS.<p>
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+        m_cms = OpenCmsTestCase.setupOpenCms("simpletest", "/");
+    }
+
+    /**
+     * Shuts down OpenCms and removes the database.<p>
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        OpenCmsTestCase.removeOpenCms(CmsBenchmarkVfs.class.getName());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.util;
+
+import org.opencms.file.CmsObject;
+import org.opencms.main.CmsException;
+import org.opencms.test.CmsBenchmarkVfs;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CmsMacroResolver#resolveMacros(String)} for inputs with and without macros.<p>
+ *
+ * @since 11.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsMacroResolverBenchmark {
+
+    /** Input with macros resolved from the user context and the additional macros. */
+    private static final String INPUT_CONTEXT = "Hello %(currentuser.name), this is %(request.uri) in "
+        + "%(request.siteroot) with %(title) and ${title} by %(author).";
+
+    /** Input without any macros. */
+    private static final String INPUT_PLAIN = "Hello user, this is a text without any macros, "
+        + "just some 100% plain text and a few (brackets).";
+
+    /** Input with macros resolved from the resource properties. */
+    private static final String INPUT_PROPERTY = "%(property.Title) - %(property.NavText) - %(title)";
+
+    /** The URI of the page the macros are resolved for. */
+    private static final String URI = "/folder1/index.html";
+
+    /** The macro resolver under test. */
+    private CmsMacroResolver m_resolver;
+
+    /**
+     * Resolves the macros of the user context and the additional macros.<p>
+     *
+     * @return the resolved input
+     */
+    @Benchmark
+    public String resolveContextMacros() {
+
+        return m_resolver.resolveMacros(INPUT_CONTEXT);
+    }
+
+    /**
+     * Resolves an input that contains no macros.<p>
+     *
+     * @return the resolved input
+     */
+    @Benchmark
+    public String resolvePlainText() {
+
+        return m_resolver.resolveMacros(INPUT_PLAIN);
+    }
+
+    /**
+     * Resolves macros that read the properties of the current URI.<p>
+     *
+     * @return the resolved input
+     */
+    @Benchmark
+    public String resolvePropertyMacros() {
+
+        return m_resolver.resolveMacros(INPUT_PROPERTY);
+    }
+
+    /**
+     * Initializes the macro resolver.<p>
+     *
+     * @param vfs the OpenCms instance to use
+     *
+     * @throws CmsException if something goes wrong
+     */
+    @Setup
+    public void setUp(CmsBenchmarkVfs vfs) throws CmsException {
+
+        CmsObject cms = vfs.getCmsObject(true);
+        cms.getRequestContext().setUri(URI);
+        Map<String, String> macros = new HashMap<String, String>();
+        macros.put("title", "A title");
+        macros.put("author", "An author");
+        m_resolver = CmsMacroResolver.newInstance().setCmsObject(cms).setAdditionalMacros(macros);
+    }
+}
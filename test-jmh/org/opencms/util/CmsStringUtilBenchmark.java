@@ -0,0 +1,126 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the string splitting methods of {@link CmsStringUtil}.<p>
+ *
+ * @since 11.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsStringUtilBenchmark {
+
+    /** The number of parts of the split strings. */
+    @Param({"4", "32"})
+    public int m_parts;
+
+    /** The list of key value pairs to split. */
+    private String m_map;
+
+    /** The path to split. */
+    private String m_path;
+
+    /** The comma separated list with blanks to split. */
+    private String m_values;
+
+    /**
+     * Initializes the strings to split.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        StringBuffer path = new StringBuffer();
+        StringBuffer values = new StringBuffer();
+        StringBuffer map = new StringBuffer();
+        for (int i = 0; i < m_parts; i++) {
+            path.append("/folder").append(i);
+            if (i > 0) {
+                values.append(", ");
+                map.append('|');
+            }
+            values.append("value").append(i);
+            map.append("key").append(i).append(':').append("value").append(i);
+        }
+        m_path = path.append('/').toString();
+        m_values = values.toString();
+        m_map = map.toString();
+    }
+
+    /**
+     * Splits a path at a char delimiter.<p>
+     *
+     * @return the parts of the path
+     */
+    @Benchmark
+    public List<String> splitAsListChar() {
+
+        return CmsStringUtil.splitAsList(m_path, '/');
+    }
+
+    /**
+     * Splits a list at a string delimiter and trims the parts.<p>
+     *
+     * @return the parts of the list
+     */
+    @Benchmark
+    public List<String> splitAsListStringTrimmed() {
+
+        return CmsStringUtil.splitAsList(m_values, ",", true);
+    }
+
+    /**
+     * Splits a list of key value pairs.<p>
+     *
+     * @return the key value pairs
+     */
+    @Benchmark
+    public Map<String, String> splitAsMap() {
+
+        return CmsStringUtil.splitAsMap(m_map, "|", ":");
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing and formatting of {@link CmsUUID} instances.<p>
+ *
+ * @since 11.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsUUIDBenchmark {
+
+    /** The number of distinct ids. */
+    private static final int ID_COUNT = 1024;
+
+    /** The ids. */
+    private CmsUUID[] m_ids;
+
+    /** The string representations of the ids. */
+    private String[] m_strings;
+
+    /**
+     * Checks if a random string is a valid id.<p>
+     *
+     * @return the result of the check
+     */
+    @Benchmark
+    public boolean isValidUUID() {
+
+        return CmsUUID.isValidUUID(m_strings[ThreadLocalRandom.current().nextInt(ID_COUNT)]);
+    }
+
+    /**
+     * Initializes the ids.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        m_ids = new CmsUUID[ID_COUNT];
+        m_strings = new String[ID_COUNT];
+        for (int i = 0; i < ID_COUNT; i++) {
+            m_ids[i] = new CmsUUID();
+            m_strings[i] = m_ids[i].toString();
+        }
+    }
+
+    /**
+     * Formats a random id.<p>
+     *
+     * @return the string representation of the id
+     */
+    @Benchmark
+    public String toStringId() {
+
+        return m_ids[ThreadLocalRandom.current().nextInt(ID_COUNT)].toString();
+    }
+
+    /**
+     * Parses a random id.<p>
+     *
+     * @return the parsed id
+     */
+    @Benchmark
+    public CmsUUID valueOf() {
+
+        return CmsUUID.valueOf(m_strings[ThreadLocalRandom.current().nextInt(ID_COUNT)]);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.CmsException;
+import org.opencms.test.CmsBenchmarkVfs;
+import org.opencms.xml.CmsXmlEntityResolver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures unmarshalling an XML content from the VFS with {@link CmsXmlContentFactory}.<p>
+ *
+ * Unmarshalling the raw bytes always parses the XML, while unmarshalling the file
+ * may use the parsed document cached by the {@link CmsXmlContentDocumentCache}.<p>
+ *
+ * @since 11.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsXmlContentUnmarshalBenchmark {
+
+    /** The XML content to unmarshal. */
+    private static final String RESOURCE = "/xmlcontent/article_0001.html";
+
+    /** The current user context. */
+    private CmsObject m_cms;
+
+    /** The XML content file. */
+    private CmsFile m_file;
+
+    /** The entity resolver for the XML schemas. */
+    private CmsXmlEntityResolver m_resolver;
+
+    /**
+     * Reads the XML content file.<p>
+     *
+     * @param vfs the OpenCms instance to use
+     *
+     * @throws CmsException if something goes wrong
+     */
+    @Setup
+    public void setUp(CmsBenchmarkVfs vfs) throws CmsException {
+
+        m_cms = vfs.getCmsObject(true);
+        m_file = m_cms.readFile(RESOURCE);
+        m_resolver = new CmsXmlEntityResolver(m_cms);
+    }
+
+    /**
+     * Unmarshals the XML content from its bytes.<p>
+     *
+     * @return the XML content
+     *
+     * @throws CmsException if something goes wrong
+     */
+    @Benchmark
+    public CmsXmlContent unmarshalBytes() throws CmsException {
+
+        return CmsXmlContentFactory.unmarshal(m_cms, m_file.getContents(), CmsEncoder.ENCODING_UTF_8, m_resolver);
+    }
+
+    /**
+     * Unmarshals the XML content from the file.<p>
+     *
+     * @return the XML content
+     *
+     * @throws CmsException if something goes wrong
+     */
+    @Benchmark
+    public CmsXmlContent unmarshalFile() throws CmsException {
+
+        return CmsXmlContentFactory.unmarshal(m_cms, m_file);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test cases for {@link org.opencms.cache.CmsConcurrentLruCache}.<p>
+ */
+public class TestConcurrentLruCache extends OpenCmsTestCase {
+
+    /**
+     * Simple cache object that counts the add / remove notifications.<p>
+     */
+    private static class CmsTestCacheObject implements I_CmsLruCacheObject {
+
+        /** The number of add notifications. */
+        AtomicInteger m_added = new AtomicInteger();
+
+        /** The number of remove notifications. */
+        AtomicInteger m_removed = new AtomicInteger();
+
+        /** The cache costs. */
+        private int m_costs;
+
+        /**
+         * Creates a new test cache object.<p>
+         *
+         * @param costs the cache costs
+         */
+        CmsTestCacheObject(int costs) {
+
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            m_added.incrementAndGet();
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return null;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return null;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            m_removed.incrementAndGet();
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            // not used by the concurrent cache
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            // not used by the concurrent cache
+        }
+    }
+
+    /**
+     * Tests adding, touching and removing objects.<p>
+     */
+    public void testAddTouchRemove() {
+
+        CmsConcurrentLruCache cache = new CmsConcurrentLruCache(1000, 500, 100);
+        CmsTestCacheObject obj = new CmsTestCacheObject(10);
+
+        assertFalse(cache.touch(obj));
+        assertTrue(cache.add(obj));
+        assertTrue(cache.add(obj));
+        assertEquals(1, obj.m_added.get());
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.getObjectCosts());
+        assertTrue(cache.touch(obj));
+
+        assertSame(obj, cache.remove(obj));
+        assertNull(cache.remove(obj));
+        assertEquals(1, obj.m_removed.get());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+
+        // objects that are too expensive are rejected
+        assertFalse(cache.add(new CmsTestCacheObject(101)));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that concurrent operations keep the cache costs consistent.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentAccess() throws Exception {
+
+        final CmsConcurrentLruCache cache = new CmsConcurrentLruCache(5000, 4000, -1);
+        final CmsTestCacheObject[] objects = new CmsTestCacheObject[1000];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestCacheObject(1 + (i % 10));
+        }
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread() {
+
+                @Override
+                public void run() {
+
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20000; i++) {
+                        CmsTestCacheObject obj = objects[random.nextInt(objects.length)];
+                        int op = random.nextInt(10);
+                        if (op < 5) {
+                            cache.add(obj);
+                        } else if (op < 9) {
+                            cache.touch(obj);
+                        } else {
+                            cache.remove(obj);
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int costs = 0;
+        int count = 0;
+        for (CmsTestCacheObject obj : objects) {
+            int diff = obj.m_added.get() - obj.m_removed.get();
+            // every object must be notified exactly once for each add and remove
+            assertTrue((diff == 0) || (diff == 1));
+            if (diff == 1) {
+                costs += obj.getLruCacheCosts();
+                count++;
+            }
+        }
+        assertEquals(count, cache.size());
+        assertEquals(costs, cache.getObjectCosts());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+    }
+
+    /**
+     * Tests that the least recently used objects are evicted first.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testEviction() throws Exception {
+
+        CmsConcurrentLruCache cache = new CmsConcurrentLruCache(100, 50, -1);
+        CmsTestCacheObject[] objects = new CmsTestCacheObject[10];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestCacheObject(10);
+            cache.add(objects[i]);
+            Thread.sleep(1);
+        }
+        assertEquals(100, cache.getObjectCosts());
+
+        // touch the oldest objects, so that they become the most recently used objects
+        cache.touch(objects[0]);
+        cache.touch(objects[1]);
+        Thread.sleep(1);
+
+        // this exceeds the max. costs, the cache must be cleaned up to below the avg. costs
+        CmsTestCacheObject obj = new CmsTestCacheObject(10);
+        cache.add(obj);
+        assertTrue(cache.getObjectCosts() < 50);
+        assertEquals(1, objects[0].m_added.get() - objects[0].m_removed.get());
+        assertEquals(1, objects[1].m_added.get() - objects[1].m_removed.get());
+        assertEquals(1, obj.m_added.get() - obj.m_removed.get());
+        assertEquals(1, objects[2].m_removed.get());
+    }
+
+    /**
+     * Tests that the sampled eviction of a large cache keeps the recently used objects.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSampledEviction() throws Exception {
+
+        CmsConcurrentLruCache cache = new CmsConcurrentLruCache(1000, 500, -1);
+        CmsTestCacheObject[] objects = new CmsTestCacheObject[1000];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestCacheObject(1);
+            cache.add(objects[i]);
+        }
+        assertEquals(1000, cache.getObjectCosts());
+        Thread.sleep(1);
+
+        // touch some objects, so that they become the most recently used objects
+        for (int i = 0; i < 100; i++) {
+            cache.touch(objects[i * 10]);
+        }
+        Thread.sleep(1);
+
+        // this exceeds the max. costs, the cache must be cleaned up to below the avg. costs
+        cache.add(new CmsTestCacheObject(1));
+        assertTrue(cache.getObjectCosts() < 500);
+        assertEquals(cache.size(), cache.getObjectCosts());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, objects[i * 10].m_removed.get());
+        }
+    }
+}
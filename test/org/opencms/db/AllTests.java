@@ -27,6 +27,7 @@
 
 package org.opencms.db;
 
+import org.opencms.db.log.TestCmsLogEntryQueue;
 import org.opencms.test.OpenCmsTestProperties;
 
 import junit.framework.Test;
@@ -65,6 +66,9 @@ public final class AllTests {
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
         suite.addTest(TestUrlNameMapping.suite());
+        suite.addTest(new TestSuite(TestCmsLogEntryQueue.class));
+        suite.addTest(new TestSuite(TestCmsPermissionCacheKey.class));
+        suite.addTest(new TestSuite(TestCmsSqlMetrics.class));
         // $JUnit-END$
         return suite;
     }
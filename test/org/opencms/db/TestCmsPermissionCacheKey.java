@@ -0,0 +1,82 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.db;
+
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+/**
+ * Tests the compact keys of the permission cache.<p>
+ */
+public class TestCmsPermissionCacheKey extends OpenCmsTestCase {
+
+    /**
+     * Tests that keys are equal exactly if all their parts are equal.<p>
+     */
+    public void testEquality() {
+
+        CmsUUID userId = new CmsUUID();
+        CmsUUID structureId = new CmsUUID();
+        int read = CmsPermissionSet.PERMISSION_READ;
+        int write = CmsPermissionSet.PERMISSION_WRITE;
+
+        CmsPermissionCacheKey key = new CmsPermissionCacheKey(
+            userId,
+            structureId,
+            read,
+            0,
+            CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE);
+        CmsPermissionCacheKey same = new CmsPermissionCacheKey(
+            CmsUUID.valueOf(userId.toString()),
+            CmsUUID.valueOf(structureId.toString()),
+            read,
+            0,
+            CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE);
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+
+        assertFalse(
+            key.equals(
+                new CmsPermissionCacheKey(new CmsUUID(), structureId, read, 0, CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE)));
+        assertFalse(
+            key.equals(new CmsPermissionCacheKey(userId, new CmsUUID(), read, 0, CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE)));
+        assertFalse(
+            key.equals(new CmsPermissionCacheKey(userId, structureId, write, 0, CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE)));
+        assertFalse(
+            key.equals(new CmsPermissionCacheKey(userId, structureId, read, write, CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE)));
+        assertFalse(key.equals(new CmsPermissionCacheKey(userId, structureId, read, 0, 0)));
+        assertFalse(
+            key.equals(
+                new CmsPermissionCacheKey(
+                    userId,
+                    structureId,
+                    read,
+                    0,
+                    CmsPermissionCacheKey.FLAG_REQUIRE_VISIBLE | CmsPermissionCacheKey.FLAG_ONLINE)));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the SQL query statistics.<p>
+ */
+public class TestCmsSqlMetrics extends OpenCmsTestCase {
+
+    /**
+     * Tests that the execution times are sorted into the histogram buckets.<p>
+     */
+    public void testHistogram() {
+
+        CmsSqlQueryStatistics statistics = new CmsSqlQueryStatistics("C_TEST");
+        statistics.addExecution(TimeUnit.MICROSECONDS.toNanos(200));
+        statistics.addExecution(TimeUnit.MILLISECONDS.toNanos(7));
+        statistics.addExecution(TimeUnit.MILLISECONDS.toNanos(7));
+        statistics.addExecution(TimeUnit.SECONDS.toNanos(10));
+
+        long[] histogram = statistics.getLatencyHistogram();
+        assertEquals(CmsSqlQueryStatistics.getHistogramBounds().length + 1, histogram.length);
+        assertEquals(1, histogram[0]);
+        assertEquals(2, histogram[2]);
+        assertEquals(1, histogram[histogram.length - 1]);
+        assertEquals(4, statistics.getCalls());
+        assertEquals(10000, statistics.getMaxTime());
+        assertEquals(10014, statistics.getTotalTime());
+    }
+
+    /**
+     * Tests that the executions and rows read are recorded for a wrapped statement.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testWrap() throws Exception {
+
+        final ResultSet res = (ResultSet)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            new InvocationHandler() {
+
+                private int m_rows = 3;
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    return method.getName().equals("next") ? Boolean.valueOf(m_rows-- > 0) : null;
+                }
+            });
+        PreparedStatement stmt = (PreparedStatement)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    return method.getName().equals("executeQuery") ? res : null;
+                }
+            });
+
+        CmsSqlMetrics metrics = CmsSqlMetrics.getInstance();
+        String queryKey = "C_TEST_WRAP_" + System.nanoTime();
+        boolean enabled = metrics.isEnabled();
+        try {
+            // recording is disabled by default, so statements are not wrapped
+            metrics.setEnabled(false);
+            assertSame(stmt, metrics.wrap(stmt, queryKey, "SELECT * FROM CMS_TEST WHERE ID=?"));
+
+            metrics.setEnabled(true);
+            PreparedStatement wrapped = metrics.wrap(stmt, queryKey, "SELECT * FROM CMS_TEST WHERE ID=?");
+            assertNotSame(stmt, wrapped);
+
+            wrapped.setString(1, "secret");
+            ResultSet wrappedRes = wrapped.executeQuery();
+            while (wrappedRes.next()) {
+                // read all rows
+            }
+            wrapped.close();
+        } finally {
+            metrics.setEnabled(enabled);
+        }
+
+        CmsSqlQueryStatistics statistics = metrics.getQueryStatistics(queryKey);
+        assertNotNull(statistics);
+        assertEquals(1, statistics.getCalls());
+        assertEquals(3, statistics.getRowsRead());
+    }
+}
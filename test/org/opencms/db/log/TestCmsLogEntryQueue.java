@@ -0,0 +1,129 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.log;
+
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test cases for the {@link org.opencms.db.log.CmsLogEntryQueue}.<p>
+ */
+public class TestCmsLogEntryQueue extends OpenCmsTestCase {
+
+    /**
+     * Creates a log entry for testing.<p>
+     *
+     * @return the log entry
+     */
+    private static CmsLogEntry entry() {
+
+        return new CmsLogEntry(
+            new CmsUUID(),
+            System.currentTimeMillis(),
+            new CmsUUID(),
+            CmsLogEntryType.RESOURCE_TOUCHED,
+            new String[] {"/test"});
+    }
+
+    /**
+     * Tests that the queue is bounded and drained in order.<p>
+     */
+    public void testOfferAndDrain() {
+
+        CmsLogEntryQueue queue = new CmsLogEntryQueue(2);
+        CmsLogEntry first = entry();
+        CmsLogEntry second = entry();
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+        assertFalse(queue.offer(entry()));
+        assertEquals(2, queue.getSize());
+        assertEquals(1, queue.getOverflowCount());
+
+        CmsLogEntry forced = entry();
+        queue.add(forced);
+        assertEquals(3, queue.getSize());
+
+        List<CmsLogEntry> entries = queue.drain();
+        assertEquals(3, entries.size());
+        assertSame(first, entries.get(0));
+        assertSame(second, entries.get(1));
+        assertSame(forced, entries.get(2));
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Tests the flush counters.<p>
+     */
+    public void testRecordFlush() {
+
+        CmsLogEntryQueue queue = new CmsLogEntryQueue(10);
+        queue.recordFlush(5, 20);
+        queue.recordFlush(3, 40);
+        queue.recordFlush(2, 0);
+        assertEquals(3, queue.getFlushCount());
+        assertEquals(10, queue.getFlushedEntries());
+        assertEquals(0, queue.getLastFlushTime());
+        assertEquals(40, queue.getMaxFlushTime());
+        assertEquals(60, queue.getTotalFlushTime());
+        assertEquals(20, queue.getAverageFlushTime());
+    }
+
+    /**
+     * Tests that the writer thread flushes as soon as the batch size is reached.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testWriterFlushesBatch() throws Exception {
+
+        final CmsLogEntryQueue queue = new CmsLogEntryQueue(100);
+        final CountDownLatch flushed = new CountDownLatch(1);
+        queue.startWriter(new Runnable() {
+
+            public void run() {
+
+                if (queue.drain().size() > 0) {
+                    flushed.countDown();
+                }
+            }
+        }, 3, 60000);
+        try {
+            queue.offer(entry());
+            queue.offer(entry());
+            assertFalse(flushed.await(200, TimeUnit.MILLISECONDS));
+            queue.offer(entry());
+            assertTrue(flushed.await(10, TimeUnit.SECONDS));
+        } finally {
+            queue.shutDown();
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
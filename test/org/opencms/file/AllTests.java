@@ -71,6 +71,7 @@ public final class AllTests {
         suite.addTest(TestExists.suite());
         suite.addTest(TestGroupOperations.suite());
         suite.addTest(TestHistory.suite());
+        suite.addTest(TestInheritedPropertyCache.suite());
         suite.addTest(TestLinkValidation.suite());
         suite.addTest(TestLock.suite());
         suite.addTest(TestMoveRename.suite());
@@ -0,0 +1,252 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.file;
+
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.Collections;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the cache for the inherited properties of folders.<p>
+ */
+public class TestInheritedPropertyCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestInheritedPropertyCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestInheritedPropertyCache.class.getName());
+
+        suite.addTest(new TestInheritedPropertyCache("testDescendantRead"));
+        suite.addTest(new TestInheritedPropertyCache("testPrefixSiblingFolder"));
+        suite.addTest(new TestInheritedPropertyCache("testSiblingFlush"));
+        suite.addTest(new TestInheritedPropertyCache("testCapacity"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the cache is cleared completely once it is full.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testCapacity() throws Throwable {
+
+        echo("Testing that the inherited property cache is cleared when it is full");
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+
+        List<CmsProperty> properties = Collections.emptyList();
+        monitor.cacheInheritedPropertyList(false, "/capacity/0/", properties);
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, "/capacity/0/"));
+
+        // add entries until the first one is gone, which happens when the cache is full
+        int count = 1;
+        while (monitor.getCachedInheritedPropertyList(false, "/capacity/0/") != null) {
+            assertTrue("the cache is never cleared", count < 1000000);
+            monitor.cacheInheritedPropertyList(false, "/capacity/" + count + "/", properties);
+            count++;
+        }
+        int last = count - 1;
+        assertTrue(last > 1);
+
+        // all previous entries are gone, only the entry that did not fit any more is cached
+        for (int i = 0; i < last; i++) {
+            assertNull(monitor.getCachedInheritedPropertyList(false, "/capacity/" + i + "/"));
+        }
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, "/capacity/" + last + "/"));
+
+        // the cache is filled again
+        CmsObject cms = getCmsObject();
+        cms.createResource("/capacity/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.readPropertyObject("/capacity/", CmsPropertyDefinition.PROPERTY_TITLE, true);
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/capacity/")));
+        monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+    }
+
+    /**
+     * Tests that a property of a folder is read on a descendant file and that a changed value is read afterwards.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testDescendantRead() throws Throwable {
+
+        echo("Testing that folder properties are inherited by descendant files");
+        CmsObject cms = getCmsObject();
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+
+        cms.createResource("/a/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/a/b/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/a/b/file.txt", CmsResourceTypePlain.getStaticTypeId());
+        cms.writePropertyObject("/a/", new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "value1", null));
+
+        assertEquals(
+            "value1",
+            cms.readPropertyObject("/a/b/file.txt", CmsPropertyDefinition.PROPERTY_TITLE, true).getValue());
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/a/")));
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/a/b/")));
+        // the cached value is used for the second read
+        assertEquals(
+            "value1",
+            cms.readPropertyObject("/a/b/file.txt", CmsPropertyDefinition.PROPERTY_TITLE, true).getValue());
+
+        cms.writePropertyObject("/a/", new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "value2", null));
+        assertNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/a/")));
+        assertNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/a/b/")));
+        assertEquals(
+            "value2",
+            cms.readPropertyObject("/a/b/file.txt", CmsPropertyDefinition.PROPERTY_TITLE, true).getValue());
+
+        // a value on the file itself overwrites the inherited value
+        cms.writePropertyObject(
+            "/a/b/file.txt",
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "value3", null));
+        assertEquals(
+            "value3",
+            cms.readPropertyObject("/a/b/file.txt", CmsPropertyDefinition.PROPERTY_TITLE, true).getValue());
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/a/b/")));
+    }
+
+    /**
+     * Tests that changing the properties of a folder keeps the cache entries of a folder
+     * whose path starts with the path of the changed folder.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPrefixSiblingFolder() throws Throwable {
+
+        echo("Testing that a folder with a common path prefix keeps its cache entry");
+        CmsObject cms = getCmsObject();
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+
+        cms.createResource("/prefix/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/prefix/a/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/prefix/ab/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/prefix/ab/file.txt", CmsResourceTypePlain.getStaticTypeId());
+        cms.writePropertyObject("/prefix/ab/", new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "ab", null));
+
+        cms.readPropertyObject("/prefix/a/", CmsPropertyDefinition.PROPERTY_TITLE, true);
+        assertEquals(
+            "ab",
+            cms.readPropertyObject("/prefix/ab/file.txt", CmsPropertyDefinition.PROPERTY_TITLE, true).getValue());
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/prefix/a/")));
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/prefix/ab/")));
+
+        cms.writePropertyObject("/prefix/a/", new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "a", null));
+        assertNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/prefix/a/")));
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/prefix/ab/")));
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/prefix/")));
+
+        assertEquals("a", cms.readPropertyObject("/prefix/a/", CmsPropertyDefinition.PROPERTY_TITLE, true).getValue());
+        assertEquals(
+            "ab",
+            cms.readPropertyObject("/prefix/ab/file.txt", CmsPropertyDefinition.PROPERTY_TITLE, true).getValue());
+    }
+
+    /**
+     * Tests that writing a property of a resource with siblings flushes the whole cache,
+     * while writing a property of a file without siblings does not.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testSiblingFlush() throws Throwable {
+
+        echo("Testing that a shared property value of a sibling flushes the inherited property cache");
+        CmsObject cms = getCmsObject();
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+
+        cms.createResource("/other/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/siblings/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource("/siblings/single.txt", CmsResourceTypePlain.getStaticTypeId());
+        cms.createResource("/siblings/source.txt", CmsResourceTypePlain.getStaticTypeId());
+        cms.createSibling("/siblings/source.txt", "/siblings/sibling.txt", null);
+
+        cms.readPropertyObject("/other/", CmsPropertyDefinition.PROPERTY_TITLE, true);
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/other/")));
+
+        // a file without siblings does not affect the cached folders
+        cms.writePropertyObject(
+            "/siblings/single.txt",
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, null, "single"));
+        assertNotNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/other/")));
+
+        cms.writePropertyObject(
+            "/siblings/sibling.txt",
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, null, "shared"));
+        assertNull(monitor.getCachedInheritedPropertyList(false, cms.addSiteRoot("/other/")));
+
+        // the shared value is read on both siblings
+        assertEquals(
+            "shared",
+            cms.readPropertyObject("/siblings/source.txt", CmsPropertyDefinition.PROPERTY_TITLE, true).getValue());
+        assertEquals(
+            "shared",
+            cms.readPropertyObject("/siblings/sibling.txt", CmsPropertyDefinition.PROPERTY_TITLE, true).getValue());
+    }
+}
@@ -29,11 +29,45 @@ package org.opencms.flex;
 
 import org.opencms.test.OpenCmsTestCase;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+
 /**
  * Tests for the CmsFlexCacheEntry.<p>
  */
 public class TestCmsFlexCacheEntry extends OpenCmsTestCase {
 
+    /**
+     * Tests moving the output of an entry off heap and releasing it again.<p>
+     */
+    public void testMoveOffHeap() {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add("Hello ".getBytes());
+        entry.add("/system/include.jsp", null, null);
+        entry.add("World".getBytes());
+        entry.complete();
+
+        CmsFlexCacheOffHeapStore store = new CmsFlexCacheOffHeapStore();
+        int costs = entry.getLruCacheCosts();
+        entry.moveOffHeap(store);
+        assertEquals(11, store.getBytes());
+        assertEquals(costs, entry.getLruCacheCosts());
+
+        List<Object> elements = entry.elements();
+        assertEquals(5, elements.size());
+        assertEquals("/system/include.jsp", elements.get(1));
+        assertEquals("Hello ", toString((ByteBuffer)elements.get(0)));
+        assertEquals("World", toString((ByteBuffer)elements.get(4)));
+        // reading must not change the buffers
+        assertEquals("World", toString((ByteBuffer)elements.get(4)));
+
+        entry.removeFromLruCache();
+        assertEquals(0, store.getBytes());
+        entry.removeFromLruCache();
+        assertEquals(0, store.getBytes());
+    }
+
     /**
      * Tests the method getAbsoluteUri.<p>
      */
@@ -53,4 +87,18 @@ public class TestCmsFlexCacheEntry extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Returns the remaining bytes of the given buffer as string.<p>
+     *
+     * @param buffer the buffer
+     *
+     * @return the remaining bytes as string
+     */
+    private String toString(ByteBuffer buffer) {
+
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes);
+    }
+
 }
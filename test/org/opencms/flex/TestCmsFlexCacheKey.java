@@ -0,0 +1,251 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tests the matching of FlexCache keys with request keys.<p>
+ */
+public class TestCmsFlexCacheKey extends OpenCmsTestCase {
+
+    /**
+     * Request key with fixed request data.<p>
+     */
+    private static class CmsTestRequestKey extends CmsFlexRequestKey {
+
+        /** The request attributes. */
+        private Map<String, Object> m_attributes = new LinkedHashMap<String, Object>();
+
+        /** The request parameters. */
+        private Map<String, String[]> m_params = new LinkedHashMap<String, String[]>();
+
+        /**
+         * Creates a new request key.<p>
+         */
+        CmsTestRequestKey() {
+
+            super("/sites/default/index.jsp");
+            m_params.put("id", new String[] {"42"});
+            m_params.put("page", new String[] {"3"});
+            m_attributes.put("attr1", Integer.valueOf(7));
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getAttributes()
+         */
+        @Override
+        public Map<String, Object> getAttributes() {
+
+            return m_attributes;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getContainerElement()
+         */
+        @Override
+        public String getContainerElement() {
+
+            return "1234_tc_";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getDevice()
+         */
+        @Override
+        public String getDevice() {
+
+            return "desktop";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getElement()
+         */
+        @Override
+        public String getElement() {
+
+            return null;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getEncoding()
+         */
+        @Override
+        public String getEncoding() {
+
+            return "UTF-8";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getIp()
+         */
+        @Override
+        public String getIp() {
+
+            return "127.0.0.1";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getLocale()
+         */
+        @Override
+        public String getLocale() {
+
+            return "en";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getParams()
+         */
+        @Override
+        public Map<String, String[]> getParams() {
+
+            return m_params;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getPort()
+         */
+        @Override
+        public Integer getPort() {
+
+            return Integer.valueOf(443);
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getScheme()
+         */
+        @Override
+        public String getScheme() {
+
+            return "https";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getSite()
+         */
+        @Override
+        public String getSite() {
+
+            return "/sites/default";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getUri()
+         */
+        @Override
+        public String getUri() {
+
+            return "/sites/default/index.html";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getUser()
+         */
+        @Override
+        public String getUser() {
+
+            return "Guest";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#isForceAbsoluteLinks()
+         */
+        @Override
+        public boolean isForceAbsoluteLinks() {
+
+            return false;
+        }
+    }
+
+    /**
+     * Tests that the variation hash is the hash of the variation String for different cache directives.<p>
+     */
+    public void testMatchRequestHash() {
+
+        CmsFlexRequestKey requestKey = new CmsTestRequestKey();
+        String[] directives = {
+            "always",
+            "never",
+            "uri",
+            "uri;locale;params=(id,page)",
+            "uri;user;site;element;encoding;ip;device;container-element",
+            "params;attrs;timeout=30",
+            "attrs=(attr1,attr2);schemes=(https);ports=(443)",
+            "session=(user);locale",
+            "no-params;uri",
+            "schemes=(http);uri",
+            "timeout=60"};
+        for (String directive : directives) {
+            CmsFlexCacheKey key = new CmsFlexCacheKey("/sites/default/index.jsp", directive, true);
+            String variation = key.matchRequestKey(requestKey);
+            CmsFlexVariationHash hash = key.matchRequestHash(requestKey);
+            if (variation == null) {
+                assertNull(directive, hash);
+            } else {
+                assertEquals(directive, CmsFlexVariationHash.valueOf(variation), hash);
+            }
+        }
+    }
+
+    /**
+     * Tests that the variation of a request is recognized without creating the variation String.<p>
+     */
+    public void testMatchesVariation() {
+
+        CmsFlexRequestKey requestKey = new CmsTestRequestKey();
+        CmsFlexCacheKey key = new CmsFlexCacheKey("/sites/default/index.jsp", "uri;user", true);
+        String variation = key.matchRequestKey(requestKey);
+        assertTrue(key.matchesVariation(requestKey, variation));
+        assertFalse(key.matchesVariation(requestKey, variation + ";"));
+        assertFalse(key.matchesVariation(requestKey, variation.substring(0, variation.length() - 1)));
+        assertFalse(key.matchesVariation(requestKey, variation.replace("Guest", "Admin")));
+        assertFalse(key.matchesVariation(requestKey, ""));
+
+        CmsFlexCacheKey neverKey = new CmsFlexCacheKey("/sites/default/index.jsp", "never", true);
+        assertFalse(neverKey.matchesVariation(requestKey, variation));
+    }
+
+    /**
+     * Tests that different variations have different hashes.<p>
+     */
+    public void testVariationHashes() {
+
+        Map<CmsFlexVariationHash, String> hashes = new HashMap<CmsFlexVariationHash, String>();
+        for (int i = 0; i < 10000; i++) {
+            String variation = "uri=(/sites/default/index.html);params=(id=" + i + ");force-abs=(false);";
+            assertNull(variation, hashes.put(CmsFlexVariationHash.valueOf(variation), variation));
+        }
+        assertEquals(CmsFlexVariationHash.valueOf("a"), new CmsFlexVariationHash().append('a'));
+        assertFalse(CmsFlexVariationHash.valueOf("ab").equals(CmsFlexVariationHash.valueOf("ba")));
+    }
+}
@@ -60,6 +60,7 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTestSuite(TestCmsImport.class);
         suite.addTest(TestCmsImportExport.suite());
+        suite.addTest(TestCmsExportWorkers.suite());
         suite.addTest(TestCmsImportExportNonexistentUser.suite());
         //$JUnit-END$
         return suite;
@@ -0,0 +1,217 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.importexport;
+
+import org.opencms.file.CmsObject;
+import org.opencms.main.OpenCms;
+import org.opencms.module.CmsModule.ExportMode;
+import org.opencms.report.CmsShellReport;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the export with several workers reading the file contents.<p>
+ */
+public class TestCmsExportWorkers extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsExportWorkers(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsExportWorkers.class.getName());
+
+        suite.addTest(new TestCmsExportWorkers("testParallelExportMatchesSequential"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                OpenCms.getImportExportManager().setExportWorkers(
+                    String.valueOf(CmsImportExportManager.DEFAULT_EXPORT_WORKERS));
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that an export with several workers contains the same ZIP entries and the same manifest
+     * as an export with a single worker, and that no temporary manifest file is left.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testParallelExportMatchesSequential() throws Exception {
+
+        echo("Testing that an export with several workers is the same as a sequential export");
+
+        String sequentialFile = export("testExportWorkers1.zip", 1);
+        String parallelFile = export("testExportWorkers4.zip", 4);
+
+        List<String> sequentialNames = new ArrayList<String>();
+        List<byte[]> sequentialContents = new ArrayList<byte[]>();
+        readZip(sequentialFile, sequentialNames, sequentialContents);
+        List<String> parallelNames = new ArrayList<String>();
+        List<byte[]> parallelContents = new ArrayList<byte[]>();
+        readZip(parallelFile, parallelNames, parallelContents);
+
+        // the export contains more files than the workers read ahead
+        assertTrue(sequentialNames.size() > 20);
+        assertEquals(sequentialNames, parallelNames);
+        for (int i = 0; i < sequentialNames.size(); i++) {
+            String name = sequentialNames.get(i);
+            if (name.equals(CmsImportExportManager.EXPORT_MANIFEST)) {
+                assertEquals(getManifest(sequentialContents.get(i)), getManifest(parallelContents.get(i)));
+            } else {
+                assertTrue(name, Arrays.equals(sequentialContents.get(i), parallelContents.get(i)));
+            }
+        }
+        assertTrue(sequentialNames.contains(CmsImportExportManager.EXPORT_MANIFEST));
+
+        // the temporary manifest files are deleted
+        for (String name : new File(parallelFile).getParentFile().list()) {
+            assertFalse(name, name.startsWith("manifest") && name.endsWith(".xml"));
+        }
+    }
+
+    /**
+     * Exports the test site to a ZIP file.<p>
+     *
+     * @param fileName the name of the ZIP file in the packages folder
+     * @param workers the number of export workers
+     *
+     * @return the RFS path of the ZIP file
+     *
+     * @throws Exception if something goes wrong
+     */
+    private String export(String fileName, int workers) throws Exception {
+
+        CmsObject cms = getCmsObject();
+        String zipExportFilename = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(
+            "packages/" + fileName);
+        OpenCms.getImportExportManager().setExportWorkers(String.valueOf(workers));
+
+        List<String> exportPaths = new ArrayList<String>();
+        exportPaths.add("/");
+        CmsExportParameters params = new CmsExportParameters(
+            zipExportFilename,
+            null,
+            true,
+            false,
+            false,
+            exportPaths,
+            false,
+            true,
+            0,
+            true,
+            false,
+            ExportMode.DEFAULT);
+        CmsVfsImportExportHandler vfsExportHandler = new CmsVfsImportExportHandler();
+        vfsExportHandler.setExportParams(params);
+        OpenCms.getImportExportManager().exportData(
+            cms,
+            vfsExportHandler,
+            new CmsShellReport(cms.getRequestContext().getLocale()));
+        return zipExportFilename;
+    }
+
+    /**
+     * Returns the manifest without the creation date of the export.<p>
+     *
+     * @param content the content of the manifest
+     *
+     * @return the manifest without the creation date
+     *
+     * @throws Exception if something goes wrong
+     */
+    private String getManifest(byte[] content) throws Exception {
+
+        String manifest = new String(content, OpenCms.getSystemInfo().getDefaultEncoding());
+        String dateNode = CmsImportExportManager.N_DATE;
+        return manifest.replaceAll("<" + dateNode + ">[^<]*</" + dateNode + ">", "");
+    }
+
+    /**
+     * Reads the names and contents of the entries of a ZIP file, in the order they are stored.<p>
+     *
+     * @param zipFile the RFS path of the ZIP file
+     * @param names the list to add the entry names to
+     * @param contents the list to add the entry contents to
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void readZip(String zipFile, List<String> names, List<byte[]> contents) throws Exception {
+
+        ZipInputStream zip = new ZipInputStream(new FileInputStream(zipFile));
+        try {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                contents.add(CmsFileUtil.readFully(zip, false));
+            }
+        } finally {
+            zip.close();
+        }
+    }
+}
@@ -109,6 +109,7 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         suite.addTest(new TestCmsImportExport("testImportValidation"));
         suite.addTest(new TestCmsImportExport("testImportSiblingIssue"));
         suite.addTest(new TestCmsImportExport("testImportPermissionIssue"));
+        suite.addTest(new TestCmsImportExport("testImportReplacesPermissions"));
         suite.addTest(new TestCmsImportExport("testImportMovedFolder"));
         suite.addTest(new TestCmsImportExport("testImportWrongSite"));
         suite.addTest(new TestCmsImportExport("testSetup"));
@@ -1042,6 +1043,110 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         assertResources(cms, "/", startResources);
     }
 
+    /**
+     * Tests that importing several resources with several permissions replaces their old permissions.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testImportReplacesPermissions() throws Exception {
+
+        CmsObject cms = getCmsObject();
+
+        echo("Testing that the import of several resources replaces their permissions.");
+
+        String folder = "/folder1/";
+        String[] filenames = {"/folder1/page1.html", "/folder1/page2.html", "/folder1/page3.html"};
+        String zipExportFilename = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(
+            "packages/testImportReplacesPermissions.zip");
+
+        List<CmsResource> startResources = cms.readResources("/", CmsResourceFilter.ALL, true);
+
+        try {
+            // set several permissions on each file
+            for (String filename : filenames) {
+                cms.lockResource(filename);
+                cms.chacc(filename, I_CmsPrincipal.PRINCIPAL_USER, "test1", "+r-v");
+                cms.chacc(
+                    filename,
+                    I_CmsPrincipal.PRINCIPAL_GROUP,
+                    OpenCms.getDefaultUsers().getGroupUsers(),
+                    "+r+v-w");
+                cms.unlockResource(filename);
+            }
+
+            // export the files
+            CmsVfsImportExportHandler vfsExportHandler = new CmsVfsImportExportHandler();
+            List<String> exportPaths = new ArrayList<String>(1);
+            exportPaths.add(folder);
+            CmsExportParameters params = new CmsExportParameters(
+                zipExportFilename,
+                null,
+                true,
+                false,
+                false,
+                exportPaths,
+                false,
+                true,
+                0,
+                true,
+                false,
+                ExportMode.DEFAULT);
+            vfsExportHandler.setExportParams(params);
+            OpenCms.getImportExportManager().exportData(
+                cms,
+                vfsExportHandler,
+                new CmsShellReport(cms.getRequestContext().getLocale()));
+
+            // change the exported permissions and add new ones
+            for (String filename : filenames) {
+                cms.lockResource(filename);
+                cms.chacc(filename, I_CmsPrincipal.PRINCIPAL_USER, "test1", "-r+v");
+                cms.chacc(filename, I_CmsPrincipal.PRINCIPAL_USER, "test2", "+r+w");
+                cms.unlockResource(filename);
+            }
+
+            // re-import the exported files
+            OpenCms.getImportExportManager().importData(
+                cms,
+                new CmsShellReport(cms.getRequestContext().getLocale()),
+                new CmsImportParameters(zipExportFilename, "/", false));
+
+            // publish the files
+            cms.unlockResource(folder);
+            OpenCms.getPublishManager().publishResource(
+                cms,
+                folder,
+                true,
+                new CmsShellReport(cms.getRequestContext().getLocale()));
+            OpenCms.getPublishManager().waitWhileRunning();
+
+            for (String filename : filenames) {
+                // the imported entries replace the old entries instead of being added to them
+                assertEquals(2, cms.getAccessControlEntries(filename, false).size());
+                assertPermissionString(cms, filename, cms.readUser("test1"), "+r-v-i-l");
+                assertPermissionString(cms, filename, cms.readUser("test2"), null);
+                assertPermissionString(
+                    cms,
+                    filename,
+                    cms.readGroup(OpenCms.getDefaultUsers().getGroupUsers()),
+                    "+r-w+v-i-l");
+            }
+        } finally {
+            try {
+                if (zipExportFilename != null) {
+                    File file = new File(zipExportFilename);
+                    if (file.exists()) {
+                        file.delete();
+                    }
+                }
+            } catch (Throwable t) {
+                // intentionally left blank
+            }
+        }
+
+        assertResources(cms, "/", startResources);
+    }
+
     /**
      * Tests the import of a resource that has been recreated.<p>
      *
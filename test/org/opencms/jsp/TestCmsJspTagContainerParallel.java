@@ -0,0 +1,333 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Predicate;
+
+/**
+ * Tests that rendering container elements in the background produces the same output as rendering them
+ * in the request thread.<p>
+ *
+ * The elements are rendered by {@link CmsJspTagContainer#renderElements}, which is also used by the container tag,
+ * with a renderer that renders simple strings instead of formatter JSPs.<p>
+ */
+public class TestCmsJspTagContainerParallel extends OpenCmsTestCase {
+
+    /**
+     * Renders elements to a string buffer, optionally in a thread pool.<p>
+     */
+    private static class TestRenderer implements CmsJspTagContainer.I_CmsElementRenderer<String, String> {
+
+        /** The elements of the container. */
+        List<String> m_elements;
+
+        /** The executor for the elements rendered in the background, may be <code>null</code>. */
+        ExecutorService m_executor;
+
+        /** The element for which rendering fails in the request thread. */
+        String m_failing;
+
+        /** The invisible elements. */
+        Set<String> m_invisible;
+
+        /** The output. */
+        StringBuffer m_out = new StringBuffer();
+
+        /** The elements started in the background. */
+        List<String> m_started = Collections.synchronizedList(new ArrayList<String>());
+
+        /** The futures of the elements started in the background. */
+        List<Future<String>> m_startedFutures = Collections.synchronizedList(new ArrayList<Future<String>>());
+
+        /**
+         * Creates a new renderer.<p>
+         *
+         * @param elements the elements of the container
+         * @param invisible the invisible elements
+         * @param executor the executor for the elements rendered in the background, may be <code>null</code>
+         */
+        TestRenderer(List<String> elements, Set<String> invisible, ExecutorService executor) {
+
+            m_elements = elements;
+            m_invisible = invisible;
+            m_executor = executor;
+        }
+
+        /**
+         * @see org.opencms.jsp.CmsJspTagContainer.I_CmsElementRenderer#isVisible(java.lang.Object)
+         */
+        public boolean isVisible(String element) {
+
+            return !m_invisible.contains(element);
+        }
+
+        /**
+         * @see org.opencms.jsp.CmsJspTagContainer.I_CmsElementRenderer#render(java.lang.Object, java.util.concurrent.Future, boolean)
+         */
+        public boolean render(String element, Future<String> parallelElement, boolean alreadyFull) throws Exception {
+
+            if (element.equals(m_failing)) {
+                throw new Exception("failed " + element);
+            }
+            if (alreadyFull || !isVisible(element)) {
+                return false;
+            }
+            m_out.append(parallelElement != null ? parallelElement.get() : renderElement(element));
+            return true;
+        }
+
+        /**
+         * @see org.opencms.jsp.CmsJspTagContainer.I_CmsElementRenderer#startInBackground(java.lang.Object)
+         */
+        public Future<String> startInBackground(final String element) {
+
+            if (m_executor == null) {
+                return null;
+            }
+            Future<String> result = m_executor.submit(new Callable<String>() {
+
+                public String call() throws Exception {
+
+                    // let later elements finish first
+                    Thread.sleep(m_elements.size() - m_elements.indexOf(element));
+                    return renderElement(element);
+                }
+            });
+            m_started.add(element);
+            m_startedFutures.add(result);
+            return result;
+        }
+    }
+
+    /** The number of background threads, as configured by <code>jsp.element.threads</code>. */
+    private static final int ELEMENT_THREADS = 3;
+
+    /**
+     * Renders a single element.<p>
+     *
+     * @param element the element
+     *
+     * @return the output of the element
+     */
+    static String renderElement(String element) {
+
+        return "<div>" + element + "</div>";
+    }
+
+    /**
+     * Tests that an element that fails in the request thread does not stop the other elements,
+     * and that no element is still rendered in the background afterwards.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testFailingElement() throws Exception {
+
+        List<String> elements = createElements(8);
+        Set<String> invisible = new HashSet<String>();
+
+        TestRenderer serial = new TestRenderer(elements, invisible, null);
+        serial.m_failing = "e2";
+        int serialCount = CmsJspTagContainer.renderElements(elements, false, 100, false, serial);
+
+        ExecutorService executor = Executors.newFixedThreadPool(ELEMENT_THREADS);
+        try {
+            TestRenderer parallel = new TestRenderer(elements, invisible, executor);
+            parallel.m_failing = "e2";
+            int parallelCount = CmsJspTagContainer.renderElements(elements, false, 100, true, parallel);
+
+            assertEquals(7, serialCount);
+            assertEquals(serialCount, parallelCount);
+            assertEquals(serial.m_out.toString(), parallel.m_out.toString());
+            assertFalse(parallel.m_out.toString().contains("e2"));
+            assertTrue(parallel.m_started.contains("e2"));
+            assertAllFinished(parallel);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that no element is started after the maximum number of elements is reached.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testMaxElements() throws Exception {
+
+        List<String> elements = createElements(6);
+        Set<String> invisible = new HashSet<String>(Arrays.asList("e1"));
+
+        assertEquals(Arrays.asList(), selectRenderedElements(elements, false, 0, invisible));
+        assertEquals(Arrays.asList("e0", "e2"), selectRenderedElements(elements, false, 2, invisible));
+        assertEquals(
+            Arrays.asList("e0", "e2", "e3", "e4", "e5"),
+            selectRenderedElements(elements, false, 10, invisible));
+        for (int maxElements = 0; maxElements <= 7; maxElements++) {
+            TestRenderer parallel = assertParallelMatchesSerial(elements, false, maxElements, invisible);
+            assertEquals(selectRenderedElements(elements, false, maxElements, invisible), parallel.m_started);
+        }
+    }
+
+    /**
+     * Tests that the output and the element order are the same when elements are rendered in the background.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testParallelOutputMatchesSerial() throws Exception {
+
+        List<String> elements = createElements(10);
+        Set<String> invisible = new HashSet<String>(Arrays.asList("e3", "e6"));
+
+        assertParallelMatchesSerial(elements, false, 5, invisible);
+        assertParallelMatchesSerial(elements, true, 5, invisible);
+        TestRenderer parallel = assertParallelMatchesSerial(elements, true, Integer.MAX_VALUE, invisible);
+        assertEquals(Arrays.asList("e1", "e2", "e4", "e5", "e7", "e8", "e9"), parallel.m_started);
+    }
+
+    /**
+     * Tests that the detail template element, which is not rendered in the request thread, is not started.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSkipDetailTemplateElement() throws Exception {
+
+        List<String> elements = createElements(4);
+        Set<String> invisible = new HashSet<String>();
+
+        assertEquals(Arrays.asList("e1", "e2"), selectRenderedElements(elements, true, 2, invisible));
+        assertEquals(Arrays.asList(), selectRenderedElements(createElements(1), true, 2, invisible));
+        assertEquals(Arrays.asList(), selectRenderedElements(new ArrayList<String>(), true, 2, invisible));
+
+        TestRenderer parallel = assertParallelMatchesSerial(elements, true, 2, invisible);
+        assertEquals(Arrays.asList("e1", "e2"), parallel.m_started);
+        assertEquals("<div>e1</div><div>e2</div>", parallel.m_out.toString());
+        assertParallelMatchesSerial(createElements(1), true, 2, invisible);
+    }
+
+    /**
+     * Checks that no element started in the background is still running.<p>
+     *
+     * @param renderer the renderer
+     */
+    private void assertAllFinished(TestRenderer renderer) {
+
+        for (Future<String> future : renderer.m_startedFutures) {
+            assertTrue(future.isDone());
+        }
+    }
+
+    /**
+     * Renders the elements once in the request thread only and once with the elements started in the background,
+     * and checks that the output is the same and no element is still rendered in the background afterwards.<p>
+     *
+     * @param elements the elements
+     * @param skipFirst true if the first element is the detail template element
+     * @param maxElements the maximum number of elements
+     * @param invisible the invisible elements
+     *
+     * @return the renderer used for rendering in the background
+     *
+     * @throws Exception if something goes wrong
+     */
+    private TestRenderer assertParallelMatchesSerial(
+        List<String> elements,
+        boolean skipFirst,
+        int maxElements,
+        Set<String> invisible)
+    throws Exception {
+
+        TestRenderer serial = new TestRenderer(elements, invisible, null);
+        int serialCount = CmsJspTagContainer.renderElements(elements, skipFirst, maxElements, false, serial);
+        assertTrue(serial.m_started.isEmpty());
+
+        ExecutorService executor = Executors.newFixedThreadPool(ELEMENT_THREADS);
+        try {
+            TestRenderer parallel = new TestRenderer(elements, invisible, executor);
+            int parallelCount = CmsJspTagContainer.renderElements(elements, skipFirst, maxElements, true, parallel);
+            assertEquals(serial.m_out.toString(), parallel.m_out.toString());
+            assertEquals(serialCount, parallelCount);
+            assertAllFinished(parallel);
+            return parallel;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a list of element names.<p>
+     *
+     * @param count the number of elements
+     *
+     * @return the element names
+     */
+    private List<String> createElements(int count) {
+
+        List<String> result = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            result.add("e" + i);
+        }
+        return result;
+    }
+
+    /**
+     * Selects the elements to render in the background.<p>
+     *
+     * @param elements the elements
+     * @param skipFirst true if the first element is the detail template element
+     * @param maxElements the maximum number of elements
+     * @param invisible the invisible elements
+     *
+     * @return the selected elements
+     */
+    private List<String> selectRenderedElements(
+        List<String> elements,
+        boolean skipFirst,
+        int maxElements,
+        final Set<String> invisible) {
+
+        return CmsJspTagContainer.selectRenderedElements(elements, skipFirst, maxElements, new Predicate<String>() {
+
+            public boolean apply(String element) {
+
+                return !invisible.contains(element);
+            }
+        });
+    }
+}
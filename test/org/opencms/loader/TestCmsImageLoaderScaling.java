@@ -0,0 +1,367 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the scaling of images by the image loader with a bounded pool of threads.<p>
+ */
+public class TestCmsImageLoaderScaling extends OpenCmsTestCase {
+
+    /**
+     * Requests a scaled image in its own thread.<p>
+     */
+    private static class ScalingRequest extends Thread {
+
+        /** The name of the scaled image in the cache. */
+        String m_cacheName;
+
+        /** The OpenCms context of the request. */
+        CmsObject m_cms;
+
+        /** The error of the request. */
+        Throwable m_error;
+
+        /** The image loader. */
+        CmsImageLoader m_loader;
+
+        /** The image resource. */
+        CmsResource m_resource;
+
+        /** The content returned by the image loader. */
+        String m_result;
+
+        /** The image scaler. */
+        CmsImageScaler m_scaler;
+
+        /**
+         * Creates a new request.<p>
+         *
+         * @param cms the OpenCms context of the request
+         * @param loader the image loader
+         * @param resource the image resource
+         * @param scaler the image scaler
+         * @param cacheName the name of the scaled image in the cache
+         */
+        ScalingRequest(
+            CmsObject cms,
+            CmsImageLoader loader,
+            CmsResource resource,
+            CmsImageScaler scaler,
+            String cacheName) {
+
+            m_cms = cms;
+            m_loader = loader;
+            m_resource = resource;
+            m_scaler = scaler;
+            m_cacheName = cacheName;
+        }
+
+        /**
+         * @see java.lang.Thread#run()
+         */
+        @Override
+        public void run() {
+
+            try {
+                m_result = new String(m_loader.scaleImage(m_cms, m_resource, m_scaler, m_cacheName).getContents());
+            } catch (Throwable t) {
+                m_error = t;
+            }
+        }
+    }
+
+    /**
+     * Image scaler that counts the scale operations instead of scaling images.<p>
+     */
+    private static class TestScaler extends CmsImageScaler {
+
+        /** The number of scale operations. */
+        AtomicInteger m_count = new AtomicInteger();
+
+        /** The error thrown by the scale operation, may be <code>null</code>. */
+        RuntimeException m_failure;
+
+        /** Latch the scale operations wait for before they finish. */
+        CountDownLatch m_release = new CountDownLatch(0);
+
+        /** Counted down when the first scale operation has started. */
+        CountDownLatch m_started = new CountDownLatch(1);
+
+        /**
+         * @see org.opencms.loader.CmsImageScaler#scaleImage(org.opencms.file.CmsFile)
+         */
+        @Override
+        public byte[] scaleImage(CmsFile file) {
+
+            int count = m_count.incrementAndGet();
+            m_started.countDown();
+            try {
+                m_release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (m_failure != null) {
+                throw m_failure;
+            }
+            return ("scaled " + count).getBytes();
+        }
+    }
+
+    /** The content of the unscaled image. */
+    private static final String UNSCALED = "unscaled";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsImageLoaderScaling(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsImageLoaderScaling.class.getName());
+
+        suite.addTest(new TestCmsImageLoaderScaling("testConcurrentRequests"));
+        suite.addTest(new TestCmsImageLoaderScaling("testFailedScaling"));
+        suite.addTest(new TestCmsImageLoaderScaling("testRejectedScaling"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that concurrent requests for the same scaled image scale the image only once.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testConcurrentRequests() throws Throwable {
+
+        echo("Testing that concurrent requests for the same scaled image scale it only once");
+        CmsResource resource = createImage("/concurrent.txt");
+        String cacheName = CmsImageLoader.m_vfsDiskCache.getCacheName(resource, "concurrent");
+        CmsImageLoader loader = createLoader(2, 10);
+
+        TestScaler scaler = new TestScaler();
+        scaler.m_release = new CountDownLatch(1);
+        List<ScalingRequest> requests = new ArrayList<ScalingRequest>();
+        for (int i = 0; i < 8; i++) {
+            requests.add(new ScalingRequest(getCmsObject(), loader, resource, scaler, cacheName));
+        }
+        for (ScalingRequest request : requests) {
+            request.start();
+        }
+        assertTrue(scaler.m_started.await(10, TimeUnit.SECONDS));
+        // all requests wait for the running scale operation
+        waitUntilWaiting(requests);
+        scaler.m_release.countDown();
+
+        for (ScalingRequest request : requests) {
+            request.join(10000);
+            assertNull(request.m_error);
+            assertEquals("scaled 1", request.m_result);
+        }
+        assertEquals(1, scaler.m_count.get());
+    }
+
+    /**
+     * Tests that a failed scale operation is reported and that the next request scales the image again.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testFailedScaling() throws Throwable {
+
+        echo("Testing that a failed scale operation is retried by the next request");
+        CmsResource resource = createImage("/failed.txt");
+        String cacheName = CmsImageLoader.m_vfsDiskCache.getCacheName(resource, "failed");
+        CmsImageLoader loader = createLoader(2, 10);
+
+        TestScaler failing = new TestScaler();
+        failing.m_failure = new IllegalStateException("failed");
+        try {
+            loader.scaleImage(getCmsObject(), resource, failing, cacheName);
+            fail("the error of the scale operation must be thrown");
+        } catch (IllegalStateException e) {
+            assertSame(failing.m_failure, e);
+        }
+
+        TestScaler scaler = new TestScaler();
+        CmsFile file = loader.scaleImage(getCmsObject(), resource, scaler, cacheName);
+        assertEquals("scaled 1", new String(file.getContents()));
+        assertEquals(1, failing.m_count.get());
+        assertEquals(1, scaler.m_count.get());
+    }
+
+    /**
+     * Tests that the unscaled image is returned if too many images wait to be scaled,
+     * and that the image is scaled by a later request.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testRejectedScaling() throws Throwable {
+
+        echo("Testing that the unscaled image is returned if the scaling queue is full");
+        CmsResource resource = createImage("/rejected.txt");
+        CmsImageLoader loader = createLoader(1, 1);
+
+        // the only thread is busy with the first image, the second image fills the queue
+        TestScaler running = new TestScaler();
+        running.m_release = new CountDownLatch(1);
+        ScalingRequest first = new ScalingRequest(
+            getCmsObject(),
+            loader,
+            resource,
+            running,
+            CmsImageLoader.m_vfsDiskCache.getCacheName(resource, "rejected1"));
+        first.start();
+        assertTrue(running.m_started.await(10, TimeUnit.SECONDS));
+        TestScaler queued = new TestScaler();
+        ScalingRequest second = new ScalingRequest(
+            getCmsObject(),
+            loader,
+            resource,
+            queued,
+            CmsImageLoader.m_vfsDiskCache.getCacheName(resource, "rejected2"));
+        second.start();
+        List<ScalingRequest> requests = new ArrayList<ScalingRequest>();
+        requests.add(first);
+        requests.add(second);
+        waitUntilWaiting(requests);
+
+        String cacheName = CmsImageLoader.m_vfsDiskCache.getCacheName(resource, "rejected3");
+        TestScaler rejected = new TestScaler();
+        CmsFile file = loader.scaleImage(getCmsObject(), resource, rejected, cacheName);
+        assertEquals(UNSCALED, new String(file.getContents()));
+        assertEquals(0, rejected.m_count.get());
+
+        running.m_release.countDown();
+        for (ScalingRequest request : requests) {
+            request.join(10000);
+            assertNull(request.m_error);
+            assertEquals("scaled 1", request.m_result);
+        }
+
+        // the rejected image is scaled by the next request
+        file = loader.scaleImage(getCmsObject(), resource, rejected, cacheName);
+        assertEquals("scaled 1", new String(file.getContents()));
+        assertEquals(1, rejected.m_count.get());
+    }
+
+    /**
+     * Creates the resource used as image.<p>
+     *
+     * @param path the path of the resource
+     *
+     * @return the resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsResource createImage(String path) throws Exception {
+
+        CmsObject cms = getCmsObject();
+        cms.createResource(path, CmsResourceTypePlain.getStaticTypeId(), UNSCALED.getBytes(), null);
+        return cms.readResource(path);
+    }
+
+    /**
+     * Creates an image loader with its own pool of threads.<p>
+     *
+     * @param threads the number of threads scaling images
+     * @param queueSize the maximum number of images waiting to be scaled
+     *
+     * @return the image loader
+     */
+    private CmsImageLoader createLoader(int threads, int queueSize) {
+
+        CmsImageLoader loader = new CmsImageLoader();
+        loader.addConfigurationParameter(CmsImageLoader.CONFIGURATION_SCALING_THREADS, String.valueOf(threads));
+        loader.addConfigurationParameter(CmsImageLoader.CONFIGURATION_SCALING_QUEUE_SIZE, String.valueOf(queueSize));
+        loader.initConfiguration();
+        return loader;
+    }
+
+    /**
+     * Waits until all requests wait for a scale operation.<p>
+     *
+     * @param requests the requests
+     *
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    private void waitUntilWaiting(List<ScalingRequest> requests) throws InterruptedException {
+
+        long timeout = System.currentTimeMillis() + 10000;
+        for (ScalingRequest request : requests) {
+            while ((request.getState() != Thread.State.WAITING) && (System.currentTimeMillis() < timeout)) {
+                Thread.sleep(10);
+            }
+            assertEquals(Thread.State.WAITING, request.getState());
+        }
+    }
+}
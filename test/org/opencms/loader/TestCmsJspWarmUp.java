@@ -0,0 +1,193 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.servlet.ServletException;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the warm-up of the JSPs in the background.<p>
+ */
+public class TestCmsJspWarmUp extends OpenCmsTestCase {
+
+    /**
+     * JSP loader that records the JSPs to warm up instead of compiling them.<p>
+     */
+    private static class TestJspLoader extends CmsJspLoader {
+
+        /** The root path of the JSP that fails to compile. */
+        String m_failing;
+
+        /** The root paths of the JSPs that were warmed up. */
+        List<String> m_warmedUp = Collections.synchronizedList(new ArrayList<String>());
+
+        /**
+         * @see org.opencms.loader.CmsJspLoader#warmUpJsp(org.opencms.file.CmsObject, org.opencms.file.CmsResource)
+         */
+        @Override
+        boolean warmUpJsp(CmsObject cms, CmsResource resource) throws ServletException {
+
+            m_warmedUp.add(resource.getRootPath());
+            if (resource.getRootPath().equals(m_failing)) {
+                throw new ServletException("failed to compile " + resource.getRootPath());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspWarmUp(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsJspWarmUp.class.getName());
+
+        suite.addTest(new TestCmsJspWarmUp("testDisabledByDefault"));
+        suite.addTest(new TestCmsJspWarmUp("testFailingJsp"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the warm-up is disabled unless threads are configured.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testDisabledByDefault() throws Throwable {
+
+        echo("Testing that the JSP warm-up is disabled by default");
+        assertEquals(0, CmsJspLoader.DEFAULT_JSP_WARMUP_THREADS);
+
+        CmsJspLoader jspLoader = (CmsJspLoader)OpenCms.getResourceManager().getLoader(
+            CmsJspLoader.RESOURCE_LOADER_ID);
+        CmsJspWarmUp configured = jspLoader.getWarmUp();
+        assertEquals(0, configured.getThreads());
+        assertFalse(configured.isRunning());
+        assertEquals(0, configured.getRunCount());
+        assertEquals(-1, configured.getLastStartTime());
+
+        TestJspLoader loader = new TestJspLoader();
+        CmsJspWarmUp warmUp = new CmsJspWarmUp(loader, CmsJspLoader.DEFAULT_JSP_WARMUP_THREADS);
+        warmUp.initialize(getCmsObject());
+        warmUp.warmUpAll();
+        warmUp.warmUpPublished(new CmsUUID());
+        Thread.sleep(200);
+
+        assertFalse(warmUp.isRunning());
+        assertEquals(0, warmUp.getRunCount());
+        assertEquals(-1, warmUp.getLastStartTime());
+        assertTrue(loader.m_warmedUp.isEmpty());
+    }
+
+    /**
+     * Tests that a JSP that fails to compile does not stop the warm-up of the other JSPs.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testFailingJsp() throws Throwable {
+
+        echo("Testing that a failing JSP does not stop the JSP warm-up");
+        CmsObject cms = getCmsObject();
+        cms.createResource("/warmup/", CmsResourceTypeFolder.getStaticTypeId());
+        List<String> jsps = new ArrayList<String>();
+        for (int i = 0; i < 6; i++) {
+            String path = "/warmup/page" + i + ".jsp";
+            cms.createResource(path, CmsResourceTypeJsp.getJSPTypeId(), ("page " + i).getBytes(), null);
+            jsps.add(cms.addSiteRoot(path));
+        }
+        cms.unlockResource("/warmup/");
+        OpenCms.getPublishManager().publishResource(cms, "/warmup/");
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        TestJspLoader loader = new TestJspLoader();
+        loader.m_failing = jsps.get(2);
+        CmsJspWarmUp warmUp = new CmsJspWarmUp(loader, 2);
+        warmUp.initialize(cms);
+
+        long timeout = System.currentTimeMillis() + 30000;
+        while (((warmUp.getRunCount() < 1) || warmUp.isRunning()) && (System.currentTimeMillis() < timeout)) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, warmUp.getRunCount());
+        assertFalse(warmUp.isRunning());
+
+        // all JSPs have been processed, also the ones after the failing JSP
+        assertTrue(new HashSet<String>(loader.m_warmedUp).containsAll(jsps));
+        assertEquals(warmUp.getTotalCount(), loader.m_warmedUp.size());
+        assertEquals(warmUp.getTotalCount(), warmUp.getProcessedCount());
+        assertEquals(1, warmUp.getFailedCount());
+        assertEquals(warmUp.getTotalCount() - 1, warmUp.getCompiledCount());
+    }
+}
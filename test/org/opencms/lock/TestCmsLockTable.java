@@ -0,0 +1,142 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.lock;
+
+import org.opencms.file.CmsProject;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tests the lookups of the lock table.<p>
+ */
+public class TestCmsLockTable extends OpenCmsTestCase {
+
+    /**
+     * Returns the root paths of the given locks.<p>
+     *
+     * @param locks the locks
+     *
+     * @return the root paths
+     */
+    private static List<String> getPaths(Collection<CmsLock> locks) {
+
+        List<String> result = new ArrayList<String>();
+        for (CmsLock lock : locks) {
+            result.add(lock.getResourceName());
+        }
+        return result;
+    }
+
+    /**
+     * Creates a project with the given id.<p>
+     *
+     * @param id the project id
+     *
+     * @return the project
+     */
+    private static CmsProject createProject(CmsUUID id) {
+
+        return new CmsProject(id, "Offline", "", id, id, id, 0, 0, CmsProject.PROJECT_TYPE_NORMAL);
+    }
+
+    /**
+     * Tests the lookups by path.<p>
+     */
+    public void testPathLookups() {
+
+        CmsUUID userId = new CmsUUID();
+        CmsProject project = createProject(new CmsUUID());
+        CmsLockTable table = new CmsLockTable();
+        for (String path : new String[] {
+            "/sites/default/",
+            "/sites/default/a/",
+            "/sites/default/a/b.html",
+            "/sites/default/ab.html",
+            "/sites/other/a/"}) {
+            table.put(path, new CmsLock(path, userId, project, CmsLockType.EXCLUSIVE));
+        }
+
+        assertEquals(
+            "[/sites/default/a/, /sites/default/a/b.html]",
+            getPaths(table.getLocksForPrefix("/sites/default/a/")).toString());
+        assertEquals(5, table.getLocksForPrefix("/").size());
+        assertEquals(
+            "[/sites/default/, /sites/default/a/, /sites/default/a/b.html]",
+            getPaths(table.getLocksForPathAndParents("/sites/default/a/b.html")).toString());
+        assertEquals(
+            "[/sites/default/, /sites/default/a/]",
+            getPaths(table.getLocksForPathAndParents("/sites/default/a/")).toString());
+
+        table.remove("/sites/default/a/");
+        assertEquals(
+            "[/sites/default/a/b.html]",
+            getPaths(table.getLocksForPrefix("/sites/default/a/")).toString());
+        assertEquals(4, table.size());
+    }
+
+    /**
+     * Tests the lookups by user and project, including related system locks.<p>
+     */
+    public void testUserAndProjectLookups() {
+
+        CmsUUID user1 = new CmsUUID();
+        CmsUUID user2 = new CmsUUID();
+        CmsProject project1 = createProject(new CmsUUID());
+        CmsProject project2 = createProject(new CmsUUID());
+        CmsLockTable table = new CmsLockTable();
+        table.put("/a.html", new CmsLock("/a.html", user1, project1, CmsLockType.EXCLUSIVE));
+        table.put("/b.html", new CmsLock("/b.html", user2, project2, CmsLockType.EXCLUSIVE));
+
+        assertEquals("[/a.html]", getPaths(table.getLocksForUser(user1)).toString());
+        assertEquals("[/b.html]", getPaths(table.getLocksForProject(project2.getUuid())).toString());
+
+        // a publish lock of another user and project on top of the edition lock
+        CmsLock systemLock = new CmsLock("/a.html", user2, project2, CmsLockType.PUBLISH);
+        systemLock.setRelatedLock(table.get("/a.html"));
+        table.put("/a.html", systemLock);
+        assertEquals(1, table.getLocksForUser(user1).size());
+        assertEquals(2, table.getLocksForUser(user2).size());
+        assertEquals(1, table.getLocksForProject(project1.getUuid()).size());
+        assertEquals(2, table.getLocksForProject(project2.getUuid()).size());
+
+        // the indexes are updated with the ids the lock was indexed with
+        systemLock.setRelatedLock(null);
+        table.remove("/a.html");
+        assertTrue(table.getLocksForUser(user1).isEmpty());
+        assertTrue(table.getLocksForProject(project1.getUuid()).isEmpty());
+        assertEquals("[/b.html]", getPaths(table.getLocksForUser(user2)).toString());
+
+        table.clear();
+        assertTrue(table.getLocksForUser(user2).isEmpty());
+        assertTrue(table.isEmpty());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test cases for the {@link org.opencms.main.CmsAsyncEventManager}.<p>
+ */
+public class TestCmsAsyncEventManager extends OpenCmsTestCase {
+
+    /**
+     * Event listener recording the events and the threads they were delivered on.<p>
+     */
+    private static class CmsRecordingListener implements I_CmsEventListener {
+
+        /** The received events. */
+        List<CmsEvent> m_events = Collections.synchronizedList(new ArrayList<CmsEvent>());
+
+        /** The threads the events were delivered on. */
+        List<Thread> m_threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            m_events.add(event);
+            m_threads.add(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Synchronous event listener recording the events and the threads they were delivered on.<p>
+     */
+    private static class CmsSynchronousRecordingListener extends CmsRecordingListener
+    implements I_CmsSynchronousEventListener {
+
+        // only adds the marker interface
+    }
+
+    /**
+     * Tests that repeated flush events waiting for delivery are merged.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCoalescing() throws Exception {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        CmsRecordingListener listener = new CmsRecordingListener() {
+
+            @Override
+            public void cmsEvent(CmsEvent event) {
+
+                super.cmsEvent(event);
+                if (event.getType() == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        CmsAsyncEventManager manager = new CmsAsyncEventManager(1, 100);
+        manager.addCmsEventListener(listener);
+
+        manager.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        }
+        release.countDown();
+        manager.shutDown();
+
+        assertEquals(2, listener.m_events.size());
+        CmsEventListenerLane lane = manager.getListenerLanes().get(0);
+        assertEquals(2, lane.getHandledCount());
+        assertEquals(4, lane.getCoalescedCount());
+        assertEquals(0, lane.getQueueSize());
+    }
+
+    /**
+     * Tests that events are delivered in order on the worker threads.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testOrderedDelivery() throws Exception {
+
+        CmsRecordingListener listener = new CmsRecordingListener();
+        CmsAsyncEventManager manager = new CmsAsyncEventManager(2, 1000);
+        manager.addCmsEventListener(listener);
+
+        for (int i = 0; i < 200; i++) {
+            Map<String, Object> data = new HashMap<String, Object>();
+            data.put("count", Integer.valueOf(i));
+            manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data);
+        }
+        manager.shutDown();
+
+        assertEquals(200, listener.m_events.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Integer.valueOf(i), listener.m_events.get(i).getData().get("count"));
+            assertNotSame(Thread.currentThread(), listener.m_threads.get(i));
+        }
+    }
+
+    /**
+     * Tests that synchronous listeners and events with a report are delivered on the firing thread.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSynchronousDelivery() throws Exception {
+
+        CmsRecordingListener asyncListener = new CmsRecordingListener();
+        CmsRecordingListener syncListener = new CmsSynchronousRecordingListener();
+        CmsAsyncEventManager manager = new CmsAsyncEventManager(1, 1000);
+        manager.addCmsEventListener(asyncListener);
+        manager.addCmsEventListener(syncListener);
+
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        assertEquals(1, syncListener.m_events.size());
+        assertSame(Thread.currentThread(), syncListener.m_threads.get(0));
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_REPORT, "report");
+        manager.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, data);
+        // the earlier asynchronous event is delivered first
+        assertEquals(2, asyncListener.m_events.size());
+        assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, asyncListener.m_events.get(1).getType());
+        assertSame(Thread.currentThread(), asyncListener.m_threads.get(1));
+
+        manager.shutDown();
+    }
+}
@@ -0,0 +1,682 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.db.generic.CmsProjectDriver;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.lock.CmsLockType;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
+import org.opencms.relations.CmsRelationFilter;
+import org.opencms.relations.CmsRelationType;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for publishing new and changed files in batches.<p>
+ *
+ * The batch size is read from the test configuration, see
+ * {@link CmsProjectDriver#PARAM_PUBLISH_CHUNK_SIZE}.<p>
+ */
+public class TestPublishBatches extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestPublishBatches(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestPublishBatches.class.getName());
+
+        suite.addTest(new TestPublishBatches("testPublishSeveralBatches"));
+        suite.addTest(new TestPublishBatches("testFailedBatch"));
+        suite.addTest(new TestPublishBatches("testResumeInterruptedJob"));
+        suite.addTest(new TestPublishBatches("testLatePropertiesAndRelations"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that a batch that fails is written again file by file, without leaving partially written rows.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testFailedBatch() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing a failed publish batch that is written again file by file");
+
+        List<CmsResource> files = createFiles(cms, "/failedbatch/", getChunkSize() / 2 + 2);
+        CmsResource failing = files.get(files.size() / 2);
+
+        // a content row with the next publish tag lets the batch insert of the contents fail,
+        // the row has no PUBLISH_TAG_TO, so it does not change the next publish tag
+        int publishTag = readNextPublishTag();
+        executeUpdate(
+            "INSERT INTO CMS_CONTENTS (RESOURCE_ID, FILE_CONTENT, PUBLISH_TAG_FROM, PUBLISH_TAG_TO, ONLINE_FLAG) "
+                + "VALUES (?,?,?,NULL,0)",
+            failing.getResourceId(),
+            new byte[] {0},
+            Integer.valueOf(publishTag));
+
+        CmsUUID historyId = OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        assertEquals(
+            publishTag,
+            readInt("SELECT MAX(PUBLISH_TAG) FROM CMS_PUBLISH_HISTORY WHERE HISTORY_ID=?", historyId));
+        // the failing file has been written on its own after the batch failed
+        assertEquals(
+            0,
+            readInt(
+                "SELECT COUNT(*) FROM CMS_CONTENTS WHERE RESOURCE_ID=? AND PUBLISH_TAG_TO IS NULL",
+                failing.getResourceId()));
+        assertPublished(cms, files);
+        for (CmsResource file : files) {
+            assertRows(file, historyId, publishTag);
+        }
+    }
+
+    /**
+     * Tests publishing property values without an online property definition and locale variant relations,
+     * which are written after the batch.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testLatePropertiesAndRelations() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing properties without an online definition and locale variant relations");
+
+        String propertyName = "batchLateProperty";
+        List<CmsResource> files = createFiles(cms, "/latebatch/", getChunkSize() + 2);
+        for (int i = 0; i < files.size(); i++) {
+            CmsResource file = files.get(i);
+            String path = cms.getSitePath(file);
+            cms.writePropertyObject(path, new CmsProperty(propertyName, "late " + i, "late shared " + i, true));
+            if ((i % 2) == 1) {
+                cms.addRelationToResource(
+                    path,
+                    cms.getSitePath(files.get(i - 1)),
+                    CmsRelationType.LOCALE_VARIANT.getName());
+            }
+        }
+
+        // the property definition is only created online when the first value is published
+        executeUpdate("DELETE FROM CMS_ONLINE_PROPERTYDEF WHERE PROPERTYDEF_NAME=?", propertyName);
+        OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>()));
+
+        CmsUUID historyId = OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        int publishTag = readInt("SELECT MAX(PUBLISH_TAG) FROM CMS_PUBLISH_HISTORY WHERE HISTORY_ID=?", historyId);
+
+        assertEquals(1, readInt("SELECT COUNT(*) FROM CMS_ONLINE_PROPERTYDEF WHERE PROPERTYDEF_NAME=?", propertyName));
+        assertPublished(cms, files);
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        for (int i = 0; i < files.size(); i++) {
+            CmsResource file = files.get(i);
+            String path = cms.getSitePath(file);
+            CmsProperty property = onlineCms.readPropertyObject(path, propertyName, false);
+            assertEquals("late " + i, property.getStructureValue());
+            assertEquals("late shared " + i, property.getResourceValue());
+            int localeVariants = 0;
+            for (CmsRelation relation : onlineCms.getRelationsForResource(path, CmsRelationFilter.TARGETS)) {
+                if (relation.getType().equals(CmsRelationType.LOCALE_VARIANT)) {
+                    assertEquals(files.get(i - 1).getStructureId(), relation.getTargetId());
+                    localeVariants++;
+                }
+            }
+            assertEquals((i % 2) == 1 ? 1 : 0, localeVariants);
+            assertRows(file, historyId, publishTag);
+        }
+    }
+
+    /**
+     * Tests publishing new and changed files that span several batches.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishSeveralBatches() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing new and changed files in several batches");
+
+        int chunkSize = getChunkSize();
+        List<CmsResource> files = createFiles(cms, "/batches/", (2 * chunkSize) + (chunkSize / 2) + 1);
+
+        CmsUUID historyId = OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        int publishTag = readInt("SELECT MAX(PUBLISH_TAG) FROM CMS_PUBLISH_HISTORY WHERE HISTORY_ID=?", historyId);
+        assertPublished(cms, files);
+        for (CmsResource file : files) {
+            assertRows(file, historyId, publishTag);
+        }
+
+        // change every other file, so that the changed files span several batches as well
+        List<CmsResource> changedFiles = new ArrayList<CmsResource>();
+        for (int i = 0; i < files.size(); i += 2) {
+            String path = cms.getSitePath(files.get(i));
+            cms.lockResource(path);
+            CmsFile file = cms.readFile(path);
+            file.setContents(("changed content " + i).getBytes());
+            cms.writeFile(file);
+            cms.writePropertyObject(path, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Changed " + i, null));
+            changedFiles.add(file);
+        }
+
+        historyId = OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        publishTag = readInt("SELECT MAX(PUBLISH_TAG) FROM CMS_PUBLISH_HISTORY WHERE HISTORY_ID=?", historyId);
+        assertPublished(cms, files);
+        for (CmsResource file : changedFiles) {
+            assertRows(file, historyId, publishTag);
+            // the content of the first publish has been moved to the history
+            assertEquals(
+                2,
+                readInt("SELECT COUNT(*) FROM CMS_CONTENTS WHERE RESOURCE_ID=?", file.getResourceId()));
+        }
+    }
+
+    /**
+     * Tests resuming a publish job that was interrupted, under its original publish tag.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testResumeInterruptedJob() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing resuming an interrupted publish job under its original publish tag");
+
+        List<CmsResource> files = createFiles(cms, "/resume/", (2 * getChunkSize()) + 3);
+
+        // keep the publish list of the job, it is removed from the database when the job is finished
+        OpenCms.getPublishManager().stopPublishing();
+        CmsUUID historyId = OpenCms.getPublishManager().publishProject(cms);
+        byte[] publishList = readBytes("SELECT PUBLISH_LIST FROM CMS_PUBLISH_JOBS WHERE HISTORY_ID=?", historyId);
+        assertNotNull(publishList);
+        OpenCms.getPublishManager().startPublishing();
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        int publishTag = readInt("SELECT MAX(PUBLISH_TAG) FROM CMS_PUBLISH_HISTORY WHERE HISTORY_ID=?", historyId);
+        assertPublished(cms, files);
+        for (CmsResource file : files) {
+            assertRows(file, historyId, publishTag);
+        }
+        List<int[]> historyRows = new ArrayList<int[]>(files.size());
+        for (CmsResource file : files) {
+            historyRows.add(readHistoryRows(file, publishTag));
+        }
+
+        // simulate an attempt that was interrupted after all files were copied online, when only the
+        // first half of the files was recorded in the publish history and no state was reset yet
+        CmsUUID projectId = cms.getRequestContext().getCurrentProject().getUuid();
+        Integer stateNew = Integer.valueOf(CmsResource.STATE_NEW.getState());
+        for (int i = 0; i < files.size(); i++) {
+            CmsResource file = files.get(i);
+            executeUpdate(
+                "UPDATE CMS_OFFLINE_STRUCTURE SET STRUCTURE_STATE=? WHERE STRUCTURE_ID=?",
+                stateNew,
+                file.getStructureId());
+            executeUpdate(
+                "UPDATE CMS_OFFLINE_RESOURCES SET RESOURCE_STATE=?, PROJECT_LASTMODIFIED=? WHERE RESOURCE_ID=?",
+                stateNew,
+                projectId,
+                file.getResourceId());
+            if (i >= (files.size() / 2)) {
+                executeUpdate(
+                    "DELETE FROM CMS_PUBLISH_HISTORY WHERE HISTORY_ID=? AND STRUCTURE_ID=?",
+                    historyId,
+                    file.getStructureId());
+            }
+        }
+        executeUpdate(
+            "UPDATE CMS_PUBLISH_JOBS SET PUBLISH_LIST=?, FINISH_TIME=0 WHERE HISTORY_ID=?",
+            publishList,
+            historyId);
+        OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>()));
+
+        // reloading the queue from the database resumes the interrupted job
+        OpenCms.getPublishManager().stopPublishing();
+        OpenCms.getPublishManager().initialize(cms);
+        List<CmsPublishJobEnqueued> queue = OpenCms.getPublishManager().getPublishQueue();
+        assertEquals(1, queue.size());
+        assertEquals(historyId, queue.get(0).getPublishHistoryId());
+        OpenCms.getPublishManager().startPublishing();
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        assertEquals(
+            1,
+            readInt("SELECT COUNT(*) FROM CMS_HISTORY_PROJECTS WHERE PUBLISH_TAG=?", Integer.valueOf(publishTag)));
+        assertPublished(cms, files);
+        for (int i = 0; i < files.size(); i++) {
+            CmsResource file = files.get(i);
+            assertRows(file, historyId, publishTag);
+            assertTrue(Arrays.equals(historyRows.get(i), readHistoryRows(file, publishTag)));
+        }
+    }
+
+    /**
+     * Checks that the online rows of a published file exist exactly once.<p>
+     *
+     * @param file the published file
+     * @param historyId the publish history id of the publish job
+     * @param publishTag the publish tag of the publish job
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private void assertRows(CmsResource file, CmsUUID historyId, int publishTag) throws SQLException {
+
+        CmsUUID structureId = file.getStructureId();
+        CmsUUID resourceId = file.getResourceId();
+        Integer tag = Integer.valueOf(publishTag);
+        assertEquals(1, readInt("SELECT COUNT(*) FROM CMS_ONLINE_STRUCTURE WHERE STRUCTURE_ID=?", structureId));
+        assertEquals(1, readInt("SELECT COUNT(*) FROM CMS_ONLINE_RESOURCES WHERE RESOURCE_ID=?", resourceId));
+        assertEquals(
+            1,
+            readInt("SELECT COUNT(*) FROM CMS_CONTENTS WHERE RESOURCE_ID=? AND ONLINE_FLAG=1", resourceId));
+        assertEquals(
+            1,
+            readInt("SELECT COUNT(*) FROM CMS_CONTENTS WHERE RESOURCE_ID=? AND PUBLISH_TAG_FROM=?", resourceId, tag));
+        assertEquals(
+            readInt(
+                "SELECT COUNT(*) FROM CMS_OFFLINE_PROPERTIES WHERE PROPERTY_MAPPING_ID=? OR PROPERTY_MAPPING_ID=?",
+                structureId,
+                resourceId),
+            readInt(
+                "SELECT COUNT(*) FROM CMS_ONLINE_PROPERTIES WHERE PROPERTY_MAPPING_ID=? OR PROPERTY_MAPPING_ID=?",
+                structureId,
+                resourceId));
+        assertEquals(
+            readInt("SELECT COUNT(*) FROM CMS_OFFLINE_RESOURCE_RELATIONS WHERE RELATION_SOURCE_ID=?", structureId),
+            readInt("SELECT COUNT(*) FROM CMS_ONLINE_RESOURCE_RELATIONS WHERE RELATION_SOURCE_ID=?", structureId));
+        assertEquals(
+            1,
+            readInt(
+                "SELECT COUNT(*) FROM CMS_PUBLISH_HISTORY WHERE HISTORY_ID=? AND STRUCTURE_ID=?",
+                historyId,
+                structureId));
+        assertEquals(
+            1,
+            readInt(
+                "SELECT COUNT(*) FROM CMS_HISTORY_STRUCTURE WHERE STRUCTURE_ID=? AND PUBLISH_TAG=?",
+                structureId,
+                tag));
+    }
+
+    /**
+     * Checks that the given files are published, comparing the online files with the offline files.<p>
+     *
+     * @param cms the cms context in the offline project
+     * @param files the files to check
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void assertPublished(CmsObject cms, List<CmsResource> files) throws Exception {
+
+        CmsObject onlineCms = getOnlineCmsObject(cms);
+        for (CmsResource file : files) {
+            String path = cms.getSitePath(file);
+            assertState(cms, path, CmsResource.STATE_UNCHANGED);
+            assertLock(cms, path, CmsLockType.UNLOCKED);
+            assertState(onlineCms, path, CmsResource.STATE_UNCHANGED);
+
+            CmsFile offlineFile = cms.readFile(path);
+            CmsFile onlineFile = onlineCms.readFile(path);
+            assertEquals(offlineFile.getStructureId(), onlineFile.getStructureId());
+            assertEquals(offlineFile.getResourceId(), onlineFile.getResourceId());
+            assertTrue(Arrays.equals(offlineFile.getContents(), onlineFile.getContents()));
+            assertEquals(
+                getPropertyValues(cms.readPropertyObjects(path, false)),
+                getPropertyValues(onlineCms.readPropertyObjects(path, false)));
+            assertEquals(
+                getRelationTargets(cms.getRelationsForResource(path, CmsRelationFilter.TARGETS)),
+                getRelationTargets(onlineCms.getRelationsForResource(path, CmsRelationFilter.TARGETS)));
+        }
+    }
+
+    /**
+     * Creates new files with properties and relations in a new folder.<p>
+     *
+     * @param cms the cms context
+     * @param folder the folder to create
+     * @param count the number of files to create
+     *
+     * @return the created files
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<CmsResource> createFiles(CmsObject cms, String folder, int count) throws Exception {
+
+        cms.createResource(
+            folder,
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeFolder.getStaticTypeName()));
+        List<CmsResource> files = new ArrayList<CmsResource>(count);
+        for (int i = 0; i < count; i++) {
+            List<CmsProperty> properties = new ArrayList<CmsProperty>();
+            properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Title " + i, "Shared title " + i));
+            properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, null, "Description " + i));
+            CmsResource file = cms.createResource(
+                folder + "file" + i + ".txt",
+                OpenCms.getResourceManager().getResourceType(CmsResourceTypePlain.getStaticTypeName()),
+                ("content " + i).getBytes(),
+                properties);
+            if (i > 0) {
+                cms.addRelationToResource(
+                    cms.getSitePath(file),
+                    cms.getSitePath(files.get(i - 1)),
+                    CmsRelationType.CATEGORY.getName());
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Executes the given SQL update statement.<p>
+     *
+     * @param sql the SQL statement
+     * @param params the parameters of the statement
+     *
+     * @return the number of updated rows
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private int executeUpdate(String sql, Object... params) throws SQLException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = OpenCms.getSqlManager().getConnection(OpenCms.getSqlManager().getDefaultDbPoolName());
+            stmt = prepareStatement(conn, sql, params);
+            return stmt.executeUpdate();
+        } finally {
+            closeAll(conn, stmt, null);
+        }
+    }
+
+    /**
+     * Returns the number of files published in one batch.<p>
+     *
+     * @return the number of files published in one batch
+     */
+    private int getChunkSize() {
+
+        return m_configuration.getInteger(
+            CmsProjectDriver.PARAM_PUBLISH_CHUNK_SIZE,
+            CmsProjectDriver.DEFAULT_PUBLISH_CHUNK_SIZE);
+    }
+
+    /**
+     * Returns a copy of the given cms context in the online project.<p>
+     *
+     * @param cms the cms context
+     *
+     * @return the cms context in the online project
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getOnlineCmsObject(CmsObject cms) throws Exception {
+
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        return onlineCms;
+    }
+
+    /**
+     * Returns the structure and resource values of the given properties by property name.<p>
+     *
+     * @param properties the properties
+     *
+     * @return the property values
+     */
+    private Map<String, String> getPropertyValues(List<CmsProperty> properties) {
+
+        Map<String, String> result = new HashMap<String, String>();
+        for (CmsProperty property : properties) {
+            result.put(property.getName(), property.getStructureValue() + "|" + property.getResourceValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the target ids and types of the given relations.<p>
+     *
+     * @param relations the relations
+     *
+     * @return the relation targets
+     */
+    private Set<String> getRelationTargets(List<CmsRelation> relations) {
+
+        Set<String> result = new HashSet<String>();
+        for (CmsRelation relation : relations) {
+            result.add(relation.getTargetId() + "|" + relation.getType().getName());
+        }
+        return result;
+    }
+
+    /**
+     * Creates a prepared statement with the given parameters.<p>
+     *
+     * @param conn the connection
+     * @param sql the SQL statement
+     * @param params the parameters of the statement
+     *
+     * @return the prepared statement
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private PreparedStatement prepareStatement(Connection conn, String sql, Object... params) throws SQLException {
+
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] instanceof Integer) {
+                stmt.setInt(i + 1, ((Integer)params[i]).intValue());
+            } else if (params[i] instanceof byte[]) {
+                stmt.setBytes(i + 1, (byte[])params[i]);
+            } else {
+                stmt.setString(i + 1, params[i].toString());
+            }
+        }
+        return stmt;
+    }
+
+    /**
+     * Reads the first column of the first row returned by the given query as bytes.<p>
+     *
+     * @param sql the SQL query
+     * @param params the parameters of the query
+     *
+     * @return the bytes, or <code>null</code> if the query returns no rows
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private byte[] readBytes(String sql, Object... params) throws SQLException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = OpenCms.getSqlManager().getConnection(OpenCms.getSqlManager().getDefaultDbPoolName());
+            stmt = prepareStatement(conn, sql, params);
+            res = stmt.executeQuery();
+            return res.next() ? res.getBytes(1) : null;
+        } finally {
+            closeAll(conn, stmt, res);
+        }
+    }
+
+    /**
+     * Reads the number of history rows written for a file with the given publish tag.<p>
+     *
+     * @param file the file
+     * @param publishTag the publish tag
+     *
+     * @return the number of content, resource, structure and property history rows
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private int[] readHistoryRows(CmsResource file, int publishTag) throws SQLException {
+
+        Integer tag = Integer.valueOf(publishTag);
+        return new int[] {
+            readInt("SELECT COUNT(*) FROM CMS_CONTENTS WHERE RESOURCE_ID=?", file.getResourceId()),
+            readInt(
+                "SELECT COUNT(*) FROM CMS_HISTORY_RESOURCES WHERE RESOURCE_ID=? AND PUBLISH_TAG=?",
+                file.getResourceId(),
+                tag),
+            readInt(
+                "SELECT COUNT(*) FROM CMS_HISTORY_STRUCTURE WHERE STRUCTURE_ID=? AND PUBLISH_TAG=?",
+                file.getStructureId(),
+                tag),
+            readInt(
+                "SELECT COUNT(*) FROM CMS_HISTORY_PROPERTIES WHERE STRUCTURE_ID=? AND PUBLISH_TAG=?",
+                file.getStructureId(),
+                tag)};
+    }
+
+    /**
+     * Reads the first column of the first row returned by the given query as an integer.<p>
+     *
+     * @param sql the SQL query
+     * @param params the parameters of the query
+     *
+     * @return the integer value
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private int readInt(String sql, Object... params) throws SQLException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = OpenCms.getSqlManager().getConnection(OpenCms.getSqlManager().getDefaultDbPoolName());
+            stmt = prepareStatement(conn, sql, params);
+            res = stmt.executeQuery();
+            assertTrue(res.next());
+            return res.getInt(1);
+        } finally {
+            closeAll(conn, stmt, res);
+        }
+    }
+
+    /**
+     * Reads the publish tag the next publish job will use, in the same way as the history driver.<p>
+     *
+     * @return the next publish tag
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private int readNextPublishTag() throws SQLException {
+
+        int maxTag = Math.max(
+            readInt("SELECT MAX(PUBLISH_TAG) FROM CMS_HISTORY_PROJECTS"),
+            readInt("SELECT MAX(PUBLISH_TAG) FROM CMS_HISTORY_RESOURCES"));
+        maxTag = Math.max(maxTag, readInt("SELECT MAX(PUBLISH_TAG_TO) FROM CMS_CONTENTS"));
+        return maxTag + 1;
+    }
+
+    /**
+     * Closes the given database resources, ignoring errors.<p>
+     *
+     * @param conn the connection
+     * @param stmt the statement
+     * @param res the result set
+     */
+    private void closeAll(Connection conn, PreparedStatement stmt, ResultSet res) {
+
+        try {
+            if (res != null) {
+                res.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (SQLException e) {
+            // ignore
+        }
+    }
+}
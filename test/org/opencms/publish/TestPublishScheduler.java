@@ -0,0 +1,101 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.publish.CmsPublishScheduler.CmsPublishFootprint;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+/**
+ * Test cases for the conflict detection of the {@link org.opencms.publish.CmsPublishScheduler}.<p>
+ */
+public class TestPublishScheduler extends OpenCmsTestCase {
+
+    /**
+     * Creates a footprint for the given root paths, folders must end with a slash.<p>
+     *
+     * @param paths the root paths
+     *
+     * @return the footprint
+     */
+    private static CmsPublishFootprint footprint(String... paths) {
+
+        CmsPublishFootprint footprint = new CmsPublishFootprint();
+        for (String path : paths) {
+            footprint.addResource(new CmsUUID(), new CmsUUID(), path, path.endsWith("/"));
+        }
+        return footprint;
+    }
+
+    /**
+     * Tests that jobs in different folders do not conflict.<p>
+     */
+    public void testDisjointJobs() {
+
+        CmsPublishFootprint big = footprint(
+            "/sites/a/",
+            "/sites/a/news/",
+            "/sites/a/news/1.html",
+            "/sites/a/news/2.html");
+        CmsPublishFootprint small = footprint("/sites/b/index.html", "/sites/ab/index.html");
+
+        assertFalse(big.conflictsWith(small));
+        assertFalse(small.conflictsWith(big));
+        assertFalse(footprint().conflictsWith(big));
+    }
+
+    /**
+     * Tests that jobs publishing the same path or a folder and its contents conflict.<p>
+     */
+    public void testOverlappingPaths() {
+
+        CmsPublishFootprint folder = footprint("/sites/a/news/");
+
+        assertTrue(folder.conflictsWith(footprint("/sites/a/news/")));
+        assertTrue(folder.conflictsWith(footprint("/sites/a/news/2018/1.html")));
+        assertTrue(footprint("/sites/a/news/2018/1.html").conflictsWith(folder));
+        assertTrue(footprint("/sites/a/index.html", "/sites/a/news/1.html").conflictsWith(folder));
+        assertFalse(folder.conflictsWith(footprint("/sites/a/news.html")));
+        assertTrue(footprint("/sites/a/x.html").conflictsWith(footprint("/sites/a/x.html")));
+    }
+
+    /**
+     * Tests that jobs publishing siblings conflict.<p>
+     */
+    public void testSiblings() {
+
+        CmsUUID resourceId = new CmsUUID();
+        CmsPublishFootprint first = new CmsPublishFootprint();
+        first.addResource(new CmsUUID(), resourceId, "/sites/a/sibling.html", false);
+        CmsPublishFootprint second = new CmsPublishFootprint();
+        second.addResource(new CmsUUID(), resourceId, "/sites/b/sibling.html", false);
+
+        assertTrue(first.conflictsWith(second));
+        assertTrue(second.conflictsWith(first));
+    }
+}
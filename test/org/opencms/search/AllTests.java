@@ -59,6 +59,7 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsSearchUtils.class));
+        suite.addTest(TestCmsIndexingThreadManager.suite());
         suite.addTest(TestCmsSearch.suite());
         suite.addTest(TestCmsSearchOffline.suite());
         suite.addTest(TestCmsSearchFields.suite());
@@ -0,0 +1,404 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.CmsException;
+import org.opencms.report.CmsStringBufferReport;
+import org.opencms.report.I_CmsReport;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.document.Document;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the indexing pipeline of the indexing thread manager.<p>
+ */
+public class TestCmsIndexingThreadManager extends OpenCmsTestCase {
+
+    /**
+     * Indexing thread that creates empty documents instead of extracting the content of the resources.<p>
+     */
+    private static class TestIndexingThread extends CmsIndexingThread {
+
+        /** The thread manager that created this thread. */
+        private TestThreadManager m_manager;
+
+        /**
+         * Creates a new indexing thread.<p>
+         *
+         * @param manager the thread manager that created this thread
+         * @param cms the current OpenCms user context
+         * @param res the resource to index
+         * @param index the index to update the resource in
+         * @param count the report count
+         * @param report the report to write the output to
+         */
+        TestIndexingThread(
+            TestThreadManager manager,
+            CmsObject cms,
+            CmsResource res,
+            I_CmsSearchIndex index,
+            int count,
+            I_CmsReport report) {
+
+            super(cms, res, index, count, report);
+            m_manager = manager;
+        }
+
+        /**
+         * @see org.opencms.search.CmsIndexingThread#createDefaultIndexDocument()
+         */
+        @Override
+        protected I_CmsSearchDocument createDefaultIndexDocument() {
+
+            return new CmsLuceneDocument(new Document());
+        }
+
+        /**
+         * @see org.opencms.search.CmsIndexingThread#createIndexDocument(org.opencms.file.CmsObject, org.opencms.file.CmsResource, org.opencms.search.I_CmsSearchIndex, int, org.opencms.report.I_CmsReport)
+         */
+        @Override
+        protected I_CmsSearchDocument createIndexDocument(
+            CmsObject cms,
+            CmsResource res,
+            I_CmsSearchIndex index,
+            int count,
+            I_CmsReport report)
+        throws CmsException {
+
+            m_manager.m_started.incrementAndGet();
+            try {
+                m_manager.m_release.await();
+                // let the resources finish in a different order than they were submitted
+                Thread.sleep(res.getRootPath().hashCode() & 7);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (res.getRootPath().equals(m_manager.m_failing)) {
+                throw new IllegalStateException("failed " + res.getRootPath());
+            }
+            return new CmsLuceneDocument(new Document());
+        }
+    }
+
+    /**
+     * Index writer that records the written documents.<p>
+     */
+    private static class TestIndexWriter implements I_CmsIndexWriter {
+
+        /** The root paths of the deleted documents. */
+        List<String> m_deleted = Collections.synchronizedList(new ArrayList<String>());
+
+        /** The root paths of the updated documents, in the order they were written. */
+        List<String> m_updated = Collections.synchronizedList(new ArrayList<String>());
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#close()
+         */
+        public void close() {
+
+            // nothing to do
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#commit()
+         */
+        public void commit() {
+
+            // nothing to do
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#deleteDocument(org.opencms.db.CmsPublishedResource)
+         */
+        public void deleteDocument(CmsPublishedResource resource) {
+
+            m_deleted.add(resource.getRootPath());
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#optimize()
+         */
+        public void optimize() {
+
+            // nothing to do
+        }
+
+        /**
+         * @see org.opencms.search.I_CmsIndexWriter#updateDocument(java.lang.String, org.opencms.search.I_CmsSearchDocument)
+         */
+        public void updateDocument(String rootPath, I_CmsSearchDocument document) {
+
+            m_updated.add(rootPath);
+        }
+    }
+
+    /**
+     * Thread manager that creates test indexing threads.<p>
+     */
+    private static class TestThreadManager extends CmsIndexingThreadManager {
+
+        /** The root path of the resource that fails to index. */
+        String m_failing;
+
+        /** Latch the indexing threads wait for before they create the document. */
+        CountDownLatch m_release = new CountDownLatch(0);
+
+        /** The number of started indexing threads. */
+        AtomicInteger m_started = new AtomicInteger();
+
+        /**
+         * Creates a new thread manager.<p>
+         *
+         * @param threadCount the number of worker threads
+         */
+        TestThreadManager(int threadCount) {
+
+            super(60000, 1000, 0, threadCount);
+        }
+
+        /**
+         * @see org.opencms.search.CmsIndexingThreadManager#newIndexingThread(org.opencms.file.CmsObject, org.opencms.file.CmsResource, org.opencms.search.I_CmsSearchIndex, int, org.opencms.report.I_CmsReport)
+         */
+        @Override
+        protected CmsIndexingThread newIndexingThread(
+            CmsObject cms,
+            CmsResource res,
+            I_CmsSearchIndex index,
+            int count,
+            I_CmsReport report) {
+
+            return new TestIndexingThread(this, cms, res, index, count, report);
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsIndexingThreadManager(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsIndexingThreadManager.class.getName());
+
+        suite.addTest(new TestCmsIndexingThreadManager("testFullQueueBlocksProducer"));
+        suite.addTest(new TestCmsIndexingThreadManager("testFailingResource"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that an error while indexing a resource is reported and does not stop the other resources.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testFailingResource() throws Throwable {
+
+        echo("Testing that a failing resource does not stall the indexing pipeline");
+        List<CmsResource> resources = createResources("/failing/", 10);
+        TestThreadManager manager = new TestThreadManager(2);
+        manager.m_failing = resources.get(3).getRootPath();
+        CmsStringBufferReport report = new CmsStringBufferReport(getCmsObject().getRequestContext().getLocale());
+        TestIndexWriter writer = new TestIndexWriter();
+
+        AtomicInteger submitted = new AtomicInteger();
+        Thread producer = startIndexing(manager, report, writer, resources, submitted);
+        producer.join(30000);
+
+        assertFalse(producer.isAlive());
+        assertEquals(resources.size(), submitted.get());
+        assertEquals(resources.size(), manager.m_started.get());
+        // the failing resource is indexed with the default document
+        assertEquals(getRootPaths(resources), writer.m_updated);
+        assertTrue(writer.m_deleted.isEmpty());
+        assertTrue(report.hasError());
+        assertTrue(report.toString(), report.toString().contains("failed " + manager.m_failing));
+    }
+
+    /**
+     * Tests that the producer is blocked while too many resources wait to be written to the index,
+     * and that all resources are written in the order they were submitted.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testFullQueueBlocksProducer() throws Throwable {
+
+        echo("Testing that a full indexing pipeline blocks the producer");
+        List<CmsResource> resources = createResources("/blocking/", 10);
+        TestThreadManager manager = new TestThreadManager(2);
+        manager.m_release = new CountDownLatch(1);
+        CmsStringBufferReport report = new CmsStringBufferReport(getCmsObject().getRequestContext().getLocale());
+        TestIndexWriter writer = new TestIndexWriter();
+
+        AtomicInteger submitted = new AtomicInteger();
+        Thread producer = startIndexing(manager, report, writer, resources, submitted);
+
+        // two resources per worker are submitted, then the producer waits for the first document
+        long timeout = System.currentTimeMillis() + 10000;
+        while (((submitted.get() < 4) || (manager.m_started.get() < 2)) && (System.currentTimeMillis() < timeout)) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertTrue(producer.isAlive());
+        assertEquals(4, submitted.get());
+        assertEquals(2, manager.m_started.get());
+        assertTrue(writer.m_updated.isEmpty());
+
+        manager.m_release.countDown();
+        producer.join(30000);
+
+        assertFalse(producer.isAlive());
+        assertEquals(resources.size(), submitted.get());
+        assertEquals(getRootPaths(resources), writer.m_updated);
+        assertTrue(writer.m_deleted.isEmpty());
+        assertFalse(report.hasError());
+    }
+
+    /**
+     * Creates files in a new folder.<p>
+     *
+     * @param folder the folder to create
+     * @param count the number of files
+     *
+     * @return the created files
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<CmsResource> createResources(String folder, int count) throws Exception {
+
+        CmsObject cms = getCmsObject();
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        for (int i = 0; i < count; i++) {
+            String path = folder + "file" + i + ".txt";
+            cms.createResource(path, CmsResourceTypePlain.getStaticTypeId(), ("content " + i).getBytes(), null);
+            result.add(cms.readResource(path));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the root paths of the given resources.<p>
+     *
+     * @param resources the resources
+     *
+     * @return the root paths of the resources
+     */
+    private List<String> getRootPaths(List<CmsResource> resources) {
+
+        List<String> result = new ArrayList<String>();
+        for (CmsResource resource : resources) {
+            result.add(resource.getRootPath());
+        }
+        return result;
+    }
+
+    /**
+     * Starts a thread that submits the resources to the indexing pipeline and waits until all are written.<p>
+     *
+     * @param manager the thread manager
+     * @param report the report of the indexer
+     * @param writer the index writer
+     * @param resources the resources to index
+     * @param submitted counts the submitted resources
+     *
+     * @return the started thread
+     *
+     * @throws Exception if something goes wrong
+     */
+    private Thread startIndexing(
+        final CmsIndexingThreadManager manager,
+        I_CmsReport report,
+        final I_CmsIndexWriter writer,
+        final List<CmsResource> resources,
+        final AtomicInteger submitted)
+    throws Exception {
+
+        CmsSearchIndex index = new CmsSearchIndex("Pipeline test " + getName());
+        final CmsVfsIndexer indexer = (CmsVfsIndexer)new CmsVfsIndexer().newInstance(getCmsObject(), report, index);
+        Thread producer = new Thread() {
+
+            @Override
+            public void run() {
+
+                for (CmsResource resource : resources) {
+                    manager.createIndexingThread(indexer, writer, resource);
+                    submitted.incrementAndGet();
+                }
+                while (manager.isRunning()) {
+                    // wait until all documents are written
+                }
+            }
+        };
+        producer.start();
+        return producer;
+    }
+}
@@ -126,6 +126,8 @@ public final class AllTests {
         suite.addTest(TestSolrSearch.suite());
         suite.addTest(TestCmsSolrCollector.suite());
         suite.addTest(TestSolrSerialDateIndexing.suite());
+        suite.addTest(TestCmsSolrPermissionFilter.suite());
+        suite.addTest(new TestSuite(TestCmsSolrClientRegistry.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,164 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * Tests sharing the clients of remote Solr servers between indexes.<p>
+ */
+public class TestCmsSolrClientRegistry extends OpenCmsTestCase {
+
+    /**
+     * Solr client counting how often it is closed.<p>
+     */
+    static class CmsTestSolrClient extends SolrClient {
+
+        /** The serial version id. */
+        private static final long serialVersionUID = 1L;
+
+        /** The number of times this client has been closed. */
+        int m_closed;
+
+        /**
+         * @see org.apache.solr.client.solrj.SolrClient#close()
+         */
+        @Override
+        public void close() {
+
+            m_closed++;
+        }
+
+        /**
+         * @see org.apache.solr.client.solrj.SolrClient#request(org.apache.solr.client.solrj.SolrRequest, java.lang.String)
+         */
+        @Override
+        @SuppressWarnings("rawtypes")
+        public NamedList<Object> request(SolrRequest request, String collection) {
+
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Client registry creating test clients.<p>
+     */
+    static class CmsTestSolrClientRegistry extends CmsSolrClientRegistry {
+
+        /** The number of created clients. */
+        int m_created;
+
+        /**
+         * @see org.opencms.search.solr.CmsSolrClientRegistry#createClient(java.lang.String)
+         */
+        @Override
+        protected SolrClient createClient(String serverUrl) {
+
+            m_created++;
+            return new CmsTestSolrClient();
+        }
+    }
+
+    /** The URL of the first test server. */
+    private static final String SERVER_1 = "http://localhost:8983/solr";
+
+    /** The URL of the second test server. */
+    private static final String SERVER_2 = "http://localhost:8984/solr";
+
+    /**
+     * Tests that closing all clients closes the clients still in use.<p>
+     */
+    public void testCloseAll() {
+
+        CmsTestSolrClientRegistry registry = new CmsTestSolrClientRegistry();
+        CmsTestSolrClient client1 = (CmsTestSolrClient)registry.getClient(SERVER_1, "index1");
+        CmsTestSolrClient client2 = (CmsTestSolrClient)registry.getClient(SERVER_2, "index2");
+
+        registry.closeAll();
+        assertEquals(1, client1.m_closed);
+        assertEquals(1, client2.m_closed);
+
+        // a later registration gets a new client
+        assertNotSame(client1, registry.getClient(SERVER_1, "index1"));
+        assertEquals(3, registry.m_created);
+    }
+
+    /**
+     * Tests that an index moved to another server releases the client of the old server.<p>
+     */
+    public void testMoveToOtherServer() {
+
+        CmsTestSolrClientRegistry registry = new CmsTestSolrClientRegistry();
+        CmsTestSolrClient client1 = (CmsTestSolrClient)registry.getClient(SERVER_1, "index1");
+        assertSame(client1, registry.getClient(SERVER_1, "index1"));
+        assertEquals(0, client1.m_closed);
+
+        CmsTestSolrClient client2 = (CmsTestSolrClient)registry.getClient(SERVER_2, "index1");
+        assertNotSame(client1, client2);
+        assertEquals(1, client1.m_closed);
+        assertEquals(0, client2.m_closed);
+    }
+
+    /**
+     * Tests that two indexes using the same server share one client, and that the client is only closed
+     * when the last index using it is shut down.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSharedClient() throws Exception {
+
+        CmsTestSolrClientRegistry registry = new CmsTestSolrClientRegistry();
+        CmsSolrIndex index1 = new CmsSolrIndex("index1");
+        CmsSolrIndex index2 = new CmsSolrIndex("index2");
+        index1.setSolrServer(registry.getClient(SERVER_1, index1.getName()));
+        index2.setSolrServer(registry.getClient(SERVER_1, index2.getName()));
+
+        assertEquals(1, registry.m_created);
+        assertSame(index1.m_solr, index2.m_solr);
+        CmsTestSolrClient client = (CmsTestSolrClient)index1.m_solr;
+
+        // shut down the first index like the search manager does when removing it
+        index1.shutDown();
+        registry.releaseClient(index1.getName());
+        assertEquals(0, client.m_closed);
+        assertSame(client, index2.m_solr);
+
+        // releasing an index again or an unknown index does not close the client
+        registry.releaseClient(index1.getName());
+        registry.releaseClient("unknown");
+        assertEquals(0, client.m_closed);
+
+        index2.shutDown();
+        registry.releaseClient(index2.getName());
+        assertEquals(1, client.m_closed);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsUser;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsRole;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.solr.common.SolrInputDocument;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the read permission fields and the permission filter query of the Solr index.<p>
+ */
+public class TestCmsSolrPermissionFilter extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsSolrPermissionFilter(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsSolrPermissionFilter.class.getName());
+
+        suite.addTest(new TestCmsSolrPermissionFilter("testCreateFilterQuery"));
+        suite.addTest(new TestCmsSolrPermissionFilter("testPermissionFields"));
+        suite.addTest(new TestCmsSolrPermissionFilter("testFilterQueryOfUser"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests the filter query created for a set of principals.<p>
+     */
+    public void testCreateFilterQuery() {
+
+        CmsUUID user = new CmsUUID();
+        CmsUUID group = new CmsUUID();
+        String principals = "(\"" + user + "\" OR \"" + group + "\")";
+        String expected = "(*:* -acl_indexed_b:true)"
+            + " OR (acl_allow_mvs:"
+            + principals
+            + " -acl_deny_mvs:"
+            + principals
+            + ")"
+            + " OR (acl_others_b:true -acl_principals_mvs:"
+            + principals
+            + ")";
+        assertEquals(expected, CmsSolrPermissionFilter.createFilterQuery(Arrays.asList(user, group)));
+    }
+
+    /**
+     * Tests that the filter query of a user contains the implied roles and is not used for VFS managers.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFilterQueryOfUser() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the Solr permission filter query of a user");
+
+        assertNull(CmsSolrPermissionFilter.getFilterQuery(cms));
+
+        CmsUser user = cms.createUser("solrEditor", "secret", "", null);
+        cms.addUserToGroup("solrEditor", OpenCms.getDefaultUsers().getGroupUsers());
+        OpenCms.getRoleManager().addUserToRole(cms, CmsRole.EDITOR.forOrgUnit(""), "solrEditor");
+        CmsObject userCms = OpenCms.initCmsObject(cms);
+        userCms.loginUser("solrEditor", "secret");
+
+        String query = CmsSolrPermissionFilter.getFilterQuery(userCms);
+        assertNotNull(query);
+        assertTrue(query.contains(user.getId().toString()));
+        assertTrue(query.contains(cms.readGroup(OpenCms.getDefaultUsers().getGroupUsers()).getId().toString()));
+        assertTrue(query.contains(CmsRole.EDITOR.forOrgUnit(null).getId().toString()));
+        // the role is implied by the editor role, and the permission check in Java includes it as well
+        assertTrue(query.contains(CmsRole.ELEMENT_AUTHOR.forOrgUnit(null).getId().toString()));
+        assertFalse(query.contains(CmsRole.ADMINISTRATOR.forOrgUnit(null).getId().toString()));
+    }
+
+    /**
+     * Tests that the read permissions of the access control list are mapped to the permission fields.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPermissionFields() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the Solr permission fields of a resource");
+
+        String folder = "/solrPermissions/";
+        CmsResource resource = cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        CmsUser user = cms.createUser("solrReader", "secret", "", null);
+        CmsUUID usersId = cms.readGroup(OpenCms.getDefaultUsers().getGroupUsers()).getId();
+        cms.chacc(folder, I_CmsPrincipal.PRINCIPAL_USER, "solrReader", "+r+v");
+        cms.chacc(folder, I_CmsPrincipal.PRINCIPAL_GROUP, OpenCms.getDefaultUsers().getGroupUsers(), "-r");
+        cms.chacc(folder, I_CmsPrincipal.PRINCIPAL_GROUP, CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_NAME, "+r");
+
+        SolrInputDocument doc = new SolrInputDocument();
+        CmsSolrPermissionFilter.appendPermissionFields(doc, cms, resource);
+
+        assertEquals(Boolean.TRUE, doc.getFieldValue(CmsSolrPermissionFilter.FIELD_ACL_INDEXED));
+        assertEquals(Boolean.TRUE, doc.getFieldValue(CmsSolrPermissionFilter.FIELD_ACL_OTHERS));
+        Collection<Object> principals = doc.getFieldValues(CmsSolrPermissionFilter.FIELD_ACL_PRINCIPALS);
+        Collection<Object> allowed = doc.getFieldValues(CmsSolrPermissionFilter.FIELD_ACL_ALLOW);
+        Collection<Object> denied = doc.getFieldValues(CmsSolrPermissionFilter.FIELD_ACL_DENY);
+        assertTrue(principals.contains(user.getId().toString()));
+        assertTrue(principals.contains(usersId.toString()));
+        assertFalse(principals.contains(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID.toString()));
+        assertTrue(allowed.contains(user.getId().toString()));
+        assertFalse((denied != null) && denied.contains(user.getId().toString()));
+        assertTrue(denied.contains(usersId.toString()));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test cases for the {@link org.opencms.site.CmsSiteLookupIndex}.<p>
+ */
+public class TestCmsSiteLookupIndex extends OpenCmsTestCase {
+
+    /**
+     * Creates an index for the given sites.<p>
+     *
+     * @param sites the sites
+     *
+     * @return the index
+     */
+    private static CmsSiteLookupIndex index(CmsSite... sites) {
+
+        Map<String, CmsSite> siteRootSites = new HashMap<String, CmsSite>();
+        Map<CmsSiteMatcher, CmsSite> siteMatcherSites = new HashMap<CmsSiteMatcher, CmsSite>();
+        for (CmsSite site : sites) {
+            siteRootSites.put(site.getSiteRoot(), site);
+            siteMatcherSites.put(site.getSiteMatcher(), site);
+        }
+        return new CmsSiteLookupIndex(siteRootSites, siteMatcherSites);
+    }
+
+    /**
+     * Tests looking up sites by resource root path.<p>
+     */
+    public void testGetSiteForRootPath() {
+
+        CmsSite def = new CmsSite("/sites/default/", "http://localhost:8080");
+        CmsSite other = new CmsSite("/sites/default2", "http://other:8080");
+        CmsSite shared = new CmsSite("/shared/site", "http://shared:8080");
+        CmsSiteLookupIndex index = index(def, other, shared);
+
+        assertSame(def, index.getSiteForRootPath("/sites/default/index.html"));
+        assertSame(def, index.getSiteForRootPath("/sites/default/"));
+        assertSame(def, index.getSiteForRootPath("/sites/default"));
+        assertSame(other, index.getSiteForRootPath("/sites/default2/a/b/c.html"));
+        assertSame(shared, index.getSiteForRootPath("/shared/site/index.html"));
+        assertNull(index.getSiteForRootPath("/sites/default3/index.html"));
+        assertNull(index.getSiteForRootPath("/sites/"));
+        assertNull(index.getSiteForRootPath("/shared/"));
+        assertNull(index.getSiteForRootPath("/"));
+        assertNull(index.getSiteForRootPath(""));
+    }
+
+    /**
+     * Tests that the longest matching site root wins for nested site roots.<p>
+     */
+    public void testNestedSiteRoots() {
+
+        CmsSite outer = new CmsSite("/sites/outer", "http://outer:8080");
+        CmsSite inner = new CmsSite("/sites/outer/inner", "http://inner:8080");
+        CmsSiteLookupIndex index = index(outer, inner);
+
+        assertSame(outer, index.getSiteForRootPath("/sites/outer/index.html"));
+        assertSame(outer, index.getSiteForRootPath("/sites/outer/innerfolder/index.html"));
+        assertSame(inner, index.getSiteForRootPath("/sites/outer/inner/index.html"));
+        assertSame(inner, index.getSiteForRootPath("/sites/outer/inner"));
+    }
+
+    /**
+     * Tests matching servers against the configured site matchers.<p>
+     */
+    public void testMatchServer() {
+
+        CmsSite def = new CmsSite("/sites/default", "http://localhost:8080");
+        CmsSite secure = new CmsSite("/sites/secure", "https://www.example.com");
+        CmsSiteLookupIndex index = index(def, secure);
+
+        assertSame(def, index.matchServer("http", "localhost", 8080).getValue());
+        assertSame(def, index.matchServer("HTTP", "LocalHost", 8080).getValue());
+        assertSame(secure, index.matchServer("https", "www.example.com", 443).getValue());
+        assertSame(secure.getSiteMatcher(), index.matchServer("https", "www.example.com", 443).getKey());
+        assertNull(index.matchServer("http", "localhost", 8081));
+        assertNull(index.matchServer("http", "www.example.com", 443));
+        assertNull(index.matchServer("http", "unknown", 80));
+        assertNull(index.matchServer("http", null, 80));
+    }
+}
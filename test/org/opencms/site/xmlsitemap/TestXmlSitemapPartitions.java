@@ -0,0 +1,321 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.site.xmlsitemap;
+
+import org.opencms.main.CmsException;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests splitting large XML sitemaps into partitions referenced by a sitemap index.<p>
+ */
+public class TestXmlSitemapPartitions extends OpenCmsTestCase {
+
+    /**
+     * Sitemap generator returning a given number of entries.<p>
+     */
+    static class CmsTestSitemapGenerator extends CmsXmlSitemapGenerator {
+
+        /** The number of entries to generate. */
+        private int m_entries;
+
+        /** The number of times the entries have been generated. */
+        private int m_generations;
+
+        /**
+         * Creates a new generator.<p>
+         *
+         * @param entries the number of entries to generate
+         *
+         * @throws CmsException if something goes wrong
+         */
+        CmsTestSitemapGenerator(int entries)
+        throws CmsException {
+
+            super(SITE_ROOT);
+            m_entries = entries;
+        }
+
+        /**
+         * @see org.opencms.site.xmlsitemap.CmsXmlSitemapGenerator#generateSitemapBeans()
+         */
+        @Override
+        public List<CmsXmlSitemapUrlBean> generateSitemapBeans() {
+
+            m_generations++;
+            List<CmsXmlSitemapUrlBean> result = new ArrayList<CmsXmlSitemapUrlBean>(m_entries);
+            for (int i = 0; i < m_entries; i++) {
+                result.add(new CmsXmlSitemapUrlBean(getUrl(i), -1, null, -1));
+            }
+            return result;
+        }
+
+        /**
+         * Returns the number of times the entries have been generated.<p>
+         *
+         * @return the number of times the entries have been generated
+         */
+        int getGenerations() {
+
+            return m_generations;
+        }
+
+        /**
+         * @see org.opencms.site.xmlsitemap.CmsXmlSitemapGenerator#supportsIteratorGeneration()
+         */
+        @Override
+        protected boolean supportsIteratorGeneration() {
+
+            return false;
+        }
+    }
+
+    /** The root path of the site the sitemaps are generated for. */
+    static final String SITE_ROOT = "/sites/default/";
+
+    /** The root path of the sitemap.xml file. */
+    private static final String SITEMAP_PATH = "/sites/default/sitemap.xml";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestXmlSitemapPartitions(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestXmlSitemapPartitions.class.getName());
+
+        suite.addTest(new TestXmlSitemapPartitions("testIteratorGeneration"));
+        suite.addTest(new TestXmlSitemapPartitions("testPartitionBoundaries"));
+        suite.addTest(new TestXmlSitemapPartitions("testSinglePartition"));
+        suite.addTest(new TestXmlSitemapPartitions("testSitemapIndex"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Returns the URL of the sitemap entry with the given index.<p>
+     *
+     * @param index the index of the entry
+     *
+     * @return the URL of the entry
+     */
+    static String getUrl(int index) {
+
+        return "http://localhost:8080/page" + index + ".html";
+    }
+
+    /**
+     * Tests that the entries of a generator not supporting iterator generation are read from
+     * {@link CmsXmlSitemapGenerator#generateSitemapBeans()}.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testIteratorGeneration() throws Exception {
+
+        echo("Testing iterating the entries of a generator not supporting iterator generation");
+
+        CmsTestSitemapGenerator generator = new CmsTestSitemapGenerator(5);
+        Iterator<CmsXmlSitemapUrlBean> beans = generator.iterateSitemapBeans();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(beans.hasNext());
+            assertEquals(getUrl(i), beans.next().getUrl());
+        }
+        assertFalse(beans.hasNext());
+        assertEquals(1, generator.getGenerations());
+    }
+
+    /**
+     * Tests the first and last entries of each partition of a sitemap.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testPartitionBoundaries() throws Exception {
+
+        echo("Testing the boundaries of the partitions of a sitemap");
+
+        CmsTestSitemapGenerator generator = new CmsTestSitemapGenerator(25);
+
+        String index = writePartition(generator, 0, 10);
+        assertTrue(index.contains("<sitemapindex"));
+        assertEquals(3, countOccurrences(index, "<sitemap>"));
+        for (int part = 1; part <= 3; part++) {
+            assertTrue(index.contains(CmsXmlSitemapGenerator.PARAM_PART + "=" + part + "</loc>"));
+        }
+
+        assertEntries(writePartition(generator, 1, 10), 0, 10);
+        assertEntries(writePartition(generator, 2, 10), 10, 20);
+        assertEntries(writePartition(generator, 3, 10), 20, 25);
+        assertFalse(generator.writeSitemapPartition(new StringWriter(), SITEMAP_PATH, 4, 10));
+
+        // each request generates the entries exactly once
+        assertEquals(5, generator.getGenerations());
+    }
+
+    /**
+     * Tests that a sitemap filling exactly one partition is written without a sitemap index.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSinglePartition() throws Exception {
+
+        echo("Testing a sitemap filling exactly one partition");
+
+        CmsTestSitemapGenerator generator = new CmsTestSitemapGenerator(10);
+        assertEntries(writePartition(generator, 0, 10), 0, 10);
+        assertEntries(writePartition(generator, 1, 10), 0, 10);
+        assertFalse(generator.writeSitemapPartition(new StringWriter(), SITEMAP_PATH, 2, 10));
+
+        generator = new CmsTestSitemapGenerator(0);
+        assertEntries(writePartition(generator, 0, 10), 0, 0);
+    }
+
+    /**
+     * Tests the sitemap index of a sitemap with one entry more than fits into one partition.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSitemapIndex() throws Exception {
+
+        echo("Testing the sitemap index of a sitemap larger than one partition");
+
+        int max = CmsXmlSitemapGenerator.MAX_URLS_PER_SITEMAP;
+        CmsTestSitemapGenerator generator = new CmsTestSitemapGenerator(max + 1);
+
+        StringWriter out = new StringWriter();
+        assertTrue(generator.writeSitemapPartition(out, SITEMAP_PATH, 0));
+        String index = out.toString();
+        assertTrue(index.contains("<sitemapindex"));
+        assertEquals(2, countOccurrences(index, "<sitemap>"));
+        assertEquals(0, countOccurrences(index, "<url>"));
+
+        out = new StringWriter();
+        assertTrue(generator.writeSitemapPartition(out, SITEMAP_PATH, 1));
+        assertEquals(max, countOccurrences(out.toString(), "<url>"));
+
+        out = new StringWriter();
+        assertTrue(generator.writeSitemapPartition(out, SITEMAP_PATH, 2));
+        assertEntries(out.toString(), max, max + 1);
+
+        assertFalse(generator.writeSitemapPartition(new StringWriter(), SITEMAP_PATH, 3));
+    }
+
+    /**
+     * Checks that the given sitemap contains exactly the entries in the given range.<p>
+     *
+     * @param sitemap the sitemap XML
+     * @param start the index of the first entry
+     * @param end the index after the last entry
+     */
+    private void assertEntries(String sitemap, int start, int end) {
+
+        assertTrue(sitemap.contains("<urlset"));
+        assertFalse(sitemap.contains("<sitemapindex"));
+        assertEquals(end - start, countOccurrences(sitemap, "<url>"));
+        int pos = 0;
+        for (int i = start; i < end; i++) {
+            int next = sitemap.indexOf("<loc>" + getUrl(i) + "</loc>", pos);
+            assertTrue("Entry " + i + " missing or out of order", next > pos);
+            pos = next;
+        }
+    }
+
+    /**
+     * Counts the occurrences of a string in a text.<p>
+     *
+     * @param text the text
+     * @param search the string to count
+     *
+     * @return the number of occurrences
+     */
+    private int countOccurrences(String text, String search) {
+
+        int count = 0;
+        int pos = text.indexOf(search);
+        while (pos >= 0) {
+            count++;
+            pos = text.indexOf(search, pos + search.length());
+        }
+        return count;
+    }
+
+    /**
+     * Writes a partition of the sitemap using the given partition size.<p>
+     *
+     * @param generator the sitemap generator
+     * @param part the partition to write, or 0 for the sitemap itself
+     * @param partitionSize the maximum number of entries in one partition
+     *
+     * @return the written XML
+     *
+     * @throws Exception if something goes wrong
+     */
+    private String writePartition(CmsTestSitemapGenerator generator, int part, int partitionSize) throws Exception {
+
+        StringWriter out = new StringWriter();
+        assertTrue(generator.writeSitemapPartition(out, SITEMAP_PATH, part, partitionSize));
+        return out.toString();
+    }
+}
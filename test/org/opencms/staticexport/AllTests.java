@@ -61,9 +61,11 @@ public final class AllTests {
         suite.addTest(TestCmsLinkManager.suite());
         suite.addTest(TestCmsStaticExportManager.suite());
         suite.addTest(TestExportFile.suite());
+        suite.addTest(TestCmsAfterPublishExportTasks.suite());
         suite.addTest(TestSecure.suite());
         suite.addTest(TestCmsExternalLinksValidator.suite());
         suite.addTest(TestExportScaledImage.suite());
+        suite.addTest(new TestSuite(TestCmsLinkResolutionCache.class));
         //$JUnit-END$
         return suite;
     }
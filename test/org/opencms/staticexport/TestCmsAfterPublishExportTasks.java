@@ -0,0 +1,300 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.main.OpenCms;
+import org.opencms.report.CmsStringBufferReport;
+import org.opencms.report.I_CmsReport;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the worker pool and the asynchronous queue of the export after publishing.<p>
+ */
+public class TestCmsAfterPublishExportTasks extends OpenCmsTestCase {
+
+    /**
+     * Export handler that records the exported resources instead of rendering them.<p>
+     */
+    static class RecordingExportHandler extends CmsAfterPublishStaticExportHandler {
+
+        /** Latch the asynchronous exports wait for before they finish. */
+        CountDownLatch m_release = new CountDownLatch(0);
+
+        /** Counted down when the first asynchronous export has started. */
+        CountDownLatch m_started = new CountDownLatch(1);
+
+        /** The publish history ids of the asynchronous exports, in the order they were run. */
+        List<CmsUUID> m_exportedJobs = Collections.synchronizedList(new ArrayList<CmsUUID>());
+
+        /** The resource names to export. */
+        List<String> m_resources = new ArrayList<String>();
+
+        /** The name of the resource that fails to export. */
+        String m_failing;
+
+        /**
+         * @see org.opencms.staticexport.CmsAfterPublishStaticExportHandler#exportAfterPublish(org.opencms.util.CmsUUID, org.opencms.report.I_CmsReport)
+         */
+        @Override
+        protected void exportAfterPublish(CmsUUID publishHistoryId, I_CmsReport report) {
+
+            m_started.countDown();
+            try {
+                m_release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            m_exportedJobs.add(publishHistoryId);
+        }
+
+        /**
+         * @see org.opencms.staticexport.CmsAfterPublishStaticExportHandler#exportNonTemplateResource(org.opencms.file.CmsObject, org.opencms.staticexport.CmsStaticExportData, int, int, org.opencms.report.I_CmsReport)
+         */
+        @Override
+        protected void exportNonTemplateResource(
+            CmsObject cms,
+            CmsStaticExportData exportData,
+            int count,
+            int size,
+            I_CmsReport report) {
+
+            String name = exportData.getVfsName();
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_ARGUMENT_1,
+                    "[begin " + name + "]"));
+            if (name.equals(m_failing)) {
+                throw new IllegalStateException("failed " + name);
+            }
+            // give the other workers the chance to write in between
+            try {
+                Thread.sleep(name.hashCode() & 7);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_ARGUMENT_1,
+                    "[end " + name + "]"));
+        }
+
+        /**
+         * @see org.opencms.staticexport.CmsAfterPublishStaticExportHandler#readNonTemplateResourcesToExport(org.opencms.file.CmsObject, java.util.List, java.util.List)
+         */
+        @Override
+        protected boolean readNonTemplateResourcesToExport(
+            CmsObject cms,
+            List<CmsPublishedResource> publishedResources,
+            List<CmsStaticExportData> resourcesToExport) {
+
+            for (String name : m_resources) {
+                resourcesToExport.add(new CmsStaticExportData(name, name, null, null));
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsAfterPublishExportTasks(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsAfterPublishExportTasks.class.getName());
+
+        suite.addTest(new TestCmsAfterPublishExportTasks("testParallelExport"));
+        suite.addTest(new TestCmsAfterPublishExportTasks("testSequentialExport"));
+        suite.addTest(new TestCmsAfterPublishExportTasks("testAsyncExportOrderAndBusy"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms(null, null, true);
+            }
+
+            @Override
+            protected void tearDown() {
+
+                OpenCms.getStaticExportManager().setExportWorkers("1");
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that asynchronous exports run in publish order, that a full queue blocks the publishing thread
+     * and that the handler is busy until all queued exports are finished.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testAsyncExportOrderAndBusy() throws Throwable {
+
+        echo("Testing the order and the busy state of the asynchronous export");
+
+        final RecordingExportHandler handler = new RecordingExportHandler();
+        handler.m_release = new CountDownLatch(1);
+        assertFalse(handler.isBusy());
+
+        final List<CmsUUID> jobs = new ArrayList<CmsUUID>();
+        // one job is running, the queue is full, and one more job has to wait for room in the queue
+        for (int i = 0; i < (CmsAfterPublishStaticExportHandler.ASYNC_QUEUE_SIZE + 2); i++) {
+            jobs.add(new CmsUUID());
+        }
+        final AtomicInteger enqueued = new AtomicInteger();
+        Thread publisher = new Thread() {
+
+            @Override
+            public void run() {
+
+                for (CmsUUID job : jobs) {
+                    handler.exportAfterPublishAsync(job, null);
+                    enqueued.incrementAndGet();
+                    if (enqueued.get() == 1) {
+                        try {
+                            // make sure the first job has been taken from the queue
+                            handler.m_started.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }
+        };
+        publisher.start();
+        assertTrue(handler.m_started.await(10, TimeUnit.SECONDS));
+        publisher.join(500);
+
+        // the publishing thread is blocked by the full queue
+        assertTrue(publisher.isAlive());
+        assertEquals(jobs.size() - 1, enqueued.get());
+        assertTrue(handler.isBusy());
+        assertTrue(handler.m_exportedJobs.isEmpty());
+
+        handler.m_release.countDown();
+        publisher.join(10000);
+        assertFalse(publisher.isAlive());
+        long timeout = System.currentTimeMillis() + 10000;
+        while (handler.isBusy() && (System.currentTimeMillis() < timeout)) {
+            Thread.sleep(10);
+        }
+        assertFalse(handler.isBusy());
+        assertEquals(jobs, handler.m_exportedJobs);
+    }
+
+    /**
+     * Tests the export with several workers.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testParallelExport() throws Throwable {
+
+        echo("Testing the export of published resources with several workers");
+        OpenCms.getStaticExportManager().setExportWorkers("4");
+        checkExport();
+    }
+
+    /**
+     * Tests the export with a single worker.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testSequentialExport() throws Throwable {
+
+        echo("Testing the export of published resources with a single worker");
+        OpenCms.getStaticExportManager().setExportWorkers("1");
+        checkExport();
+    }
+
+    /**
+     * Exports a list of resources, one of which fails, and checks the report.<p>
+     *
+     * The output of each resource must not be mixed with the output of other resources, the failing resource
+     * must be reported as error and all other resources must still be exported.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void checkExport() throws Exception {
+
+        RecordingExportHandler handler = new RecordingExportHandler();
+        for (int i = 0; i < 40; i++) {
+            handler.m_resources.add("/res" + i);
+        }
+        handler.m_failing = "/res17";
+
+        CmsStringBufferReport report = new CmsStringBufferReport(getCmsObject().getRequestContext().getLocale());
+        handler.exportNonTemplateResources(getCmsObject(), new ArrayList<CmsPublishedResource>(), report);
+        String output = report.toString();
+
+        assertTrue(report.hasError());
+        assertTrue(output, output.contains("failed /res17"));
+        for (String name : handler.m_resources) {
+            int begin = output.indexOf("[begin " + name + "]");
+            assertTrue(output, begin >= 0);
+            if (name.equals(handler.m_failing)) {
+                assertEquals(output, -1, output.indexOf("[end " + name + "]"));
+            } else {
+                // nothing else has been written between the start and the end of the resource
+                String expected = "[begin " + name + "][end " + name + "]";
+                assertEquals(output, begin, output.indexOf(expected));
+            }
+        }
+    }
+}
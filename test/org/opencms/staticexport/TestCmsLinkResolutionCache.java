@@ -0,0 +1,68 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.Collections;
+
+/**
+ * Tests the publish epochs of the link resolution cache.<p>
+ */
+public class TestCmsLinkResolutionCache extends OpenCmsTestCase {
+
+    /**
+     * Tests that a publish clears the cache and rejects links resolved in an earlier epoch.<p>
+     */
+    public void testPublishEpoch() {
+
+        CmsLinkResolutionCache cache = new CmsLinkResolutionCache();
+        long epoch = cache.getEpoch();
+        cache.put("a", new CmsLinkResolutionCache.CmsResolvedLink("/a.html", null, null), epoch);
+        assertNotNull(cache.get("a"));
+
+        cache.cmsEvent(
+            new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, Collections.<String, Object> emptyMap()));
+        assertNull(cache.get("a"));
+        assertTrue(cache.getEpoch() > epoch);
+
+        // resolved before the publish, must not be cached
+        cache.put("b", new CmsLinkResolutionCache.CmsResolvedLink("/b.html", null, null), epoch);
+        assertNull(cache.get("b"));
+
+        cache.put("b", new CmsLinkResolutionCache.CmsResolvedLink("/b.html", null, null), cache.getEpoch());
+        assertNotNull(cache.get("b"));
+
+        // other events keep the cache
+        cache.cmsEvent(
+            new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, Collections.<String, Object> emptyMap()));
+        assertNotNull(cache.get("b"));
+    }
+}
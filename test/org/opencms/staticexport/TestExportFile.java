@@ -69,6 +69,7 @@ public class TestExportFile extends OpenCmsTestCase {
         suite.setName(TestExportFile.class.getName());
 
         suite.addTest(new TestExportFile("testStaticexportFile"));
+        suite.addTest(new TestExportFile("testStaticexportShortFileName"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -115,7 +116,44 @@ public class TestExportFile extends OpenCmsTestCase {
         OpenCms.getPublishManager().publishProject(cms);
         OpenCms.getPublishManager().waitWhileRunning();
 
-        // now read the exported file in the file system and check its content
+        assertExported(cms, resourcename);
+    }
+
+    /**
+     * Tests the export of a file with a name of only one character.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testStaticexportShortFileName() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the export of a file with a one character name");
+
+        OpenCms.getStaticExportManager().setHandler("org.opencms.staticexport.CmsAfterPublishStaticExportHandler");
+
+        String resourcename = "/a";
+        String content = "short name content";
+
+        cms.createResource(resourcename, CmsResourceTypePlain.getStaticTypeId(), content.getBytes(), null);
+        cms.unlockResource(resourcename);
+
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        assertExported(cms, resourcename);
+    }
+
+    /**
+     * Checks that the given resource has been exported with its current content.<p>
+     *
+     * @param cms the cms context
+     * @param resourcename the name of the exported resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void assertExported(CmsObject cms, String resourcename) throws Exception {
+
+        // read the exported file in the file system and check its content
         String rootPath = cms.getRequestContext().addSiteRoot(resourcename);
         String exportPath = CmsFileUtil.normalizePath(
             OpenCms.getStaticExportManager().getExportPath(rootPath) + rootPath);
@@ -129,5 +167,10 @@ public class TestExportFile extends OpenCmsTestCase {
         fileStream.close();
 
         assertContent(cms, resourcename, exportContent);
+
+        // the temporary file the content was written to has been moved
+        for (String name : f.getParentFile().list()) {
+            assertFalse(name, name.startsWith("." + f.getName() + ".") && name.endsWith(".tmp"));
+        }
     }
 }
\ No newline at end of file
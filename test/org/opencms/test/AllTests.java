@@ -97,11 +97,13 @@ public final class AllTests {
         suite.addTest(org.opencms.flex.AllTests.suite());
         suite.addTest(org.opencms.i18n.AllTests.suite());
         suite.addTest(org.opencms.importexport.AllTests.suite());
+        suite.addTest(org.opencms.jsp.AllTests.suite());
         suite.addTest(org.opencms.jsp.decorator.AllTests.suite());
         suite.addTest(org.opencms.jsp.search.config.AllTests.suite());
         suite.addTest(org.opencms.jsp.search.config.parser.AllTests.suite());
         suite.addTest(org.opencms.jsp.util.AllTests.suite());
         suite.addTest(org.opencms.loader.AllTests.suite());
+        suite.addTest(org.opencms.lock.AllTests.suite());
         suite.addTest(org.opencms.mail.AllTests.suite());
         suite.addTest(org.opencms.main.AllTests.suite());
         suite.addTest(org.opencms.module.AllTests.suite());
@@ -115,6 +117,7 @@ public final class AllTests {
         suite.addTest(org.opencms.search.solr.AllTests.suite());
         suite.addTest(org.opencms.security.AllTests.suite());
         suite.addTest(org.opencms.site.AllTests.suite());
+        suite.addTest(org.opencms.site.xmlsitemap.AllTests.suite());
         suite.addTest(org.opencms.staticexport.AllTests.suite());
         suite.addTest(org.opencms.synchronize.AllTests.suite());
         suite.addTest(org.opencms.ui.apps.AllTests.suite());
@@ -60,6 +60,7 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsXmlContent.class));
         suite.addTest(new TestSuite(TestCmsXmlContentDefinition.class));
+        suite.addTest(new TestSuite(TestCmsXmlContentDocumentCache.class));
         suite.addTest(TestCmsXmlContentSearchSettings.suite());
         suite.addTest(TestCmsXmlContentWithVfs.suite());
         suite.addTest(TestCmsXmlContentResourceBundlesGerman.suite());
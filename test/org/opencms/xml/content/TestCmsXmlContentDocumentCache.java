@@ -0,0 +1,114 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+
+/**
+ * Test cases for the {@link org.opencms.xml.content.CmsXmlContentDocumentCache}.<p>
+ */
+public class TestCmsXmlContentDocumentCache extends OpenCmsTestCase {
+
+    /** The XML used for testing. */
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Articles><Article><Title>Test</Title></Article></Articles>";
+
+    /**
+     * Tests that every caller gets its own copy of the cached document.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCopies() throws Exception {
+
+        CmsXmlContentDocumentCache cache = new CmsXmlContentDocumentCache(10);
+        CmsUUID id = new CmsUUID();
+        byte[] contents = XML.getBytes("UTF-8");
+        Document parsed = DocumentHelper.parseText(XML);
+        cache.putDocument(false, id, 1L, "UTF-8", contents, parsed);
+
+        // changing the parsed document must not change the cached one
+        parsed.getRootElement().clearContent();
+        Document first = cache.getDocument(false, id, 1L, "UTF-8", contents);
+        assertNotNull(first);
+        assertEquals(1, first.getRootElement().elements().size());
+
+        first.getRootElement().clearContent();
+        Document second = cache.getDocument(false, id, 1L, "UTF-8", contents);
+        assertNotSame(first, second);
+        assertEquals(1, second.getRootElement().elements().size());
+    }
+
+    /**
+     * Tests that changed files are not served from the cache.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMismatch() throws Exception {
+
+        CmsXmlContentDocumentCache cache = new CmsXmlContentDocumentCache(10);
+        CmsUUID id = new CmsUUID();
+        byte[] contents = XML.getBytes("UTF-8");
+        cache.putDocument(false, id, 1L, "UTF-8", contents, DocumentHelper.parseText(XML));
+
+        assertNotNull(cache.getDocument(false, id, 1L, "UTF-8", contents));
+        assertNull(cache.getDocument(true, id, 1L, "UTF-8", contents));
+        assertNull(cache.getDocument(false, new CmsUUID(), 1L, "UTF-8", contents));
+        assertNull(cache.getDocument(false, id, 2L, "UTF-8", contents));
+        assertNull(cache.getDocument(false, id, 1L, "ISO-8859-1", contents));
+        assertNull(cache.getDocument(false, id, 1L, "UTF-8", XML.replace("Test", "Tost").getBytes("UTF-8")));
+    }
+
+    /**
+     * Tests that publishing flushes the online documents only.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPublishFlush() throws Exception {
+
+        CmsXmlContentDocumentCache cache = new CmsXmlContentDocumentCache(10);
+        CmsUUID id = new CmsUUID();
+        byte[] contents = XML.getBytes("UTF-8");
+        cache.putDocument(false, id, 1L, "UTF-8", contents, DocumentHelper.parseText(XML));
+        cache.putDocument(true, id, 1L, "UTF-8", contents, DocumentHelper.parseText(XML));
+
+        cache.cmsEvent(
+            new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, Collections.<String, Object> emptyMap()));
+        assertNull(cache.getDocument(true, id, 1L, "UTF-8", contents));
+        assertNotNull(cache.getDocument(false, id, 1L, "UTF-8", contents));
+
+        cache.cmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, Collections.<String, Object> emptyMap()));
+        assertNull(cache.getDocument(false, id, 1L, "UTF-8", contents));
+    }
+}